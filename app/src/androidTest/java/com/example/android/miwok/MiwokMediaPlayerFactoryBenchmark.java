@@ -0,0 +1,59 @@
+package com.example.android.miwok;
+
+import android.content.Context;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.android.miwok.media.MiwokAudioBundle;
+import com.example.android.miwok.media.MiwokAudioManagerFactory;
+import com.example.android.miwok.media.MiwokMediaPlayerFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Benchmarks the media player create and release cycle of a word tap. The
+ * clip is preloaded like the fragments do, so once warmed up the benchmark
+ * measures the sound pool fast path.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class MiwokMediaPlayerFactoryBenchmark {
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private Context context;
+    private int soundId;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        MiwokAudioManagerFactory.getInstance().create(context);
+        soundId = MiwokAudioBundle.getInstance().findSound(context, "number_one");
+        MiwokMediaPlayerFactory.getInstance().preload(context, soundId);
+    }
+
+    @After
+    public void tearDown() {
+        MiwokMediaPlayerFactory.getInstance().releaseMediaPlayer();
+        MiwokAudioManagerFactory.getInstance().cleanup();
+    }
+
+    @Test
+    public void createAndRelease() {
+        final MiwokMediaPlayerFactory mediaPlayerFactory = MiwokMediaPlayerFactory.getInstance();
+
+        final BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            mediaPlayerFactory.create(context, soundId);
+            mediaPlayerFactory.releaseMediaPlayer();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.android.miwok;
+
+import android.app.Instrumentation;
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.android.miwok.startup.MiwokStartup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures the time from the creation of MainActivity to its first drawn
+ * frame. The startup is only measured for the first launch of the process, so
+ * run this class on its own for a number that doesn't depend on other tests,
+ * e.g. with {@code -e class com.example.android.miwok.MiwokStartupTest}. The
+ * process is started by the instrumentation, so this doesn't include the
+ * process start: use {@code adb shell am start -W} for that.
+ *
+ * <p>The times are logged, and reported as instrumentation results
+ * ({@code am instrument -r}).
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class MiwokStartupTest {
+    private static final String LOG_TAG = "MiwokStartupTest";
+    private static final long FIRST_FRAME_TIMEOUT_SECONDS = 10;
+
+    @Test
+    public void timeToFirstFrame() throws InterruptedException {
+        final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        try (ActivityScenario<MainActivity> scenario =
+                     ActivityScenario.launch(MainActivity.class)) {
+            awaitFirstFrame(instrumentation);
+
+            final MiwokStartup startup = MiwokStartup.getInstance();
+            final long timeToFirstFrame = startup.getTimeToFirstFrameMillis();
+            Log.i(LOG_TAG, "Time to first frame: " + timeToFirstFrame + " ms");
+
+            final Bundle results = new Bundle();
+            results.putLong("time_to_first_frame_ms", timeToFirstFrame);
+            instrumentation.sendStatus(0, results);
+
+            assertTrue(startup.isFirstFrameDrawn());
+            assertTrue(timeToFirstFrame >= 0);
+        }
+    }
+
+    /**
+     * Waits until MainActivity has drawn its first frame and the work deferred
+     * until then has been run.
+     * @param instrumentation instrumentation running the test.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private static void awaitFirstFrame(Instrumentation instrumentation) throws InterruptedException {
+        final CountDownLatch firstFrame = new CountDownLatch(1);
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                MiwokStartup.getInstance().runAfterFirstFrame(new Runnable() {
+                    @Override
+                    public void run() {
+                        firstFrame.countDown();
+                    }
+                });
+            }
+        });
+        assertTrue("No first frame",
+                firstFrame.await(FIRST_FRAME_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+}
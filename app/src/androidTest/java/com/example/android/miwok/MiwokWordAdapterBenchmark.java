@@ -0,0 +1,83 @@
+package com.example.android.miwok;
+
+import android.content.Context;
+import android.view.ContextThemeWrapper;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.android.miwok.vocabulary.MiwokCategory;
+import com.example.android.miwok.vocabulary.MiwokVocabularyRepository;
+import com.example.android.miwok.vocabulary.MiwokWordTable;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Benchmarks creating and binding the rows of a word list, which is what
+ * scrolling a category costs.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class MiwokWordAdapterBenchmark {
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private MiwokWordAdapter wordsAdapter;
+    private RecyclerView wordsRecyclerView;
+    private int wordCount;
+
+    @Before
+    public void setUp() {
+        final Context context = new ContextThemeWrapper(
+                InstrumentationRegistry.getInstrumentation().getTargetContext(),
+                R.style.AppTheme);
+
+        /* the family category has both images and translations to bind */
+        final MiwokCategory category = MiwokVocabularyRepository.getInstance()
+                .getVocabulary(context).findCategory("family");
+        wordCount = category.getWordCount();
+        wordsAdapter = new MiwokWordAdapter(category.getColorResourceId(),
+                new MiwokWordAdapter.OnWordClickListener() {
+                    @Override
+                    public void onWordClick(MiwokWordTable wordTable, int wordIndex,
+                                            int position) {
+                    }
+                });
+        wordsAdapter.setWords(category.getWordTable(), category.getFirstWord(), wordCount);
+
+        wordsRecyclerView = new RecyclerView(context);
+        wordsRecyclerView.setLayoutManager(new LinearLayoutManager(context));
+    }
+
+    @Test
+    @UiThreadTest
+    public void bindRow() {
+        final MiwokWordAdapter.MiwokWordViewHolder holder =
+                wordsAdapter.onCreateViewHolder(wordsRecyclerView, 0);
+
+        final BenchmarkState state = benchmarkRule.getState();
+        int position = 0;
+        while (state.keepRunning()) {
+            wordsAdapter.onBindViewHolder(holder, position);
+            position = (position + 1) % wordCount;
+        }
+    }
+
+    @Test
+    @UiThreadTest
+    public void createRow() {
+        final BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            wordsAdapter.onCreateViewHolder(wordsRecyclerView, 0);
+        }
+    }
+}
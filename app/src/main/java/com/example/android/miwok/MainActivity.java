@@ -1,31 +1,277 @@
 package com.example.android.miwok;
 
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.fragment.app.FragmentPagerAdapter;
-import androidx.viewpager.widget.ViewPager;
+import androidx.annotation.NonNull;
+import androidx.appcompat.widget.SearchView;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.viewpager2.widget.ViewPager2;
 
+import android.content.Intent;
+import android.media.AudioManager;
 import android.os.Bundle;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.View;
 
+import com.example.android.miwok.media.MiwokAudioManagerFactory;
+import com.example.android.miwok.media.MiwokMediaPlayerFactory;
+import com.example.android.miwok.media.MiwokPlayer;
+import com.example.android.miwok.progress.MiwokProgressRepository;
+import com.example.android.miwok.startup.MiwokStartup;
+import com.example.android.miwok.trace.MiwokLatencyTracer;
+import com.example.android.miwok.vocabulary.MiwokSearchIndex;
+import com.example.android.miwok.vocabulary.MiwokVocabulary;
+import com.example.android.miwok.vocabulary.MiwokVocabularyRepository;
+import com.example.android.miwok.vocabulary.MiwokWordTable;
 import com.google.android.material.tabs.TabLayout;
+import com.google.android.material.tabs.TabLayoutMediator;
+
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 
 public class MainActivity extends AppCompatActivity {
+    /* number of word rows kept by the shared pool, about two screens worth */
+    private static final int MAX_RECYCLED_WORD_ROWS = 16;
+    /* number of word rows inflated ahead of the first scroll, about a screen worth */
+    private static final int PRE_INFLATED_WORD_ROWS = 8;
+
+    /*
+     * all the category lists use the same row layout, so they share their
+     * recycled rows instead of inflating their own.
+     */
+    private final RecyclerView.RecycledViewPool wordsRecycledViewPool =
+            new RecyclerView.RecycledViewPool();
+
+    private RecyclerView searchResultsView;
+    private MiwokSearchResultAdapter searchResultAdapter;
+    /* latest query typed, searched once the search index is built */
+    private String searchQuery = "";
+
+    /* show the results of the latest query, as soon as the search index is built */
+    private final MiwokVocabularyRepository.OnSearchIndexLoadedListener searchIndexLoadedListener =
+            new MiwokVocabularyRepository.OnSearchIndexLoadedListener() {
+                @Override
+                public void onSearchIndexLoaded(MiwokSearchIndex searchIndex) {
+                    if (isDestroyed() || searchQuery.trim().isEmpty()) {
+                        return;
+                    }
+
+                    searchIndex.search(searchQuery, MiwokSearchIndex.DEFAULT_MAX_RESULTS,
+                            searchResultAdapter.getResults());
+                    searchResultAdapter.onResultsChanged();
+                    searchResultsView.scrollToPosition(0);
+                    searchResultsView.setVisibility(View.VISIBLE);
+                }
+            };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        final MiwokStartup startup = MiwokStartup.getInstance();
+        startup.onLaunch();
         super.onCreate(savedInstanceState);
+
+        startup.beginPhase("inflate");
         setContentView(R.layout.activity_main);
+        startup.endPhase();
+        startup.watchFirstFrame(this);
 
-        final ViewPager categoryViewPager = findViewById(R.id.miwok_viewpager);
+        wordsRecycledViewPool.setMaxRecycledViews(0, MAX_RECYCLED_WORD_ROWS);
 
-        /* Create an adapter that knows which fragment should be shown on each page */
+        final ViewPager2 categoryViewPager = findViewById(R.id.miwok_viewpager);
+
+        /* the tabs need the categories: the vocabulary is the only data loaded up front */
+        startup.beginPhase("vocabulary");
+        final MiwokVocabulary vocabulary =
+                MiwokVocabularyRepository.getInstance().getVocabulary(this);
+        startup.endPhase();
+
+        /* Create an adapter showing a page per category of the vocabulary */
+        startup.beginPhase("pager");
         final MiwokCategoryPagerAdapter categoryPagerAdapter =
-                new MiwokCategoryPagerAdapter(this, getSupportFragmentManager(),
-                        FragmentPagerAdapter.BEHAVIOR_RESUME_ONLY_CURRENT_FRAGMENT);
+                new MiwokCategoryPagerAdapter(this, vocabulary);
 
         /* Set the adapter onto the view pager */
         categoryViewPager.setAdapter(categoryPagerAdapter);
 
         final TabLayout miwokTabLayout = findViewById(R.id.miwok_tabs);
-        miwokTabLayout.setupWithViewPager(categoryViewPager);
+        new TabLayoutMediator(miwokTabLayout, categoryViewPager,
+                new TabLayoutMediator.TabConfigurationStrategy() {
+                    @Override
+                    public void onConfigureTab(@NonNull TabLayout.Tab tab, int position) {
+                        tab.setText(categoryPagerAdapter.getPageTitleResourceId(position));
+                    }
+                }).attach();
+
+        /* let the audio prefetcher follow the selected category */
+        categoryViewPager.registerOnPageChangeCallback(new ViewPager2.OnPageChangeCallback() {
+            @Override
+            public void onPageSelected(int position) {
+                MiwokMediaPlayerFactory.getInstance().getAudioPrefetcher()
+                        .onCategorySelected(position);
+            }
+        });
+        startup.endPhase();
+
+        /* search results play their word when clicked, like the category lists */
+        startup.beginPhase("search");
+        searchResultAdapter = new MiwokSearchResultAdapter(
+                new MiwokWordAdapter.OnWordClickListener() {
+                    @Override
+                    public void onWordClick(MiwokWordTable wordTable, int wordIndex,
+                                            int position) {
+                        MiwokLatencyTracer.getInstance()
+                                .onTap(MiwokLatencyTracer.CATEGORY_SEARCH);
+                        MiwokProgressRepository.getInstance().getStore(MainActivity.this)
+                                .recordPlay(wordIndex, System.currentTimeMillis());
+                        playWord(wordTable.getSoundId(wordIndex));
+                    }
+                });
+        searchResultsView = findViewById(R.id.miwok_search_results);
+        searchResultsView.setLayoutManager(new LinearLayoutManager(this));
+        searchResultsView.setRecycledViewPool(wordsRecycledViewPool);
+        searchResultsView.setAdapter(searchResultAdapter);
+        startup.endPhase();
+
+        /*
+         * once the first frame is drawn, inflate the rows of the first scroll,
+         * start loading the progress, before the first tap records to it, and
+         * start building the search index, before the first keystroke
+         */
+        startup.runAfterFirstFrame(new Runnable() {
+            @Override
+            public void run() {
+                if (!isDestroyed()) {
+                    MiwokListItemPool.getInstance().fill(MainActivity.this,
+                            PRE_INFLATED_WORD_ROWS);
+                    MiwokProgressRepository.getInstance().getStore(MainActivity.this);
+                    MiwokVocabularyRepository.getInstance().loadSearchIndex(MainActivity.this,
+                            searchIndexLoadedListener);
+                }
+            }
+        });
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_main, menu);
+
+        final SearchView searchView =
+                (SearchView) menu.findItem(R.id.action_search).getActionView();
+        searchView.setQueryHint(getString(R.string.search_hint));
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                /* results are already shown as the user types */
+                searchView.clearFocus();
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String query) {
+                search(query);
+                return true;
+            }
+        });
+
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.action_review) {
+            startActivity(new Intent(this, ReviewActivity.class));
+            return true;
+        }
+        if (item.getItemId() == R.id.action_quiz) {
+            startActivity(new Intent(this, QuizActivity.class));
+            return true;
+        }
+        if (item.getItemId() == R.id.action_pronunciation) {
+            startActivity(new Intent(this, PronunciationActivity.class));
+            return true;
+        }
+
+        return super.onOptionsItemSelected(item);
+    }
+
+    /*
+     * search the words matching the query, or go back to the categories if
+     * the query is empty. The results are shown right away once the search
+     * index is built, and as soon as it is otherwise.
+     */
+    private void search(String query) {
+        searchQuery = query;
+        if (query.trim().isEmpty()) {
+            searchResultsView.setVisibility(View.GONE);
+            return;
+        }
+
+        MiwokVocabularyRepository.getInstance().loadSearchIndex(this, searchIndexLoadedListener);
+    }
+
+    private void playWord(int soundId) {
+        /* request audio focus and play the translation audio file */
+        if (MiwokAudioManagerFactory.getInstance()
+                .requestAudioFocus() == AudioManager.AUDIOFOCUS_REQUEST_GRANTED) {
+            /* create a new media player object in the background and play it once ready */
+            MiwokMediaPlayerFactory.getInstance().createAsync(this, soundId,
+                    new MiwokMediaPlayerFactory.OnPlayerReadyListener() {
+                        @Override
+                        public void onPlayerReady(MiwokPlayer player) {
+                            player.start();
+                        }
+                    });
+        }
+    }
+
+    /**
+     * getter method for the view pool shared by the category word lists.
+     * @return RecyclerView.RecycledViewPool shared view pool.
+     */
+    public RecyclerView.RecycledViewPool getWordsRecycledViewPool() {
+        return wordsRecycledViewPool;
+    }
+
+    /**
+     * Prints the startup phases, tap latencies, row pool and audio focus
+     * counters of debug builds, with {@code adb shell dumpsys activity com.example.android.miwok}.
+     */
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+
+        if (BuildConfig.DEBUG) {
+            MiwokStartup.getInstance().dump(writer);
+            MiwokLatencyTracer.getInstance().dump(writer);
+            MiwokListItemPool.getInstance().dump(writer);
+
+            final MiwokAudioManagerFactory audioManagerFactory =
+                    MiwokAudioManagerFactory.getInstance();
+            writer.println("Audio focus requests: "
+                    + audioManagerFactory.getFocusRequestCount() + " sent, "
+                    + audioManagerFactory.getAvoidedFocusRequestCount() + " avoided");
+        }
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+
+        /* write the progress now, the process may be killed from now on */
+        MiwokProgressRepository.getInstance().flush();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+
+        /* the pooled rows belong to this activity */
+        MiwokListItemPool.getInstance().clear();
+
+        if (isFinishing()) {
+            /* the app is closing. Free the audio clips held in memory */
+            MiwokMediaPlayerFactory.getInstance().releaseSoundPool();
+        }
     }
 }
@@ -0,0 +1,56 @@
+package com.example.android.miwok;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+
+import androidx.annotation.NonNull;
+
+import com.example.android.miwok.media.MiwokAudioManagerFactory;
+
+/**
+ * This {@link Application} sets up what the screens of the Miwok app share.
+ * The audio manager is created once for the app, and the audio focus session
+ * follows the visible screens: it ends once the app isn't visible anymore.
+ */
+public class MiwokApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        MiwokAudioManagerFactory.getInstance().create(this);
+        registerActivityLifecycleCallbacks(new ActivityLifecycleCallbacks() {
+            @Override
+            public void onActivityCreated(@NonNull Activity activity, Bundle savedInstanceState) {
+            }
+
+            @Override
+            public void onActivityStarted(@NonNull Activity activity) {
+                MiwokAudioManagerFactory.getInstance().onScreenStarted();
+            }
+
+            @Override
+            public void onActivityResumed(@NonNull Activity activity) {
+            }
+
+            @Override
+            public void onActivityPaused(@NonNull Activity activity) {
+            }
+
+            @Override
+            public void onActivityStopped(@NonNull Activity activity) {
+                MiwokAudioManagerFactory.getInstance().onScreenStopped();
+            }
+
+            @Override
+            public void onActivitySaveInstanceState(@NonNull Activity activity,
+                                                    @NonNull Bundle outState) {
+            }
+
+            @Override
+            public void onActivityDestroyed(@NonNull Activity activity) {
+            }
+        });
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.android.miwok;
+
+import android.media.AudioManager;
+import android.os.Bundle;
+
+import androidx.annotation.NonNull;
+import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.example.android.miwok.media.MiwokAudioManagerFactory;
+import com.example.android.miwok.media.MiwokAudioPrefetcher;
+import com.example.android.miwok.media.MiwokMediaPlayerFactory;
+import com.example.android.miwok.startup.MiwokStartup;
+import com.google.android.material.floatingactionbutton.FloatingActionButton;
+
+/**
+ * This {@link Fragment} shows the words of any vocabulary category: the
+ * category is looked up by its position, passed as an argument. The words and
+ * their adapter are kept by the fragment's {@link MiwokCategoryViewModel}, and
+ * apart from the list scroll position, which its views save, the fragment keeps
+ * no state, so that the pager can destroy it once off screen, view model
+ * included, and recreate it cheaply from the shared vocabulary when it's back.
+ */
+public class MiwokCategoryFragment extends Fragment {
+    /* fragment argument holding the position of the category in the pager */
+    private static final String ARG_CATEGORY_POSITION = "category_position";
+
+    /* if this category's words are being played back to back */
+    private boolean playingAll;
+    private RecyclerView wordsRecyclerView;
+
+    public MiwokCategoryFragment() {
+        // Required empty public constructor
+    }
+
+    /**
+     * static method to create the fragment of a category.
+     * @param position position of the category in the vocabulary.
+     * @return MiwokCategoryFragment new fragment.
+     */
+    public static MiwokCategoryFragment newInstance(int position) {
+        final Bundle arguments = new Bundle();
+        arguments.putInt(ARG_CATEGORY_POSITION, position);
+
+        final MiwokCategoryFragment fragment = new MiwokCategoryFragment();
+        fragment.setArguments(arguments);
+        return fragment;
+    }
+
+    @Override
+    public View onCreateView(LayoutInflater inflater, ViewGroup container,
+                             Bundle savedInstanceState) {
+        MiwokStartup.getInstance().beginPhase("category view");
+        final View rootView = inflater.inflate(R.layout.activity_miwok_words, container, false);
+
+        /*
+         * the category's words and their adapter are kept across the fragment's
+         * views, e.g. on rotation, and go away with the fragment
+         */
+        final int categoryPosition = requireArguments().getInt(ARG_CATEGORY_POSITION);
+        final MiwokCategoryViewModel viewModel = new ViewModelProvider(this)
+                .get(MiwokCategoryViewModel.class);
+        viewModel.setCategory(requireContext(), categoryPosition);
+        final int[] soundIds = viewModel.getSoundIds();
+        final MiwokWordAdapter wordsAdapter = viewModel.getWordsAdapter();
+        final MiwokAudioPrefetcher audioPrefetcher =
+                MiwokMediaPlayerFactory.getInstance().getAudioPrefetcher();
+
+        final LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        /* hand the rows over to the shared pool when this view is destroyed */
+        layoutManager.setRecycleChildrenOnDetach(true);
+
+        wordsRecyclerView = rootView.findViewById(R.id.miwok_words_list);
+        wordsRecyclerView.setHasFixedSize(true);
+        wordsRecyclerView.setLayoutManager(layoutManager);
+        wordsRecyclerView.setRecycledViewPool(
+                ((MainActivity) requireActivity()).getWordsRecycledViewPool());
+        wordsRecyclerView.setAdapter(wordsAdapter);
+        wordsRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                final int firstVisibleRow = layoutManager.findFirstVisibleItemPosition();
+                if (firstVisibleRow != RecyclerView.NO_POSITION) {
+                    audioPrefetcher.onVisibleRowsChanged(categoryPosition, firstVisibleRow,
+                            layoutManager.findLastVisibleItemPosition() - firstVisibleRow + 1);
+                }
+            }
+        });
+
+        /* play all the category's words back to back, highlighting the one being played */
+        final FloatingActionButton playAllButton = rootView.findViewById(R.id.miwok_play_all);
+        final MiwokMediaPlayerFactory.OnQueueProgressListener queueListener =
+                new MiwokMediaPlayerFactory.OnQueueProgressListener() {
+                    @Override
+                    public void onQueueClipStarted(int position) {
+                        wordsAdapter.setPlayingPosition(position);
+                        layoutManager.scrollToPosition(position);
+                    }
+
+                    @Override
+                    public void onQueueStopped() {
+                        playingAll = false;
+                        wordsAdapter.setPlayingPosition(RecyclerView.NO_POSITION);
+                        playAllButton.setImageResource(R.drawable.ic_play_arrow);
+                        playAllButton.setContentDescription(
+                                playAllButton.getResources().getString(R.string.play_all));
+                    }
+                };
+        playAllButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                if (playingAll) {
+                    MiwokMediaPlayerFactory.getInstance().releaseMediaPlayer();
+                } else if (MiwokAudioManagerFactory.getInstance()
+                        .requestAudioFocus() == AudioManager.AUDIOFOCUS_REQUEST_GRANTED) {
+                    playingAll = true;
+                    playAllButton.setImageResource(R.drawable.ic_stop);
+                    playAllButton.setContentDescription(getString(R.string.stop_playing));
+                    MiwokMediaPlayerFactory.getInstance().playQueue(getContext(),
+                            soundIds, queueListener);
+                }
+            }
+        });
+
+        MiwokStartup.getInstance().endPhase();
+        return rootView;
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+
+        /* the adapter outlives the list: let it go of the list's rows */
+        wordsRecyclerView.setAdapter(null);
+        wordsRecyclerView = null;
+    }
+
+    @Override
+    public void onPause() {
+        super.onPause();
+
+        /* app is not in foreground. Release the media player */
+        MiwokMediaPlayerFactory.getInstance().releaseMediaPlayer();
+    }
+}
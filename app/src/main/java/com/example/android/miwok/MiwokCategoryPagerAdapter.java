@@ -1,58 +1,50 @@
 package com.example.android.miwok;
 
-import android.content.Context;
-
 import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
-import androidx.fragment.app.FragmentManager;
-import androidx.fragment.app.FragmentPagerAdapter;
-
-public class MiwokCategoryPagerAdapter extends FragmentPagerAdapter {
-    private final Context mContext;
-
-    public MiwokCategoryPagerAdapter(Context context, @NonNull FragmentManager fm, int behavior) {
-        super(fm, behavior);
-        mContext = context;
+import androidx.fragment.app.FragmentActivity;
+import androidx.viewpager2.adapter.FragmentStateAdapter;
+
+import com.example.android.miwok.vocabulary.MiwokVocabulary;
+
+/**
+ * This adapter shows a page per category of the vocabulary, in the
+ * vocabulary's order, all with the same {@link MiwokCategoryFragment}. Pages
+ * are created when they're about to be shown, and destroyed once off screen,
+ * with only their saved view state kept: the memory used doesn't grow with the
+ * number of categories.
+ */
+public class MiwokCategoryPagerAdapter extends FragmentStateAdapter {
+    private final MiwokVocabulary vocabulary;
+
+    /**
+     * constructor
+     * @param activity activity hosting the pager.
+     * @param vocabulary vocabulary whose categories are shown.
+     */
+    public MiwokCategoryPagerAdapter(@NonNull FragmentActivity activity,
+                                     MiwokVocabulary vocabulary) {
+        super(activity);
+        this.vocabulary = vocabulary;
     }
 
     @NonNull
     @Override
-    public Fragment getItem(int position) {
-        switch (position) {
-            case 0:
-                return new NumbersFragment();
-            case 1:
-                return new FamilyFragment();
-            case 2:
-                return new ColorsFragment();
-            case 3:
-                return new PhrasesFragment();
-            default:
-                return null;
-        }
+    public Fragment createFragment(int position) {
+        return MiwokCategoryFragment.newInstance(position);
     }
 
     @Override
-    public int getCount() {
-        return 4;
+    public int getItemCount() {
+        return vocabulary.getCategoryCount();
     }
 
-    @Nullable
-    @Override
-    public CharSequence getPageTitle(int position) {
-        switch (position) {
-            case 0:
-                return mContext.getString(R.string.category_numbers);
-            case 1:
-                return mContext.getString(R.string.category_family_members);
-            case 2:
-                return mContext.getString(R.string.category_colors);
-            case 3:
-                return mContext.getString(R.string.category_phrases);
-            default:
-                return null;
-        }
-
+    /**
+     * getter method for the title of a page.
+     * @param position position of the category.
+     * @return int string resource id of the category title.
+     */
+    public int getPageTitleResourceId(int position) {
+        return vocabulary.getCategory(position).getTitleResourceId();
     }
 }
@@ -0,0 +1,140 @@
+package com.example.android.miwok;
+
+import android.content.Context;
+import android.media.AudioManager;
+
+import androidx.lifecycle.ViewModel;
+
+import com.example.android.miwok.media.MiwokAudioManagerFactory;
+import com.example.android.miwok.media.MiwokMediaPlayerFactory;
+import com.example.android.miwok.media.MiwokPlayer;
+import com.example.android.miwok.progress.MiwokProgressRepository;
+import com.example.android.miwok.startup.MiwokStartup;
+import com.example.android.miwok.trace.MiwokLatencyTracer;
+import com.example.android.miwok.vocabulary.MiwokCategory;
+import com.example.android.miwok.vocabulary.MiwokVocabularyRepository;
+import com.example.android.miwok.vocabulary.MiwokWordTable;
+
+/**
+ * This {@link ViewModel} holds what the list of a category needs beyond its
+ * views: the category, taken from the vocabulary snapshot shared by the app,
+ * its sound ids and the adapter binding its words. It's scoped to the
+ * category's fragment and set up once, so that recreating the list view, e.g.
+ * after a rotation, only hands the same adapter to the new list. It's cleared
+ * along with the fragment, once the pager lets go of the category's page.
+ *
+ * <p>The adapter outlives the views, so nothing it holds may refer to a
+ * fragment, a view or an activity: its click listener only uses the
+ * application context.
+ */
+public class MiwokCategoryViewModel extends ViewModel {
+    private int position;
+    private boolean cleared;
+    private MiwokCategory category;
+    private int[] soundIds;
+    private MiwokWordAdapter wordsAdapter;
+
+    /**
+     * This method sets the category up, unless already done.
+     * @param context context used to load the vocabulary and the audio clips.
+     * @param position position of the category in the vocabulary.
+     */
+    public void setCategory(Context context, final int position) {
+        if (category != null) {
+            return;
+        }
+
+        this.position = position;
+        final Context appContext = context.getApplicationContext();
+        /* query the category from the vocabulary, which is loaded once for the app */
+        category = MiwokVocabularyRepository.getInstance().getVocabulary(appContext)
+                .getCategory(position);
+
+        soundIds = category.getSoundIds();
+        /*
+         * start the media engines once the first frame is drawn: nothing can
+         * be tapped before, and a tap on a clip not loaded yet still plays it
+         */
+        MiwokStartup.getInstance().runAfterFirstFrame(new Runnable() {
+            @Override
+            public void run() {
+                if (cleared) {
+                    /* the category's page is already gone */
+                    return;
+                }
+
+                /* load the category's audio clips once, so that taps play them from memory */
+                MiwokMediaPlayerFactory.getInstance().preload(appContext, soundIds);
+
+                /* let the audio prefetcher warm the clips of the rows about to be tapped */
+                MiwokMediaPlayerFactory.getInstance().getAudioPrefetcher()
+                        .setCategory(appContext, position, soundIds);
+            }
+        });
+
+        /*
+         * Create a {@link MiwokWordAdapter} to display the category's words in
+         * a RecyclerView. The adapter binds the words straight from the
+         * vocabulary's word table to rows whose views are cached in view
+         * holders.
+         */
+        wordsAdapter = new MiwokWordAdapter(category.getColorResourceId(),
+                new MiwokWordAdapter.OnWordClickListener() {
+                    @Override
+                    public void onWordClick(MiwokWordTable wordTable, int wordIndex,
+                                            int wordPosition) {
+                        MiwokLatencyTracer.getInstance().onTap(position);
+                        /* the category's table is the vocabulary's, indexed like the cards */
+                        MiwokProgressRepository.getInstance().getStore(appContext)
+                                .recordPlay(wordIndex, System.currentTimeMillis());
+
+                        /* request audio focus and play the translation audio file */
+                        if (MiwokAudioManagerFactory.getInstance()
+                                .requestAudioFocus() == AudioManager.AUDIOFOCUS_REQUEST_GRANTED) {
+                            /*
+                             * create a new media player object in the background
+                             * and play the audio once it's ready
+                             */
+                            MiwokMediaPlayerFactory.getInstance().createAsync(appContext,
+                                    wordTable.getSoundId(wordIndex),
+                                    new MiwokMediaPlayerFactory.OnPlayerReadyListener() {
+                                        @Override
+                                        public void onPlayerReady(MiwokPlayer player) {
+                                            player.start();
+                                        }
+                                    });
+                        }
+                    }
+                });
+        wordsAdapter.setWords(category.getWordTable(), category.getFirstWord(),
+                category.getWordCount());
+    }
+
+    @Override
+    protected void onCleared() {
+        cleared = true;
+        if (soundIds != null) {
+            /* stop warming the clips of a page that's gone */
+            MiwokMediaPlayerFactory.getInstance().getAudioPrefetcher()
+                    .removeCategory(position, soundIds);
+        }
+        wordsAdapter = null;
+    }
+
+    /**
+     * getter method for the sound ids of the category's words. The array is
+     * shared, and must not be modified.
+     * @return int[] sound ids, in display order.
+     */
+    public int[] getSoundIds() {
+        return soundIds;
+    }
+
+    /**
+     * getter method for the adapter of the category's words.
+     * @return MiwokWordAdapter adapter binding the words.
+     */
+    public MiwokWordAdapter getWordsAdapter() {
+        return wordsAdapter;
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.android.miwok;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.annotation.NonNull;
+import androidx.asynclayoutinflater.view.AsyncLayoutInflater;
+
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+
+/**
+ * This singleton class keeps R.layout.miwok_list_item rows inflated ahead of
+ * time, so that the first scroll of a list doesn't inflate its new rows on the
+ * main thread while the user is scrolling.
+ *
+ * <p>The rows are inflated on the background thread of an
+ * {@link AsyncLayoutInflater} once the launch activity is idle, and handed to
+ * the adapters, which only inflate a row themselves when the pool is empty.
+ * Rows hold the context of the activity they were inflated for, so the pool
+ * must be cleared when that activity is destroyed. All the methods are meant
+ * to be called on the main thread.
+ */
+public class MiwokListItemPool {
+    private static MiwokListItemPool instance;
+
+    private final ArrayDeque<View> listItemViews = new ArrayDeque<>();
+    /* inflater of the current fill, null once cleared */
+    private AsyncLayoutInflater inflater;
+    private Context context;
+    /* rows requested from the inflater and not inflated yet */
+    private int pendingCount;
+    private int hitCount;
+    private int missCount;
+
+    /**
+     * private constructor.
+     */
+    private MiwokListItemPool() {}
+
+    /**
+     * static method to get the singleton class instance.
+     * @return singleton class instance.
+     */
+    public static MiwokListItemPool getInstance() {
+        if (instance == null) {
+            synchronized (MiwokListItemPool.class) {
+                if (instance == null) {
+                    instance = new MiwokListItemPool();
+                }
+            }
+        }
+
+        return instance;
+    }
+
+    /**
+     * This method inflates rows in the background until the pool holds the
+     * given number of rows.
+     * @param context activity the rows are shown in.
+     * @param size number of rows to keep ready.
+     */
+    public void fill(@NonNull Context context, int size) {
+        if (this.context != context) {
+            clear();
+            this.context = context;
+            inflater = new AsyncLayoutInflater(context);
+        }
+
+        /*
+         * the rows are inflated with a parent of their own, only used for
+         * their layout params: a RecyclerView converts them when it adds a row.
+         */
+        final FrameLayout parent = new FrameLayout(context);
+        final AsyncLayoutInflater fillInflater = inflater;
+        for (int i = listItemViews.size() + pendingCount; i < size; i++) {
+            pendingCount++;
+            inflater.inflate(R.layout.miwok_list_item, parent,
+                    new AsyncLayoutInflater.OnInflateFinishedListener() {
+                        @Override
+                        public void onInflateFinished(@NonNull View view, int resid,
+                                                      ViewGroup viewParent) {
+                            /* drop the rows of a fill started for a destroyed activity */
+                            if (inflater == fillInflater) {
+                                pendingCount--;
+                                listItemViews.add(view);
+                            }
+                        }
+                    });
+        }
+    }
+
+    /**
+     * This method gives a row of the pool, or inflates one if the pool is
+     * empty.
+     * @param parent list the row will be added to.
+     * @return View R.layout.miwok_list_item row, not attached to the parent.
+     */
+    @NonNull
+    public View obtain(@NonNull ViewGroup parent) {
+        if (!listItemViews.isEmpty() && parent.getContext() == context) {
+            hitCount++;
+            return listItemViews.poll();
+        }
+
+        missCount++;
+        return LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.miwok_list_item, parent, false);
+    }
+
+    /**
+     * This method drops the rows of the pool, and the ones still being
+     * inflated.
+     */
+    public void clear() {
+        listItemViews.clear();
+        inflater = null;
+        context = null;
+        pendingCount = 0;
+    }
+
+    /**
+     * getter method for the number of rows taken from the pool.
+     * @return int number of rows given without inflating them.
+     */
+    public int getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * getter method for the number of rows inflated because the pool was empty.
+     * @return int number of rows inflated on demand.
+     */
+    public int getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * This method prints the hits and misses of the pool, e.g. for dumpsys.
+     * @param writer writer to print to.
+     */
+    public void dump(PrintWriter writer) {
+        writer.println("List item pool: " + hitCount + " hits, " + missCount + " misses, "
+                + listItemViews.size() + " rows ready");
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.android.miwok;
+
+import android.content.Context;
+
+import androidx.lifecycle.ViewModel;
+
+import com.example.android.miwok.progress.MiwokProgressRepository;
+import com.example.android.miwok.quiz.MiwokQuizGenerator;
+import com.example.android.miwok.quiz.MiwokQuizQuestion;
+import com.example.android.miwok.review.MiwokReviewScheduler;
+import com.example.android.miwok.vocabulary.MiwokCategory;
+import com.example.android.miwok.vocabulary.MiwokVocabulary;
+import com.example.android.miwok.vocabulary.MiwokVocabularyRepository;
+
+import java.util.List;
+
+/**
+ * This {@link ViewModel} holds a quiz session: the question generator, with
+ * the confusion weights learned during the session, and the current question
+ * and its answer, so that they survive a rotation.
+ */
+public class MiwokQuizViewModel extends ViewModel {
+    /** answer of a question not answered yet */
+    public static final int NOT_ANSWERED = -1;
+
+    /* confusion weight added per 0.1 of ease lost in the reviews */
+    private static final int EASE_LOSS_WEIGHT = 1;
+
+    private final MiwokQuizQuestion question = new MiwokQuizQuestion();
+    private MiwokQuizGenerator generator;
+    private boolean hasQuestion;
+    private int answeredOption = NOT_ANSWERED;
+
+    /**
+     * This method sets the quiz up, unless already done. The words the
+     * learner struggles with in the reviews start as confused.
+     * @param context context used to load the vocabulary and the progress.
+     */
+    public void setUp(Context context) {
+        if (generator != null) {
+            return;
+        }
+
+        final MiwokVocabulary vocabulary =
+                MiwokVocabularyRepository.getInstance().getVocabulary(context);
+        final List<MiwokCategory> categories = vocabulary.getCategories();
+        final int[] firstWords = new int[categories.size()];
+        final int[] wordCounts = new int[categories.size()];
+        for (int i = 0; i < categories.size(); i++) {
+            firstWords[i] = categories.get(i).getFirstWord();
+            wordCounts[i] = categories.get(i).getWordCount();
+        }
+        generator = new MiwokQuizGenerator(firstWords, wordCounts, System.nanoTime());
+        hasQuestion = generator.next(question);
+
+        MiwokProgressRepository.getInstance().loadScheduler(context,
+                new MiwokProgressRepository.OnSchedulerLoadedListener() {
+                    @Override
+                    public void onSchedulerLoaded(MiwokReviewScheduler scheduler) {
+                        for (int word = 0; word < scheduler.getCardCount(); word++) {
+                            final int easeLoss =
+                                    MiwokReviewScheduler.INITIAL_EASE - scheduler.getEase(word);
+                            if (easeLoss > 0) {
+                                generator.setConfusionWeight(word, MiwokQuizGenerator.BASE_WEIGHT
+                                        + easeLoss / 100 * EASE_LOSS_WEIGHT);
+                            }
+                        }
+                    }
+                });
+    }
+
+    /**
+     * getter method for the current question.
+     * @return MiwokQuizQuestion current question, or null if the vocabulary
+     *         has no category large enough for a question.
+     */
+    public MiwokQuizQuestion getQuestion() {
+        return hasQuestion ? question : null;
+    }
+
+    /**
+     * getter method for the answer to the current question.
+     * @return int option picked, or {@link #NOT_ANSWERED}.
+     */
+    public int getAnsweredOption() {
+        return answeredOption;
+    }
+
+    /**
+     * This method answers the current question, unless already answered.
+     * @param option option picked.
+     */
+    public void answer(int option) {
+        if (!hasQuestion || answeredOption != NOT_ANSWERED) {
+            return;
+        }
+
+        answeredOption = option;
+        generator.answer(question, option);
+    }
+
+    /**
+     * This method moves on to the next question.
+     */
+    public void next() {
+        answeredOption = NOT_ANSWERED;
+        hasQuestion = generator.next(question);
+    }
+}
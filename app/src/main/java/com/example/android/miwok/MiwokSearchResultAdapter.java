@@ -0,0 +1,79 @@
+package com.example.android.miwok;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.android.miwok.vocabulary.MiwokSearchResults;
+
+/**
+ * This class extends a {@link RecyclerView.Adapter} for the results of a
+ * vocabulary search. Results come from all the categories, so each row is
+ * colored like the category of its word. Rows are the same as the category
+ * lists', so both can share their recycled rows.
+ */
+public class MiwokSearchResultAdapter
+        extends RecyclerView.Adapter<MiwokWordAdapter.MiwokWordViewHolder> {
+    private final MiwokSearchResults results = new MiwokSearchResults();
+    private final MiwokWordAdapter.OnWordClickListener onWordClickListener;
+
+    /**
+     * Custom constructor.
+     * @param onWordClickListener listener notified when a word is clicked.
+     */
+    public MiwokSearchResultAdapter(
+            @NonNull MiwokWordAdapter.OnWordClickListener onWordClickListener) {
+        this.onWordClickListener = onWordClickListener;
+        setHasStableIds(true);
+    }
+
+    /**
+     * getter method for the displayed results. Searches fill this object in
+     * place and then call {@link #onResultsChanged()}.
+     * @return MiwokSearchResults the displayed results.
+     */
+    public MiwokSearchResults getResults() {
+        return results;
+    }
+
+    /**
+     * This method rebinds the rows after the results have changed.
+     */
+    public void onResultsChanged() {
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public int getItemCount() {
+        return results.size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return results.getWordTable(position).getWordId(results.getWordIndex(position));
+    }
+
+    @NonNull
+    @Override
+    public MiwokWordAdapter.MiwokWordViewHolder onCreateViewHolder(@NonNull ViewGroup parent,
+                                                                   int viewType) {
+        final View listItemView = MiwokListItemPool.getInstance().obtain(parent);
+        return new MiwokWordAdapter.MiwokWordViewHolder(listItemView);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull MiwokWordAdapter.MiwokWordViewHolder holder,
+                                 int position) {
+        holder.bind(results.getWordTable(position), results.getWordIndex(position),
+                results.getColorResourceId(position), onWordClickListener);
+        /* the row may come from a category list, where its word was being played */
+        holder.setPlaying(false);
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull MiwokWordAdapter.MiwokWordViewHolder holder) {
+        holder.unbind();
+    }
+}
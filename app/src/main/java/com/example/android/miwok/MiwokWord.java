@@ -9,21 +9,24 @@ import androidx.annotation.NonNull;
  */
 public class MiwokWord {
     private static final int NO_IMAGE_PROVIDED = 0;
+    private static final int NO_WORD_ID = 0;
+    private final int wordId;
     private final int imageResourceId;
     private final String defaultTranslation;
     private final String miwokTranslation;
-    private final int soundResourceId;
+    private final int soundId;
 
     /**
      * constructor
      * @param defaultTranslation word in default language
      * @param miwokTranslation word in Miwok language
      */
-    public MiwokWord(String defaultTranslation, String miwokTranslation, int soundResourceId) {
+    public MiwokWord(String defaultTranslation, String miwokTranslation, int soundId) {
+        this.wordId = NO_WORD_ID;
         this.imageResourceId = NO_IMAGE_PROVIDED;
         this.defaultTranslation = defaultTranslation;
         this.miwokTranslation = miwokTranslation;
-        this.soundResourceId = soundResourceId;
+        this.soundId = soundId;
     }
 
     /**
@@ -32,11 +35,39 @@ public class MiwokWord {
      * @param defaultTranslation word in default language
      * @param miwokTranslation word in Miwok language
      */
-    public MiwokWord(int imageResourceId, String defaultTranslation, String miwokTranslation, int soundResourceId) {
+    public MiwokWord(int imageResourceId, String defaultTranslation, String miwokTranslation, int soundId) {
+        this.wordId = NO_WORD_ID;
         this.imageResourceId = imageResourceId;
         this.defaultTranslation = defaultTranslation;
         this.miwokTranslation = miwokTranslation;
-        this.soundResourceId = soundResourceId;
+        this.soundId = soundId;
+    }
+
+    /**
+     * constructor
+     * @param wordId stable id of the word in the vocabulary
+     * @param imageResourceId image resource id that must be shown for the word,
+     *                        or 0 if there is no image
+     * @param defaultTranslation word in default language
+     * @param miwokTranslation word in Miwok language
+     * @param soundId sound id of the pronunciation
+     */
+    public MiwokWord(int wordId, int imageResourceId, String defaultTranslation,
+                     String miwokTranslation, int soundId) {
+        this.wordId = wordId;
+        this.imageResourceId = imageResourceId;
+        this.defaultTranslation = defaultTranslation;
+        this.miwokTranslation = miwokTranslation;
+        this.soundId = soundId;
+    }
+
+    /**
+     * getter method for the word id. Unlike resource ids, it's stable across
+     * app versions.
+     * @return int stable word id, or 0 if the word isn't part of the vocabulary.
+     */
+    public int getWordId() {
+        return wordId;
     }
 
     /**
@@ -72,21 +103,49 @@ public class MiwokWord {
     }
 
     /**
-     * getter method for sound resource id.
-     * @return int sound resource id.
+     * getter method for sound id.
+     * @return int sound id.
      */
-    public int getSoundResourceId() {
-        return soundResourceId;
+    public int getSoundId() {
+        return soundId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MiwokWord)) {
+            return false;
+        }
+
+        final MiwokWord other = (MiwokWord) o;
+        return wordId == other.wordId
+                && imageResourceId == other.imageResourceId
+                && soundId == other.soundId
+                && defaultTranslation.equals(other.defaultTranslation)
+                && miwokTranslation.equals(other.miwokTranslation);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = wordId;
+        result = 31 * result + imageResourceId;
+        result = 31 * result + defaultTranslation.hashCode();
+        result = 31 * result + miwokTranslation.hashCode();
+        result = 31 * result + soundId;
+        return result;
     }
 
     @NonNull
     @Override
     public String toString() {
         return "MiwokWord{" +
-                "imageResourceId=" + imageResourceId +
+                "wordId=" + wordId +
+                ", imageResourceId=" + imageResourceId +
                 ", defaultTranslation='" + defaultTranslation + '\'' +
                 ", miwokTranslation='" + miwokTranslation + '\'' +
-                ", soundResourceId=" + soundResourceId +
+                ", soundId=" + soundId +
                 '}';
     }
 }
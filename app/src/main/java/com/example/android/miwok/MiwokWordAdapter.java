@@ -1,94 +1,347 @@
 package com.example.android.miwok;
 
-import android.content.Context;
-import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.android.miwok.image.MiwokImageLoader;
+import com.example.android.miwok.vocabulary.MiwokWordTable;
 
 import java.util.List;
 
 /**
- * This class extends an {@link ArrayAdapter} for a {@link MiwokWord} list
- * in order to display a Miwok translation and a default (e.g. English)
- * translation inside a R.layout.miwok_list_item layout.
+ * This class extends a {@link RecyclerView.Adapter} for a range of a
+ * {@link MiwokWordTable} in order to display a Miwok translation and a default
+ * (e.g. English) translation inside a R.layout.miwok_list_item layout. Rows
+ * are bound straight from the table's columns, without any per-word object.
+ * Changes of the words are diffed by index, from the columns as well, and
+ * only the changed rows are rebound.
  */
-public class MiwokWordAdapter extends ArrayAdapter<MiwokWord> {
-    private final int colorResourceId;
+public class MiwokWordAdapter extends RecyclerView.Adapter<MiwokWordAdapter.MiwokWordViewHolder> {
 
     /**
-     * Custom constructor.
-     * @param context The context which is used to inflate the layout file in
-     *                getView() method.
-     * @param objects list of objects that need to displayed via the AdapterView.
+     * Interface definition for a callback invoked when a word is clicked.
      */
-    public MiwokWordAdapter(@NonNull Context context, @NonNull List<MiwokWord> objects, int colorResourceId) {
-        /*
-         * Here, we initialize the ArrayAdapter's internal storage for the
-         * context and the list. The second argument is used when the
-         * ArrayAdapter is populating a single TextView. Because this is a
-         * custom adapter for two TextViews and an ImageView, the adapter is
-         * not going to use this second argument, so it can be any value. Here,
-         * we used 0.
+    public interface OnWordClickListener {
+        /**
+         * Called when a word has been clicked.
+         * @param wordTable table holding the clicked word.
+         * @param wordIndex index of the clicked word in the table.
+         * @param position position of the word in the adapter.
          */
-        super(context, 0, objects);
+        void onWordClick(MiwokWordTable wordTable, int wordIndex, int position);
+    }
+
+    /* payload of a change of the playing row only */
+    private static final Object PAYLOAD_PLAYING = new Object();
 
+    private final int colorResourceId;
+    private final OnWordClickListener onWordClickListener;
+    private MiwokWordTable wordTable;
+    private int firstWord;
+    private int wordCount;
+    private int playingPosition = RecyclerView.NO_POSITION;
+
+    /**
+     * Custom constructor.
+     * @param colorResourceId background color of the text container.
+     * @param onWordClickListener listener notified when a word is clicked.
+     */
+    public MiwokWordAdapter(int colorResourceId, @NonNull OnWordClickListener onWordClickListener) {
         this.colorResourceId = colorResourceId;
+        this.onWordClickListener = onWordClickListener;
+        setHasStableIds(true);
     }
 
     /**
-     * Provides a view for an AdapterView (ListView, GridView, etc.)
-     * @param position The position in the list of data that should be
-     *                 displayed in the list item view.
-     * @param convertView The recycled view to populate.
+     * This method sets the words displayed by the adapter.
+     * @param wordTable table holding the words.
+     * @param firstWord index of the first displayed word in the table.
+     * @param wordCount number of displayed words.
+     */
+    public void setWords(@NonNull MiwokWordTable wordTable, int firstWord, int wordCount) {
+        if (this.wordTable == wordTable && this.firstWord == firstWord
+                && this.wordCount == wordCount) {
+            return;
+        }
+
+        final MiwokWordTable oldWordTable = this.wordTable;
+        final int oldFirstWord = this.firstWord;
+        final int oldWordCount = this.wordCount;
+        this.wordTable = wordTable;
+        this.firstWord = firstWord;
+        this.wordCount = wordCount;
+        if (oldWordTable == null) {
+            notifyItemRangeInserted(0, wordCount);
+            return;
+        }
+
+        /* mostly matching ranges diff in linear time, without detecting moves */
+        DiffUtil.calculateDiff(new WordRangeDiffCallback(oldWordTable, oldFirstWord,
+                oldWordCount, wordTable, firstWord, wordCount), false)
+                .dispatchUpdatesTo(this);
+    }
+
+    /**
+     * This method highlights the row whose word is being played.
+     * @param position position of the word being played, or
+     *                 {@link RecyclerView#NO_POSITION} to remove the highlight.
+     */
+    public void setPlayingPosition(int position) {
+        if (playingPosition == position) {
+            return;
+        }
+
+        final int previousPosition = playingPosition;
+        playingPosition = position;
+        /* only rebind the highlight of both rows, not their content */
+        if (previousPosition != RecyclerView.NO_POSITION) {
+            notifyItemChanged(previousPosition, PAYLOAD_PLAYING);
+        }
+        if (position != RecyclerView.NO_POSITION) {
+            notifyItemChanged(position, PAYLOAD_PLAYING);
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return wordCount;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        /* the word id uniquely identifies a word */
+        return wordTable.getWordId(firstWord + position);
+    }
+
+    /**
+     * Creates a new R.layout.miwok_list_item row, preferably one inflated
+     * ahead of time by the {@link MiwokListItemPool}. This is only called when
+     * the shared view pool has no row to recycle.
      * @param parent The parent ViewGroup that is used for inflation.
-     * @return The View for the position in the AdapterView.
+     * @param viewType The view type of the new row.
+     * @return MiwokWordViewHolder holder caching the views of the new row.
      */
     @NonNull
     @Override
-    public View getView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
-        View listItemView = convertView;
-        if (listItemView == null) {
-            listItemView = LayoutInflater.from(getContext())
-                    .inflate(R.layout.miwok_list_item, parent, false);
+    public MiwokWordViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        final View listItemView = MiwokListItemPool.getInstance().obtain(parent);
+        return new MiwokWordViewHolder(listItemView);
+    }
+
+    /**
+     * Binds the word at the given position to a row.
+     * @param holder The holder of the row to populate.
+     * @param position The position in the list of data that should be
+     *                 displayed in the row.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull MiwokWordViewHolder holder, int position) {
+        holder.bind(wordTable, firstWord + position, colorResourceId, onWordClickListener);
+        holder.setPlaying(position == playingPosition);
+    }
+
+    /**
+     * Binds the word at the given position to a row, or only its highlight if
+     * that's all that changed.
+     * @param holder The holder of the row to populate.
+     * @param position The position in the list of data that should be
+     *                 displayed in the row.
+     * @param payloads The changes since the row was last bound.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull MiwokWordViewHolder holder, int position,
+                                 @NonNull List<Object> payloads) {
+        if (payloads.isEmpty() || !payloads.contains(PAYLOAD_PLAYING)) {
+            onBindViewHolder(holder, position);
+            return;
         }
 
-        /* get the {@link MiwokWord} object at the given position in the list */
-        final MiwokWord miwokWord = getItem(position);
+        holder.setPlaying(position == playingPosition);
+    }
 
-        /* set the miwok_image ImageView */
-        final ImageView miwokImageView = listItemView.findViewById(R.id.miwok_image);
-        if (miwokWord.hasImage()) {
-            miwokImageView.setImageResource(miwokWord.getImageResourceId());
+    /**
+     * Cancels the pending image load of a recycled row.
+     * @param holder The holder of the recycled row.
+     */
+    @Override
+    public void onViewRecycled(@NonNull MiwokWordViewHolder holder) {
+        holder.unbind();
+    }
 
-            /*
-             * explicitly set the image view to be visible, since the AdapterView
-             * reuses old views, which might have hidden the image view.
-             */
-            miwokImageView.setVisibility(View.VISIBLE);
-        } else {
-            /* hide the image view, if there is no image available */
-            miwokImageView.setVisibility(View.GONE);
+    /*
+     * diff two ranges of word tables by index. Two words are the same item if
+     * they have the same id, and the same content if they show the same image
+     * and text and play the same clip.
+     */
+    private static final class WordRangeDiffCallback extends DiffUtil.Callback {
+        private final MiwokWordTable oldWordTable;
+        private final int oldFirstWord;
+        private final int oldWordCount;
+        private final MiwokWordTable newWordTable;
+        private final int newFirstWord;
+        private final int newWordCount;
+
+        WordRangeDiffCallback(MiwokWordTable oldWordTable, int oldFirstWord, int oldWordCount,
+                              MiwokWordTable newWordTable, int newFirstWord, int newWordCount) {
+            this.oldWordTable = oldWordTable;
+            this.oldFirstWord = oldFirstWord;
+            this.oldWordCount = oldWordCount;
+            this.newWordTable = newWordTable;
+            this.newFirstWord = newFirstWord;
+            this.newWordCount = newWordCount;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldWordCount;
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newWordCount;
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldPosition, int newPosition) {
+            return oldWordTable.getWordId(oldFirstWord + oldPosition)
+                    == newWordTable.getWordId(newFirstWord + newPosition);
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+            final int oldIndex = oldFirstWord + oldPosition;
+            final int newIndex = newFirstWord + newPosition;
+            return oldWordTable.getSoundId(oldIndex) == newWordTable.getSoundId(newIndex)
+                    && oldWordTable.getImageResourceId(oldIndex)
+                    == newWordTable.getImageResourceId(newIndex)
+                    && sameText(oldWordTable.getDefaultTranslationOffset(oldIndex),
+                    oldWordTable.getDefaultTranslationLength(oldIndex),
+                    newWordTable.getDefaultTranslationOffset(newIndex),
+                    newWordTable.getDefaultTranslationLength(newIndex))
+                    && sameText(oldWordTable.getMiwokTranslationOffset(oldIndex),
+                    oldWordTable.getMiwokTranslationLength(oldIndex),
+                    newWordTable.getMiwokTranslationOffset(newIndex),
+                    newWordTable.getMiwokTranslationLength(newIndex));
+        }
+
+        /* compare a translation of each table, in place in their text buffers */
+        private boolean sameText(int oldOffset, int oldLength, int newOffset, int newLength) {
+            if (oldLength != newLength) {
+                return false;
+            }
+
+            final char[] oldText = oldWordTable.getText();
+            final char[] newText = newWordTable.getText();
+            for (int i = 0; i < oldLength; i++) {
+                if (oldText[oldOffset + i] != newText[newOffset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * This class caches the views of a R.layout.miwok_list_item row, so that
+     * binding a word doesn't need any findViewById() call. Rows are shared by
+     * the adapters of all the categories, so the holder doesn't refer to any
+     * adapter: everything it needs is given on bind.
+     */
+    static class MiwokWordViewHolder extends RecyclerView.ViewHolder {
+        private final ImageView miwokImageView;
+        private final TextView miwokTextView;
+        private final TextView defaultTextView;
+        private final LinearLayout miwokTextContainer;
+        private final int imageSize;
+
+        private MiwokWordTable wordTable;
+        private int wordIndex;
+        private OnWordClickListener onWordClickListener;
+
+        MiwokWordViewHolder(@NonNull View itemView) {
+            super(itemView);
+
+            miwokImageView = itemView.findViewById(R.id.miwok_image);
+            miwokTextView = itemView.findViewById(R.id.miwok_text);
+            defaultTextView = itemView.findViewById(R.id.default_text);
+            miwokTextContainer = itemView.findViewById(R.id.miwok_text_container);
+            imageSize = itemView.getResources().getDimensionPixelSize(R.dimen.list_item_height);
+
+            itemView.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View view) {
+                    final int position = getAdapterPosition();
+                    if (position != RecyclerView.NO_POSITION && onWordClickListener != null) {
+                        onWordClickListener.onWordClick(wordTable, wordIndex, position);
+                    }
+                }
+            });
+        }
+
+        /*
+         * cancel the pending image load of a recycled row, and drop the
+         * references to its word.
+         */
+        void unbind() {
+            MiwokImageLoader.getInstance().cancel(miwokImageView);
+            wordTable = null;
+            onWordClickListener = null;
+        }
+
+        /*
+         * highlight the row while its word is played. Rows are shared between
+         * the categories, so it must be set on every bind.
+         */
+        void setPlaying(boolean playing) {
+            itemView.setActivated(playing);
         }
 
-        /* set the miwok_text TextView */
-        final TextView miwokTextView = listItemView.findViewById(R.id.miwok_text);
-        miwokTextView.setText(miwokWord.getMiwokTranslation());
+        void bind(MiwokWordTable wordTable, int wordIndex, int colorResourceId,
+                  OnWordClickListener onWordClickListener) {
+            this.wordTable = wordTable;
+            this.wordIndex = wordIndex;
+            this.onWordClickListener = onWordClickListener;
 
-        /* set the default_text TextView */
-        final TextView defaultTextView = listItemView.findViewById(R.id.default_text);
-        defaultTextView.setText(miwokWord.getDefaultTranslation());
+            /* set the miwok_image ImageView */
+            if (wordTable.hasImage(wordIndex)) {
+                /* decode the image in the background, at the size it's shown */
+                MiwokImageLoader.getInstance().load(miwokImageView,
+                        wordTable.getImageResourceId(wordIndex), imageSize);
 
-        /* set the background color of the linear layout containing text views */
-        final LinearLayout miwokTextContainer = listItemView.findViewById(R.id.miwok_text_container);
-        miwokTextContainer.setBackgroundResource(colorResourceId);
+                /*
+                 * explicitly set the image view to be visible, since recycled
+                 * rows might have hidden the image view.
+                 */
+                miwokImageView.setVisibility(View.VISIBLE);
+            } else {
+                /* hide the image view, if there is no image available */
+                MiwokImageLoader.getInstance().cancel(miwokImageView);
+                miwokImageView.setVisibility(View.GONE);
+            }
 
-        return listItemView;
+            /*
+             * set the miwok_text and default_text TextViews straight from the
+             * table's text buffer, without building strings
+             */
+            final char[] text = wordTable.getText();
+            miwokTextView.setText(text, wordTable.getMiwokTranslationOffset(wordIndex),
+                    wordTable.getMiwokTranslationLength(wordIndex));
+            defaultTextView.setText(text, wordTable.getDefaultTranslationOffset(wordIndex),
+                    wordTable.getDefaultTranslationLength(wordIndex));
+
+            /*
+             * set the background color of the linear layout containing text
+             * views. Rows are shared between the categories, so it must be set
+             * on every bind.
+             */
+            miwokTextContainer.setBackgroundResource(colorResourceId);
+        }
     }
 }
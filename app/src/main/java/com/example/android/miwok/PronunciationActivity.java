@@ -0,0 +1,377 @@
+package com.example.android.miwok;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioRecord;
+import android.media.MediaRecorder;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.view.View;
+import android.widget.Button;
+import android.widget.TextView;
+
+import com.example.android.miwok.media.MiwokAudioManagerFactory;
+import com.example.android.miwok.media.MiwokMediaPlayerFactory;
+import com.example.android.miwok.media.MiwokPcmClip;
+import com.example.android.miwok.media.MiwokPlayer;
+import com.example.android.miwok.media.MiwokSoundIndexRepository;
+import com.example.android.miwok.speech.MiwokFeatures;
+import com.example.android.miwok.speech.MiwokPronunciationScorer;
+import com.example.android.miwok.speech.MiwokSoundIndex;
+import com.example.android.miwok.vocabulary.MiwokVocabularyRepository;
+import com.example.android.miwok.vocabulary.MiwokWordTable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This activity lets the learner practise the pronunciation of a word: the
+ * learner listens to the word, says it, and gets a score comparing their
+ * utterance with the word's clip.
+ *
+ * <p>The microphone is read on a recording thread in 10 ms buffers, each one
+ * streamed straight through the {@link MiwokPronunciationScorer}, so the
+ * utterance is scored as soon as the learner stops speaking. The features of
+ * the word's clip are computed in the background when the word is shown,
+ * along with the words that sound like it, from the {@link MiwokSoundIndex}.
+ */
+public class PronunciationActivity extends AppCompatActivity {
+    private static final String LOG_TAG = "MiwokPronunciation";
+    private static final String STATE_WORD = "word";
+    private static final int RECORD_AUDIO_REQUEST = 1;
+    /* sample rate every device can record at */
+    private static final int RECORD_SAMPLE_RATE = 16000;
+    /* samples per read, 10 ms */
+    private static final int RECORD_BUFFER_SAMPLES = RECORD_SAMPLE_RATE / 100;
+    /* the recording stops by itself after 4 seconds, 100 frames per second */
+    private static final int MAX_UTTERANCE_FRAMES = 400;
+    /* number of similar-sounding words shown */
+    private static final int SIMILAR_WORD_COUNT = 3;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final ExecutorService referenceExecutor = Executors.newSingleThreadExecutor();
+    private final Random random = new Random();
+
+    private MiwokWordTable wordTable;
+    private int word;
+    /* scorer of the word shown, null until its reference is ready */
+    private MiwokPronunciationScorer scorer;
+    private volatile boolean recording;
+    /* thread of the utterance being recorded or scored, null once scored */
+    private Thread recordingThread;
+
+    private TextView miwokTextView;
+    private TextView defaultTextView;
+    private TextView similarWordsView;
+    private TextView scoreView;
+    private Button speakButton;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_pronunciation);
+        /* go back up to the categories, declared as the parent activity */
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+        }
+
+        wordTable = MiwokVocabularyRepository.getInstance().getVocabulary(this).getWordTable();
+        miwokTextView = findViewById(R.id.pronunciation_miwok_text);
+        defaultTextView = findViewById(R.id.pronunciation_default_text);
+        similarWordsView = findViewById(R.id.pronunciation_similar_words);
+        scoreView = findViewById(R.id.pronunciation_score);
+        speakButton = findViewById(R.id.pronunciation_speak);
+
+        findViewById(R.id.pronunciation_listen).setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                playWord();
+            }
+        });
+        findViewById(R.id.pronunciation_next).setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                stopRecording();
+                showWord(random.nextInt(wordTable.size()));
+            }
+        });
+        speakButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                if (recording) {
+                    stopRecording();
+                } else if (checkSelfPermission(Manifest.permission.RECORD_AUDIO)
+                        == PackageManager.PERMISSION_GRANTED) {
+                    startRecording();
+                } else {
+                    requestPermissions(new String[] {Manifest.permission.RECORD_AUDIO},
+                            RECORD_AUDIO_REQUEST);
+                }
+            }
+        });
+
+        showWord(savedInstanceState != null
+                ? savedInstanceState.getInt(STATE_WORD) : random.nextInt(wordTable.size()));
+    }
+
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putInt(STATE_WORD, word);
+    }
+
+    @Override
+    public void onRequestPermissionsResult(int requestCode, @NonNull String[] permissions,
+                                           @NonNull int[] grantResults) {
+        super.onRequestPermissionsResult(requestCode, permissions, grantResults);
+        if (requestCode == RECORD_AUDIO_REQUEST && grantResults.length > 0
+                && grantResults[0] == PackageManager.PERMISSION_GRANTED) {
+            startRecording();
+        } else if (requestCode == RECORD_AUDIO_REQUEST) {
+            scoreView.setText(R.string.pronunciation_no_microphone);
+        }
+    }
+
+    /*
+     * show a word, and compute the features of its clip in the background.
+     */
+    private void showWord(final int newWord) {
+        word = newWord;
+        scorer = null;
+        speakButton.setEnabled(false);
+        similarWordsView.setText(null);
+        scoreView.setText(null);
+
+        final char[] text = wordTable.getText();
+        miwokTextView.setText(text, wordTable.getMiwokTranslationOffset(word),
+                wordTable.getMiwokTranslationLength(word));
+        defaultTextView.setText(text, wordTable.getDefaultTranslationOffset(word),
+                wordTable.getDefaultTranslationLength(word));
+
+        final int soundId = wordTable.getSoundId(word);
+        final MiwokMediaPlayerFactory mediaPlayerFactory = MiwokMediaPlayerFactory.getInstance();
+        final Context appContext = getApplicationContext();
+        referenceExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                MiwokPronunciationScorer referenceScorer = null;
+                try {
+                    final MiwokPcmClip clip = mediaPlayerFactory.getPcmClip(appContext, soundId);
+                    final MiwokFeatures reference = MiwokPronunciationScorer.extractFeatures(
+                            toMono(clip), clip.getSampleRate());
+                    referenceScorer = new MiwokPronunciationScorer(reference,
+                            RECORD_SAMPLE_RATE, MAX_UTTERANCE_FRAMES);
+                } catch (IOException e) {
+                    Log.e(LOG_TAG, "Failed to decode the clip of word " + newWord, e);
+                }
+
+                final MiwokPronunciationScorer readyScorer = referenceScorer;
+                final String similarWords = findSimilarWords(appContext, soundId);
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        /* the learner may have moved on to another word meanwhile */
+                        if (word != newWord || isDestroyed()) {
+                            return;
+                        }
+
+                        if (similarWords != null) {
+                            similarWordsView.setText(getString(
+                                    R.string.pronunciation_similar_words, similarWords));
+                        }
+                        if (readyScorer != null) {
+                            scorer = readyScorer;
+                            /* an utterance of the previous word may still be scored */
+                            speakButton.setEnabled(recordingThread == null);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /*
+     * list the Miwok translations of the words whose clips sound most like a
+     * clip, or null if there are none.
+     */
+    private String findSimilarWords(Context context, int soundId) {
+        final int[] similarSoundIds = new int[SIMILAR_WORD_COUNT];
+        final float[] distances = new float[SIMILAR_WORD_COUNT];
+        final int found = MiwokSoundIndexRepository.getInstance().getSoundIndex(context)
+                .findNearest(soundId, similarSoundIds, distances);
+
+        final StringBuilder similarWords = new StringBuilder();
+        for (int i = 0; i < found; i++) {
+            for (int index = 0; index < wordTable.size(); index++) {
+                if (wordTable.getSoundId(index) == similarSoundIds[i]) {
+                    if (similarWords.length() > 0) {
+                        similarWords.append(", ");
+                    }
+                    similarWords.append(wordTable.getMiwokTranslation(index));
+                    break;
+                }
+            }
+        }
+        return similarWords.length() > 0 ? similarWords.toString() : null;
+    }
+
+    private void startRecording() {
+        /* the scorer isn't thread safe: one utterance at a time, until it's scored */
+        if (scorer == null || recordingThread != null) {
+            return;
+        }
+
+        final int bufferSize = Math.max(AudioRecord.getMinBufferSize(RECORD_SAMPLE_RATE,
+                AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT),
+                4 * RECORD_BUFFER_SAMPLES * 2);
+        final AudioRecord audioRecord = new AudioRecord(MediaRecorder.AudioSource.MIC,
+                RECORD_SAMPLE_RATE, AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT,
+                bufferSize);
+        if (audioRecord.getState() != AudioRecord.STATE_INITIALIZED) {
+            audioRecord.release();
+            scoreView.setText(R.string.pronunciation_no_microphone);
+            return;
+        }
+
+        /* a stream of a song or a word played would be recorded too */
+        MiwokMediaPlayerFactory.getInstance().releaseMediaPlayer();
+
+        final MiwokPronunciationScorer recordingScorer = scorer;
+        final int recordingWord = word;
+        recording = true;
+        speakButton.setText(R.string.pronunciation_stop);
+        scoreView.setText(R.string.pronunciation_listening);
+
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_AUDIO);
+                final short[] buffer = new short[RECORD_BUFFER_SAMPLES];
+                final int maxSamples = MAX_UTTERANCE_FRAMES * RECORD_BUFFER_SAMPLES;
+                int recordedSamples = 0;
+
+                recordingScorer.reset();
+                audioRecord.startRecording();
+                while (recording && recordedSamples < maxSamples) {
+                    final int read = audioRecord.read(buffer, 0, buffer.length);
+                    if (read < 0) {
+                        Log.e(LOG_TAG, "Failed to read the microphone: " + read);
+                        break;
+                    }
+                    recordingScorer.process(buffer, 0, read);
+                    recordedSamples += read;
+                }
+                audioRecord.stop();
+                audioRecord.release();
+
+                final int score = recordingScorer.score();
+                final Thread scoredThread = Thread.currentThread();
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onUtteranceScored(scoredThread, recordingWord, score);
+                    }
+                });
+            }
+        }, LOG_TAG);
+        recordingThread = thread;
+        thread.start();
+    }
+
+    /*
+     * stop listening. The speak button stays disabled until the utterance
+     * has been scored, since a new one can't be recorded meanwhile.
+     */
+    private void stopRecording() {
+        if (recordingThread != null) {
+            recording = false;
+            speakButton.setEnabled(false);
+        }
+    }
+
+    private void onUtteranceScored(Thread thread, int scoredWord, int score) {
+        /* only the thread of the current utterance owns the recording state */
+        if (thread != recordingThread) {
+            return;
+        }
+
+        recording = false;
+        recordingThread = null;
+        if (isDestroyed()) {
+            return;
+        }
+
+        speakButton.setText(R.string.pronunciation_speak);
+        speakButton.setEnabled(scorer != null);
+        if (scoredWord != word) {
+            return;
+        }
+
+        if (score == MiwokPronunciationScorer.NO_SCORE) {
+            scoreView.setText(R.string.pronunciation_no_speech);
+        } else {
+            scoreView.setText(getString(R.string.pronunciation_score, score));
+        }
+    }
+
+    private void playWord() {
+        /* request audio focus and play the translation audio file */
+        if (MiwokAudioManagerFactory.getInstance()
+                .requestAudioFocus() == AudioManager.AUDIOFOCUS_REQUEST_GRANTED) {
+            /* create a new media player object in the background and play it once ready */
+            MiwokMediaPlayerFactory.getInstance().createAsync(this, wordTable.getSoundId(word),
+                    new MiwokMediaPlayerFactory.OnPlayerReadyListener() {
+                        @Override
+                        public void onPlayerReady(MiwokPlayer player) {
+                            player.start();
+                        }
+                    });
+        }
+    }
+
+    /* mix the 16-bit samples of a clip down to mono */
+    private static short[] toMono(MiwokPcmClip clip) {
+        final int channelCount = clip.getChannelCount();
+        final short[] interleaved = new short[clip.getData().length / 2];
+        ByteBuffer.wrap(clip.getData()).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer()
+                .get(interleaved);
+
+        final short[] samples = new short[interleaved.length / channelCount];
+        for (int i = 0; i < samples.length; i++) {
+            int sum = 0;
+            for (int channel = 0; channel < channelCount; channel++) {
+                sum += interleaved[i * channelCount + channel];
+            }
+            samples[i] = (short) (sum / channelCount);
+        }
+        return samples;
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+
+        /* app is not in foreground. Release the media player, and stop listening */
+        MiwokMediaPlayerFactory.getInstance().releaseMediaPlayer();
+        stopRecording();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        referenceExecutor.shutdown();
+    }
+}
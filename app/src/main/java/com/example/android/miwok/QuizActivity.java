@@ -0,0 +1,108 @@
+package com.example.android.miwok;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
+
+import android.os.Bundle;
+import android.view.View;
+import android.widget.Button;
+import android.widget.TextView;
+
+import com.example.android.miwok.quiz.MiwokQuizQuestion;
+import com.example.android.miwok.vocabulary.MiwokVocabularyRepository;
+import com.example.android.miwok.vocabulary.MiwokWordTable;
+
+/**
+ * This activity quizzes the learner: it prompts a Miwok word and offers four
+ * translations, the wrong ones being words of the same category the learner
+ * tends to confuse.
+ */
+public class QuizActivity extends AppCompatActivity {
+    private static final int[] OPTION_BUTTON_IDS = {
+            R.id.quiz_option_0, R.id.quiz_option_1, R.id.quiz_option_2, R.id.quiz_option_3};
+
+    private MiwokQuizViewModel viewModel;
+    private MiwokWordTable wordTable;
+
+    private TextView promptView;
+    private TextView resultView;
+    private Button nextButton;
+    private final Button[] optionButtons = new Button[OPTION_BUTTON_IDS.length];
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_quiz);
+        /* go back up to the categories, declared as the parent activity */
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+        }
+
+        wordTable = MiwokVocabularyRepository.getInstance().getVocabulary(this).getWordTable();
+        viewModel = new ViewModelProvider(this).get(MiwokQuizViewModel.class);
+        viewModel.setUp(this);
+
+        promptView = findViewById(R.id.quiz_prompt);
+        resultView = findViewById(R.id.quiz_result);
+        nextButton = findViewById(R.id.quiz_next);
+        for (int option = 0; option < optionButtons.length; option++) {
+            final int clickedOption = option;
+            optionButtons[option] = findViewById(OPTION_BUTTON_IDS[option]);
+            optionButtons[option].setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View view) {
+                    viewModel.answer(clickedOption);
+                    showQuestion();
+                }
+            });
+        }
+        nextButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                viewModel.next();
+                showQuestion();
+            }
+        });
+
+        showQuestion();
+    }
+
+    /* show the current question, and its answer once answered */
+    private void showQuestion() {
+        final MiwokQuizQuestion question = viewModel.getQuestion();
+        if (question == null) {
+            promptView.setText(R.string.quiz_no_words);
+            resultView.setVisibility(View.GONE);
+            nextButton.setVisibility(View.GONE);
+            for (Button optionButton : optionButtons) {
+                optionButton.setVisibility(View.GONE);
+            }
+            return;
+        }
+
+        final char[] text = wordTable.getText();
+        final int prompt = question.getPromptWord();
+        promptView.setText(text, wordTable.getMiwokTranslationOffset(prompt),
+                wordTable.getMiwokTranslationLength(prompt));
+
+        final int answeredOption = viewModel.getAnsweredOption();
+        final boolean answered = answeredOption != MiwokQuizViewModel.NOT_ANSWERED;
+        for (int option = 0; option < optionButtons.length; option++) {
+            final int word = question.getOptionWord(option);
+            optionButtons[option].setText(text, wordTable.getDefaultTranslationOffset(word),
+                    wordTable.getDefaultTranslationLength(word));
+            /* once answered, only the right answer and the one picked stay enabled */
+            optionButtons[option].setEnabled(!answered
+                    || option == question.getCorrectOption() || option == answeredOption);
+        }
+
+        if (answered) {
+            resultView.setText(answeredOption == question.getCorrectOption()
+                    ? getString(R.string.quiz_correct)
+                    : getString(R.string.quiz_wrong,
+                            wordTable.getDefaultTranslation(prompt)));
+        }
+        resultView.setVisibility(answered ? View.VISIBLE : View.INVISIBLE);
+        nextButton.setVisibility(answered ? View.VISIBLE : View.INVISIBLE);
+    }
+}
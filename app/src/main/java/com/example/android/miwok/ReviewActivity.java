@@ -0,0 +1,217 @@
+package com.example.android.miwok;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import android.media.AudioManager;
+import android.os.Bundle;
+import android.text.format.DateUtils;
+import android.view.View;
+import android.widget.Button;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import com.example.android.miwok.image.MiwokImageLoader;
+import com.example.android.miwok.media.MiwokAudioManagerFactory;
+import com.example.android.miwok.media.MiwokMediaPlayerFactory;
+import com.example.android.miwok.media.MiwokPlayer;
+import com.example.android.miwok.progress.MiwokProgressRepository;
+import com.example.android.miwok.progress.MiwokProgressStore;
+import com.example.android.miwok.review.MiwokReviewScheduler;
+import com.example.android.miwok.vocabulary.MiwokVocabularyRepository;
+import com.example.android.miwok.vocabulary.MiwokWordTable;
+
+/**
+ * This activity reviews the words due, one card at a time: it shows the
+ * default translation, reveals the Miwok translation and plays it on demand,
+ * then reschedules the word from the user's rating. The answers and the words
+ * played are recorded in the progress store.
+ */
+public class ReviewActivity extends AppCompatActivity {
+    private static final String STATE_ANSWER_SHOWN = "answer_shown";
+
+    private MiwokProgressStore progressStore;
+    /* null until loaded */
+    private MiwokReviewScheduler scheduler;
+    private MiwokWordTable wordTable;
+    private int card = MiwokReviewScheduler.NO_CARD;
+    private boolean answerShown;
+
+    private ImageView imageView;
+    private TextView defaultTextView;
+    private TextView miwokTextView;
+    private TextView emptyTextView;
+    private Button showAnswerButton;
+    private View ratingsView;
+    private int imageSize;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_review);
+        /* go back up to the categories, declared as the parent activity */
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+        }
+
+        progressStore = MiwokProgressRepository.getInstance().getStore(this);
+        wordTable = MiwokVocabularyRepository.getInstance().getVocabulary(this).getWordTable();
+
+        imageView = findViewById(R.id.review_image);
+        defaultTextView = findViewById(R.id.review_default_text);
+        miwokTextView = findViewById(R.id.review_miwok_text);
+        emptyTextView = findViewById(R.id.review_empty);
+        showAnswerButton = findViewById(R.id.review_show_answer);
+        ratingsView = findViewById(R.id.review_ratings);
+        imageSize = getResources().getDimensionPixelSize(R.dimen.review_image_size);
+
+        showAnswerButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                showAnswer();
+                playWord();
+            }
+        });
+        miwokTextView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                playWord();
+            }
+        });
+        setRatingListener(R.id.review_again, MiwokReviewScheduler.QUALITY_AGAIN);
+        setRatingListener(R.id.review_hard, MiwokReviewScheduler.QUALITY_HARD);
+        setRatingListener(R.id.review_good, MiwokReviewScheduler.QUALITY_GOOD);
+        setRatingListener(R.id.review_easy, MiwokReviewScheduler.QUALITY_EASY);
+
+        /* the progress is read in the background: show the first card once loaded */
+        final boolean restoreAnswerShown = savedInstanceState != null
+                && savedInstanceState.getBoolean(STATE_ANSWER_SHOWN);
+        MiwokProgressRepository.getInstance().loadScheduler(this,
+                new MiwokProgressRepository.OnSchedulerLoadedListener() {
+                    @Override
+                    public void onSchedulerLoaded(MiwokReviewScheduler loadedScheduler) {
+                        if (isDestroyed()) {
+                            return;
+                        }
+
+                        scheduler = loadedScheduler;
+                        /* the card isn't rated until answered, so the same card comes back */
+                        showNextCard();
+                        if (restoreAnswerShown) {
+                            showAnswer();
+                        }
+                    }
+                });
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putBoolean(STATE_ANSWER_SHOWN, answerShown);
+    }
+
+    private void setRatingListener(int buttonId, final int quality) {
+        findViewById(buttonId).setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                if (card != MiwokReviewScheduler.NO_CARD) {
+                    final long now = System.currentTimeMillis();
+                    scheduler.answer(card, quality, now);
+                    progressStore.recordReview(card, quality, now);
+                    showNextCard();
+                }
+            }
+        });
+    }
+
+    /*
+     * show the card due first, or when the next card is due if none is due
+     * yet.
+     */
+    private void showNextCard() {
+        final long now = System.currentTimeMillis();
+        card = scheduler.nextDue(now);
+        answerShown = false;
+        miwokTextView.setVisibility(View.INVISIBLE);
+        ratingsView.setVisibility(View.GONE);
+
+        if (card == MiwokReviewScheduler.NO_CARD) {
+            final int nextCard = scheduler.peek();
+            emptyTextView.setText(nextCard == MiwokReviewScheduler.NO_CARD
+                    ? getString(R.string.review_no_words)
+                    : getString(R.string.review_none_due, DateUtils.getRelativeTimeSpanString(
+                            scheduler.getDueMillis(nextCard), now,
+                            DateUtils.MINUTE_IN_MILLIS)));
+            emptyTextView.setVisibility(View.VISIBLE);
+            MiwokImageLoader.getInstance().cancel(imageView);
+            imageView.setVisibility(View.GONE);
+            defaultTextView.setVisibility(View.GONE);
+            showAnswerButton.setVisibility(View.GONE);
+            return;
+        }
+
+        emptyTextView.setVisibility(View.GONE);
+        if (wordTable.hasImage(card)) {
+            MiwokImageLoader.getInstance().load(imageView,
+                    wordTable.getImageResourceId(card), imageSize);
+            imageView.setVisibility(View.VISIBLE);
+        } else {
+            MiwokImageLoader.getInstance().cancel(imageView);
+            imageView.setVisibility(View.GONE);
+        }
+
+        final char[] text = wordTable.getText();
+        defaultTextView.setText(text, wordTable.getDefaultTranslationOffset(card),
+                wordTable.getDefaultTranslationLength(card));
+        miwokTextView.setText(text, wordTable.getMiwokTranslationOffset(card),
+                wordTable.getMiwokTranslationLength(card));
+        defaultTextView.setVisibility(View.VISIBLE);
+        showAnswerButton.setVisibility(View.VISIBLE);
+    }
+
+    private void showAnswer() {
+        if (card == MiwokReviewScheduler.NO_CARD) {
+            return;
+        }
+
+        answerShown = true;
+        miwokTextView.setVisibility(View.VISIBLE);
+        showAnswerButton.setVisibility(View.GONE);
+        ratingsView.setVisibility(View.VISIBLE);
+    }
+
+    private void playWord() {
+        if (card == MiwokReviewScheduler.NO_CARD) {
+            return;
+        }
+
+        progressStore.recordPlay(card, System.currentTimeMillis());
+        /* request audio focus and play the translation audio file */
+        if (MiwokAudioManagerFactory.getInstance()
+                .requestAudioFocus() == AudioManager.AUDIOFOCUS_REQUEST_GRANTED) {
+            /* create a new media player object in the background and play it once ready */
+            MiwokMediaPlayerFactory.getInstance().createAsync(this, wordTable.getSoundId(card),
+                    new MiwokMediaPlayerFactory.OnPlayerReadyListener() {
+                        @Override
+                        public void onPlayerReady(MiwokPlayer player) {
+                            player.start();
+                        }
+                    });
+        }
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+
+        /* app is not in foreground. Release the media player */
+        MiwokMediaPlayerFactory.getInstance().releaseMediaPlayer();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+
+        /* write the progress now, the process may be killed from now on */
+        MiwokProgressRepository.getInstance().flush();
+    }
+}
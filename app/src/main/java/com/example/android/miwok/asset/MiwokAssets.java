@@ -0,0 +1,53 @@
+package com.example.android.miwok.asset;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class reads the binary assets generated at build time, e.g. the
+ * vocabulary and the sound index, which are stored uncompressed in the APK
+ * (see aaptOptions in build.gradle) so that they can be memory-mapped.
+ */
+public final class MiwokAssets {
+    private static final String LOG_TAG = "MiwokAssets";
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private MiwokAssets() {}
+
+    /**
+     * This method maps an asset in memory when it's stored uncompressed in
+     * the APK, and falls back to reading it otherwise.
+     * @param context context used to open the asset.
+     * @param name asset name.
+     * @return ByteBuffer content of the asset, not to be modified.
+     * @throws IOException if the asset can't be read.
+     */
+    public static ByteBuffer mapAsset(Context context, String name) throws IOException {
+        try (AssetFileDescriptor afd = context.getAssets().openFd(name);
+             FileInputStream input = afd.createInputStream();
+             FileChannel channel = input.getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, afd.getStartOffset(),
+                    afd.getLength());
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Asset " + name + " can't be mapped, reading it instead", e);
+        }
+
+        try (InputStream input = context.getAssets().open(name)) {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[READ_BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return ByteBuffer.wrap(output.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.android.miwok.image;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+
+/**
+ * This class caches decoded word images, keyed by their image resource id and
+ * target size. The cache is bounded by the total size of the bitmaps it holds
+ * and evicts the least recently shown images first. It shrinks itself when the
+ * system runs low on memory.
+ */
+public class MiwokBitmapCache extends LruCache<String, Bitmap> implements ComponentCallbacks2 {
+    private static final int HEAP_FRACTION = 8;
+
+    /**
+     * constructor
+     * @param maxSizeInBytes maximum size of the cached bitmaps in bytes.
+     */
+    public MiwokBitmapCache(int maxSizeInBytes) {
+        super(maxSizeInBytes);
+    }
+
+    /**
+     * This method computes a default size for the cache, i.e. a fraction of the
+     * heap available to the app.
+     * @return int default maximum size of the cache in bytes.
+     */
+    public static int getDefaultSizeInBytes() {
+        return (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / HEAP_FRACTION);
+    }
+
+    /**
+     * This method builds the cache key of an image.
+     * @param resid image resource id.
+     * @param targetSize size the image is downsampled to, in pixels.
+     * @return String cache key.
+     */
+    static String getKey(int resid, int targetSize) {
+        return resid + ":" + targetSize;
+    }
+
+    @Override
+    protected int sizeOf(@NonNull String key, @NonNull Bitmap bitmap) {
+        return bitmap.getAllocationByteCount();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_MODERATE) {
+            /* the app is likely to be killed soon. Free everything */
+            evictAll();
+        } else if (level >= TRIM_MEMORY_BACKGROUND
+                || level == TRIM_MEMORY_RUNNING_LOW
+                || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            /* keep the most recently shown half of the images */
+            trimToSize(size() / 2);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        evictAll();
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        /* nothing to do, the target size is part of the key */
+    }
+}
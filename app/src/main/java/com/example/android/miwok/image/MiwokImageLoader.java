@@ -0,0 +1,204 @@
+package com.example.android.miwok.image;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.widget.ImageView;
+
+import com.example.android.miwok.R;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This singleton class loads the word images into image views. Images are
+ * decoded on background threads, downsampled to the size they are shown at,
+ * and kept in a {@link MiwokBitmapCache}. A pending load is cancelled when its
+ * image view is recycled or asked to show another image.
+ */
+public class MiwokImageLoader {
+    private static final String LOG_TAG = "MiwokImageLoader";
+    private static final int DECODE_THREADS = 2;
+    private static final int KEEP_ALIVE_SECONDS = 5;
+    private static MiwokImageLoader instance;
+
+    private final MiwokBitmapCache bitmapCache =
+            new MiwokBitmapCache(MiwokBitmapCache.getDefaultSizeInBytes());
+    private final ThreadPoolExecutor decodeExecutor = new ThreadPoolExecutor(
+            DECODE_THREADS, DECODE_THREADS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>());
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private boolean bitmapCacheRegistered;
+
+    /**
+     * This class represents the load of an image into an image view. The
+     * request is stored as a tag of the image view, so a newer request for
+     * the same view can find and cancel it.
+     */
+    private static class Request {
+        private final String key;
+        private Future<?> future;
+
+        Request(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * private constructor.
+     */
+    private MiwokImageLoader() {
+        decodeExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * static method to get the singleton class instance.
+     * @return singleton class instance.
+     */
+    public static MiwokImageLoader getInstance() {
+        if (instance == null) {
+            synchronized (MiwokImageLoader.class) {
+                if (instance == null) {
+                    instance = new MiwokImageLoader();
+                }
+            }
+        }
+
+        return instance;
+    }
+
+    /**
+     * getter method for the bitmap cache, e.g. to read its hit, miss and
+     * eviction counters.
+     * @return MiwokBitmapCache bitmap cache.
+     */
+    public MiwokBitmapCache getBitmapCache() {
+        return bitmapCache;
+    }
+
+    /**
+     * This method loads an image into an image view. It must be called on the
+     * main thread.
+     * @param imageView image view showing the image.
+     * @param resid image resource id.
+     * @param targetSize size the image is shown at, in pixels.
+     */
+    public void load(final ImageView imageView, final int resid, final int targetSize) {
+        registerBitmapCache(imageView);
+
+        final String key = MiwokBitmapCache.getKey(resid, targetSize);
+        final Request previousRequest = (Request) imageView.getTag(R.id.miwok_image_request);
+        if (previousRequest != null && previousRequest.key.equals(key)) {
+            /* the same image is already on its way */
+            return;
+        }
+        cancel(imageView);
+
+        final Bitmap cachedBitmap = bitmapCache.get(key);
+        if (cachedBitmap != null) {
+            imageView.setImageBitmap(cachedBitmap);
+            return;
+        }
+
+        /* clear the image of the recycled view until the new one is decoded */
+        imageView.setImageDrawable(null);
+
+        final Resources resources = imageView.getResources();
+        final Request request = new Request(key);
+        imageView.setTag(R.id.miwok_image_request, request);
+        request.future = decodeExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                final Bitmap bitmap = decode(resources, resid, targetSize);
+                if (bitmap == null) {
+                    return;
+                }
+
+                bitmapCache.put(key, bitmap);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        /* only show the image if the view still wants it */
+                        if (imageView.getTag(R.id.miwok_image_request) == request) {
+                            imageView.setTag(R.id.miwok_image_request, null);
+                            imageView.setImageBitmap(bitmap);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * This method cancels the pending load of an image view, e.g. when the
+     * view is recycled.
+     * @param imageView image view showing the image.
+     */
+    public void cancel(ImageView imageView) {
+        final Request request = (Request) imageView.getTag(R.id.miwok_image_request);
+        if (request != null) {
+            request.future.cancel(false);
+            imageView.setTag(R.id.miwok_image_request, null);
+        }
+    }
+
+    /*
+     * decode the image with the largest power of two subsampling that keeps it
+     * at least as big as the target size, then scale it down to the target.
+     */
+    private static Bitmap decode(Resources resources, int resid, int targetSize) {
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inScaled = false;
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeResource(resources, resid, options);
+
+        final int sourceSize = Math.max(options.outWidth, options.outHeight);
+        if (sourceSize <= 0) {
+            Log.e(LOG_TAG, "Failed to decode image resource " + resid);
+            return null;
+        }
+
+        int sampleSize = 1;
+        while (sourceSize / (sampleSize * 2) >= targetSize) {
+            sampleSize *= 2;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        final Bitmap sampledBitmap = BitmapFactory.decodeResource(resources, resid, options);
+        if (sampledBitmap == null) {
+            Log.e(LOG_TAG, "Failed to decode image resource " + resid);
+            return null;
+        }
+
+        final int sampledSize = Math.max(sampledBitmap.getWidth(), sampledBitmap.getHeight());
+        if (sampledSize <= targetSize) {
+            return sampledBitmap;
+        }
+
+        final float scale = (float) targetSize / sampledSize;
+        final Bitmap scaledBitmap = Bitmap.createScaledBitmap(sampledBitmap,
+                Math.max(1, Math.round(sampledBitmap.getWidth() * scale)),
+                Math.max(1, Math.round(sampledBitmap.getHeight() * scale)), true);
+        if (scaledBitmap != sampledBitmap) {
+            sampledBitmap.recycle();
+        }
+
+        return scaledBitmap;
+    }
+
+    /*
+     * let the system shrink the bitmap cache when it runs low on memory.
+     */
+    private synchronized void registerBitmapCache(ImageView imageView) {
+        if (!bitmapCacheRegistered) {
+            imageView.getContext().getApplicationContext().registerComponentCallbacks(bitmapCache);
+            bitmapCacheRegistered = true;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.android.miwok.media;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.util.Log;
+
+import java.io.DataInputStream;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * This singleton class gives access to the audio bundle asset generated at
+ * build time by the packAudio task (see buildSrc PackAudioTask for the
+ * layout), which holds all the Miwok audio clips back to back. The asset is
+ * stored uncompressed in the APK, so it's opened once, and every clip is read
+ * in place from that single file descriptor through its offset and length:
+ * playing a clip doesn't open any file.
+ *
+ * <p>Clips are identified by their sound id, which is resolved from the clip
+ * name once, when the vocabulary is loaded.
+ */
+public class MiwokAudioBundle {
+    private static final String LOG_TAG = "MiwokAudioBundle";
+    private static final String AUDIO_ASSET = "audio.bin";
+    private static final int MAGIC = 0x4d574b41;
+    private static final int VERSION = 1;
+
+    /** sound id of no clip */
+    public static final int NO_SOUND = 0;
+
+    private static MiwokAudioBundle instance;
+
+    /* immutable once loaded */
+    private volatile Index index;
+
+    /**
+     * This class locates a clip inside the audio bundle. Like an
+     * {@link AssetFileDescriptor}, it's handed to the media framework as a
+     * file descriptor, an offset and a length, but the descriptor belongs to
+     * the bundle and must not be closed.
+     */
+    static final class Clip {
+        private final FileDescriptor fileDescriptor;
+        private final long startOffset;
+        private final long length;
+
+        Clip(FileDescriptor fileDescriptor, long startOffset, long length) {
+            this.fileDescriptor = fileDescriptor;
+            this.startOffset = startOffset;
+            this.length = length;
+        }
+
+        FileDescriptor getFileDescriptor() {
+            return fileDescriptor;
+        }
+
+        long getStartOffset() {
+            return startOffset;
+        }
+
+        long getLength() {
+            return length;
+        }
+    }
+
+    /*
+     * parsed index of the bundle. The file descriptor stays open for the life
+     * of the process.
+     */
+    private static final class Index {
+        final AssetFileDescriptor bundleFd;
+        final String[] names;
+        final long[] offsets;
+        final long[] lengths;
+
+        Index(AssetFileDescriptor bundleFd, String[] names, long[] offsets, long[] lengths) {
+            this.bundleFd = bundleFd;
+            this.names = names;
+            this.offsets = offsets;
+            this.lengths = lengths;
+        }
+    }
+
+    /**
+     * private constructor.
+     */
+    private MiwokAudioBundle() {}
+
+    /**
+     * static method to get the singleton class instance.
+     * @return singleton class instance.
+     */
+    public static MiwokAudioBundle getInstance() {
+        if (instance == null) {
+            synchronized (MiwokAudioBundle.class) {
+                if (instance == null) {
+                    instance = new MiwokAudioBundle();
+                }
+            }
+        }
+
+        return instance;
+    }
+
+    /**
+     * This method looks a clip up by name.
+     * @param context context used to open the audio bundle.
+     * @param name clip name, i.e. its file name without the extension.
+     * @return int sound id of the clip, or {@link #NO_SOUND} if there is no
+     *         such clip.
+     */
+    public int findSound(Context context, String name) {
+        /* the names are sorted by the build */
+        final int position = Arrays.binarySearch(getIndex(context).names, name);
+        return position >= 0 ? position + 1 : NO_SOUND;
+    }
+
+    /**
+     * This method locates a clip inside the bundle.
+     * @param context context used to open the audio bundle.
+     * @param soundId sound id of the audio clip.
+     * @return Clip location of the clip.
+     * @throws IOException if there is no such clip.
+     */
+    Clip getClip(Context context, int soundId) throws IOException {
+        final Index loaded = getIndex(context);
+        final int position = soundId - 1;
+        if (position < 0 || position >= loaded.names.length) {
+            throw new IOException("Unknown sound " + soundId);
+        }
+
+        return new Clip(loaded.bundleFd.getFileDescriptor(),
+                loaded.bundleFd.getStartOffset() + loaded.offsets[position],
+                loaded.lengths[position]);
+    }
+
+    private Index getIndex(Context context) {
+        Index loaded = index;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = index;
+                if (loaded == null) {
+                    loaded = load(context.getApplicationContext());
+                    index = loaded;
+                }
+            }
+        }
+
+        return loaded;
+    }
+
+    private static Index load(Context context) {
+        try {
+            /* fails if the asset is compressed, see aaptOptions in build.gradle */
+            final AssetFileDescriptor bundleFd = context.getAssets().openFd(AUDIO_ASSET);
+            try (InputStream input = context.getAssets().open(AUDIO_ASSET)) {
+                return readIndex(new DataInputStream(input), bundleFd);
+            } catch (IOException | RuntimeException e) {
+                bundleFd.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            /* the asset is generated at build time, so this is a packaging bug */
+            throw new IllegalStateException("Failed to open the audio bundle", e);
+        }
+    }
+
+    private static Index readIndex(DataInputStream input, AssetFileDescriptor bundleFd)
+            throws IOException {
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not an audio bundle");
+        }
+        final int version = input.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported audio bundle version " + version);
+        }
+
+        final int clipCount = input.readInt();
+        final int nameDataSize = input.readInt();
+        if (clipCount < 0 || nameDataSize < 0) {
+            throw new IOException("Corrupted audio bundle header");
+        }
+
+        final int[] nameOffsets = new int[clipCount];
+        final int[] nameLengths = new int[clipCount];
+        final long[] offsets = new long[clipCount];
+        final long[] lengths = new long[clipCount];
+        for (int i = 0; i < clipCount; i++) {
+            nameOffsets[i] = input.readInt();
+            nameLengths[i] = input.readInt();
+            offsets[i] = input.readInt();
+            lengths[i] = input.readInt();
+            if (nameOffsets[i] < 0 || nameLengths[i] < 0
+                    || nameOffsets[i] + nameLengths[i] > nameDataSize
+                    || offsets[i] < 0 || lengths[i] < 0
+                    || offsets[i] + lengths[i] > bundleFd.getLength()) {
+                throw new IOException("Corrupted audio bundle record " + i);
+            }
+        }
+
+        final byte[] nameData = new byte[nameDataSize];
+        input.readFully(nameData);
+        final String[] names = new String[clipCount];
+        for (int i = 0; i < clipCount; i++) {
+            names[i] = new String(nameData, nameOffsets[i], nameLengths[i],
+                    StandardCharsets.UTF_8);
+        }
+
+        Log.d(LOG_TAG, "Opened " + clipCount + " audio clips");
+        return new Index(bundleFd, names, offsets, lengths);
+    }
+}
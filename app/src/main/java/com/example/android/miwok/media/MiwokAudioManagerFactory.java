@@ -4,21 +4,44 @@ import android.content.Context;
 import android.media.AudioAttributes;
 import android.media.AudioFocusRequest;
 import android.media.AudioManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Trace;
 import android.util.Log;
 
+import com.example.android.miwok.trace.MiwokLatencyTracer;
+
 /**
  * This singleton factory class allows the audio manager creation and management in the
  * Miwok app.
+ *
+ * <p>In focus session mode, the audio focus is held across a burst of plays: it's only
+ * abandoned once no clip has been played for the focus idle window, and the requests made
+ * while it's still held are granted without a round trip to the system audio service.
+ * See {@link MiwokFocusSession}.
  */
 public class MiwokAudioManagerFactory {
     private static final String LOG_TAG = "MiwokAudioManager";
     private static final int MIWOK_AUDIO_FOCUS_REQUEST_FAILED = -1;
+    /** default focus idle window, long enough to cover the pauses between two taps */
+    public static final long DEFAULT_FOCUS_IDLE_WINDOW_MILLIS = 2000;
     private static MiwokAudioManagerFactory instance;
 
     private final AudioFocusRequest audioFocusRequest;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private final MiwokFocusSession focusSession;
 
     private AudioManager audioManager;
 
+    /* abandon the audio focus once the focus session has been idle long enough */
+    private final Runnable focusIdleRelease = new Runnable() {
+        @Override
+        public void run() {
+            onFocusReleaseDue();
+        }
+    };
+
     /*
      * define a static OnAudioFocusChangeListener since all callers require the
      * same behavior on audio focus change.
@@ -34,19 +57,20 @@ public class MiwokAudioManagerFactory {
                              * (see ausio focus request being used on create() method).
                              * Thus we only handle this AUDIOFOCUS_GAIN* value in this
                              * switch-case block and start playing the audio when we
-                             * get this audio focus type.
+                             * get this audio focus type. The player may still be
+                             * preparing, or already be gone, in which case there is
+                             * nothing to start.
                              */
-                            MiwokMediaPlayerFactory.getInstance().getMediaPlayer().start();
+                            getInstance().onFocusGained();
+                            MiwokMediaPlayerFactory.getInstance().resumePlayback();
                             break;
                         case AudioManager.AUDIOFOCUS_LOSS:
                             /*
                              * Audio focus lost permanently:
                              * Release media player
                              */
-                            if (MiwokMediaPlayerFactory.getInstance().hasMediaPlayer()) {
-                                MiwokMediaPlayerFactory.getInstance().releaseMediaPlayer();
-                            }
-
+                            getInstance().onFocusLost();
+                            MiwokMediaPlayerFactory.getInstance().releaseMediaPlayer();
                             break;
                         case AudioManager.AUDIOFOCUS_LOSS_TRANSIENT:
                         case AudioManager.AUDIOFOCUS_LOSS_TRANSIENT_CAN_DUCK:
@@ -54,10 +78,9 @@ public class MiwokAudioManagerFactory {
                              * Audio focus lost temporarily:
                              * Pause media player and reset audio to the start.
                              */
-                            if (MiwokMediaPlayerFactory.getInstance().hasMediaPlayer()) {
-                                MiwokMediaPlayerFactory.getInstance().getMediaPlayer().pause();
-                                MiwokMediaPlayerFactory.getInstance().getMediaPlayer().seekTo(0);
-                            }
+                            getInstance().onFocusLost();
+                            MiwokMediaPlayerFactory.getInstance().pauseAndRewindPlayback();
+                            break;
                         default:
                             Log.e(LOG_TAG, "Unhandled Audio Focus type");
                     }
@@ -84,6 +107,35 @@ public class MiwokAudioManagerFactory {
                 .setAudioAttributes(audioAttributes)
                 .setOnAudioFocusChangeListener(audioFocusChangeListener)
                 .build();
+
+        /* the focus session reaches the system through the audio manager and the handler */
+        focusSession = new MiwokFocusSession(new MiwokFocusSession.FocusService() {
+            @Override
+            public int requestFocus() {
+                Trace.beginSection("MiwokAudioManager.requestAudioFocus");
+                try {
+                    return audioManager.requestAudioFocus(audioFocusRequest);
+                } finally {
+                    Trace.endSection();
+                }
+            }
+
+            @Override
+            public int abandonFocus() {
+                return audioManager.abandonAudioFocusRequest(audioFocusRequest);
+            }
+
+            @Override
+            public void scheduleRelease(long delayMillis) {
+                handler.removeCallbacks(focusIdleRelease);
+                handler.postDelayed(focusIdleRelease, delayMillis);
+            }
+
+            @Override
+            public void cancelRelease() {
+                handler.removeCallbacks(focusIdleRelease);
+            }
+        });
     }
 
     /**
@@ -104,9 +156,10 @@ public class MiwokAudioManagerFactory {
     }
 
     /**
-     * This method creates a new audio manager object.
+     * This method creates the audio manager object. It's called once, by the
+     * application: the audio manager is shared by all the screens.
      *
-     * @param context context that requested the media player creation.
+     * @param context context used to get the audio manager.
      */
     public synchronized void create(Context context) {
         if (audioManager != null) {
@@ -115,11 +168,33 @@ public class MiwokAudioManagerFactory {
         }
 
         /* create a new audio manager */
-        audioManager = (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
+        audioManager = (AudioManager) context.getApplicationContext()
+                .getSystemService(Context.AUDIO_SERVICE);
+    }
+
+    /**
+     * This method is called when a screen of the app is started.
+     */
+    public synchronized void onScreenStarted() {
+        focusSession.onScreenStarted();
+    }
+
+    /**
+     * This method is called when a screen of the app is stopped. The audio focus is
+     * abandoned right away once no screen is visible anymore.
+     */
+    public synchronized void onScreenStopped() {
+        if (audioManager == null) {
+            Log.e(LOG_TAG, "Invalid screen stop before the audio manager creation");
+            return;
+        }
+
+        focusSession.onScreenStopped();
     }
 
     /**
-     * This method requests audio focus on the audio manager object.
+     * This method requests audio focus on the audio manager object. In focus session
+     * mode, the request is granted right away if the focus is still held.
      *
      * @return int integer indicating if the audio focus was acquired.
      */
@@ -128,11 +203,18 @@ public class MiwokAudioManagerFactory {
             Log.e(LOG_TAG, "Invalid request to request audio focus");
             return MIWOK_AUDIO_FOCUS_REQUEST_FAILED;
         }
-        return audioManager.requestAudioFocus(audioFocusRequest);
+
+        final int result = focusSession.request();
+        if (result == AudioManager.AUDIOFOCUS_REQUEST_GRANTED) {
+            MiwokLatencyTracer.getInstance().onFocusGranted();
+        }
+        return result;
     }
 
     /**
-     * This method abandons audio focus on the audio manager object.
+     * This method abandons audio focus on the audio manager object. In focus session
+     * mode, the focus is only abandoned after the focus idle window, unless it's
+     * requested again meanwhile.
      *
      * @return int integer indicating if the audio focus was released.
      */
@@ -142,11 +224,60 @@ public class MiwokAudioManagerFactory {
             return MIWOK_AUDIO_FOCUS_REQUEST_FAILED;
         }
 
-        return audioManager.abandonAudioFocusRequest(audioFocusRequest);
+        return focusSession.abandon();
+    }
+
+    /**
+     * setter method for the focus idle window. The audio focus is abandoned once no
+     * clip has been played for this duration.
+     *
+     * @param millis focus idle window in milliseconds, or 0 to disable the focus session
+     *               mode and abandon the audio focus after every clip.
+     */
+    public synchronized void setFocusIdleWindowMillis(long millis) {
+        focusSession.setIdleWindowMillis(millis);
+    }
+
+    /**
+     * getter method for the number of audio focus requests sent to the system.
+     *
+     * @return long number of audio focus requests sent.
+     */
+    public synchronized long getFocusRequestCount() {
+        return focusSession.getRequestCount();
+    }
+
+    /**
+     * getter method for the number of audio focus requests granted by a running focus
+     * session, without a round trip to the system.
+     *
+     * @return long number of audio focus requests avoided.
+     */
+    public synchronized long getAvoidedFocusRequestCount() {
+        return focusSession.getAvoidedRequestCount();
     }
 
     public synchronized void cleanup() {
+        /* end any focus session right away */
+        if (audioManager != null) {
+            focusSession.release();
+        }
+
         /* reset the audio manager object */
         audioManager = null;
     }
+
+    private synchronized void onFocusReleaseDue() {
+        if (audioManager != null) {
+            focusSession.onReleaseDue();
+        }
+    }
+
+    private synchronized void onFocusLost() {
+        focusSession.onFocusLost();
+    }
+
+    private synchronized void onFocusGained() {
+        focusSession.onFocusGained();
+    }
 }
@@ -0,0 +1,288 @@
+package com.example.android.miwok.media;
+
+import android.content.Context;
+import android.util.Log;
+import android.util.SparseArray;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class warms the {@link MiwokPcmCache} ahead of the user's taps. It
+ * decodes the clips of the rows currently visible in a category, then the
+ * first rows of the categories next to the current one, within a concurrency
+ * and memory budget. It also counts how many taps were served by a warm clip.
+ */
+public class MiwokAudioPrefetcher {
+    private static final String LOG_TAG = "MiwokAudioPrefetcher";
+    private static final int DEFAULT_MAX_CONCURRENT_DECODES = 2;
+    private static final int DEFAULT_ADJACENT_ROWS = 6;
+    private static final int KEEP_ALIVE_SECONDS = 5;
+
+    private final MiwokPcmCache pcmCache;
+    private final ThreadPoolExecutor executor;
+
+    /* category position -> sound ids of the category's words */
+    private final SparseArray<int[]> categories = new SparseArray<>();
+    /* clips waiting to be decoded, most wanted first */
+    private final ArrayDeque<Integer> pending = new ArrayDeque<>();
+
+    private final AtomicLong tapCount = new AtomicLong();
+    private final AtomicLong warmTapCount = new AtomicLong();
+    private final AtomicLong prefetchCount = new AtomicLong();
+
+    private Context appContext;
+    private int maxConcurrentDecodes = DEFAULT_MAX_CONCURRENT_DECODES;
+    private int memoryBudget;
+    private int adjacentRows = DEFAULT_ADJACENT_ROWS;
+    private int activeDecodes;
+    private int currentPosition;
+    private int firstVisibleRow;
+    private int visibleRowCount = DEFAULT_ADJACENT_ROWS;
+
+    private final Runnable decodeRunnable = new Runnable() {
+        @Override
+        public void run() {
+            /* the slot is released by nextPending() once there is nothing left */
+            boolean released = false;
+            try {
+                Integer soundId;
+                while ((soundId = nextPending()) != null) {
+                    warm(soundId);
+                }
+                released = true;
+            } finally {
+                if (!released) {
+                    /* never leak the slot, or prefetching would stop for good */
+                    releaseDecode();
+                }
+            }
+        }
+    };
+
+    /**
+     * constructor
+     * @param pcmCache cache to be warmed.
+     */
+    MiwokAudioPrefetcher(MiwokPcmCache pcmCache) {
+        this.pcmCache = pcmCache;
+        /* by default, prefetching may only use half of the cache */
+        this.memoryBudget = pcmCache.maxSize() / 2;
+        this.executor = new ThreadPoolExecutor(maxConcurrentDecodes, maxConcurrentDecodes,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * setter method for the number of clips decoded in parallel.
+     * @param maxConcurrentDecodes maximum number of parallel decodes.
+     */
+    public synchronized void setMaxConcurrentDecodes(int maxConcurrentDecodes) {
+        this.maxConcurrentDecodes = Math.max(1, maxConcurrentDecodes);
+        if (this.maxConcurrentDecodes > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(this.maxConcurrentDecodes);
+            executor.setCorePoolSize(this.maxConcurrentDecodes);
+        } else {
+            executor.setCorePoolSize(this.maxConcurrentDecodes);
+            executor.setMaximumPoolSize(this.maxConcurrentDecodes);
+        }
+    }
+
+    /**
+     * setter method for the memory budget. No clip is prefetched while the
+     * decoded clip cache holds more than this size.
+     * @param memoryBudget memory budget in bytes.
+     */
+    public synchronized void setMemoryBudget(int memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * setter method for the number of rows warmed in the adjacent categories.
+     * @param adjacentRows number of rows from the top of an adjacent category.
+     */
+    public synchronized void setAdjacentRows(int adjacentRows) {
+        this.adjacentRows = adjacentRows;
+    }
+
+    /**
+     * This method registers the words of a category.
+     * @param context context used to open the audio bundle.
+     * @param position position of the category in the category pager.
+     * @param soundIds sound ids of the category's words.
+     */
+    public synchronized void setCategory(Context context, int position, int[] soundIds) {
+        appContext = context.getApplicationContext();
+        categories.put(position, soundIds);
+        if (Math.abs(position - currentPosition) <= 1) {
+            schedule();
+        }
+    }
+
+    /**
+     * This method unregisters the words of a category, e.g. once its page is
+     * gone. A newer registration of the same position is kept.
+     * @param position position of the category in the category pager.
+     * @param soundIds sound ids the category was registered with.
+     */
+    public synchronized void removeCategory(int position, int[] soundIds) {
+        if (categories.get(position) != soundIds) {
+            return;
+        }
+
+        categories.remove(position);
+        if (Math.abs(position - currentPosition) <= 1) {
+            schedule();
+        }
+    }
+
+    /**
+     * This method is called when the user moves to another category.
+     * @param position position of the selected category in the category pager.
+     */
+    public synchronized void onCategorySelected(int position) {
+        if (position == currentPosition) {
+            return;
+        }
+
+        currentPosition = position;
+        firstVisibleRow = 0;
+        visibleRowCount = adjacentRows;
+        schedule();
+    }
+
+    /**
+     * This method is called when the rows visible in a category change.
+     * @param position position of the category in the category pager.
+     * @param firstVisibleRow index of the first visible row.
+     * @param visibleRowCount number of visible rows.
+     */
+    public synchronized void onVisibleRowsChanged(int position, int firstVisibleRow,
+                                                  int visibleRowCount) {
+        if (position != currentPosition
+                || (firstVisibleRow == this.firstVisibleRow
+                && visibleRowCount == this.visibleRowCount)) {
+            return;
+        }
+
+        this.firstVisibleRow = firstVisibleRow;
+        this.visibleRowCount = visibleRowCount;
+        schedule();
+    }
+
+    /**
+     * This method records a tap on a word.
+     * @param warm if the tapped clip was already decoded.
+     */
+    void recordTap(boolean warm) {
+        tapCount.incrementAndGet();
+        if (warm) {
+            warmTapCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * getter method for the number of taps.
+     * @return long number of taps recorded.
+     */
+    public long getTapCount() {
+        return tapCount.get();
+    }
+
+    /**
+     * getter method for the number of taps served by a warm clip.
+     * @return long number of warm taps.
+     */
+    public long getWarmTapCount() {
+        return warmTapCount.get();
+    }
+
+    /**
+     * getter method for the number of clips decoded ahead of time.
+     * @return long number of prefetched clips.
+     */
+    public long getPrefetchCount() {
+        return prefetchCount.get();
+    }
+
+    /**
+     * getter method for the warm tap ratio.
+     * @return float ratio of the taps served by a warm clip, 0 if no tap yet.
+     */
+    public float getWarmTapRatio() {
+        final long taps = tapCount.get();
+        return taps == 0 ? 0 : (float) warmTapCount.get() / taps;
+    }
+
+    /*
+     * replace the pending clips by the ones wanted now: the visible rows of the
+     * current category first, then the top rows of the adjacent categories.
+     */
+    private void schedule() {
+        pending.clear();
+
+        final int[] current = categories.get(currentPosition);
+        if (current != null) {
+            enqueue(current, firstVisibleRow, visibleRowCount);
+        }
+
+        for (int position = currentPosition - 1; position <= currentPosition + 1; position += 2) {
+            final int[] adjacent = categories.get(position);
+            if (adjacent != null) {
+                enqueue(adjacent, 0, adjacentRows);
+            }
+        }
+
+        while (activeDecodes < maxConcurrentDecodes && activeDecodes < pending.size()) {
+            activeDecodes++;
+            executor.execute(decodeRunnable);
+        }
+    }
+
+    private void enqueue(int[] soundIds, int first, int count) {
+        final int end = Math.min(soundIds.length, first + count);
+        for (int i = Math.max(0, first); i < end; i++) {
+            if (!pcmCache.contains(soundIds[i])) {
+                pending.addLast(soundIds[i]);
+            }
+        }
+    }
+
+    private synchronized Integer nextPending() {
+        if (pending.isEmpty() || pcmCache.size() >= memoryBudget) {
+            /* nothing left to do, or out of budget until the next schedule */
+            pending.clear();
+            activeDecodes--;
+            return null;
+        }
+
+        return pending.pollFirst();
+    }
+
+    /* release the slot of a decode runnable which stopped early, and let another take over */
+    private synchronized void releaseDecode() {
+        activeDecodes--;
+        if (!pending.isEmpty() && activeDecodes < maxConcurrentDecodes) {
+            activeDecodes++;
+            executor.execute(decodeRunnable);
+        }
+    }
+
+    private void warm(int soundId) {
+        if (pcmCache.contains(soundId)) {
+            return;
+        }
+
+        try {
+            pcmCache.putClip(soundId, MiwokPcmDecoder.decode(appContext, soundId));
+            prefetchCount.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            /* e.g. an IllegalStateException of the codec: skip the clip, not the others */
+            Log.w(LOG_TAG, "Failed to prefetch sound " + soundId, e);
+        }
+    }
+}
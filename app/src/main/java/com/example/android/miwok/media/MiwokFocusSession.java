@@ -0,0 +1,201 @@
+package com.example.android.miwok.media;
+
+import android.media.AudioManager;
+
+/**
+ * This class holds the audio focus across a burst of plays. The focus is only
+ * abandoned once no clip has been played for the focus idle window, and the
+ * requests made while it's still held are granted without a round trip to the
+ * system audio service.
+ *
+ * <p>The session also ends as soon as no screen of the app is visible anymore.
+ * The screens are counted rather than tracked one by one, as moving from a
+ * screen to the next starts the next one before stopping the previous one.
+ *
+ * <p>The system side (the audio manager and the delayed release) is reached
+ * through a {@link FocusService}. The session isn't thread-safe: its owner
+ * serializes the calls, including {@link #onReleaseDue()}.
+ */
+final class MiwokFocusSession {
+
+    /**
+     * Interface definition of the system side of a focus session.
+     */
+    interface FocusService {
+        /**
+         * Requests the audio focus from the system.
+         * @return int AudioManager.AUDIOFOCUS_REQUEST_* result.
+         */
+        int requestFocus();
+
+        /**
+         * Abandons the audio focus.
+         * @return int AudioManager.AUDIOFOCUS_REQUEST_* result.
+         */
+        int abandonFocus();
+
+        /**
+         * Schedules a call to {@link #onReleaseDue()}, replacing any pending one.
+         * @param delayMillis delay in milliseconds.
+         */
+        void scheduleRelease(long delayMillis);
+
+        /**
+         * Cancels the pending call to {@link #onReleaseDue()}, if any.
+         */
+        void cancelRelease();
+    }
+
+    private final FocusService service;
+
+    private long idleWindowMillis = MiwokAudioManagerFactory.DEFAULT_FOCUS_IDLE_WINDOW_MILLIS;
+    private boolean focusRequested;
+    private boolean focusLost;
+    private boolean releasePending;
+    private long requestCount;
+    private long avoidedRequestCount;
+    private int startedScreens;
+
+    /**
+     * constructor.
+     * @param service system side of the session.
+     */
+    MiwokFocusSession(FocusService service) {
+        this.service = service;
+    }
+
+    /**
+     * This method requests the audio focus. The request is granted right away
+     * if the focus is still held.
+     * @return int AudioManager.AUDIOFOCUS_REQUEST_* result.
+     */
+    int request() {
+        cancelRelease();
+        if (focusRequested && !focusLost) {
+            /* the focus session is still running: extend it */
+            avoidedRequestCount++;
+            return AudioManager.AUDIOFOCUS_REQUEST_GRANTED;
+        }
+
+        requestCount++;
+        final int result = service.requestFocus();
+        if (result == AudioManager.AUDIOFOCUS_REQUEST_GRANTED) {
+            focusRequested = true;
+            focusLost = false;
+        }
+        return result;
+    }
+
+    /**
+     * This method abandons the audio focus once the focus idle window has
+     * elapsed, unless it's requested again meanwhile.
+     * @return int AudioManager.AUDIOFOCUS_REQUEST_* result.
+     */
+    int abandon() {
+        if (idleWindowMillis > 0 && focusRequested) {
+            cancelRelease();
+            service.scheduleRelease(idleWindowMillis);
+            releasePending = true;
+            return AudioManager.AUDIOFOCUS_REQUEST_GRANTED;
+        }
+
+        focusRequested = false;
+        return service.abandonFocus();
+    }
+
+    /**
+     * This method is called once the release scheduled by the session is due.
+     */
+    void onReleaseDue() {
+        releasePending = false;
+        release();
+    }
+
+    /**
+     * This method ends the focus session right away.
+     */
+    void release() {
+        cancelRelease();
+        if (focusRequested) {
+            service.abandonFocus();
+        }
+        focusRequested = false;
+    }
+
+    /**
+     * This method is called when a screen of the app is started.
+     */
+    void onScreenStarted() {
+        startedScreens++;
+    }
+
+    /**
+     * This method is called when a screen of the app is stopped. The session
+     * ends once every started screen has been stopped.
+     */
+    void onScreenStopped() {
+        if (startedScreens > 0) {
+            startedScreens--;
+        }
+        if (startedScreens == 0) {
+            release();
+        }
+    }
+
+    /**
+     * setter method for the focus idle window.
+     * @param millis focus idle window in milliseconds, or 0 to abandon the
+     *               audio focus after every clip.
+     */
+    void setIdleWindowMillis(long millis) {
+        idleWindowMillis = Math.max(0, millis);
+        if (idleWindowMillis == 0 && releasePending) {
+            /* a focus session is waiting to be released */
+            release();
+        }
+    }
+
+    /**
+     * This method checks if the audio focus is held by the session.
+     * @return boolean if the focus has been granted and not abandoned since.
+     */
+    boolean isHeld() {
+        return focusRequested;
+    }
+
+    /**
+     * getter method for the number of audio focus requests sent to the system.
+     * @return long number of audio focus requests sent.
+     */
+    long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * getter method for the number of audio focus requests granted without a
+     * round trip to the system.
+     * @return long number of audio focus requests avoided.
+     */
+    long getAvoidedRequestCount() {
+        return avoidedRequestCount;
+    }
+
+    /*
+     * the focus can be taken by another app while a focus session is running, in
+     * which case it must be requested from the system again.
+     */
+    void onFocusLost() {
+        focusLost = true;
+    }
+
+    void onFocusGained() {
+        focusLost = false;
+    }
+
+    private void cancelRelease() {
+        if (releasePending) {
+            service.cancelRelease();
+            releasePending = false;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.android.miwok.media;
+
+import android.media.MediaPlayer;
+
+/**
+ * {@link MiwokPlayer} implementation backed by a dedicated {@link MediaPlayer}
+ * object. It is used for clips that are not (yet) loaded into the
+ * {@link MiwokSoundPool}.
+ */
+class MiwokMediaPlayer implements MiwokPlayer {
+    private final MediaPlayer mediaPlayer;
+    private boolean released;
+
+    /**
+     * constructor
+     * @param mediaPlayer prepared media player object.
+     * @param listener listener to be notified once the clip has been played.
+     */
+    MiwokMediaPlayer(MediaPlayer mediaPlayer, final OnCompletionListener listener) {
+        this.mediaPlayer = mediaPlayer;
+        this.mediaPlayer.setOnCompletionListener(new MediaPlayer.OnCompletionListener() {
+            @Override
+            public void onCompletion(MediaPlayer mp) {
+                listener.onCompletion(MiwokMediaPlayer.this);
+            }
+        });
+    }
+
+    @Override
+    public void start() {
+        mediaPlayer.start();
+    }
+
+    @Override
+    public void pause() {
+        mediaPlayer.pause();
+    }
+
+    @Override
+    public void seekTo(int msec) {
+        mediaPlayer.seekTo(msec);
+    }
+
+    /**
+     * This method sets the player started by the media framework right when
+     * this one completes, for gapless playback.
+     * @param next prepared player to be played next.
+     * @return boolean if the next player has been set.
+     */
+    boolean setNext(MiwokMediaPlayer next) {
+        if (released || next.released) {
+            return false;
+        }
+
+        try {
+            mediaPlayer.setNextMediaPlayer(next.mediaPlayer);
+            return true;
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            /* e.g. this player has already completed */
+            return false;
+        }
+    }
+
+    @Override
+    public boolean hasRenderedAudio() {
+        return !released && mediaPlayer.isPlaying() && mediaPlayer.getCurrentPosition() > 0;
+    }
+
+    @Override
+    public void release() {
+        released = true;
+        mediaPlayer.release();
+    }
+}
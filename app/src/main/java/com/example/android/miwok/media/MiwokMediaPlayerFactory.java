@@ -2,16 +2,89 @@ package com.example.android.miwok.media;
 
 import android.content.Context;
 import android.media.MediaPlayer;
+import android.os.Trace;
 import android.util.Log;
 
+import com.example.android.miwok.trace.MiwokLatencyTracer;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * This singleton factory class allows the media player creation and management
- * in the Miwok app.
+ * in the Miwok app. Clips preloaded into the {@link MiwokSoundPool} are played
+ * from memory, other clips are decoded once into the {@link MiwokPcmCache} and
+ * replayed from there. A dedicated {@link MediaPlayer} is the last resort.
+ *
+ * <p>Each request gets its own {@link MiwokPlaybackSession}, and the factory
+ * is idle when it has no current session. The current session is swapped with
+ * atomic operations only, so neither the callers nor the player callbacks
+ * block on a lock, and a callback of a replaced session is a no-op.
  */
 public class MiwokMediaPlayerFactory {
     private static final String LOG_TAG = "MiwokMediaPlayerFactory";
     private static MiwokMediaPlayerFactory instance;
-    private static MediaPlayer mediaPlayer;
+
+    private final MiwokSoundPool soundPool = new MiwokSoundPool();
+    private final MiwokPcmCache pcmCache =
+            new MiwokPcmCache(MiwokPcmCache.getDefaultSizeInBytes());
+    private final MiwokMediaPreparer mediaPreparer = new MiwokMediaPreparer(pcmCache);
+    private final MiwokAudioPrefetcher audioPrefetcher = new MiwokAudioPrefetcher(pcmCache);
+    private final AtomicBoolean pcmCacheRegistered = new AtomicBoolean();
+
+    /* session of the latest request, null when idle */
+    private final AtomicReference<MiwokPlaybackSession> currentSession =
+            new AtomicReference<>();
+    /* queue being played, if any. Its current clip is the current session */
+    private final AtomicReference<MiwokPlaybackQueue> currentQueue = new AtomicReference<>();
+
+    /**
+     * Interface definition for a callback invoked when an asynchronously
+     * created player is ready to be started.
+     */
+    public interface OnPlayerReadyListener {
+        /**
+         * Called on the main thread once the player is ready.
+         * @param player the player, which is also the factory's current player.
+         *               It ignores any call once it has been replaced.
+         */
+        void onPlayerReady(MiwokPlayer player);
+    }
+
+    /**
+     * Interface definition for the callbacks of a playback queue, see
+     * {@link #playQueue(Context, int[], OnQueueProgressListener)}. Both
+     * callbacks are invoked on the main thread.
+     */
+    public interface OnQueueProgressListener {
+        /**
+         * Called when a clip of the queue starts playing.
+         * @param position position of the clip in the queue.
+         */
+        void onQueueClipStarted(int position);
+
+        /**
+         * Called once when the queue stops: after its last clip has been
+         * played, or when it's stopped or replaced before.
+         */
+        void onQueueStopped();
+    }
+
+    /*
+     * release the player once its clip has been played, unless it has already
+     * been replaced by a newer one.
+     */
+    private final MiwokPlayer.OnCompletionListener completionListener =
+            new MiwokPlayer.OnCompletionListener() {
+                @Override
+                public void onCompletion(MiwokPlayer player) {
+                    final MiwokPlaybackSession session = currentSession.get();
+                    if (session != null && session.owns(player)) {
+                        releaseSession(session);
+                    }
+                }
+            };
 
     /**
      * private constructor.
@@ -34,62 +107,325 @@ public class MiwokMediaPlayerFactory {
         return instance;
     }
 
+    /**
+     * This method loads audio files into the sound pool, so that the following
+     * {@link #create(Context, int)} calls for them are served from memory.
+     * @param context context that requested the preload.
+     * @param soundIds sound ids of the audio clips to be loaded.
+     */
+    public void preload(Context context, int... soundIds) {
+        registerPcmCache(context);
+        soundPool.load(context, soundIds);
+    }
+
+    /**
+     * getter method for the decoded clip cache, e.g. to read its hit, miss and
+     * eviction counters.
+     * @return MiwokPcmCache decoded clip cache.
+     */
+    public MiwokPcmCache getPcmCache() {
+        return pcmCache;
+    }
+
+    /**
+     * This method returns the decoded samples of a clip, from the decoded
+     * clip cache or by decoding the clip into it. It blocks on the decoding,
+     * and must not run on the main thread.
+     * @param context context used to open the audio bundle.
+     * @param soundId sound id of the audio clip.
+     * @return MiwokPcmClip decoded clip.
+     * @throws IOException if the clip can't be decoded.
+     */
+    public MiwokPcmClip getPcmClip(Context context, int soundId) throws IOException {
+        registerPcmCache(context);
+        MiwokPcmClip clip = pcmCache.get(soundId);
+        if (clip == null) {
+            clip = MiwokPcmDecoder.decode(context.getApplicationContext(), soundId);
+            pcmCache.putClip(soundId, clip);
+        }
+        return clip;
+    }
+
+    /**
+     * getter method for the audio prefetcher, which warms the decoded clip
+     * cache for the words the user is likely to tap next.
+     * @return MiwokAudioPrefetcher audio prefetcher.
+     */
+    public MiwokAudioPrefetcher getAudioPrefetcher() {
+        return audioPrefetcher;
+    }
+
     /**
      * This method creates a new media player object.
      * @param context context that requested the media player creation.
-     * @param resid resource id for the audio file to be played.
+     * @param soundId sound id of the audio clip to be played.
+     */
+    public void create(Context context, int soundId) {
+        /*
+         * release any previous left behind media player object. This may
+         * happen if the user didn't let the last audio file play until
+         * the end and thus the media player object wasn't released.
+         */
+        releaseMediaPlayer();
+
+        final MiwokPlaybackSession session = new MiwokPlaybackSession();
+        currentSession.set(session);
+
+        if (soundPool.isLoaded(soundId)) {
+            /* fast path: the clip is already decoded in memory */
+            session.onPlayerReady(new MiwokSoundPoolPlayer(soundPool, soundId, completionListener));
+            return;
+        }
+
+        /* load the clip for the next time, and play this one the slow way */
+        soundPool.load(context, soundId);
+
+        final MediaPlayer player = new MediaPlayer();
+        try {
+            final MiwokAudioBundle.Clip clip =
+                    MiwokAudioBundle.getInstance().getClip(context, soundId);
+            player.setDataSource(clip.getFileDescriptor(), clip.getStartOffset(),
+                    clip.getLength());
+            player.prepare();
+        } catch (IOException | RuntimeException e) {
+            Log.e(LOG_TAG, "Failed to create media player", e);
+            player.release();
+            currentSession.compareAndSet(session, null);
+            session.releaseSession();
+            return;
+        }
+
+        session.onPlayerReady(new MiwokMediaPlayer(player, completionListener));
+    }
+
+    /**
+     * This method creates a new media player object without blocking the
+     * calling thread on media I/O. Clips loaded into the sound pool are ready
+     * immediately, any other clip is prepared on a background thread. A new
+     * request cancels the previous one if it isn't ready yet.
+     * @param context context that requested the media player creation.
+     * @param soundId sound id of the audio clip to be played.
+     * @param listener listener notified on the main thread once the player is
+     *                 ready. It isn't called if the request is cancelled.
      */
-    public synchronized void create(Context context, int resid) {
-        if (hasMediaPlayer()) {
+    public void createAsync(Context context, int soundId, final OnPlayerReadyListener listener) {
+        final MiwokPlaybackSession session = new MiwokPlaybackSession();
+
+        Trace.beginSection("MiwokMediaPlayerFactory.createAsync");
+        try {
             /*
-             * release any previous left behind media player object. This may
-             * happen if the user didn't let the last audio file play until
-             * the end and thus the media player object wasn't released.
+             * drop the previous session, but keep the audio focus which has just
+             * been requested for this clip.
              */
-            releaseMediaPlayer();
+            stopQueue();
+            final MiwokPlaybackSession previous = currentSession.getAndSet(session);
+            if (previous != null) {
+                previous.releaseSession();
+            }
+
+            audioPrefetcher.recordTap(soundPool.isLoaded(soundId) || pcmCache.contains(soundId));
+
+            prepareSession(context, soundId, session, completionListener,
+                    new MiwokMediaPreparer.Callback() {
+                        @Override
+                        public void onPrepared(MiwokPlayer player) {
+                            /* the session releases the player if it was superseded meanwhile */
+                            if (session.onPlayerReady(player)) {
+                                deliverPlayer(session, listener);
+                            }
+                        }
+
+                        @Override
+                        public void onError() {
+                            releaseSession(session);
+                        }
+                    });
+        } finally {
+            Trace.endSection();
         }
+    }
+
+    /**
+     * This method plays a list of audio files back to back, preparing each
+     * clip while the previous one plays. It replaces the current player or
+     * queue, and like a single clip, the queue is stopped by
+     * {@link #releaseMediaPlayer()} and paused by a transient audio focus loss.
+     * @param context context that requested the playback.
+     * @param soundIds sound ids of the audio clips to be played, in order.
+     * @param listener listener notified on the main thread of the playback
+     *                 progress.
+     */
+    public void playQueue(Context context, int[] soundIds, OnQueueProgressListener listener) {
+        /* keep the audio focus which has just been requested for the queue */
+        final MiwokPlaybackSession previous = currentSession.getAndSet(null);
+        if (previous != null) {
+            previous.releaseSession();
+        }
+
+        final MiwokPlaybackQueue queue = new MiwokPlaybackQueue(this, context, soundIds, listener);
+        final MiwokPlaybackQueue previousQueue = currentQueue.getAndSet(queue);
+        if (previousQueue != null) {
+            previousQueue.release();
+        }
+
+        queue.start();
+    }
+
+    /**
+     * This method checks if a queue is being played.
+     * @return boolean if a queue started by
+     *         {@link #playQueue(Context, int[], OnQueueProgressListener)} is
+     *         still playing.
+     */
+    public boolean isPlayingQueue() {
+        return currentQueue.get() != null;
+    }
 
-        mediaPlayer = MediaPlayer.create(context, resid);
-        if (mediaPlayer == null) {
-            Log.e(LOG_TAG, "Failed to create media player");
+    /*
+     * create the player of a session: right away for a clip loaded into the
+     * sound pool, or in the background for any other clip.
+     */
+    void prepareSession(Context context, int soundId, final MiwokPlaybackSession session,
+                        MiwokPlayer.OnCompletionListener completionListener,
+                        MiwokMediaPreparer.Callback callback) {
+        if (soundPool.isLoaded(soundId)) {
+            /* fast path: the clip is already decoded in memory */
+            callback.onPrepared(new MiwokSoundPoolPlayer(soundPool, soundId, completionListener));
             return;
         }
 
-        mediaPlayer.setOnCompletionListener(new MediaPlayer.OnCompletionListener() {
+        /* load the clip for the next time, and prepare this one in the background */
+        soundPool.load(context, soundId);
+        registerPcmCache(context);
+        mediaPreparer.prepare(context, soundId, new MiwokMediaPreparer.Request() {
             @Override
-            public void onCompletion(MediaPlayer mp) {
-                /* release the current media player object after playback is complete */
-                releaseMediaPlayer();
+            public boolean isStale() {
+                return session.isReleased();
             }
-        });
+        }, completionListener, callback);
+    }
+
+    /*
+     * make the clip being played by a queue the current session, so that the
+     * audio focus changes apply to it.
+     */
+    void onQueueClipStarted(MiwokPlaybackQueue queue, MiwokPlaybackSession session) {
+        if (currentQueue.get() == queue) {
+            currentSession.set(session);
+        }
+    }
+
+    void onQueueFinished(MiwokPlaybackQueue queue) {
+        if (currentQueue.compareAndSet(queue, null)) {
+            final MiwokPlaybackSession session = currentSession.get();
+            if (session == null || session.isReleased()) {
+                currentSession.compareAndSet(session, null);
+                MiwokAudioManagerFactory.getInstance().abandonAudioFocusRequest();
+            }
+        }
+    }
+
+    private void stopQueue() {
+        final MiwokPlaybackQueue queue = currentQueue.getAndSet(null);
+        if (queue != null) {
+            queue.release();
+        }
     }
 
     /**
      * This method checks if a media player object is available.
      * @return boolean if a media player object is available.
      */
-    public synchronized boolean hasMediaPlayer() {
-        return mediaPlayer != null;
+    public boolean hasMediaPlayer() {
+        final MiwokPlaybackSession session = currentSession.get();
+        return session != null && session.getState() != MiwokPlaybackSession.STATE_PREPARING
+                && !session.isReleased();
+    }
+
+    /**
+     * This method returns the existing media player object. The returned
+     * object ignores any call once it has been replaced or released.
+     * @return MiwokPlayer media player object, null if there is none.
+     */
+    public MiwokPlayer getMediaPlayer() {
+        return hasMediaPlayer() ? currentSession.get() : null;
     }
 
     /**
-     * This method returns the existing media player object.
-     * @return MediaPlayer media player object.
+     * This method starts or resumes the current player, if there is one. It
+     * does nothing while the player is being prepared.
      */
-    public synchronized MediaPlayer getMediaPlayer() {
-        return mediaPlayer;
+    public void resumePlayback() {
+        final MiwokPlaybackSession session = currentSession.get();
+        if (session != null) {
+            session.start();
+        }
+    }
+
+    /**
+     * This method pauses the current player, if there is one, and rewinds it
+     * to the start of the clip.
+     */
+    public void pauseAndRewindPlayback() {
+        final MiwokPlaybackSession session = currentSession.get();
+        if (session != null) {
+            session.pause();
+            session.seekTo(0);
+        }
     }
 
     /**
      * This method releases the media player object.
      */
-    public synchronized void releaseMediaPlayer() {
-        if (mediaPlayer != null) {
-            mediaPlayer.release();
-            mediaPlayer = null;
+    public void releaseMediaPlayer() {
+        /* also cancels any pending asynchronous request */
+        final MiwokPlaybackQueue queue = currentQueue.getAndSet(null);
+        if (queue != null) {
+            queue.release();
+        }
 
+        final MiwokPlaybackSession session = currentSession.getAndSet(null);
+        if ((session != null && session.releaseSession()) || queue != null) {
             /* abandon audio focus */
             MiwokAudioManagerFactory.getInstance().abandonAudioFocusRequest();
         }
     }
+
+    /*
+     * release a session unless it has already been replaced, in which case
+     * the audio focus belongs to its successor.
+     */
+    private void releaseSession(MiwokPlaybackSession session) {
+        if (currentSession.compareAndSet(session, null) && session.releaseSession()) {
+            MiwokAudioManagerFactory.getInstance().abandonAudioFocusRequest();
+        }
+    }
+
+    /*
+     * hand the player over to the listener, which usually starts it right
+     * away, and trace the tap latency up to the first audio frame.
+     */
+    private void deliverPlayer(MiwokPlayer player, OnPlayerReadyListener listener) {
+        final MiwokLatencyTracer latencyTracer = MiwokLatencyTracer.getInstance();
+        latencyTracer.onPlayerReady();
+        listener.onPlayerReady(player);
+        latencyTracer.onPlayerStarted(player);
+    }
+
+    /*
+     * let the system shrink the decoded clip cache when it runs low on memory.
+     */
+    private void registerPcmCache(Context context) {
+        if (pcmCacheRegistered.compareAndSet(false, true)) {
+            context.getApplicationContext().registerComponentCallbacks(pcmCache);
+        }
+    }
+
+    /**
+     * This method releases the sound pool and all the clips loaded into it.
+     */
+    public void releaseSoundPool() {
+        releaseMediaPlayer();
+        soundPool.release();
+    }
 }
@@ -0,0 +1,191 @@
+package com.example.android.miwok.media;
+
+import android.content.Context;
+import android.media.MediaPlayer;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Trace;
+import android.util.Log;
+
+import java.io.IOException;
+
+/**
+ * This class prepares players on a dedicated background thread, so that
+ * opening, parsing and decoding the audio files never blocks the main thread.
+ * Clips are decoded into the {@link MiwokPcmCache}, so replaying them skips
+ * decoding entirely; a {@link MediaPlayer} is only used for clips that can't be
+ * decoded. The prepared players are delivered on the main thread.
+ */
+class MiwokMediaPreparer {
+    private static final String LOG_TAG = "MiwokMediaPreparer";
+
+    /**
+     * Interface definition for the callbacks of a prepare request. Both
+     * callbacks are invoked on the main thread.
+     */
+    interface Callback {
+        /**
+         * Called when the player is ready to be started.
+         * @param player prepared player object.
+         */
+        void onPrepared(MiwokPlayer player);
+
+        /**
+         * Called when the media player couldn't be prepared.
+         */
+        void onError();
+    }
+
+    /**
+     * Interface definition to check if a request is still wanted.
+     */
+    interface Request {
+        /**
+         * @return boolean if the request has been superseded or cancelled.
+         */
+        boolean isStale();
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final MiwokPcmCache pcmCache;
+    private Handler prepareHandler;
+
+    /**
+     * constructor
+     * @param pcmCache cache holding the decoded clips.
+     */
+    MiwokMediaPreparer(MiwokPcmCache pcmCache) {
+        this.pcmCache = pcmCache;
+    }
+
+    /**
+     * This method prepares a new player for the given audio file.
+     * @param context context used to open the audio bundle.
+     * @param soundId sound id of the audio clip to be prepared.
+     * @param request request used to drop the work as soon as it's stale.
+     * @param listener listener to be notified once the clip has been played.
+     * @param callback callback notified on the main thread.
+     */
+    void prepare(Context context, final int soundId, final Request request,
+                 final MiwokPlayer.OnCompletionListener listener, final Callback callback) {
+        final Context appContext = context.getApplicationContext();
+        getPrepareHandler().post(new Runnable() {
+            @Override
+            public void run() {
+                if (request.isStale()) {
+                    /* a newer request came in before this one could start */
+                    return;
+                }
+
+                Trace.beginSection("MiwokMediaPreparer.prepare");
+                try {
+                    final MiwokPcmClip clip = getClip(appContext, soundId);
+                    if (clip != null) {
+                        try {
+                            deliverPrepared(new MiwokPcmPlayer(clip, listener), request, callback);
+                            return;
+                        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+                            Log.e(LOG_TAG, "Failed to create audio track for sound " + soundId, e);
+                        }
+                    }
+
+                    prepareMediaPlayer(appContext, soundId, request, listener, callback);
+                } finally {
+                    Trace.endSection();
+                }
+            }
+        });
+    }
+
+    /**
+     * This method returns a decoded clip, decoding it on a cache miss.
+     * @param context context used to open the audio bundle.
+     * @param soundId sound id of the audio clip.
+     * @return MiwokPcmClip the decoded clip, or null if it can't be decoded.
+     */
+    private MiwokPcmClip getClip(Context context, int soundId) {
+        MiwokPcmClip clip = pcmCache.get(soundId);
+        if (clip == null) {
+            try {
+                clip = MiwokPcmDecoder.decode(context, soundId);
+                pcmCache.putClip(soundId, clip);
+            } catch (IOException e) {
+                Log.w(LOG_TAG, "Failed to decode sound " + soundId, e);
+            }
+        }
+
+        return clip;
+    }
+
+    private void prepareMediaPlayer(Context appContext, final int soundId, final Request request,
+                                    final MiwokPlayer.OnCompletionListener listener,
+                                    final Callback callback) {
+        final MediaPlayer mediaPlayer = new MediaPlayer();
+        try {
+            final MiwokAudioBundle.Clip clip =
+                    MiwokAudioBundle.getInstance().getClip(appContext, soundId);
+            mediaPlayer.setDataSource(clip.getFileDescriptor(),
+                    clip.getStartOffset(), clip.getLength());
+        } catch (IOException | RuntimeException e) {
+            Log.e(LOG_TAG, "Failed to open sound " + soundId, e);
+            mediaPlayer.release();
+            deliverError(callback);
+            return;
+        }
+
+        /* the listeners are called on this thread, since it has a looper */
+        mediaPlayer.setOnPreparedListener(new MediaPlayer.OnPreparedListener() {
+            @Override
+            public void onPrepared(MediaPlayer mp) {
+                mp.setOnErrorListener(null);
+                deliverPrepared(new MiwokMediaPlayer(mp, listener), request, callback);
+            }
+        });
+        mediaPlayer.setOnErrorListener(new MediaPlayer.OnErrorListener() {
+            @Override
+            public boolean onError(MediaPlayer mp, int what, int extra) {
+                Log.e(LOG_TAG, "Failed to prepare sound " + soundId
+                        + " (" + what + ", " + extra + ")");
+                mp.release();
+                deliverError(callback);
+                return true;
+            }
+        });
+        mediaPlayer.prepareAsync();
+    }
+
+    private void deliverPrepared(final MiwokPlayer player, final Request request,
+                                 final Callback callback) {
+        if (request.isStale()) {
+            player.release();
+            return;
+        }
+
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                callback.onPrepared(player);
+            }
+        });
+    }
+
+    private void deliverError(final Callback callback) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                callback.onError();
+            }
+        });
+    }
+
+    private synchronized Handler getPrepareHandler() {
+        if (prepareHandler == null) {
+            final HandlerThread thread = new HandlerThread(LOG_TAG);
+            thread.start();
+            prepareHandler = new Handler(thread.getLooper());
+        }
+
+        return prepareHandler;
+    }
+}
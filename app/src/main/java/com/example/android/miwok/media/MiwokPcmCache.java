@@ -0,0 +1,104 @@
+package com.example.android.miwok.media;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class caches decoded Miwok audio clips, keyed by their sound id. The
+ * cache is bounded by the total size of the PCM samples it holds and evicts
+ * the least recently played clips first. It shrinks itself when the system
+ * runs low on memory.
+ */
+public class MiwokPcmCache extends LruCache<Integer, MiwokPcmClip>
+        implements ComponentCallbacks2 {
+    private static final int MIN_SIZE_IN_BYTES = 4 * 1024 * 1024;
+    private static final int HEAP_FRACTION = 16;
+
+    /*
+     * keys of the cached clips, to check for a clip without touching the LRU
+     * order or the hit and miss counters.
+     */
+    private final Set<Integer> keys =
+            Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+
+    /**
+     * constructor
+     * @param maxSizeInBytes maximum size of the cached PCM samples in bytes.
+     */
+    public MiwokPcmCache(int maxSizeInBytes) {
+        super(maxSizeInBytes);
+    }
+
+    /**
+     * This method computes a default size for the cache, i.e. a fraction of the
+     * heap available to the app.
+     * @return int default maximum size of the cache in bytes.
+     */
+    public static int getDefaultSizeInBytes() {
+        return (int) Math.max(MIN_SIZE_IN_BYTES,
+                Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / HEAP_FRACTION));
+    }
+
+    /**
+     * This method checks if a clip is cached, without counting a hit or a miss.
+     * @param soundId sound id of the audio clip.
+     * @return boolean if the decoded clip is in the cache.
+     */
+    public boolean contains(int soundId) {
+        return keys.contains(soundId);
+    }
+
+    /**
+     * This method adds a decoded clip to the cache. It must be used instead of
+     * {@link #put(Object, Object)} to keep {@link #contains(int)} accurate.
+     * @param soundId sound id of the audio clip.
+     * @param clip decoded clip.
+     */
+    public void putClip(int soundId, MiwokPcmClip clip) {
+        keys.add(soundId);
+        put(soundId, clip);
+    }
+
+    @Override
+    protected void entryRemoved(boolean evicted, @NonNull Integer soundId,
+                                @NonNull MiwokPcmClip oldClip, MiwokPcmClip newClip) {
+        if (newClip == null) {
+            keys.remove(soundId);
+        }
+    }
+
+    @Override
+    protected int sizeOf(@NonNull Integer soundId, @NonNull MiwokPcmClip clip) {
+        return clip.getSizeInBytes();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_MODERATE) {
+            /* the app is likely to be killed soon. Free everything */
+            evictAll();
+        } else if (level >= TRIM_MEMORY_BACKGROUND
+                || level == TRIM_MEMORY_RUNNING_LOW
+                || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            /* keep the most recently played half of the clips */
+            trimToSize(size() / 2);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        evictAll();
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        /* nothing to do, decoded clips don't depend on the configuration */
+    }
+}
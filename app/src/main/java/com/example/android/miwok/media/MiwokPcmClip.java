@@ -0,0 +1,73 @@
+package com.example.android.miwok.media;
+
+/**
+ * This class holds a decoded Miwok audio clip as 16-bit PCM samples, so it can
+ * be played again without decoding the audio file.
+ */
+public class MiwokPcmClip {
+    private static final int BYTES_PER_SAMPLE = 2;
+
+    private final byte[] data;
+    private final int sampleRate;
+    private final int channelCount;
+
+    /**
+     * constructor
+     * @param data interleaved 16-bit PCM samples in native byte order.
+     * @param sampleRate sample rate in Hz.
+     * @param channelCount number of channels.
+     */
+    public MiwokPcmClip(byte[] data, int sampleRate, int channelCount) {
+        this.data = data;
+        this.sampleRate = sampleRate;
+        this.channelCount = channelCount;
+    }
+
+    /**
+     * getter method for the PCM samples.
+     * @return byte[] interleaved 16-bit PCM samples.
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * getter method for the sample rate.
+     * @return int sample rate in Hz.
+     */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * getter method for the channel count.
+     * @return int number of channels.
+     */
+    public int getChannelCount() {
+        return channelCount;
+    }
+
+    /**
+     * getter method for the clip size.
+     * @return int size of the PCM samples in bytes.
+     */
+    public int getSizeInBytes() {
+        return data.length;
+    }
+
+    /**
+     * getter method for the number of frames, i.e. samples per channel.
+     * @return int number of frames.
+     */
+    public int getFrameCount() {
+        return data.length / (BYTES_PER_SAMPLE * channelCount);
+    }
+
+    /**
+     * getter method for the clip duration.
+     * @return int duration of the clip in milliseconds.
+     */
+    public int getDurationMillis() {
+        return (int) (getFrameCount() * 1000L / sampleRate);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.android.miwok.media;
+
+import android.content.Context;
+import android.media.AudioFormat;
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * This class decodes a Miwok audio clip into 16-bit PCM samples with
+ * {@link MediaCodec}. Decoding is blocking and must not run on the main thread.
+ */
+final class MiwokPcmDecoder {
+    private static final long TIMEOUT_US = 10000;
+    private static final String AUDIO_MIME_PREFIX = "audio/";
+
+    private MiwokPcmDecoder() {}
+
+    /**
+     * This method decodes an audio clip.
+     * @param context context used to open the audio bundle.
+     * @param soundId sound id of the audio clip to be decoded.
+     * @return MiwokPcmClip the decoded clip.
+     * @throws IOException if the clip can't be read or decoded.
+     */
+    static MiwokPcmClip decode(Context context, int soundId) throws IOException {
+        final MediaExtractor extractor = new MediaExtractor();
+        MediaCodec codec = null;
+        try {
+            final MiwokAudioBundle.Clip clip =
+                    MiwokAudioBundle.getInstance().getClip(context, soundId);
+            extractor.setDataSource(clip.getFileDescriptor(), clip.getStartOffset(),
+                    clip.getLength());
+
+            final int track = selectAudioTrack(extractor);
+            if (track < 0) {
+                throw new IOException("No audio track in sound " + soundId);
+            }
+
+            final MediaFormat inputFormat = extractor.getTrackFormat(track);
+            extractor.selectTrack(track);
+
+            int sampleRate = inputFormat.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+            int channelCount = inputFormat.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+
+            codec = MediaCodec.createDecoderByType(inputFormat.getString(MediaFormat.KEY_MIME));
+            codec.configure(inputFormat, null, null, 0);
+            codec.start();
+
+            final ByteArrayOutputStream pcm = new ByteArrayOutputStream();
+            final MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+            byte[] chunk = new byte[0];
+            boolean inputDone = false;
+            boolean outputDone = false;
+
+            while (!outputDone) {
+                if (!inputDone) {
+                    final int inputIndex = codec.dequeueInputBuffer(TIMEOUT_US);
+                    if (inputIndex >= 0) {
+                        final ByteBuffer inputBuffer = codec.getInputBuffer(inputIndex);
+                        final int size = extractor.readSampleData(inputBuffer, 0);
+                        if (size < 0) {
+                            codec.queueInputBuffer(inputIndex, 0, 0, 0,
+                                    MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                            inputDone = true;
+                        } else {
+                            codec.queueInputBuffer(inputIndex, 0, size,
+                                    extractor.getSampleTime(), 0);
+                            extractor.advance();
+                        }
+                    }
+                }
+
+                final int outputIndex = codec.dequeueOutputBuffer(info, TIMEOUT_US);
+                if (outputIndex >= 0) {
+                    if (info.size > 0) {
+                        final ByteBuffer outputBuffer = codec.getOutputBuffer(outputIndex);
+                        if (chunk.length < info.size) {
+                            chunk = new byte[info.size];
+                        }
+                        outputBuffer.position(info.offset);
+                        outputBuffer.get(chunk, 0, info.size);
+                        pcm.write(chunk, 0, info.size);
+                    }
+
+                    codec.releaseOutputBuffer(outputIndex, false);
+                    outputDone = (info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0;
+                } else if (outputIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                    final MediaFormat outputFormat = codec.getOutputFormat();
+                    if (outputFormat.containsKey(MediaFormat.KEY_PCM_ENCODING)
+                            && outputFormat.getInteger(MediaFormat.KEY_PCM_ENCODING)
+                            != AudioFormat.ENCODING_PCM_16BIT) {
+                        throw new IOException("Unsupported PCM encoding for sound " + soundId);
+                    }
+                    sampleRate = outputFormat.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+                    channelCount = outputFormat.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+                }
+            }
+
+            if (pcm.size() == 0) {
+                throw new IOException("No audio decoded from sound " + soundId);
+            }
+
+            return new MiwokPcmClip(pcm.toByteArray(), sampleRate, channelCount);
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            throw new IOException("Failed to decode sound " + soundId, e);
+        } finally {
+            if (codec != null) {
+                codec.release();
+            }
+            extractor.release();
+        }
+    }
+
+    private static int selectAudioTrack(MediaExtractor extractor) {
+        for (int i = 0; i < extractor.getTrackCount(); i++) {
+            final String mime = extractor.getTrackFormat(i).getString(MediaFormat.KEY_MIME);
+            if (mime != null && mime.startsWith(AUDIO_MIME_PREFIX)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
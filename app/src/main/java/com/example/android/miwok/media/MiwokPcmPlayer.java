@@ -0,0 +1,89 @@
+package com.example.android.miwok.media;
+
+import android.media.AudioAttributes;
+import android.media.AudioFormat;
+import android.media.AudioTrack;
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * {@link MiwokPlayer} implementation that plays a decoded {@link MiwokPcmClip}
+ * with a static {@link AudioTrack}, i.e. without any decoding on playback.
+ */
+class MiwokPcmPlayer implements MiwokPlayer {
+    private final AudioTrack audioTrack;
+    private final int sampleRate;
+
+    /**
+     * constructor
+     * @param clip decoded clip to be played.
+     * @param listener listener to be notified once the clip has been played.
+     */
+    MiwokPcmPlayer(MiwokPcmClip clip, final OnCompletionListener listener) {
+        final AudioAttributes audioAttributes = new AudioAttributes.Builder()
+                .setUsage(AudioAttributes.USAGE_MEDIA)
+                .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
+                .build();
+
+        final AudioFormat audioFormat = new AudioFormat.Builder()
+                .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
+                .setSampleRate(clip.getSampleRate())
+                .setChannelMask(clip.getChannelCount() == 1
+                        ? AudioFormat.CHANNEL_OUT_MONO : AudioFormat.CHANNEL_OUT_STEREO)
+                .build();
+
+        sampleRate = clip.getSampleRate();
+        audioTrack = new AudioTrack.Builder()
+                .setAudioAttributes(audioAttributes)
+                .setAudioFormat(audioFormat)
+                .setTransferMode(AudioTrack.MODE_STATIC)
+                .setBufferSizeInBytes(clip.getSizeInBytes())
+                .build();
+        audioTrack.write(clip.getData(), 0, clip.getSizeInBytes());
+
+        /* get notified on the main thread when the last frame is played */
+        audioTrack.setNotificationMarkerPosition(clip.getFrameCount());
+        audioTrack.setPlaybackPositionUpdateListener(
+                new AudioTrack.OnPlaybackPositionUpdateListener() {
+                    @Override
+                    public void onMarkerReached(AudioTrack track) {
+                        listener.onCompletion(MiwokPcmPlayer.this);
+                    }
+
+                    @Override
+                    public void onPeriodicNotification(AudioTrack track) {
+                        /* not used */
+                    }
+                }, new Handler(Looper.getMainLooper()));
+    }
+
+    @Override
+    public void start() {
+        audioTrack.play();
+    }
+
+    @Override
+    public void pause() {
+        audioTrack.pause();
+    }
+
+    @Override
+    public void seekTo(int msec) {
+        /* the playback head can only be moved while the track is paused or stopped */
+        if (audioTrack.getPlayState() != AudioTrack.PLAYSTATE_PLAYING) {
+            audioTrack.setPlaybackHeadPosition((int) ((long) msec * sampleRate / 1000));
+        }
+    }
+
+    @Override
+    public boolean hasRenderedAudio() {
+        /* the playback head only moves once frames have been played */
+        return audioTrack.getPlayState() == AudioTrack.PLAYSTATE_PLAYING
+                && audioTrack.getPlaybackHeadPosition() > 0;
+    }
+
+    @Override
+    public void release() {
+        audioTrack.release();
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.android.miwok.media;
+
+import android.content.Context;
+import android.util.Log;
+
+/**
+ * This class plays a list of audio clips back to back. The next clip is
+ * prepared while the current one plays, so moving on to it only takes a
+ * start() call: two prepared media players are even chained, so that the
+ * media framework starts the next one by itself. At most two clips, the
+ * current and the next one, hold a player at any time.
+ *
+ * <p>All its methods are meant to be called on the main thread.
+ */
+class MiwokPlaybackQueue {
+    private static final String LOG_TAG = "MiwokPlaybackQueue";
+    private static final int NO_CLIP = -1;
+
+    private final MiwokMediaPlayerFactory factory;
+    private final Context context;
+    private final int[] soundIds;
+    private final MiwokMediaPlayerFactory.OnQueueProgressListener listener;
+
+    private MiwokPlaybackSession current;
+    private int currentPosition = NO_CLIP;
+    private MiwokPlaybackSession next;
+    private int nextPosition = NO_CLIP;
+    /* the current clip is over and the next one should start once ready */
+    private boolean waitingForNext;
+    private boolean released;
+
+    /* move on to the next clip once the current one has been played */
+    private final MiwokPlayer.OnCompletionListener completionListener =
+            new MiwokPlayer.OnCompletionListener() {
+                @Override
+                public void onCompletion(MiwokPlayer player) {
+                    if (!released && current != null && current.owns(player)) {
+                        playNext();
+                    }
+                }
+            };
+
+    /**
+     * constructor
+     * @param factory factory creating the players.
+     * @param context context used to open the audio bundle.
+     * @param soundIds sound ids of the audio clips to be played, in order.
+     * @param listener listener notified of the playback progress.
+     */
+    MiwokPlaybackQueue(MiwokMediaPlayerFactory factory, Context context, int[] soundIds,
+                       MiwokMediaPlayerFactory.OnQueueProgressListener listener) {
+        this.factory = factory;
+        this.context = context.getApplicationContext();
+        this.soundIds = soundIds.clone();
+        this.listener = listener;
+    }
+
+    /**
+     * This method starts playing the first clip as soon as it's ready.
+     */
+    void start() {
+        waitingForNext = true;
+        prepareFrom(0);
+    }
+
+    /**
+     * This method stops the playback and releases both players.
+     */
+    void release() {
+        if (released) {
+            return;
+        }
+
+        released = true;
+        waitingForNext = false;
+        /* the current player may refer to the next one: release it first */
+        if (current != null) {
+            current.releaseSession();
+            current = null;
+        }
+        if (next != null) {
+            next.releaseSession();
+            next = null;
+        }
+
+        listener.onQueueStopped();
+    }
+
+    /*
+     * prepare the first clip from the given position that can be played, and
+     * chain it to the current one when possible.
+     */
+    private void prepareFrom(int position) {
+        if (position >= soundIds.length) {
+            next = null;
+            nextPosition = NO_CLIP;
+            if (waitingForNext) {
+                finish();
+            }
+            return;
+        }
+
+        final MiwokPlaybackSession session = new MiwokPlaybackSession();
+        next = session;
+        nextPosition = position;
+        factory.prepareSession(context, soundIds[position], session, completionListener,
+                new MiwokMediaPreparer.Callback() {
+                    @Override
+                    public void onPrepared(MiwokPlayer player) {
+                        if (session.onPlayerReady(player)) {
+                            onNextReady(session);
+                        }
+                    }
+
+                    @Override
+                    public void onError() {
+                        onNextFailed(session);
+                    }
+                });
+    }
+
+    private void onNextReady(MiwokPlaybackSession session) {
+        if (released || session != next) {
+            return;
+        }
+
+        if (waitingForNext) {
+            playNext();
+        } else if (current != null) {
+            current.chain(session);
+        }
+    }
+
+    private void onNextFailed(MiwokPlaybackSession session) {
+        if (released || session != next) {
+            return;
+        }
+
+        /* skip the clip */
+        Log.w(LOG_TAG, "Skipping clip " + nextPosition);
+        session.releaseSession();
+        prepareFrom(nextPosition + 1);
+    }
+
+    private void playNext() {
+        if (current != null) {
+            current.releaseSession();
+            current = null;
+        }
+
+        if (next == null) {
+            finish();
+            return;
+        }
+
+        if (next.getState() != MiwokPlaybackSession.STATE_READY) {
+            /* the next clip isn't ready yet: start it as soon as it is */
+            waitingForNext = true;
+            return;
+        }
+
+        waitingForNext = false;
+        current = next;
+        currentPosition = nextPosition;
+        factory.onQueueClipStarted(this, current);
+        /* a chained media player has already been started by the framework */
+        current.start();
+        listener.onQueueClipStarted(currentPosition);
+
+        prepareFrom(currentPosition + 1);
+    }
+
+    private void finish() {
+        release();
+        factory.onQueueFinished(this);
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.android.miwok.media;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class is the state machine of a single playback request. It goes from
+ * {@link #STATE_PREPARING} to {@link #STATE_READY} once its player has been
+ * created, then between {@link #STATE_PLAYING} and {@link #STATE_PAUSED}, and
+ * ends in {@link #STATE_RELEASED}, which it never leaves.
+ *
+ * <p>Every transition is a compare-and-set on a single atomic state, so no
+ * caller ever blocks on a lock. While a transition calls into the player, the
+ * state is marked busy: a concurrent start, pause or seek is dropped, and a
+ * concurrent release is deferred to the end of that transition. A call that
+ * doesn't match the current state, e.g. a stale callback of a request that has
+ * been released meanwhile, is a harmless no-op.
+ *
+ * <p>The session is itself a {@link MiwokPlayer}, so callers drive the
+ * underlying player through the state machine only.
+ */
+final class MiwokPlaybackSession implements MiwokPlayer {
+    /** waiting for the player to be created or prepared */
+    static final int STATE_PREPARING = 0;
+    /** player ready to be started */
+    static final int STATE_READY = 1;
+    /** player started */
+    static final int STATE_PLAYING = 2;
+    /** player paused */
+    static final int STATE_PAUSED = 3;
+    /** request over, the player (if any) has been released */
+    static final int STATE_RELEASED = 4;
+
+    private static final int STATE_MASK = 0xff;
+    /* a transition is calling into the player */
+    private static final int BUSY = 1 << 8;
+    /* release requested while busy, done at the end of the transition */
+    private static final int RELEASE_PENDING = 1 << 9;
+    private static final int NONE = -1;
+
+    private static final int WITH_PLAYER =
+            (1 << STATE_READY) | (1 << STATE_PLAYING) | (1 << STATE_PAUSED);
+
+    private final AtomicInteger state = new AtomicInteger(STATE_PREPARING);
+    /* written by the transition to STATE_READY, before it publishes the state */
+    private MiwokPlayer player;
+
+    /**
+     * This method hands the created player over to the session. If the
+     * session has been released meanwhile, the player is released instead.
+     * @param player created or prepared player.
+     * @return boolean if the session took the player.
+     */
+    boolean onPlayerReady(MiwokPlayer player) {
+        if (acquire(1 << STATE_PREPARING) == NONE) {
+            /* stale request */
+            player.release();
+            return false;
+        }
+
+        this.player = player;
+        return finish(STATE_READY);
+    }
+
+    /**
+     * getter method for the session state.
+     * @return int one of the STATE_* constants.
+     */
+    int getState() {
+        return state.get() & STATE_MASK;
+    }
+
+    /**
+     * This method checks if the session is over.
+     * @return boolean if the session has been released.
+     */
+    boolean isReleased() {
+        return getState() == STATE_RELEASED;
+    }
+
+    /**
+     * This method checks if the session owns a player.
+     * @param player player to look for.
+     * @return boolean if the player is the one of this session.
+     */
+    boolean owns(MiwokPlayer player) {
+        return (WITH_PLAYER & (1 << getState())) != 0 && this.player == player;
+    }
+
+    @Override
+    public void start() {
+        final int from = acquire((1 << STATE_READY) | (1 << STATE_PAUSED));
+        if (from == NONE) {
+            return;
+        }
+
+        try {
+            player.start();
+        } finally {
+            finish(STATE_PLAYING);
+        }
+    }
+
+    @Override
+    public void pause() {
+        if (acquire(1 << STATE_PLAYING) == NONE) {
+            return;
+        }
+
+        try {
+            player.pause();
+        } finally {
+            finish(STATE_PAUSED);
+        }
+    }
+
+    @Override
+    public void seekTo(int msec) {
+        final int from = acquire(WITH_PLAYER);
+        if (from == NONE) {
+            return;
+        }
+
+        try {
+            player.seekTo(msec);
+        } finally {
+            finish(from);
+        }
+    }
+
+    /**
+     * This method lets this session's player start the next session's player
+     * by itself as soon as its clip ends, without waiting for the completion
+     * callback. Only {@link MiwokMediaPlayer} players can be chained this way.
+     * @param next session to be played after this one, ready to be started.
+     * @return boolean if the players have been chained.
+     */
+    boolean chain(MiwokPlaybackSession next) {
+        if (next.getState() != STATE_READY || !(next.player instanceof MiwokMediaPlayer)) {
+            return false;
+        }
+
+        final int from = acquire(WITH_PLAYER);
+        if (from == NONE) {
+            return false;
+        }
+
+        try {
+            return player instanceof MiwokMediaPlayer
+                    && ((MiwokMediaPlayer) player).setNext((MiwokMediaPlayer) next.player);
+        } finally {
+            finish(from);
+        }
+    }
+
+    @Override
+    public boolean hasRenderedAudio() {
+        return getState() == STATE_PLAYING && player.hasRenderedAudio();
+    }
+
+    /**
+     * This method ends the session and releases its player. It may be called
+     * from any state and any number of times.
+     */
+    @Override
+    public void release() {
+        releaseSession();
+    }
+
+    /**
+     * This method ends the session, see {@link #release()}.
+     * @return boolean if this call ended the session, false if it had already
+     *         been ended.
+     */
+    boolean releaseSession() {
+        while (true) {
+            final int current = state.get();
+            final int code = current & STATE_MASK;
+            if (code == STATE_RELEASED || (current & RELEASE_PENDING) != 0) {
+                return false;
+            }
+
+            if ((current & BUSY) != 0) {
+                /* the busy transition releases the player when it's done */
+                if (state.compareAndSet(current, current | RELEASE_PENDING)) {
+                    return true;
+                }
+            } else if (state.compareAndSet(current, STATE_RELEASED)) {
+                if ((WITH_PLAYER & (1 << code)) != 0) {
+                    player.release();
+                }
+                return true;
+            }
+        }
+    }
+
+    /*
+     * move from one of the allowed states to busy, and return the state left,
+     * or NONE if the session isn't in an allowed state or is already busy.
+     */
+    private int acquire(int allowedStates) {
+        while (true) {
+            final int current = state.get();
+            if ((current & (BUSY | RELEASE_PENDING)) != 0
+                    || (allowedStates & (1 << current)) == 0) {
+                return NONE;
+            }
+            if (state.compareAndSet(current, current | BUSY)) {
+                return current;
+            }
+        }
+    }
+
+    /*
+     * leave busy for the given state, or release the player if a release has
+     * been requested meanwhile. Only the busy transition changes the state
+     * besides the release flag, so this loop runs at most twice.
+     */
+    private boolean finish(int next) {
+        while (true) {
+            final int current = state.get();
+            if ((current & RELEASE_PENDING) != 0) {
+                state.set(STATE_RELEASED);
+                if (player != null) {
+                    player.release();
+                }
+                return false;
+            }
+            if (state.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+}
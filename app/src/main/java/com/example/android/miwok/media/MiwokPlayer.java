@@ -0,0 +1,50 @@
+package com.example.android.miwok.media;
+
+/**
+ * This interface represents a single playback of a Miwok audio clip. It hides
+ * the playback engine (pooled or per-clip media player) from the callers, so
+ * fragments and the audio focus listener can drive every player the same way.
+ */
+public interface MiwokPlayer {
+
+    /**
+     * Interface definition for a callback invoked when a player has played
+     * its clip until the end.
+     */
+    interface OnCompletionListener {
+        /**
+         * Called when the end of the clip has been reached.
+         * @param player the player that completed.
+         */
+        void onCompletion(MiwokPlayer player);
+    }
+
+    /**
+     * Starts or resumes the playback.
+     */
+    void start();
+
+    /**
+     * Pauses the playback.
+     */
+    void pause();
+
+    /**
+     * Moves the playback position.
+     * @param msec offset in milliseconds from the start of the clip.
+     */
+    void seekTo(int msec);
+
+    /**
+     * Checks if the playback has reached the speaker, i.e. if audio frames
+     * have been played since the player was started.
+     * @return boolean if audio frames have been played.
+     */
+    boolean hasRenderedAudio();
+
+    /**
+     * Releases the resources held by this player. The player must not be used
+     * after this call.
+     */
+    void release();
+}
@@ -0,0 +1,76 @@
+package com.example.android.miwok.media;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.android.miwok.asset.MiwokAssets;
+import com.example.android.miwok.speech.MiwokSoundIndex;
+
+import java.io.IOException;
+
+/**
+ * This singleton class opens the sound index asset generated at build time
+ * by the indexAudio task once, and hands out the same {@link MiwokSoundIndex}
+ * to all callers. The index is keyed by the sound ids of the
+ * {@link MiwokAudioBundle}, and is read in place from the memory-mapped asset.
+ */
+public class MiwokSoundIndexRepository {
+    private static final String LOG_TAG = "MiwokSoundIndex";
+    private static final String SOUND_INDEX_ASSET = "sound_index.bin";
+    private static MiwokSoundIndexRepository instance;
+
+    private volatile MiwokSoundIndex soundIndex;
+
+    /**
+     * private constructor.
+     */
+    private MiwokSoundIndexRepository() {}
+
+    /**
+     * static method to get the singleton class instance.
+     * @return singleton class instance.
+     */
+    public static MiwokSoundIndexRepository getInstance() {
+        if (instance == null) {
+            synchronized (MiwokSoundIndexRepository.class) {
+                if (instance == null) {
+                    instance = new MiwokSoundIndexRepository();
+                }
+            }
+        }
+
+        return instance;
+    }
+
+    /**
+     * This method returns the sound index, opening it on the first call.
+     * @param context context used to open the sound index asset.
+     * @return MiwokSoundIndex index of the audio clips.
+     */
+    public MiwokSoundIndex getSoundIndex(Context context) {
+        MiwokSoundIndex loaded = soundIndex;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = soundIndex;
+                if (loaded == null) {
+                    loaded = load(context.getApplicationContext());
+                    soundIndex = loaded;
+                }
+            }
+        }
+
+        return loaded;
+    }
+
+    private static MiwokSoundIndex load(Context context) {
+        try {
+            final MiwokSoundIndex index = new MiwokSoundIndex(
+                    MiwokAssets.mapAsset(context, SOUND_INDEX_ASSET));
+            Log.d(LOG_TAG, "Opened the index of " + index.getSoundCount() + " audio clips");
+            return index;
+        } catch (IOException e) {
+            /* the asset is generated at build time, so this is a packaging bug */
+            throw new IllegalStateException("Failed to open the sound index", e);
+        }
+    }
+}
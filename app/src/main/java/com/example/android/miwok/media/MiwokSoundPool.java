@@ -0,0 +1,233 @@
+package com.example.android.miwok.media;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.MediaMetadataRetriever;
+import android.media.SoundPool;
+import android.util.Log;
+import android.util.SparseBooleanArray;
+import android.util.SparseIntArray;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class wraps a {@link SoundPool} that keeps the decoded Miwok audio clips
+ * in memory, keyed by their sound id. A clip is loaded once (e.g. for
+ * all the words of a category) and can then be played with near-zero latency,
+ * since no file needs to be opened, parsed or prepared on a tap.
+ */
+class MiwokSoundPool {
+    private static final String LOG_TAG = "MiwokSoundPool";
+    private static final int MAX_STREAMS = 1;
+    private static final int DEFAULT_PRIORITY = 1;
+    private static final int NO_SOUND = 0;
+
+    /* sound id -> SoundPool sample id */
+    private final SparseIntArray sampleIds = new SparseIntArray();
+    /* sound id -> clip duration in milliseconds */
+    private final SparseIntArray durations = new SparseIntArray();
+    /* SoundPool sample id -> load completed */
+    private final SparseBooleanArray loaded = new SparseBooleanArray();
+
+    /*
+     * SoundPool decodes the clips asynchronously, but reading the clip
+     * duration requires to parse the file. Both are done on this executor to
+     * keep the caller's thread free.
+     */
+    private final ExecutorService loadExecutor = Executors.newSingleThreadExecutor();
+
+    private SoundPool soundPool;
+
+    /**
+     * This method loads the given audio clips into the pool, unless already
+     * loaded or being loaded.
+     * @param context context used to open the audio bundle.
+     * @param soundIds sound ids of the audio clips to be loaded.
+     */
+    synchronized void load(Context context, int... soundIds) {
+        final Context appContext = context.getApplicationContext();
+        final SoundPool pool = getSoundPool();
+
+        for (final int soundId : soundIds) {
+            if (sampleIds.indexOfKey(soundId) >= 0) {
+                /* already loaded or being loaded */
+                continue;
+            }
+
+            /* reserve the slot so that the clip isn't queued twice */
+            sampleIds.put(soundId, NO_SOUND);
+            loadExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    MiwokAudioBundle.Clip clip = null;
+                    try {
+                        clip = MiwokAudioBundle.getInstance().getClip(appContext, soundId);
+                    } catch (IOException e) {
+                        Log.e(LOG_TAG, "Failed to open sound " + soundId, e);
+                    }
+
+                    final int duration = clip == null ? 0 : readDuration(clip, soundId);
+                    final int sampleId = clip == null ? NO_SOUND : pool.load(
+                            clip.getFileDescriptor(), clip.getStartOffset(), clip.getLength(),
+                            DEFAULT_PRIORITY);
+                    onLoadStarted(pool, soundId, sampleId, duration);
+                }
+            });
+        }
+    }
+
+    /**
+     * This method checks if a clip is ready to be played by the pool.
+     * @param soundId sound id of the audio clip.
+     * @return boolean if the clip is decoded and ready to be played.
+     */
+    synchronized boolean isLoaded(int soundId) {
+        final int sampleId = sampleIds.get(soundId, NO_SOUND);
+        return sampleId != NO_SOUND && loaded.get(sampleId);
+    }
+
+    /**
+     * getter method for the clip duration.
+     * @param soundId sound id of the audio clip.
+     * @return int duration of the clip in milliseconds, or 0 if unknown.
+     */
+    synchronized int getDuration(int soundId) {
+        return durations.get(soundId, 0);
+    }
+
+    /**
+     * This method plays a loaded clip.
+     * @param soundId sound id of the audio clip.
+     * @return int stream id of the playback, or 0 if the clip couldn't be played.
+     */
+    synchronized int play(int soundId) {
+        if (!isLoaded(soundId)) {
+            return NO_SOUND;
+        }
+
+        return soundPool.play(sampleIds.get(soundId), 1.0f, 1.0f, DEFAULT_PRIORITY, 0, 1.0f);
+    }
+
+    /**
+     * This method pauses a playback stream.
+     * @param streamId stream id returned by {@link #play(int)}.
+     */
+    synchronized void pause(int streamId) {
+        if (soundPool != null) {
+            soundPool.pause(streamId);
+        }
+    }
+
+    /**
+     * This method resumes a paused playback stream.
+     * @param streamId stream id returned by {@link #play(int)}.
+     */
+    synchronized void resume(int streamId) {
+        if (soundPool != null) {
+            soundPool.resume(streamId);
+        }
+    }
+
+    /**
+     * This method stops a playback stream.
+     * @param streamId stream id returned by {@link #play(int)}.
+     */
+    synchronized void stop(int streamId) {
+        if (soundPool != null) {
+            soundPool.stop(streamId);
+        }
+    }
+
+    /**
+     * This method releases the pool and all the clips loaded into it.
+     */
+    synchronized void release() {
+        if (soundPool != null) {
+            soundPool.release();
+            soundPool = null;
+        }
+
+        sampleIds.clear();
+        durations.clear();
+        loaded.clear();
+    }
+
+    private SoundPool getSoundPool() {
+        if (soundPool == null) {
+            final AudioAttributes audioAttributes = new AudioAttributes.Builder()
+                    .setUsage(AudioAttributes.USAGE_MEDIA)
+                    .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
+                    .build();
+
+            soundPool = new SoundPool.Builder()
+                    .setMaxStreams(MAX_STREAMS)
+                    .setAudioAttributes(audioAttributes)
+                    .build();
+            soundPool.setOnLoadCompleteListener(new SoundPool.OnLoadCompleteListener() {
+                @Override
+                public void onLoadComplete(SoundPool pool, int sampleId, int status) {
+                    onLoadCompleted(pool, sampleId, status);
+                }
+            });
+        }
+
+        return soundPool;
+    }
+
+    private synchronized void onLoadStarted(SoundPool pool, int soundId, int sampleId, int duration) {
+        if (pool != soundPool) {
+            /* the pool was released in the meantime */
+            return;
+        }
+
+        if (sampleId == NO_SOUND || duration <= 0) {
+            /*
+             * keep the reserved slot, so the clip isn't retried on every tap:
+             * it keeps being played by a dedicated media player instead.
+             */
+            Log.e(LOG_TAG, "Failed to load sound " + soundId);
+            if (sampleId != NO_SOUND) {
+                pool.unload(sampleId);
+            }
+            return;
+        }
+
+        sampleIds.put(soundId, sampleId);
+        durations.put(soundId, duration);
+    }
+
+    private synchronized void onLoadCompleted(SoundPool pool, int sampleId, int status) {
+        if (pool != soundPool) {
+            return;
+        }
+
+        if (status != 0) {
+            Log.e(LOG_TAG, "Failed to decode sound " + sampleId + ", status " + status);
+            return;
+        }
+
+        loaded.put(sampleId, true);
+    }
+
+    /*
+     * SoundPool doesn't report when a stream ends, so the duration is needed to
+     * know when the playback is complete.
+     */
+    private static int readDuration(MiwokAudioBundle.Clip clip, int soundId) {
+        final MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+        try {
+            retriever.setDataSource(clip.getFileDescriptor(), clip.getStartOffset(),
+                    clip.getLength());
+            final String duration = retriever.extractMetadata(
+                    MediaMetadataRetriever.METADATA_KEY_DURATION);
+            return duration == null ? 0 : Integer.parseInt(duration);
+        } catch (RuntimeException e) {
+            Log.e(LOG_TAG, "Failed to read duration of sound " + soundId, e);
+            return 0;
+        } finally {
+            retriever.release();
+        }
+    }
+}
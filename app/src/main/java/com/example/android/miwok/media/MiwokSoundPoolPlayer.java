@@ -0,0 +1,111 @@
+package com.example.android.miwok.media;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/**
+ * {@link MiwokPlayer} implementation that plays a clip already loaded into a
+ * {@link MiwokSoundPool}. Since SoundPool doesn't report the end of a stream,
+ * the completion is signalled once the clip duration has elapsed.
+ */
+class MiwokSoundPoolPlayer implements MiwokPlayer {
+    private static final int NO_STREAM = 0;
+
+    private final MiwokSoundPool soundPool;
+    private final int soundId;
+    private final int duration;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable completionRunnable;
+
+    private int streamId = NO_STREAM;
+    private boolean paused;
+    private long startTime;
+    private long elapsedTime;
+
+    /**
+     * constructor
+     * @param soundPool pool holding the clip.
+     * @param soundId sound id of the audio clip.
+     * @param listener listener to be notified once the clip has been played.
+     */
+    MiwokSoundPoolPlayer(MiwokSoundPool soundPool, int soundId,
+                         final OnCompletionListener listener) {
+        this.soundPool = soundPool;
+        this.soundId = soundId;
+        this.duration = soundPool.getDuration(soundId);
+        this.completionRunnable = new Runnable() {
+            @Override
+            public void run() {
+                streamId = NO_STREAM;
+                listener.onCompletion(MiwokSoundPoolPlayer.this);
+            }
+        };
+    }
+
+    @Override
+    public void start() {
+        if (streamId != NO_STREAM && !paused) {
+            /* already playing */
+            return;
+        }
+
+        if (streamId != NO_STREAM) {
+            soundPool.resume(streamId);
+        } else {
+            streamId = soundPool.play(soundId);
+            elapsedTime = 0;
+        }
+
+        paused = false;
+        startTime = SystemClock.uptimeMillis();
+        handler.postDelayed(completionRunnable, Math.max(0, duration - elapsedTime));
+    }
+
+    @Override
+    public void pause() {
+        if (streamId == NO_STREAM || paused) {
+            return;
+        }
+
+        handler.removeCallbacks(completionRunnable);
+        soundPool.pause(streamId);
+        elapsedTime += SystemClock.uptimeMillis() - startTime;
+        paused = true;
+    }
+
+    /**
+     * SoundPool streams can't be seeked. Seeking to the start stops the stream,
+     * so that the next {@link #start()} plays the clip from the beginning, any
+     * other position is ignored.
+     */
+    @Override
+    public void seekTo(int msec) {
+        if (msec != 0 || streamId == NO_STREAM) {
+            return;
+        }
+
+        handler.removeCallbacks(completionRunnable);
+        soundPool.stop(streamId);
+        streamId = NO_STREAM;
+        paused = false;
+    }
+
+    @Override
+    public boolean hasRenderedAudio() {
+        /*
+         * the sound pool doesn't report the playback position. Its clips are
+         * decoded in memory, so a started stream is counted as playing.
+         */
+        return streamId != NO_STREAM && !paused;
+    }
+
+    @Override
+    public void release() {
+        handler.removeCallbacks(completionRunnable);
+        if (streamId != NO_STREAM) {
+            soundPool.stop(streamId);
+            streamId = NO_STREAM;
+        }
+    }
+}
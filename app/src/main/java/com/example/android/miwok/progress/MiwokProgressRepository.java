@@ -0,0 +1,121 @@
+package com.example.android.miwok.progress;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.android.miwok.review.MiwokReviewScheduler;
+import com.example.android.miwok.vocabulary.MiwokVocabularyRepository;
+import com.example.android.miwok.vocabulary.MiwokWordTable;
+
+import java.io.File;
+
+/**
+ * This singleton class holds the learner's progress for the app: the store
+ * persisting it, and the review scheduler loaded from it, so that the review
+ * progress outlives the review screen and the process.
+ */
+public class MiwokProgressRepository {
+    private static final String PROGRESS_DIRECTORY = "progress";
+    private static MiwokProgressRepository instance;
+
+    /**
+     * Interface definition for a callback invoked when the review scheduler
+     * is loaded.
+     */
+    public interface OnSchedulerLoadedListener {
+        /**
+         * Called on the main thread when the review scheduler is loaded.
+         * @param scheduler review scheduler of the vocabulary.
+         */
+        void onSchedulerLoaded(MiwokReviewScheduler scheduler);
+    }
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private MiwokProgressStore store;
+    /* only used on the main thread */
+    private MiwokReviewScheduler scheduler;
+
+    /**
+     * private constructor.
+     */
+    private MiwokProgressRepository() {}
+
+    /**
+     * static method to get the singleton class instance.
+     * @return singleton class instance.
+     */
+    public static MiwokProgressRepository getInstance() {
+        if (instance == null) {
+            synchronized (MiwokProgressRepository.class) {
+                if (instance == null) {
+                    instance = new MiwokProgressRepository();
+                }
+            }
+        }
+
+        return instance;
+    }
+
+    /**
+     * This method returns the progress store, whose cards are the words of
+     * the vocabulary's word table, creating it on the first call.
+     * @param context context used to load the vocabulary.
+     * @return MiwokProgressStore progress store of the vocabulary.
+     */
+    public synchronized MiwokProgressStore getStore(Context context) {
+        if (store == null) {
+            final MiwokWordTable wordTable = MiwokVocabularyRepository.getInstance()
+                    .getVocabulary(context).getWordTable();
+            final int[] wordIds = new int[wordTable.size()];
+            for (int i = 0; i < wordIds.length; i++) {
+                wordIds[i] = wordTable.getWordId(i);
+            }
+            store = new MiwokProgressStore(
+                    new File(context.getApplicationContext().getFilesDir(), PROGRESS_DIRECTORY),
+                    wordIds);
+        }
+
+        return store;
+    }
+
+    /**
+     * This method writes the progress recorded so far, if any, e.g. when the
+     * app goes to the background.
+     */
+    public synchronized void flush() {
+        if (store != null) {
+            store.flush();
+        }
+    }
+
+    /**
+     * This method loads the review scheduler in the background, on the first
+     * call, and hands it to the listener. Must be called on the main thread.
+     * @param context context used to load the vocabulary.
+     * @param listener listener called with the scheduler.
+     */
+    public void loadScheduler(Context context, final OnSchedulerLoadedListener listener) {
+        if (scheduler != null) {
+            listener.onSchedulerLoaded(scheduler);
+            return;
+        }
+
+        getStore(context).loadProgress(new MiwokProgressStore.OnProgressLoadedListener() {
+            @Override
+            public void onProgressLoaded(final MiwokReviewScheduler loadedScheduler,
+                                         int[] playCounts) {
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        /* keep the scheduler of the first load, which may be in use */
+                        if (scheduler == null) {
+                            scheduler = loadedScheduler;
+                        }
+                        listener.onSchedulerLoaded(scheduler);
+                    }
+                });
+            }
+        });
+    }
+}
@@ -0,0 +1,477 @@
+package com.example.android.miwok.progress;
+
+import android.util.Log;
+
+import com.example.android.miwok.review.MiwokReviewScheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * This class persists the learner's progress, i.e. the review answers and the
+ * words played, as an append-only binary log of fixed size events folded into
+ * a snapshot from time to time.
+ *
+ * <p>Recording an event only copies it into a memory buffer: the events are
+ * written by a background thread, in batches, with a single fsync per batch,
+ * so the caller never waits on the disk. The same thread folds the events
+ * into the progress state (the SM-2 state of every card and their play
+ * counts), and compacts the log into a snapshot of that state once the log
+ * has grown. Loading the progress then reads the snapshot and only replays
+ * the events logged since.
+ *
+ * <p>The files are crash safe: every event has a CRC, so a torn write at the
+ * end of the log is dropped on recovery, and a log already folded into the
+ * snapshot is recognized by its generation number.
+ *
+ * <p>Cards are the word indexes of the vocabulary's word table, and are
+ * stored by word id so that the progress survives changes of the vocabulary.
+ */
+public class MiwokProgressStore {
+
+    /**
+     * Interface definition for a callback invoked when the progress is loaded.
+     */
+    public interface OnProgressLoadedListener {
+        /**
+         * Called on the store's background thread when the progress is loaded.
+         * @param scheduler review scheduler holding the state of every card,
+         *                  owned by the listener.
+         * @param playCounts number of times each card was played, owned by the
+         *                   listener.
+         */
+        void onProgressLoaded(MiwokReviewScheduler scheduler, int[] playCounts);
+    }
+
+    /** delay of the write of the events recorded, so that they're written in batches */
+    public static final long DEFAULT_FLUSH_DELAY_MILLIS = 500;
+    /** log size above which it's folded into the snapshot, about 3000 events */
+    public static final long DEFAULT_COMPACTION_BYTES = 64 * 1024;
+
+    static final String LOG_FILE = "progress.log";
+    static final String SNAPSHOT_FILE = "progress.snapshot";
+
+    private static final String LOG_TAG = "MiwokProgress";
+    private static final String SNAPSHOT_TEMP_FILE = "progress.snapshot.tmp";
+    private static final int LOG_MAGIC = 0x4d57504c;
+    private static final int SNAPSHOT_MAGIC = 0x4d575053;
+    /* magic and generation */
+    private static final int LOG_HEADER_SIZE = 8;
+    /* magic, generation and record count */
+    private static final int SNAPSHOT_HEADER_SIZE = 12;
+    /* type, quality, word id and time, as recorded */
+    private static final int EVENT_DATA_SIZE = 14;
+    /* event data and CRC, as logged */
+    private static final int EVENT_SIZE = EVENT_DATA_SIZE + 4;
+    /* word id, repetitions, interval, ease, due time and play count */
+    private static final int SNAPSHOT_RECORD_SIZE = 28;
+    private static final int INITIAL_PENDING_EVENTS = 256;
+    private static final byte EVENT_REVIEW = 1;
+    private static final byte EVENT_PLAY = 2;
+
+    private final File directory;
+    private final int[] wordIds;
+    private final long flushDelayMillis;
+    private final long compactionBytes;
+    private final ScheduledExecutorService executor;
+
+    /* events recorded and not written yet, guarded by pendingLock */
+    private final Object pendingLock = new Object();
+    private ByteBuffer pendingEvents = ByteBuffer.allocate(INITIAL_PENDING_EVENTS * EVENT_DATA_SIZE);
+    private ByteBuffer drainedEvents = ByteBuffer.allocate(INITIAL_PENDING_EVENTS * EVENT_DATA_SIZE);
+    private boolean flushScheduled;
+
+    /* owned by the background thread */
+    private final CRC32 crc = new CRC32();
+    private Map<Integer, Integer> cards;
+    private MiwokReviewScheduler scheduler;
+    private int[] playCounts;
+    private boolean[] touched;
+    private FileChannel logChannel;
+    private ByteBuffer logBuffer = ByteBuffer.allocate(INITIAL_PENDING_EVENTS * EVENT_SIZE);
+    private int generation;
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flushPending();
+        }
+    };
+
+    /**
+     * constructor. The progress is loaded in the background.
+     * @param directory directory of the progress files, created if needed.
+     * @param wordIds word id of each card, i.e. of each word of the table.
+     */
+    public MiwokProgressStore(File directory, int[] wordIds) {
+        this(directory, wordIds, DEFAULT_FLUSH_DELAY_MILLIS, DEFAULT_COMPACTION_BYTES);
+    }
+
+    /**
+     * constructor. The progress is loaded in the background.
+     * @param directory directory of the progress files, created if needed.
+     * @param wordIds word id of each card, i.e. of each word of the table.
+     * @param flushDelayMillis delay of the write of the events recorded.
+     * @param compactionBytes log size above which it's folded into the snapshot.
+     */
+    public MiwokProgressStore(File directory, int[] wordIds, long flushDelayMillis,
+                              long compactionBytes) {
+        this.directory = directory;
+        this.wordIds = wordIds;
+        this.flushDelayMillis = flushDelayMillis;
+        this.compactionBytes = compactionBytes;
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, LOG_TAG);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                recover();
+            }
+        });
+    }
+
+    /**
+     * This method records the answer to the review of a card. It doesn't wait
+     * for the event to be written, and can be called from any thread.
+     * @param card card answered.
+     * @param quality quality of the answer, see {@link MiwokReviewScheduler}.
+     * @param timeMillis time of the answer, in epoch milliseconds.
+     */
+    public void recordReview(int card, int quality, long timeMillis) {
+        record(EVENT_REVIEW, card, quality, timeMillis);
+    }
+
+    /**
+     * This method records that a card was played. It doesn't wait for the
+     * event to be written, and can be called from any thread.
+     * @param card card played.
+     * @param timeMillis time of the playback, in epoch milliseconds.
+     */
+    public void recordPlay(int card, long timeMillis) {
+        record(EVENT_PLAY, card, 0, timeMillis);
+    }
+
+    /**
+     * This method writes the events recorded without waiting for the flush
+     * delay, e.g. when the app goes to the background. It doesn't wait for
+     * the write.
+     */
+    public void flush() {
+        executor.execute(flushTask);
+    }
+
+    /**
+     * This method loads the progress, including the events recorded until
+     * now.
+     * @param listener listener called on the background thread with the
+     *                 progress.
+     */
+    public void loadProgress(final OnProgressLoadedListener listener) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                flushPending();
+                listener.onProgressLoaded(new MiwokReviewScheduler(scheduler),
+                        playCounts.clone());
+            }
+        });
+    }
+
+    /**
+     * This method writes the events recorded and closes the files, waiting
+     * for both. The store can't be used afterwards.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void close() throws InterruptedException {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                flushPending();
+                closeLog();
+            }
+        });
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+
+    private void record(byte type, int card, int quality, long timeMillis) {
+        synchronized (pendingLock) {
+            if (pendingEvents.remaining() < EVENT_DATA_SIZE) {
+                /* the writes are behind: keep the events in memory meanwhile */
+                final ByteBuffer events = ByteBuffer.allocate(pendingEvents.capacity() * 2);
+                pendingEvents.flip();
+                events.put(pendingEvents);
+                pendingEvents = events;
+            }
+            pendingEvents.put(type).put((byte) quality).putInt(wordIds[card]).putLong(timeMillis);
+
+            if (!flushScheduled) {
+                flushScheduled = true;
+                executor.schedule(flushTask, flushDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /*
+     * write the events recorded in a single batch, fold them into the
+     * progress state, and compact the log if it has grown enough.
+     */
+    private void flushPending() {
+        final ByteBuffer events;
+        synchronized (pendingLock) {
+            flushScheduled = false;
+            events = pendingEvents;
+            pendingEvents = drainedEvents;
+            drainedEvents = events;
+        }
+
+        events.flip();
+        final int eventCount = events.remaining() / EVENT_DATA_SIZE;
+        if (eventCount == 0) {
+            events.clear();
+            return;
+        }
+
+        if (logBuffer.capacity() < eventCount * EVENT_SIZE) {
+            logBuffer = ByteBuffer.allocate(eventCount * EVENT_SIZE);
+        }
+        logBuffer.clear();
+        for (int i = 0; i < eventCount; i++) {
+            final int start = events.position();
+            final byte type = events.get();
+            final byte quality = events.get();
+            final int wordId = events.getInt();
+            final long timeMillis = events.getLong();
+            apply(type, quality, wordId, timeMillis);
+
+            crc.reset();
+            crc.update(events.array(), start, EVENT_DATA_SIZE);
+            logBuffer.put(events.array(), start, EVENT_DATA_SIZE).putInt((int) crc.getValue());
+        }
+        events.clear();
+        logBuffer.flip();
+
+        if (logChannel == null) {
+            return;
+        }
+        try {
+            while (logBuffer.hasRemaining()) {
+                logChannel.write(logBuffer);
+            }
+            logChannel.force(false);
+
+            if (logChannel.size() >= compactionBytes) {
+                compact();
+            }
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Failed to write the progress, keeping it in memory only", e);
+            closeLog();
+        }
+    }
+
+    /* fold an event into the progress state */
+    private void apply(byte type, int quality, int wordId, long timeMillis) {
+        final Integer card = cards.get(wordId);
+        if (card == null) {
+            /* the word was removed from the vocabulary */
+            return;
+        }
+
+        if (type == EVENT_REVIEW) {
+            scheduler.answer(card, quality, timeMillis);
+        } else if (type == EVENT_PLAY) {
+            playCounts[card]++;
+        }
+        touched[card] = true;
+    }
+
+    /*
+     * load the snapshot, and replay the events logged since. The end of the
+     * log is dropped from the first event that wasn't fully written.
+     */
+    private void recover() {
+        cards = new HashMap<>(wordIds.length * 2);
+        for (int card = 0; card < wordIds.length; card++) {
+            cards.put(wordIds[card], card);
+        }
+        scheduler = new MiwokReviewScheduler(wordIds.length, System.currentTimeMillis());
+        playCounts = new int[wordIds.length];
+        touched = new boolean[wordIds.length];
+
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Can't create " + directory);
+            }
+            generation = readSnapshot();
+
+            logChannel = new RandomAccessFile(new File(directory, LOG_FILE), "rw").getChannel();
+            final ByteBuffer log = ByteBuffer.allocate((int) logChannel.size());
+            while (log.hasRemaining() && logChannel.read(log) >= 0) {
+                /* read the whole log */
+            }
+            log.flip();
+
+            final int logGeneration = log.remaining() >= LOG_HEADER_SIZE
+                    && log.getInt() == LOG_MAGIC ? log.getInt() : -1;
+            if (logGeneration < generation) {
+                /* no log, or a log already folded into the snapshot */
+                resetLog();
+                return;
+            }
+            generation = logGeneration;
+
+            long validEnd = LOG_HEADER_SIZE;
+            while (log.remaining() >= EVENT_SIZE) {
+                final int start = log.position();
+                crc.reset();
+                crc.update(log.array(), start, EVENT_DATA_SIZE);
+                final byte type = log.get();
+                final byte quality = log.get();
+                final int wordId = log.getInt();
+                final long timeMillis = log.getLong();
+                if (log.getInt() != (int) crc.getValue()) {
+                    break;
+                }
+                apply(type, quality, wordId, timeMillis);
+                validEnd = log.position();
+            }
+            logChannel.truncate(validEnd);
+            logChannel.position(validEnd);
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Failed to load the progress, keeping it in memory only", e);
+            closeLog();
+        }
+    }
+
+    /* read the snapshot into the progress state, and return its generation */
+    private int readSnapshot() throws IOException {
+        final File file = new File(directory, SNAPSHOT_FILE);
+        if (!file.exists()) {
+            return 0;
+        }
+
+        final ByteBuffer snapshot;
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            snapshot = ByteBuffer.allocate((int) input.length());
+            input.readFully(snapshot.array());
+        }
+
+        final int dataSize = snapshot.capacity() - 4;
+        crc.reset();
+        crc.update(snapshot.array(), 0, Math.max(0, dataSize));
+        if (dataSize < SNAPSHOT_HEADER_SIZE || snapshot.getInt() != SNAPSHOT_MAGIC
+                || snapshot.getInt(dataSize) != (int) crc.getValue()) {
+            /* only a bug or a disk failure can get there: replay what the log has */
+            Log.e(LOG_TAG, "Corrupt progress snapshot, ignoring it");
+            return 0;
+        }
+
+        final int snapshotGeneration = snapshot.getInt();
+        final int recordCount = snapshot.getInt();
+        for (int i = 0; i < recordCount; i++) {
+            final int wordId = snapshot.getInt();
+            final int repetitions = snapshot.getInt();
+            final int intervalDays = snapshot.getInt();
+            final int ease = snapshot.getInt();
+            final long dueMillis = snapshot.getLong();
+            final int playCount = snapshot.getInt();
+
+            final Integer card = cards.get(wordId);
+            if (card != null) {
+                scheduler.restore(card, repetitions, intervalDays, ease, dueMillis);
+                playCounts[card] = playCount;
+                touched[card] = true;
+            }
+        }
+        return snapshotGeneration;
+    }
+
+    /*
+     * write the progress state as the snapshot of the next generation, then
+     * start the log of that generation. A crash in between leaves a log of
+     * the previous generation, which is ignored on recovery.
+     */
+    private void compact() throws IOException {
+        int recordCount = 0;
+        for (boolean cardTouched : touched) {
+            if (cardTouched) {
+                recordCount++;
+            }
+        }
+
+        final ByteBuffer snapshot = ByteBuffer.allocate(
+                SNAPSHOT_HEADER_SIZE + recordCount * SNAPSHOT_RECORD_SIZE + 4);
+        snapshot.putInt(SNAPSHOT_MAGIC).putInt(generation + 1).putInt(recordCount);
+        for (int card = 0; card < touched.length; card++) {
+            if (touched[card]) {
+                snapshot.putInt(wordIds[card])
+                        .putInt(scheduler.getRepetitions(card))
+                        .putInt(scheduler.getIntervalDays(card))
+                        .putInt(scheduler.getEase(card))
+                        .putLong(scheduler.getDueMillis(card))
+                        .putInt(playCounts[card]);
+            }
+        }
+        crc.reset();
+        crc.update(snapshot.array(), 0, snapshot.position());
+        snapshot.putInt((int) crc.getValue());
+        snapshot.flip();
+
+        final File temp = new File(directory, SNAPSHOT_TEMP_FILE);
+        try (FileChannel channel = new RandomAccessFile(temp, "rw").getChannel()) {
+            channel.truncate(0);
+            while (snapshot.hasRemaining()) {
+                channel.write(snapshot);
+            }
+            channel.force(true);
+        }
+        if (!temp.renameTo(new File(directory, SNAPSHOT_FILE))) {
+            throw new IOException("Can't replace the progress snapshot");
+        }
+
+        generation++;
+        resetLog();
+    }
+
+    /* empty the log, and start it for the current generation */
+    private void resetLog() throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+        header.putInt(LOG_MAGIC).putInt(generation).flip();
+
+        logChannel.truncate(0);
+        logChannel.position(0);
+        while (header.hasRemaining()) {
+            logChannel.write(header);
+        }
+        logChannel.force(false);
+    }
+
+    private void closeLog() {
+        if (logChannel == null) {
+            return;
+        }
+
+        try {
+            logChannel.close();
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Failed to close the progress log", e);
+        }
+        logChannel = null;
+    }
+}
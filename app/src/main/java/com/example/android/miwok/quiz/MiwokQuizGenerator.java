@@ -0,0 +1,177 @@
+package com.example.android.miwok.quiz;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class generates multiple-choice questions: a word is prompted, and
+ * the learner picks its translation among {@link #OPTION_COUNT} words of the
+ * same category.
+ *
+ * <p>The prompt is drawn uniformly among the words of the categories large
+ * enough for a question. The distractors are drawn from the prompt's category,
+ * weighted by how much the learner confuses them: every word has a confusion
+ * weight, raised when the learner picks it wrongly or misses it, and lowered
+ * when they get it right. Each category has a {@link MiwokWeightedSampler}, so
+ * drawing a distractor and updating a weight both take constant time,
+ * whatever the size of the vocabulary.
+ *
+ * <p>The questions only depend on the seed and the answers, so a seeded
+ * generator is deterministic. This class isn't thread safe.
+ */
+public class MiwokQuizGenerator {
+    /** number of options of a question */
+    public static final int OPTION_COUNT = 4;
+    /** confusion weight of a word the learner doesn't confuse */
+    public static final int BASE_WEIGHT = 4;
+    /* weight added for each confusion, and highest weight */
+    private static final int CONFUSION_WEIGHT = 8;
+    private static final int MAX_WEIGHT = 1 << 16;
+    /* draws before falling back to a scan, e.g. when a few words outweigh the others */
+    private static final int MAX_DRAWS = 16;
+    private static final int NO_CATEGORY = -1;
+
+    private final Random random;
+    private final int[] firstWords;
+    private final int[] wordCategories;
+    private final int[] quizWords;
+    private final MiwokWeightedSampler[] samplers;
+
+    /**
+     * constructor. Categories smaller than {@link #OPTION_COUNT} words are
+     * left out of the quiz.
+     * @param firstWords index of the first word of each category.
+     * @param wordCounts number of words of each category.
+     * @param seed seed of the random draws.
+     */
+    public MiwokQuizGenerator(int[] firstWords, int[] wordCounts, long seed) {
+        random = new Random(seed);
+        this.firstWords = firstWords.clone();
+        samplers = new MiwokWeightedSampler[firstWords.length];
+
+        int wordCount = 0;
+        int quizWordCount = 0;
+        for (int category = 0; category < firstWords.length; category++) {
+            wordCount = Math.max(wordCount, firstWords[category] + wordCounts[category]);
+            if (wordCounts[category] >= OPTION_COUNT) {
+                quizWordCount += wordCounts[category];
+            }
+        }
+
+        wordCategories = new int[wordCount];
+        Arrays.fill(wordCategories, NO_CATEGORY);
+        quizWords = new int[quizWordCount];
+        int quizWord = 0;
+        for (int category = 0; category < firstWords.length; category++) {
+            if (wordCounts[category] < OPTION_COUNT) {
+                continue;
+            }
+
+            samplers[category] = new MiwokWeightedSampler(wordCounts[category]);
+            for (int i = 0; i < wordCounts[category]; i++) {
+                samplers[category].setWeight(i, BASE_WEIGHT);
+                wordCategories[firstWords[category] + i] = category;
+                quizWords[quizWord++] = firstWords[category] + i;
+            }
+        }
+    }
+
+    /**
+     * This method generates the next question.
+     * @param question question to fill.
+     * @return boolean false if no category is large enough for a question.
+     */
+    public boolean next(MiwokQuizQuestion question) {
+        if (quizWords.length == 0) {
+            return false;
+        }
+
+        final int promptWord = quizWords[random.nextInt(quizWords.length)];
+        final int category = wordCategories[promptWord];
+        final MiwokWeightedSampler sampler = samplers[category];
+        final int firstWord = firstWords[category];
+        final int correctOption = random.nextInt(OPTION_COUNT);
+        question.setPrompt(promptWord, correctOption);
+
+        for (int option = 0; option < OPTION_COUNT; option++) {
+            if (option != correctOption) {
+                question.setOptionWord(option,
+                        drawDistractor(question, sampler, firstWord, option));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * This method updates the confusion weights from the learner's answer:
+     * a wrong answer raises the weights of the prompt and of the word picked,
+     * so that both come back as distractors, a right one lowers the prompt's.
+     * @param question question answered.
+     * @param option option picked.
+     */
+    public void answer(MiwokQuizQuestion question, int option) {
+        final int promptWord = question.getPromptWord();
+        if (option == question.getCorrectOption()) {
+            setConfusionWeight(promptWord,
+                    Math.max(BASE_WEIGHT, getConfusionWeight(promptWord) / 2));
+        } else {
+            addConfusion(promptWord);
+            addConfusion(question.getOptionWord(option));
+        }
+    }
+
+    /**
+     * getter method for the confusion weight of a word.
+     * @param word word index.
+     * @return int confusion weight, {@link #BASE_WEIGHT} if not confused, 0
+     *         if the word isn't in the quiz.
+     */
+    public int getConfusionWeight(int word) {
+        final int category = wordCategories[word];
+        return category == NO_CATEGORY ? 0
+                : samplers[category].getWeight(word - firstWords[category]);
+    }
+
+    /**
+     * This method sets the confusion weight of a word, e.g. from the learner's
+     * review progress.
+     * @param word word index.
+     * @param weight confusion weight, at least {@link #BASE_WEIGHT}.
+     */
+    public void setConfusionWeight(int word, int weight) {
+        final int category = wordCategories[word];
+        if (category != NO_CATEGORY) {
+            samplers[category].setWeight(word - firstWords[category],
+                    Math.min(MAX_WEIGHT, Math.max(BASE_WEIGHT, weight)));
+        }
+    }
+
+    private void addConfusion(int word) {
+        setConfusionWeight(word, getConfusionWeight(word) + CONFUSION_WEIGHT);
+    }
+
+    /*
+     * draw a word of the category that is neither the prompt nor one of the
+     * options before the given one. The category has at least OPTION_COUNT
+     * words, so there's one.
+     */
+    private int drawDistractor(MiwokQuizQuestion question, MiwokWeightedSampler sampler,
+                               int firstWord, int option) {
+        for (int draw = 0; draw < MAX_DRAWS; draw++) {
+            final int word = firstWord + sampler.sample(random);
+            if (!isTaken(question, word, option)) {
+                return word;
+            }
+        }
+
+        int word = firstWord + random.nextInt(sampler.size());
+        while (isTaken(question, word, option)) {
+            word = word + 1 < firstWord + sampler.size() ? word + 1 : firstWord;
+        }
+        return word;
+    }
+
+    private static boolean isTaken(MiwokQuizQuestion question, int word, int option) {
+        return word == question.getPromptWord() || question.hasOptionWord(word, option);
+    }
+}
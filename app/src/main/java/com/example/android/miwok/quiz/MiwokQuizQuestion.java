@@ -0,0 +1,65 @@
+package com.example.android.miwok.quiz;
+
+/**
+ * This class holds a multiple-choice question: the word prompted and the
+ * words offered as answers, as word indexes of the vocabulary's word table.
+ * The generator fills the same question again for every new question.
+ */
+public class MiwokQuizQuestion {
+    private final int[] optionWords = new int[MiwokQuizGenerator.OPTION_COUNT];
+    private int promptWord;
+    private int correctOption;
+
+    /**
+     * getter method for the word prompted.
+     * @return int word index of the prompt.
+     */
+    public int getPromptWord() {
+        return promptWord;
+    }
+
+    /**
+     * getter method for the number of options.
+     * @return int number of options.
+     */
+    public int getOptionCount() {
+        return optionWords.length;
+    }
+
+    /**
+     * getter method for the word of an option.
+     * @param option option, from 0 to {@link #getOptionCount()} - 1.
+     * @return int word index of the option.
+     */
+    public int getOptionWord(int option) {
+        return optionWords[option];
+    }
+
+    /**
+     * getter method for the correct option, whose word is the prompt.
+     * @return int correct option.
+     */
+    public int getCorrectOption() {
+        return correctOption;
+    }
+
+    void setPrompt(int promptWord, int correctOption) {
+        this.promptWord = promptWord;
+        this.correctOption = correctOption;
+        optionWords[correctOption] = promptWord;
+    }
+
+    void setOptionWord(int option, int word) {
+        optionWords[option] = word;
+    }
+
+    /* if a word is already one of the options before the given one */
+    boolean hasOptionWord(int word, int optionCount) {
+        for (int option = 0; option < optionCount; option++) {
+            if (optionWords[option] == word) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
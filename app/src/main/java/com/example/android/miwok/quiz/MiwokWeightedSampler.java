@@ -0,0 +1,187 @@
+package com.example.android.miwok.quiz;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class samples items with probabilities proportional to their weights,
+ * in constant expected time, while the weights keep changing.
+ *
+ * <p>The items are grouped in buckets of weights within a power of two:
+ * bucket b holds the weights in [2^b, 2^(b+1)). A sample picks a bucket from
+ * an alias table over the buckets, weighted by their size times their upper
+ * bound, then a random item of the bucket, kept with probability
+ * weight / 2^(b+1), i.e. at least one half. Changing a weight moves the item
+ * between two buckets in constant time, and the alias table only has one
+ * entry per bucket, so it's rebuilt in constant time too.
+ *
+ * <p>This class isn't thread safe.
+ */
+class MiwokWeightedSampler {
+    /** value returned when every weight is 0 */
+    static final int NO_ITEM = -1;
+
+    /* weights are positive ints: buckets 0 to 30 */
+    private static final int BUCKET_COUNT = 31;
+
+    private final int[] weights;
+    /* items of each bucket, and the position of each item in its bucket */
+    private final int[][] bucketItems = new int[BUCKET_COUNT][];
+    private final int[] bucketSizes = new int[BUCKET_COUNT];
+    private final int[] itemPositions;
+    /* alias table over the buckets, rebuilt when their sizes changed */
+    private final double[] aliasProbabilities = new double[BUCKET_COUNT];
+    private final int[] aliases = new int[BUCKET_COUNT];
+    private final double[] scaledMasses = new double[BUCKET_COUNT];
+    private final int[] small = new int[BUCKET_COUNT];
+    private final int[] large = new int[BUCKET_COUNT];
+    private boolean aliasesStale = true;
+    private boolean empty;
+
+    /**
+     * constructor.
+     * @param itemCount number of items, all of weight 0.
+     */
+    MiwokWeightedSampler(int itemCount) {
+        weights = new int[itemCount];
+        itemPositions = new int[itemCount];
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            bucketItems[bucket] = new int[0];
+        }
+    }
+
+    /**
+     * getter method for the number of items.
+     * @return int number of items.
+     */
+    int size() {
+        return weights.length;
+    }
+
+    /**
+     * getter method for the weight of an item.
+     * @param item item.
+     * @return int weight of the item.
+     */
+    int getWeight(int item) {
+        return weights[item];
+    }
+
+    /**
+     * This method changes the weight of an item, in constant time.
+     * @param item item.
+     * @param weight new weight, 0 to never sample the item.
+     */
+    void setWeight(int item, int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Negative weight " + weight);
+        }
+
+        final int previousBucket = bucketOf(weights[item]);
+        final int bucket = bucketOf(weight);
+        weights[item] = weight;
+        if (bucket == previousBucket) {
+            return;
+        }
+
+        if (previousBucket >= 0) {
+            /* move the bucket's last item into the hole */
+            final int position = itemPositions[item];
+            final int lastItem = bucketItems[previousBucket][--bucketSizes[previousBucket]];
+            bucketItems[previousBucket][position] = lastItem;
+            itemPositions[lastItem] = position;
+        }
+        if (bucket >= 0) {
+            if (bucketSizes[bucket] == bucketItems[bucket].length) {
+                bucketItems[bucket] = Arrays.copyOf(bucketItems[bucket],
+                        Math.max(4, bucketSizes[bucket] * 2));
+            }
+            itemPositions[item] = bucketSizes[bucket];
+            bucketItems[bucket][bucketSizes[bucket]++] = item;
+        }
+        aliasesStale = true;
+    }
+
+    /**
+     * This method samples an item, in constant expected time.
+     * @param random source of randomness.
+     * @return int item, or {@link #NO_ITEM} if every weight is 0.
+     */
+    int sample(Random random) {
+        if (aliasesStale) {
+            buildAliases();
+        }
+        if (empty) {
+            return NO_ITEM;
+        }
+
+        while (true) {
+            final int column = random.nextInt(BUCKET_COUNT);
+            final int bucket = random.nextDouble() < aliasProbabilities[column]
+                    ? column : aliases[column];
+            final int item = bucketItems[bucket][random.nextInt(bucketSizes[bucket])];
+            /* the weights of the bucket are below 2^(bucket + 1) */
+            if (random.nextDouble() * Math.scalb(2.0, bucket) < weights[item]) {
+                return item;
+            }
+        }
+    }
+
+    /* -1 for a weight of 0 */
+    private static int bucketOf(int weight) {
+        return 31 - Integer.numberOfLeadingZeros(weight);
+    }
+
+    /* Vose's alias method over the buckets, weighted by size * 2^(bucket + 1) */
+    private void buildAliases() {
+        aliasesStale = false;
+        double totalMass = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            totalMass += bucketSizes[bucket] * Math.scalb(2.0, bucket);
+        }
+        empty = totalMass == 0;
+        if (empty) {
+            return;
+        }
+
+        int smallCount = 0;
+        int largeCount = 0;
+        int anyBucket = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            if (bucketSizes[bucket] > 0) {
+                anyBucket = bucket;
+            }
+            scaledMasses[bucket] = bucketSizes[bucket] * Math.scalb(2.0, bucket)
+                    * BUCKET_COUNT / totalMass;
+            if (scaledMasses[bucket] < 1) {
+                small[smallCount++] = bucket;
+            } else {
+                large[largeCount++] = bucket;
+            }
+        }
+
+        while (smallCount > 0 && largeCount > 0) {
+            final int less = small[--smallCount];
+            final int more = large[--largeCount];
+            aliasProbabilities[less] = scaledMasses[less];
+            aliases[less] = more;
+            scaledMasses[more] = scaledMasses[more] + scaledMasses[less] - 1;
+            if (scaledMasses[more] < 1) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        /* what's left is full, up to rounding errors */
+        while (largeCount > 0) {
+            final int bucket = large[--largeCount];
+            aliasProbabilities[bucket] = 1;
+            aliases[bucket] = bucket;
+        }
+        while (smallCount > 0) {
+            final int bucket = small[--smallCount];
+            aliasProbabilities[bucket] = bucketSizes[bucket] > 0 ? 1 : 0;
+            aliases[bucket] = anyBucket;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.android.miwok.review;
+
+/**
+ * This class schedules the review of the words with the SM-2 algorithm: each
+ * card, i.e. a word index of the vocabulary's word table, has an ease factor,
+ * a review interval and a due time, updated from the quality of every answer.
+ *
+ * <p>The cards are stored column by column, and the due times are ordered by
+ * an indexed binary min-heap: the next card is the root of the heap, and an
+ * answer only moves its card within the heap. Picking the next card is O(1)
+ * and rating a card O(log n), whatever the number of cards, without scanning
+ * them.
+ *
+ * <p>New cards are due from the creation of the scheduler, in table order.
+ * This class isn't thread safe.
+ */
+public class MiwokReviewScheduler {
+    /** value returned when no card is due */
+    public static final int NO_CARD = -1;
+
+    /** quality of an answer forgotten, the card is learned again */
+    public static final int QUALITY_AGAIN = 1;
+    /** quality of an answer recalled with serious difficulty */
+    public static final int QUALITY_HARD = 3;
+    /** quality of an answer recalled after some hesitation */
+    public static final int QUALITY_GOOD = 4;
+    /** quality of an answer recalled perfectly */
+    public static final int QUALITY_EASY = 5;
+
+    /** ease factor of new cards, in thousandths */
+    public static final int INITIAL_EASE = 2500;
+    /** lowest ease factor, in thousandths */
+    public static final int MIN_EASE = 1300;
+
+    private static final int MAX_QUALITY = 5;
+    /* answers below this quality are lapses */
+    private static final int MIN_PASSING_QUALITY = 3;
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    /* a lapsed card comes back in the same session, after the cards already due */
+    private static final long RELEARN_DELAY_MILLIS = 60 * 1000;
+
+    private final int cardCount;
+    private final int[] repetitions;
+    private final int[] intervalDays;
+    private final int[] eases;
+    private final long[] dueMillis;
+    /* heap of cards ordered by due time, and the position of each card in it */
+    private final int[] heap;
+    private final int[] heapPositions;
+
+    /**
+     * constructor.
+     * @param cardCount number of cards, i.e. words of the table.
+     * @param nowMillis time the new cards are due, in epoch milliseconds.
+     */
+    public MiwokReviewScheduler(int cardCount, long nowMillis) {
+        this.cardCount = cardCount;
+        repetitions = new int[cardCount];
+        intervalDays = new int[cardCount];
+        eases = new int[cardCount];
+        dueMillis = new long[cardCount];
+        heap = new int[cardCount];
+        heapPositions = new int[cardCount];
+
+        /* all the cards are due at the same time: table order is already a heap */
+        for (int card = 0; card < cardCount; card++) {
+            eases[card] = INITIAL_EASE;
+            dueMillis[card] = nowMillis;
+            heap[card] = card;
+            heapPositions[card] = card;
+        }
+    }
+
+    /**
+     * copy constructor.
+     * @param other scheduler whose cards are copied.
+     */
+    public MiwokReviewScheduler(MiwokReviewScheduler other) {
+        cardCount = other.cardCount;
+        repetitions = other.repetitions.clone();
+        intervalDays = other.intervalDays.clone();
+        eases = other.eases.clone();
+        dueMillis = other.dueMillis.clone();
+        heap = other.heap.clone();
+        heapPositions = other.heapPositions.clone();
+    }
+
+    /**
+     * getter method for the number of cards.
+     * @return int number of cards.
+     */
+    public int getCardCount() {
+        return cardCount;
+    }
+
+    /**
+     * This method returns the card due first, whether or not it's due yet.
+     * @return int card due first, or {@link #NO_CARD} if there are no cards.
+     */
+    public int peek() {
+        return cardCount == 0 ? NO_CARD : heap[0];
+    }
+
+    /**
+     * This method returns the card to review next.
+     * @param nowMillis current time, in epoch milliseconds.
+     * @return int card due first, or {@link #NO_CARD} if no card is due yet.
+     */
+    public int nextDue(long nowMillis) {
+        final int card = peek();
+        return card != NO_CARD && dueMillis[card] <= nowMillis ? card : NO_CARD;
+    }
+
+    /**
+     * This method reschedules a card from the quality of an answer, following
+     * SM-2: a lapse restarts the card, a passing answer grows its interval by
+     * its ease factor, and the ease factor follows the quality.
+     * @param card card answered.
+     * @param quality quality of the answer, from 0 (blackout) to 5 (perfect),
+     *                e.g. {@link #QUALITY_GOOD}.
+     * @param nowMillis time of the answer, in epoch milliseconds.
+     */
+    public void answer(int card, int quality, long nowMillis) {
+        if (quality < 0 || quality > MAX_QUALITY) {
+            throw new IllegalArgumentException("Invalid answer quality " + quality);
+        }
+
+        if (quality < MIN_PASSING_QUALITY) {
+            /* relearn the card from the start, without changing its ease */
+            repetitions[card] = 0;
+            intervalDays[card] = 0;
+            setDue(card, nowMillis + RELEARN_DELAY_MILLIS);
+            return;
+        }
+
+        final int repetition = ++repetitions[card];
+        if (repetition == 1) {
+            intervalDays[card] = 1;
+        } else if (repetition == 2) {
+            intervalDays[card] = 6;
+        } else {
+            intervalDays[card] = Math.max(1,
+                    (int) Math.round(intervalDays[card] * (eases[card] / 1000.0)));
+        }
+
+        /* EF' = EF + 0.1 - (5 - q) * (0.08 + (5 - q) * 0.02), in thousandths */
+        final int miss = MAX_QUALITY - quality;
+        eases[card] = Math.max(MIN_EASE, eases[card] + 100 - miss * (80 + miss * 20));
+
+        setDue(card, nowMillis + intervalDays[card] * DAY_MILLIS);
+    }
+
+    /**
+     * This method restores the saved state of a card, e.g. when loading the
+     * review progress.
+     * @param card card.
+     * @param repetitions number of successful reviews in a row.
+     * @param intervalDays review interval, in days.
+     * @param ease ease factor, in thousandths.
+     * @param dueMillis due time, in epoch milliseconds.
+     */
+    public void restore(int card, int repetitions, int intervalDays, int ease, long dueMillis) {
+        this.repetitions[card] = repetitions;
+        this.intervalDays[card] = intervalDays;
+        eases[card] = Math.max(MIN_EASE, ease);
+        setDue(card, dueMillis);
+    }
+
+    /**
+     * getter method for the number of successful reviews in a row of a card.
+     * @param card card.
+     * @return int number of reviews since the card was new or last lapsed.
+     */
+    public int getRepetitions(int card) {
+        return repetitions[card];
+    }
+
+    /**
+     * getter method for the review interval of a card.
+     * @param card card.
+     * @return int days between the last review and the next, 0 while learned.
+     */
+    public int getIntervalDays(int card) {
+        return intervalDays[card];
+    }
+
+    /**
+     * getter method for the ease factor of a card.
+     * @param card card.
+     * @return int ease factor, in thousandths.
+     */
+    public int getEase(int card) {
+        return eases[card];
+    }
+
+    /**
+     * getter method for the due time of a card.
+     * @param card card.
+     * @return long due time, in epoch milliseconds.
+     */
+    public long getDueMillis(int card) {
+        return dueMillis[card];
+    }
+
+    private void setDue(int card, long due) {
+        final long previousDue = dueMillis[card];
+        dueMillis[card] = due;
+        if (due < previousDue) {
+            siftUp(heapPositions[card]);
+        } else {
+            siftDown(heapPositions[card]);
+        }
+    }
+
+    /* ties are broken by card, so that cards due together keep table order */
+    private boolean isBefore(int card, int otherCard) {
+        return dueMillis[card] < dueMillis[otherCard]
+                || (dueMillis[card] == dueMillis[otherCard] && card < otherCard);
+    }
+
+    private void siftUp(int position) {
+        final int card = heap[position];
+        while (position > 0) {
+            final int parent = (position - 1) >>> 1;
+            final int parentCard = heap[parent];
+            if (!isBefore(card, parentCard)) {
+                break;
+            }
+            place(parentCard, position);
+            position = parent;
+        }
+        place(card, position);
+    }
+
+    private void siftDown(int position) {
+        final int card = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= cardCount) {
+                break;
+            }
+            if (child + 1 < cardCount && isBefore(heap[child + 1], heap[child])) {
+                child++;
+            }
+            final int childCard = heap[child];
+            if (!isBefore(childCard, card)) {
+                break;
+            }
+            place(childCard, position);
+            position = child;
+        }
+        place(card, position);
+    }
+
+    private void place(int card, int position) {
+        heap[position] = card;
+        heapPositions[card] = position;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.android.miwok.speech;
+
+/**
+ * This class aligns two MFCC feature sequences with dynamic time warping
+ * (DTW), so that an utterance can be compared with a reference spoken at a
+ * different pace.
+ *
+ * <p>The alignment uses the symmetric step pattern (a diagonal step costs
+ * twice the frame distance), within a Sakoe-Chiba band around the diagonal,
+ * and the cost is normalized by the length of both sequences. The frame
+ * distance is the Euclidean distance between the coefficients, without c0,
+ * which only depends on the loudness. Only two rows of the cost matrix are
+ * kept, allocated at construction. This class isn't thread safe.
+ */
+public class MiwokDtw {
+    /* half width of the band, as a ratio of the longest sequence */
+    private static final float BAND_RATIO = 0.3f;
+
+    private float[] previousRow;
+    private float[] currentRow;
+
+    /**
+     * constructor.
+     * @param maxFrameCount number of frames of the longest sequence aligned
+     *                      as the second sequence.
+     */
+    public MiwokDtw(int maxFrameCount) {
+        previousRow = new float[maxFrameCount + 1];
+        currentRow = new float[maxFrameCount + 1];
+    }
+
+    /**
+     * This method aligns two ranges of frames.
+     * @param first first features.
+     * @param firstStart first frame of the first range.
+     * @param firstEnd frame after the first range.
+     * @param second second features.
+     * @param secondStart first frame of the second range.
+     * @param secondEnd frame after the second range.
+     * @return float mean cost of the alignment per frame, or
+     *         {@link Float#POSITIVE_INFINITY} if a range is empty.
+     */
+    public float align(MiwokFeatures first, int firstStart, int firstEnd,
+                       MiwokFeatures second, int secondStart, int secondEnd) {
+        final int n = firstEnd - firstStart;
+        final int m = secondEnd - secondStart;
+        if (n <= 0 || m <= 0 || m >= previousRow.length) {
+            return Float.POSITIVE_INFINITY;
+        }
+
+        final float[] a = first.getCoefficients();
+        final float[] b = second.getCoefficients();
+        final int band = Math.max(Math.abs(n - m), (int) (BAND_RATIO * Math.max(n, m))) + 1;
+
+        previousRow[0] = 0;
+        for (int j = 1; j <= m; j++) {
+            previousRow[j] = Float.POSITIVE_INFINITY;
+        }
+        for (int i = 1; i <= n; i++) {
+            currentRow[0] = Float.POSITIVE_INFINITY;
+            /* the band follows the diagonal from (0, 0) to (n, m) */
+            final int center = (int) ((long) i * m / n);
+            final int bandStart = Math.max(1, center - band);
+            final int bandEnd = Math.min(m, center + band);
+            for (int j = 1; j < bandStart; j++) {
+                currentRow[j] = Float.POSITIVE_INFINITY;
+            }
+            final int aOffset = (firstStart + i - 1) * MiwokMfcc.COEFFICIENT_COUNT;
+            for (int j = bandStart; j <= bandEnd; j++) {
+                final float distance = distance(a, aOffset, b,
+                        (secondStart + j - 1) * MiwokMfcc.COEFFICIENT_COUNT);
+                currentRow[j] = Math.min(Math.min(previousRow[j], currentRow[j - 1]) + distance,
+                        previousRow[j - 1] + 2 * distance);
+            }
+            for (int j = bandEnd + 1; j <= m; j++) {
+                currentRow[j] = Float.POSITIVE_INFINITY;
+            }
+
+            final float[] row = previousRow;
+            previousRow = currentRow;
+            currentRow = row;
+        }
+
+        return previousRow[m] / (n + m);
+    }
+
+    private static float distance(float[] a, int aOffset, float[] b, int bOffset) {
+        float sum = 0;
+        for (int k = 1; k < MiwokMfcc.COEFFICIENT_COUNT; k++) {
+            final float difference = a[aOffset + k] - b[bOffset + k];
+            sum += difference * difference;
+        }
+        return (float) Math.sqrt(sum);
+    }
+}
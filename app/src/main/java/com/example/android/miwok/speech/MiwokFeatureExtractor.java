@@ -0,0 +1,72 @@
+package com.example.android.miwok.speech;
+
+/**
+ * This class turns a stream of 16-bit PCM samples into MFCC features, as the
+ * samples come, e.g. from the microphone. Samples are buffered until they
+ * fill a frame, and each frame is computed as soon as it's complete. Nothing
+ * is allocated after construction. This class isn't thread safe.
+ */
+public class MiwokFeatureExtractor {
+    private final MiwokMfcc mfcc;
+    private final MiwokFeatures features;
+    private final float[] frame;
+    private int frameFill;
+
+    /**
+     * constructor.
+     * @param sampleRate sample rate of the samples, in Hz.
+     * @param features features receiving the frames.
+     */
+    public MiwokFeatureExtractor(int sampleRate, MiwokFeatures features) {
+        mfcc = new MiwokMfcc(sampleRate);
+        this.features = features;
+        frame = new float[mfcc.getFrameLength()];
+    }
+
+    /**
+     * getter method for the features.
+     * @return MiwokFeatures features of the samples processed since the last reset.
+     */
+    public MiwokFeatures getFeatures() {
+        return features;
+    }
+
+    /**
+     * This method starts a new utterance: it drops the buffered samples and
+     * the features.
+     */
+    public void reset() {
+        frameFill = 0;
+        features.clear();
+    }
+
+    /**
+     * This method processes samples. Once the features are full, samples are
+     * ignored.
+     * @param samples mono 16-bit samples.
+     * @param offset index of the first sample.
+     * @param length number of samples.
+     */
+    public void process(short[] samples, int offset, int length) {
+        final int end = offset + length;
+        while (offset < end) {
+            final int count = Math.min(frame.length - frameFill, end - offset);
+            for (int i = 0; i < count; i++) {
+                frame[frameFill + i] = samples[offset + i] / 32768f;
+            }
+            frameFill += count;
+            offset += count;
+
+            if (frameFill == frame.length) {
+                if (!features.addFrame(mfcc, frame)) {
+                    return;
+                }
+
+                /* the next frame starts a hop later */
+                final int overlap = frame.length - mfcc.getHopLength();
+                System.arraycopy(frame, mfcc.getHopLength(), frame, 0, overlap);
+                frameFill = overlap;
+            }
+        }
+    }
+}
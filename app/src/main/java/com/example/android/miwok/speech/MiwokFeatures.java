@@ -0,0 +1,89 @@
+package com.example.android.miwok.speech;
+
+/**
+ * This class holds the MFCC features of an utterance, frame by frame: the
+ * {@link MiwokMfcc#COEFFICIENT_COUNT} coefficients of all the frames in a
+ * single array, and the log energy of each frame. Its capacity is set at
+ * construction, so filling it doesn't allocate anything.
+ */
+public class MiwokFeatures {
+    private final float[] coefficients;
+    private final float[] energies;
+    private int frameCount;
+
+    /**
+     * constructor.
+     * @param maxFrameCount number of frames the features can hold.
+     */
+    public MiwokFeatures(int maxFrameCount) {
+        coefficients = new float[maxFrameCount * MiwokMfcc.COEFFICIENT_COUNT];
+        energies = new float[maxFrameCount];
+    }
+
+    /**
+     * getter method for the capacity.
+     * @return int number of frames the features can hold.
+     */
+    public int getMaxFrameCount() {
+        return energies.length;
+    }
+
+    /**
+     * getter method for the number of frames.
+     * @return int number of frames held.
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * getter method for the coefficients. Frame i starts at index
+     * i * {@link MiwokMfcc#COEFFICIENT_COUNT}. The array is shared.
+     * @return float[] coefficients of the frames.
+     */
+    public float[] getCoefficients() {
+        return coefficients;
+    }
+
+    /**
+     * getter method for the log energy of a frame.
+     * @param frame frame.
+     * @return float log of the mean power of the frame.
+     */
+    public float getEnergy(int frame) {
+        return energies[frame];
+    }
+
+    /**
+     * This method removes all the frames.
+     */
+    public void clear() {
+        frameCount = 0;
+    }
+
+    /**
+     * This method replaces the frames by a range of the frames of other
+     * features.
+     * @param source features to copy.
+     * @param start first frame copied.
+     * @param end frame after the last frame copied.
+     */
+    public void copy(MiwokFeatures source, int start, int end) {
+        frameCount = Math.min(end - start, getMaxFrameCount());
+        System.arraycopy(source.coefficients, start * MiwokMfcc.COEFFICIENT_COUNT,
+                coefficients, 0, frameCount * MiwokMfcc.COEFFICIENT_COUNT);
+        System.arraycopy(source.energies, start, energies, 0, frameCount);
+    }
+
+    /* add a frame computed by the mfcc, unless full */
+    boolean addFrame(MiwokMfcc mfcc, float[] frame) {
+        if (frameCount == energies.length) {
+            return false;
+        }
+
+        energies[frameCount] = mfcc.compute(frame, coefficients,
+                frameCount * MiwokMfcc.COEFFICIENT_COUNT);
+        frameCount++;
+        return true;
+    }
+}
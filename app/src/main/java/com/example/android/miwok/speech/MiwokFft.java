@@ -0,0 +1,85 @@
+package com.example.android.miwok.speech;
+
+/**
+ * This class computes in place the discrete Fourier transform of complex
+ * signals whose size is a power of two, with the iterative radix-2
+ * Cooley-Tukey algorithm. The twiddle factors and the bit reversal
+ * permutation are computed once, so a transform doesn't allocate anything.
+ */
+public class MiwokFft {
+    private final int size;
+    private final float[] cosines;
+    private final float[] sines;
+    private final int[] bitReversed;
+
+    /**
+     * constructor.
+     * @param size size of the signals, a power of two.
+     */
+    public MiwokFft(int size) {
+        if (size < 2 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("FFT size " + size + " isn't a power of two");
+        }
+
+        this.size = size;
+        cosines = new float[size / 2];
+        sines = new float[size / 2];
+        for (int k = 0; k < size / 2; k++) {
+            final double angle = -2 * Math.PI * k / size;
+            cosines[k] = (float) Math.cos(angle);
+            sines[k] = (float) Math.sin(angle);
+        }
+
+        bitReversed = new int[size];
+        final int bits = Integer.numberOfTrailingZeros(size);
+        for (int i = 0; i < size; i++) {
+            bitReversed[i] = Integer.reverse(i) >>> (32 - bits);
+        }
+    }
+
+    /**
+     * getter method for the size of the signals.
+     * @return int size of the signals.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * This method replaces a signal by its forward transform.
+     * @param real real parts of the signal, of {@link #getSize()} values.
+     * @param imaginary imaginary parts of the signal, of {@link #getSize()} values.
+     */
+    public void transform(float[] real, float[] imaginary) {
+        for (int i = 0; i < size; i++) {
+            final int j = bitReversed[i];
+            if (j > i) {
+                float swap = real[i];
+                real[i] = real[j];
+                real[j] = swap;
+                swap = imaginary[i];
+                imaginary[i] = imaginary[j];
+                imaginary[j] = swap;
+            }
+        }
+
+        for (int length = 2; length <= size; length <<= 1) {
+            final int half = length >> 1;
+            final int step = size / length;
+            for (int start = 0; start < size; start += length) {
+                for (int k = 0; k < half; k++) {
+                    final int even = start + k;
+                    final int odd = even + half;
+                    final float cosine = cosines[k * step];
+                    final float sine = sines[k * step];
+                    final float oddReal = real[odd] * cosine - imaginary[odd] * sine;
+                    final float oddImaginary = real[odd] * sine + imaginary[odd] * cosine;
+                    real[odd] = real[even] - oddReal;
+                    imaginary[odd] = imaginary[even] - oddImaginary;
+                    real[even] += oddReal;
+                    imaginary[even] += oddImaginary;
+                }
+            }
+        }
+    }
+}
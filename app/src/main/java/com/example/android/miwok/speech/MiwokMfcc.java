@@ -0,0 +1,158 @@
+package com.example.android.miwok.speech;
+
+/**
+ * This class computes the mel-frequency cepstral coefficients (MFCC) of audio
+ * frames: pre-emphasis, Hamming window, power spectrum, triangular mel filter
+ * bank, log and DCT-II.
+ *
+ * <p>Frames are 25 ms long and start every 10 ms, and the filter bank covers
+ * 64 Hz to 7.6 kHz whatever the sample rate, so features computed at
+ * different sample rates can be compared. Everything is computed at
+ * construction, so computing a frame doesn't allocate anything. This class
+ * isn't thread safe.
+ */
+public class MiwokMfcc {
+    /** number of coefficients per frame */
+    public static final int COEFFICIENT_COUNT = 13;
+
+    private static final int FRAME_MILLIS = 25;
+    private static final int HOP_MILLIS = 10;
+    private static final int FILTER_COUNT = 26;
+    private static final double MIN_FREQUENCY = 64;
+    private static final double MAX_FREQUENCY = 7600;
+    private static final float PRE_EMPHASIS = 0.97f;
+    /* floor of the energies, so that digital silence has a finite log */
+    private static final float ENERGY_FLOOR = 1e-10f;
+
+    private final int frameLength;
+    private final int hopLength;
+    private final MiwokFft fft;
+    private final float[] window;
+    private final float[] real;
+    private final float[] imaginary;
+    private final int[] filterStarts;
+    private final float[][] filterWeights;
+    private final float[] logEnergies = new float[FILTER_COUNT];
+    private final float[][] dct = new float[COEFFICIENT_COUNT][FILTER_COUNT];
+
+    /**
+     * constructor.
+     * @param sampleRate sample rate of the audio, in Hz.
+     */
+    public MiwokMfcc(int sampleRate) {
+        frameLength = sampleRate * FRAME_MILLIS / 1000;
+        hopLength = sampleRate * HOP_MILLIS / 1000;
+        fft = new MiwokFft(Integer.highestOneBit(frameLength - 1) << 1);
+        real = new float[fft.getSize()];
+        imaginary = new float[fft.getSize()];
+
+        window = new float[frameLength];
+        for (int i = 0; i < frameLength; i++) {
+            window[i] = (float) (0.54 - 0.46 * Math.cos(2 * Math.PI * i / (frameLength - 1)));
+        }
+
+        /* filters evenly spaced on the mel scale, overlapping by half */
+        final double maxFrequency = Math.min(MAX_FREQUENCY, sampleRate / 2.0);
+        final double minMel = toMel(MIN_FREQUENCY);
+        final double melStep = (toMel(maxFrequency) - minMel) / (FILTER_COUNT + 1);
+        final double binHz = (double) sampleRate / fft.getSize();
+        filterStarts = new int[FILTER_COUNT];
+        filterWeights = new float[FILTER_COUNT][];
+        for (int filter = 0; filter < FILTER_COUNT; filter++) {
+            final double left = fromMel(minMel + filter * melStep);
+            final double center = fromMel(minMel + (filter + 1) * melStep);
+            final double right = fromMel(minMel + (filter + 2) * melStep);
+            final int start = (int) Math.ceil(left / binHz);
+            final int end = Math.max(start + 1, (int) Math.ceil(right / binHz));
+            filterStarts[filter] = start;
+            filterWeights[filter] = new float[end - start];
+            for (int bin = start; bin < end; bin++) {
+                final double frequency = bin * binHz;
+                filterWeights[filter][bin - start] = (float) Math.max(0, frequency <= center
+                        ? (frequency - left) / (center - left)
+                        : (right - frequency) / (right - center));
+            }
+        }
+
+        /* orthonormal DCT-II */
+        for (int k = 0; k < COEFFICIENT_COUNT; k++) {
+            final double scale = Math.sqrt((k == 0 ? 1.0 : 2.0) / FILTER_COUNT);
+            for (int n = 0; n < FILTER_COUNT; n++) {
+                dct[k][n] = (float) (scale * Math.cos(Math.PI * k * (n + 0.5) / FILTER_COUNT));
+            }
+        }
+    }
+
+    /**
+     * getter method for the frame length.
+     * @return int number of samples of a frame.
+     */
+    public int getFrameLength() {
+        return frameLength;
+    }
+
+    /**
+     * getter method for the hop length.
+     * @return int number of samples between the starts of two frames.
+     */
+    public int getHopLength() {
+        return hopLength;
+    }
+
+    /**
+     * This method computes the coefficients of a frame.
+     * @param frame {@link #getFrameLength()} samples, between -1 and 1.
+     * @param coefficients array receiving {@link #COEFFICIENT_COUNT} coefficients.
+     * @param offset index of the first coefficient in the array.
+     * @return float log of the mean power of the frame.
+     */
+    public float compute(float[] frame, float[] coefficients, int offset) {
+        float power = 0;
+        float previous = frame[0];
+        for (int i = 0; i < frameLength; i++) {
+            final float sample = frame[i];
+            power += sample * sample;
+            real[i] = (sample - PRE_EMPHASIS * previous) * window[i];
+            previous = sample;
+        }
+        for (int i = frameLength; i < real.length; i++) {
+            real[i] = 0;
+        }
+        for (int i = 0; i < imaginary.length; i++) {
+            imaginary[i] = 0;
+        }
+
+        fft.transform(real, imaginary);
+
+        for (int filter = 0; filter < FILTER_COUNT; filter++) {
+            final float[] weights = filterWeights[filter];
+            final int start = filterStarts[filter];
+            float energy = ENERGY_FLOOR;
+            for (int i = 0; i < weights.length; i++) {
+                final float binReal = real[start + i];
+                final float binImaginary = imaginary[start + i];
+                energy += weights[i] * (binReal * binReal + binImaginary * binImaginary);
+            }
+            logEnergies[filter] = (float) Math.log(energy);
+        }
+
+        for (int k = 0; k < COEFFICIENT_COUNT; k++) {
+            final float[] basis = dct[k];
+            float coefficient = 0;
+            for (int n = 0; n < FILTER_COUNT; n++) {
+                coefficient += basis[n] * logEnergies[n];
+            }
+            coefficients[offset + k] = coefficient;
+        }
+
+        return (float) Math.log(power / frameLength + ENERGY_FLOOR);
+    }
+
+    private static double toMel(double frequency) {
+        return 2595 * Math.log10(1 + frequency / 700);
+    }
+
+    private static double fromMel(double mel) {
+        return 700 * (Math.pow(10, mel / 2595) - 1);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.android.miwok.speech;
+
+/**
+ * This class scores the pronunciation of a word against a reference
+ * recording: the learner's utterance is streamed through a
+ * {@link MiwokFeatureExtractor}, and once it's over, its speech is aligned
+ * with the reference's by {@link MiwokDtw}.
+ *
+ * <p>Before the alignment, the leading and trailing silences of both are
+ * trimmed by a {@link MiwokSpeechDetector}, and the coefficients are
+ * normalized by their mean over the speech (cepstral mean normalization),
+ * which removes most of the differences between the microphones. The mean
+ * cost of the alignment is then mapped to a score from 0 to 100.
+ *
+ * <p>Everything is allocated at construction: processing the samples and
+ * scoring don't allocate anything, so they can run on the audio thread. This
+ * class isn't thread safe.
+ */
+public class MiwokPronunciationScorer {
+    /** score of an utterance without speech */
+    public static final int NO_SCORE = -1;
+
+    /* mean alignment cost at which the score is halved */
+    private static final float HALF_SCORE_COST = 6f;
+
+    private final MiwokFeatures reference;
+    private final MiwokFeatureExtractor extractor;
+    private final MiwokDtw dtw;
+    private final MiwokSpeechDetector speechDetector = new MiwokSpeechDetector();
+    private final float[] means = new float[MiwokMfcc.COEFFICIENT_COUNT];
+
+    /**
+     * constructor.
+     * @param referenceFeatures features of the reference recording, copied.
+     * @param sampleRate sample rate of the utterances, in Hz.
+     * @param maxFrameCount number of frames kept of an utterance, e.g. 300
+     *                      for 3 seconds.
+     */
+    public MiwokPronunciationScorer(MiwokFeatures referenceFeatures, int sampleRate,
+                                    int maxFrameCount) {
+        reference = new MiwokFeatures(referenceFeatures.getFrameCount());
+        if (speechDetector.detect(referenceFeatures)) {
+            reference.copy(referenceFeatures, speechDetector.getSpeechStart(),
+                    speechDetector.getSpeechEnd());
+            normalize(reference, 0, reference.getFrameCount());
+        }
+
+        extractor = new MiwokFeatureExtractor(sampleRate, new MiwokFeatures(maxFrameCount));
+        dtw = new MiwokDtw(Math.max(maxFrameCount, reference.getFrameCount()));
+    }
+
+    /**
+     * This method extracts the features of a whole recording, e.g. of a
+     * reference.
+     * @param samples mono 16-bit samples.
+     * @param sampleRate sample rate of the samples, in Hz.
+     * @return MiwokFeatures features of the recording.
+     */
+    public static MiwokFeatures extractFeatures(short[] samples, int sampleRate) {
+        final MiwokMfcc mfcc = new MiwokMfcc(sampleRate);
+        final int frameCount = samples.length < mfcc.getFrameLength() ? 0
+                : (samples.length - mfcc.getFrameLength()) / mfcc.getHopLength() + 1;
+        final MiwokFeatureExtractor extractor =
+                new MiwokFeatureExtractor(sampleRate, new MiwokFeatures(frameCount));
+        extractor.process(samples, 0, samples.length);
+        return extractor.getFeatures();
+    }
+
+    /**
+     * This method starts a new utterance.
+     */
+    public void reset() {
+        extractor.reset();
+    }
+
+    /**
+     * This method processes the next samples of the utterance.
+     * @param samples mono 16-bit samples.
+     * @param offset index of the first sample.
+     * @param length number of samples.
+     */
+    public void process(short[] samples, int offset, int length) {
+        extractor.process(samples, offset, length);
+    }
+
+    /**
+     * This method scores the utterance processed since the last reset.
+     * @return int score from 0 to 100, or {@link #NO_SCORE} if the utterance
+     *         or the reference has no speech.
+     */
+    public int score() {
+        final MiwokFeatures utterance = extractor.getFeatures();
+        if (reference.getFrameCount() == 0 || !speechDetector.detect(utterance)) {
+            return NO_SCORE;
+        }
+
+        final int speechStart = speechDetector.getSpeechStart();
+        final int speechEnd = speechDetector.getSpeechEnd();
+        normalize(utterance, speechStart, speechEnd);
+        final float cost = dtw.align(utterance, speechStart, speechEnd,
+                reference, 0, reference.getFrameCount());
+        return Math.round(100 * (float) Math.pow(0.5, cost / HALF_SCORE_COST));
+    }
+
+    /* subtract the mean of each coefficient over the range */
+    private void normalize(MiwokFeatures features, int start, int end) {
+        final float[] coefficients = features.getCoefficients();
+        for (int k = 0; k < MiwokMfcc.COEFFICIENT_COUNT; k++) {
+            means[k] = 0;
+        }
+        for (int frame = start; frame < end; frame++) {
+            for (int k = 0; k < MiwokMfcc.COEFFICIENT_COUNT; k++) {
+                means[k] += coefficients[frame * MiwokMfcc.COEFFICIENT_COUNT + k];
+            }
+        }
+        for (int frame = start; frame < end; frame++) {
+            for (int k = 0; k < MiwokMfcc.COEFFICIENT_COUNT; k++) {
+                coefficients[frame * MiwokMfcc.COEFFICIENT_COUNT + k] -= means[k] / (end - start);
+            }
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.android.miwok.speech;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * This class finds the clips that sound alike, from an index of the
+ * {@link MiwokSoundSignature signatures} of all the vocabulary clips. The
+ * index is written at build time by the indexAudio task (see buildSrc
+ * IndexAudioTask) with {@link #write(float[][], DataOutputStream)}, and read
+ * in place, e.g. from a memory-mapped asset.
+ *
+ * <p>Each value of the signatures is standardized over all the clips, i.e.
+ * shifted by its mean and divided by its standard deviation, so that all the
+ * values weigh the same in the Euclidean distance between two signatures. A
+ * query scans all the signatures: the vocabulary has a few hundred clips at
+ * most, so an exhaustive scan of a few thousand floats takes microseconds and
+ * finds the exact nearest clips.
+ *
+ * <p>Clips are identified by the sound ids of the audio bundle: the
+ * signature of sound id i is the i-th of the index. The index is big-endian
+ * and laid out as follows:
+ * <pre>
+ *   header      magic "MWKF", version, sound count, signature size (4 ints)
+ *   means       signature size floats, mean of each value over the clips
+ *   scales      signature size floats, inverse standard deviation of each value
+ *   signatures  sound count signatures of standardized values, in sound id
+ *               order, NaN values for a clip without speech
+ * </pre>
+ * Queries don't allocate anything, and can run on any thread.
+ */
+public class MiwokSoundIndex {
+    static final int MAGIC = 0x4d574b46;
+    static final int VERSION = 1;
+    /* sound id of the first signature, like the clips of the audio bundle */
+    private static final int FIRST_SOUND_ID = 1;
+
+    private final int soundCount;
+    private final float[] means = new float[MiwokSoundSignature.SIZE];
+    private final float[] scales = new float[MiwokSoundSignature.SIZE];
+    private final FloatBuffer signatures;
+
+    /**
+     * constructor.
+     * @param buffer buffer holding the index, e.g. memory-mapped. The index
+     *               is read in place: the buffer must not be modified.
+     * @throws IOException if the buffer isn't a valid index.
+     */
+    public MiwokSoundIndex(ByteBuffer buffer) throws IOException {
+        try {
+            final ByteBuffer index = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+            if (index.getInt() != MAGIC) {
+                throw new IOException("Not a sound index");
+            }
+            final int version = index.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported sound index version " + version);
+            }
+
+            soundCount = index.getInt();
+            final int signatureSize = index.getInt();
+            if (signatureSize != MiwokSoundSignature.SIZE) {
+                throw new IOException("Sound index of signatures of " + signatureSize
+                        + " values instead of " + MiwokSoundSignature.SIZE);
+            }
+            if (soundCount < 0
+                    || (2L + soundCount) * signatureSize * 4 > index.remaining()) {
+                throw new IOException("Corrupted sound index header");
+            }
+
+            index.asFloatBuffer().get(means).get(scales);
+            index.position(index.position() + 2 * signatureSize * 4);
+            signatures = index.slice().order(ByteOrder.BIG_ENDIAN).asFloatBuffer();
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated sound index", e);
+        }
+    }
+
+    /**
+     * getter method for the number of clips.
+     * @return int number of clips indexed, the largest sound id.
+     */
+    public int getSoundCount() {
+        return soundCount;
+    }
+
+    /**
+     * This method tells whether a clip has a signature, i.e. can be compared.
+     * @param soundId sound id of the clip.
+     * @return boolean if the clip is indexed and has speech.
+     */
+    public boolean hasSignature(int soundId) {
+        final int position = soundId - FIRST_SOUND_ID;
+        return position >= 0 && position < soundCount
+                && !Float.isNaN(signatures.get(position * MiwokSoundSignature.SIZE));
+    }
+
+    /**
+     * This method finds the clips sounding most like a clip of the index.
+     * @param soundId sound id of the clip, which isn't part of the results.
+     * @param soundIds array receiving the sound ids of the nearest clips,
+     *                 nearest first. Its length is the number of clips wanted.
+     * @param distances array receiving the distances of the nearest clips, at
+     *                  least as long as soundIds.
+     * @return int number of clips found, 0 if the clip has no signature.
+     */
+    public int findNearest(int soundId, int[] soundIds, float[] distances) {
+        if (!hasSignature(soundId)) {
+            return 0;
+        }
+
+        final int queryOffset = (soundId - FIRST_SOUND_ID) * MiwokSoundSignature.SIZE;
+        int found = 0;
+        for (int position = 0; position < soundCount; position++) {
+            if (position == soundId - FIRST_SOUND_ID) {
+                continue;
+            }
+
+            final int offset = position * MiwokSoundSignature.SIZE;
+            float distance = 0;
+            for (int k = 0; k < MiwokSoundSignature.SIZE; k++) {
+                final float difference = signatures.get(offset + k)
+                        - signatures.get(queryOffset + k);
+                distance += difference * difference;
+            }
+            found = insert(position + FIRST_SOUND_ID, distance, soundIds, distances, found);
+        }
+        return found;
+    }
+
+    /**
+     * This method finds the clips sounding most like a signature, e.g. of
+     * the learner's utterance.
+     * @param signature signature, as computed by {@link MiwokSoundSignature}.
+     * @param soundIds array receiving the sound ids of the nearest clips,
+     *                 nearest first. Its length is the number of clips wanted.
+     * @param distances array receiving the distances of the nearest clips, at
+     *                  least as long as soundIds.
+     * @return int number of clips found.
+     */
+    public int findNearest(float[] signature, int[] soundIds, float[] distances) {
+        int found = 0;
+        for (int position = 0; position < soundCount; position++) {
+            final int offset = position * MiwokSoundSignature.SIZE;
+            float distance = 0;
+            for (int k = 0; k < MiwokSoundSignature.SIZE; k++) {
+                final float difference = signatures.get(offset + k)
+                        - (signature[k] - means[k]) * scales[k];
+                distance += difference * difference;
+            }
+            found = insert(position + FIRST_SOUND_ID, distance, soundIds, distances, found);
+        }
+        return found;
+    }
+
+    /*
+     * insert a clip into the nearest clips found so far, sorted by distance,
+     * unless it's farther than all of them and there is no room left.
+     * Distances are squared, the Euclidean distance is only computed for the
+     * clips kept.
+     */
+    private static int insert(int soundId, float squaredDistance, int[] soundIds,
+                              float[] distances, int found) {
+        /* clips without speech have NaN distances */
+        if (Float.isNaN(squaredDistance)) {
+            return found;
+        }
+
+        final float distance = (float) Math.sqrt(squaredDistance);
+        int position = found < soundIds.length ? found : soundIds.length - 1;
+        if (found == soundIds.length && (found == 0 || distance >= distances[position])) {
+            return found;
+        }
+
+        while (position > 0 && distances[position - 1] > distance) {
+            soundIds[position] = soundIds[position - 1];
+            distances[position] = distances[position - 1];
+            position--;
+        }
+        soundIds[position] = soundId;
+        distances[position] = distance;
+        return Math.min(found + 1, soundIds.length);
+    }
+
+    /**
+     * This method writes the index of signatures.
+     * @param clipSignatures signatures of the clips in sound id order, null
+     *                       for a clip without speech.
+     * @param out stream the index is written to.
+     * @throws IOException if the index can't be written.
+     */
+    public static void write(float[][] clipSignatures, DataOutputStream out) throws IOException {
+        final int size = MiwokSoundSignature.SIZE;
+        final double[] sums = new double[size];
+        final double[] squareSums = new double[size];
+        int signatureCount = 0;
+        for (float[] signature : clipSignatures) {
+            if (signature == null) {
+                continue;
+            }
+
+            for (int k = 0; k < size; k++) {
+                sums[k] += signature[k];
+                squareSums[k] += (double) signature[k] * signature[k];
+            }
+            signatureCount++;
+        }
+
+        final float[] means = new float[size];
+        final float[] scales = new float[size];
+        for (int k = 0; k < size; k++) {
+            final double mean = signatureCount > 0 ? sums[k] / signatureCount : 0;
+            final double variance = signatureCount > 0
+                    ? squareSums[k] / signatureCount - mean * mean : 0;
+            means[k] = (float) mean;
+            /* a value all the clips share doesn't tell them apart */
+            scales[k] = variance > 1e-12 ? (float) (1 / Math.sqrt(variance)) : 0;
+        }
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(clipSignatures.length);
+        out.writeInt(size);
+        for (int k = 0; k < size; k++) {
+            out.writeFloat(means[k]);
+        }
+        for (int k = 0; k < size; k++) {
+            out.writeFloat(scales[k]);
+        }
+        for (float[] signature : clipSignatures) {
+            for (int k = 0; k < size; k++) {
+                out.writeFloat(signature == null ? Float.NaN
+                        : (signature[k] - means[k]) * scales[k]);
+            }
+        }
+    }
+}
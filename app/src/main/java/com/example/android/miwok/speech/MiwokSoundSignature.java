@@ -0,0 +1,62 @@
+package com.example.android.miwok.speech;
+
+/**
+ * This class summarizes the features of a clip into a signature, a short
+ * vector of fixed size that similar-sounding clips have close to each other:
+ * the speech of the clip is cut into {@link #SEGMENT_COUNT} segments of equal
+ * duration, the cepstral coefficients (all but c0, the loudness) are averaged
+ * over each segment, and the log of the speech duration is appended. The
+ * signatures of the vocabulary clips are computed at build time, see
+ * {@link MiwokSoundIndex}.
+ *
+ * <p>Computing a signature doesn't allocate anything. This class isn't thread
+ * safe.
+ */
+public class MiwokSoundSignature {
+    /** number of segments the speech is cut into, e.g. the start, middle and end of a word */
+    public static final int SEGMENT_COUNT = 3;
+    /** number of values of a signature */
+    public static final int SIZE = SEGMENT_COUNT * (MiwokMfcc.COEFFICIENT_COUNT - 1) + 1;
+
+    /* duration of a frame of features, in seconds */
+    private static final float FRAME_SECONDS = 0.01f;
+
+    private final MiwokSpeechDetector speechDetector = new MiwokSpeechDetector();
+
+    /**
+     * This method computes the signature of features.
+     * @param features features of a clip, with its silences or not.
+     * @param signature array receiving the {@link #SIZE} values of the
+     *                  signature.
+     * @return boolean if the features have speech, i.e. a signature. The
+     *         signature array is left as is otherwise.
+     */
+    public boolean compute(MiwokFeatures features, float[] signature) {
+        if (!speechDetector.detect(features)) {
+            return false;
+        }
+
+        final int speechStart = speechDetector.getSpeechStart();
+        final int speechFrameCount = speechDetector.getSpeechEnd() - speechStart;
+        /* every segment needs a frame */
+        if (speechFrameCount < SEGMENT_COUNT) {
+            return false;
+        }
+
+        final float[] coefficients = features.getCoefficients();
+        final int segmentSize = MiwokMfcc.COEFFICIENT_COUNT - 1;
+        for (int segment = 0; segment < SEGMENT_COUNT; segment++) {
+            final int start = speechStart + speechFrameCount * segment / SEGMENT_COUNT;
+            final int end = speechStart + speechFrameCount * (segment + 1) / SEGMENT_COUNT;
+            for (int k = 1; k < MiwokMfcc.COEFFICIENT_COUNT; k++) {
+                float sum = 0;
+                for (int frame = start; frame < end; frame++) {
+                    sum += coefficients[frame * MiwokMfcc.COEFFICIENT_COUNT + k];
+                }
+                signature[segment * segmentSize + k - 1] = sum / (end - start);
+            }
+        }
+        signature[SIZE - 1] = (float) Math.log(speechFrameCount * FRAME_SECONDS);
+        return true;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.android.miwok.speech;
+
+/**
+ * This class finds the speech in features, i.e. the frames between the
+ * leading and trailing silences: the frames more than 35 dB below the
+ * loudest frame or less than 12 dB above the quietest one are silent. Features
+ * whose loudest frame is too quiet, or which don't stand out of their
+ * background noise, have no speech. This class isn't thread safe.
+ */
+final class MiwokSpeechDetector {
+    /* frames within 35 dB of the loudest one are speech */
+    private static final float SPEECH_ENERGY_RANGE = (float) (3.5 * Math.log(10));
+    /* speech must be 12 dB above the quietest frame, i.e. the background noise */
+    private static final float NOISE_MARGIN = (float) (1.2 * Math.log(10));
+    /* the loudest frame must be above -50 dBFS for the utterance to have speech */
+    private static final float MIN_SPEECH_ENERGY = (float) (-5 * Math.log(10));
+
+    /* speech range found by the last detect() call */
+    private int speechStart;
+    private int speechEnd;
+
+    /**
+     * This method finds the speech range of features.
+     * @param features features searched.
+     * @return boolean if the features have speech.
+     */
+    boolean detect(MiwokFeatures features) {
+        final int frameCount = features.getFrameCount();
+        float minEnergy = Float.POSITIVE_INFINITY;
+        float maxEnergy = Float.NEGATIVE_INFINITY;
+        for (int frame = 0; frame < frameCount; frame++) {
+            minEnergy = Math.min(minEnergy, features.getEnergy(frame));
+            maxEnergy = Math.max(maxEnergy, features.getEnergy(frame));
+        }
+        if (maxEnergy < MIN_SPEECH_ENERGY || maxEnergy - minEnergy < NOISE_MARGIN) {
+            return false;
+        }
+
+        /* in a noisy room, the speech is what stands out of the noise */
+        final float threshold = Math.max(maxEnergy - SPEECH_ENERGY_RANGE, minEnergy + NOISE_MARGIN);
+        speechStart = 0;
+        while (features.getEnergy(speechStart) < threshold) {
+            speechStart++;
+        }
+        speechEnd = frameCount;
+        while (features.getEnergy(speechEnd - 1) < threshold) {
+            speechEnd--;
+        }
+        return true;
+    }
+
+    /**
+     * getter method for the start of the speech.
+     * @return int first frame of the speech found by the last detection.
+     */
+    int getSpeechStart() {
+        return speechStart;
+    }
+
+    /**
+     * getter method for the end of the speech.
+     * @return int frame after the last frame of the speech found by the last
+     *         detection.
+     */
+    int getSpeechEnd() {
+        return speechEnd;
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.android.miwok.startup;
+
+import android.app.Activity;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This singleton class follows the app startup, from the creation of the
+ * launch activity to its first drawn frame:
+ * <ul>
+ *     <li>startup phases are shown as trace sections in systrace/Perfetto
+ *     captures, and their durations are kept for {@link #dump(PrintWriter)}.</li>
+ *     <li>the time to first frame is measured, and shown as an asynchronous
+ *     "launch-to-first-frame" trace section.</li>
+ *     <li>work that isn't needed to draw the first frame, e.g. starting the
+ *     media engines, is deferred until that frame has been drawn, see
+ *     {@link #runAfterFirstFrame(Runnable)}.</li>
+ * </ul>
+ * Only the first launch of the process is followed. All the methods are
+ * meant to be called on the main thread.
+ */
+public class MiwokStartup {
+    private static final String LOG_TAG = "MiwokStartup";
+    private static final String TRACE_PREFIX = "startup:";
+    private static final String FIRST_FRAME_TRACE_SECTION = "launch-to-first-frame";
+    private static final int FIRST_FRAME_TRACE_COOKIE = 1;
+
+    /** duration of a startup not over yet */
+    public static final long UNKNOWN = -1;
+
+    private static MiwokStartup instance;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    /* phases in start order, and the start times of the ones not ended yet */
+    private final List<String> phaseNames = new ArrayList<>();
+    private final List<Long> phaseMillis = new ArrayList<>();
+    private final ArrayDeque<Integer> openPhases = new ArrayDeque<>();
+    private final ArrayDeque<Long> openPhaseStarts = new ArrayDeque<>();
+    /* work waiting for the first frame */
+    private final List<Runnable> deferredTasks = new ArrayList<>();
+
+    private boolean launched;
+    private boolean firstFrameDrawn;
+    private long launchUptimeMillis;
+    private long timeToFirstFrameMillis = UNKNOWN;
+    private long processToFirstFrameMillis = UNKNOWN;
+
+    /**
+     * private constructor.
+     */
+    private MiwokStartup() {}
+
+    /**
+     * static method to get the singleton class instance.
+     * @return singleton class instance.
+     */
+    public static MiwokStartup getInstance() {
+        if (instance == null) {
+            synchronized (MiwokStartup.class) {
+                if (instance == null) {
+                    instance = new MiwokStartup();
+                }
+            }
+        }
+
+        return instance;
+    }
+
+    /**
+     * This method is called first thing when the launch activity is created.
+     * Only the first call of the process starts the measure.
+     */
+    public void onLaunch() {
+        if (launched) {
+            return;
+        }
+
+        launched = true;
+        launchUptimeMillis = SystemClock.uptimeMillis();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.beginAsyncSection(FIRST_FRAME_TRACE_SECTION, FIRST_FRAME_TRACE_COOKIE);
+        }
+    }
+
+    /**
+     * This method watches the first frame drawn by the launch activity, once
+     * its content view has been set.
+     * @param activity launch activity.
+     */
+    public void watchFirstFrame(Activity activity) {
+        if (firstFrameDrawn) {
+            return;
+        }
+
+        final View decorView = activity.getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnDrawListener(new ViewTreeObserver.OnDrawListener() {
+            private boolean drawn;
+
+            @Override
+            public void onDraw() {
+                if (drawn) {
+                    return;
+                }
+
+                drawn = true;
+                final ViewTreeObserver.OnDrawListener listener = this;
+                /* the frame is over once the traversal drawing it returns */
+                handler.postAtFrontOfQueue(new Runnable() {
+                    @Override
+                    public void run() {
+                        decorView.getViewTreeObserver().removeOnDrawListener(listener);
+                        onFirstFrame();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * This method starts a startup phase, which must be ended by
+     * {@link #endPhase()} on the same thread. Phases can be nested.
+     * @param name name of the phase.
+     */
+    public void beginPhase(String name) {
+        Trace.beginSection(TRACE_PREFIX + name);
+        if (firstFrameDrawn) {
+            /* only traced */
+            openPhases.push(-1);
+        } else {
+            openPhases.push(phaseNames.size());
+            phaseNames.add(name);
+            phaseMillis.add(UNKNOWN);
+        }
+        openPhaseStarts.push(SystemClock.uptimeMillis());
+    }
+
+    /**
+     * This method ends the latest phase started.
+     */
+    public void endPhase() {
+        final int phase = openPhases.pop();
+        final long start = openPhaseStarts.pop();
+        if (phase >= 0) {
+            phaseMillis.set(phase, SystemClock.uptimeMillis() - start);
+        }
+        Trace.endSection();
+    }
+
+    /**
+     * This method runs a task on the main thread once the first frame has been
+     * drawn, or soon if it already has. Tasks run in order, each in its own
+     * main thread message, so that they don't hold back the input events
+     * coming meanwhile.
+     * @param task task to be run.
+     */
+    public void runAfterFirstFrame(Runnable task) {
+        if (firstFrameDrawn) {
+            handler.post(task);
+        } else {
+            deferredTasks.add(task);
+        }
+    }
+
+    /**
+     * getter method for the first frame state.
+     * @return boolean if the launch activity has drawn its first frame.
+     */
+    public boolean isFirstFrameDrawn() {
+        return firstFrameDrawn;
+    }
+
+    /**
+     * getter method for the time to first frame.
+     * @return long milliseconds from the launch activity creation to its
+     *         first frame, or {@link #UNKNOWN} until it's drawn.
+     */
+    public long getTimeToFirstFrameMillis() {
+        return timeToFirstFrameMillis;
+    }
+
+    /**
+     * getter method for the time to first frame including the process start.
+     * @return long milliseconds from the process start to the first frame of
+     *         the launch activity, or {@link #UNKNOWN} until it's drawn.
+     */
+    public long getProcessToFirstFrameMillis() {
+        return processToFirstFrameMillis;
+    }
+
+    /**
+     * This method prints the startup phases and the time to first frame, e.g.
+     * for dumpsys.
+     * @param writer writer to print to.
+     */
+    public void dump(PrintWriter writer) {
+        writer.println("Startup: " + timeToFirstFrameMillis + " ms to first frame, "
+                + processToFirstFrameMillis + " ms from process start");
+        for (int i = 0; i < phaseNames.size(); i++) {
+            writer.println("  " + phaseNames.get(i) + ": " + phaseMillis.get(i) + " ms");
+        }
+    }
+
+    private void onFirstFrame() {
+        if (firstFrameDrawn) {
+            return;
+        }
+
+        firstFrameDrawn = true;
+        final long now = SystemClock.uptimeMillis();
+        timeToFirstFrameMillis = now - launchUptimeMillis;
+        processToFirstFrameMillis = now - Process.getStartUptimeMillis();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.endAsyncSection(FIRST_FRAME_TRACE_SECTION, FIRST_FRAME_TRACE_COOKIE);
+        }
+        Log.i(LOG_TAG, "First frame drawn " + timeToFirstFrameMillis + " ms after launch, "
+                + processToFirstFrameMillis + " ms after process start");
+
+        for (Runnable task : deferredTasks) {
+            handler.post(task);
+        }
+        deferredTasks.clear();
+    }
+}
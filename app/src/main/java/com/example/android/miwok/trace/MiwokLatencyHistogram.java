@@ -0,0 +1,158 @@
+package com.example.android.miwok.trace;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * This class is a log-linear histogram of latencies in microseconds. Each
+ * power of two is split into 16 buckets, so a recorded value is known within
+ * about 6%, whatever its magnitude, with a fixed amount of memory. It isn't
+ * thread-safe.
+ */
+public class MiwokLatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /* values are clamped to 2^32 - 1 microseconds, i.e. more than an hour */
+    private static final long MAX_VALUE = (1L << 32) - 1;
+    private static final int BUCKET_COUNT = (32 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * This method records a latency.
+     * @param micros latency in microseconds. Negative values are recorded as 0.
+     */
+    public void record(long micros) {
+        final long value = Math.max(0, Math.min(micros, MAX_VALUE));
+        counts[bucketOf(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * This method adds all the latencies recorded by another histogram.
+     * @param other histogram to add.
+     */
+    public void add(MiwokLatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * This method forgets all the recorded latencies.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * getter method for the number of recorded latencies.
+     * @return long number of recorded latencies.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * getter method for the smallest recorded latency.
+     * @return long smallest latency in microseconds, 0 if there is none.
+     */
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * getter method for the largest recorded latency.
+     * @return long largest latency in microseconds, 0 if there is none.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * getter method for the mean latency.
+     * @return long mean latency in microseconds, 0 if there is none.
+     */
+    public long getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * This method returns the latency below which a percentage of the
+     * recorded latencies fall. It's the upper bound of the bucket holding the
+     * percentile, so it overestimates the exact value by at most one bucket.
+     * @param percentile percentile, between 0 and 100.
+     * @return long latency in microseconds, 0 if there is none.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+
+        final double clamped = Math.max(0, Math.min(percentile, 100));
+        final long rank = Math.max(1, (long) Math.ceil(clamped / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(upperBoundOf(i), max));
+            }
+        }
+
+        return max;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "n=" + count
+                + " p50=" + formatMillis(getValueAtPercentile(50))
+                + " p95=" + formatMillis(getValueAtPercentile(95))
+                + " p99=" + formatMillis(getValueAtPercentile(99))
+                + " max=" + formatMillis(max);
+    }
+
+    private static String formatMillis(long micros) {
+        return (micros / 1000) + "." + ((micros % 1000) / 100) + "ms";
+    }
+
+    /*
+     * values below 16 have a bucket each. Above, a value whose highest bit is
+     * bit n falls in one of the 16 buckets of width 2^(n-4) covering
+     * [2^n, 2^(n+1)).
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >> shift) & (SUB_BUCKETS - 1));
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        final int shift = bucket / SUB_BUCKETS - 1;
+        final long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.android.miwok.trace;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+import android.util.SparseArray;
+
+import com.example.android.miwok.media.MiwokPlayer;
+
+import java.io.PrintWriter;
+
+/**
+ * This singleton class traces the latency of a word tap, from the tap to the
+ * first audio frame, through the following stages:
+ * <ol>
+ *     <li>{@link #STAGE_FOCUS_GRANTED}: audio focus granted.</li>
+ *     <li>{@link #STAGE_PLAYER_READY}: player created or prepared.</li>
+ *     <li>{@link #STAGE_FIRST_FRAME}: first audio frame played.</li>
+ * </ol>
+ * Each stage is measured from the tap and aggregated into a histogram per
+ * category. The whole path is also shown as an asynchronous "tap-to-sound"
+ * trace section in systrace/Perfetto captures.
+ *
+ * <p>A tap is traced until its first audio frame, or until the next tap
+ * replaces it. All the methods are meant to be called on the main thread.
+ */
+public class MiwokLatencyTracer {
+    private static final String LOG_TAG = "MiwokLatency";
+    private static final String TAP_TRACE_SECTION = "tap-to-sound";
+
+    /** category of the taps on search results */
+    public static final int CATEGORY_SEARCH = -1;
+
+    /** stage reached when the audio focus is granted */
+    public static final int STAGE_FOCUS_GRANTED = 0;
+    /** stage reached when the player is created or prepared */
+    public static final int STAGE_PLAYER_READY = 1;
+    /** stage reached when the first audio frame is played */
+    public static final int STAGE_FIRST_FRAME = 2;
+    private static final int STAGE_COUNT = 3;
+    private static final String[] STAGE_NAMES = {"focus", "ready", "sound"};
+
+    /** p95 budget of the tap to first audio frame latency */
+    public static final long TAP_TO_SOUND_P95_BUDGET_MILLIS = 100;
+    /* the budget isn't checked before there are enough taps */
+    private static final int MIN_BUDGET_SAMPLES = 20;
+
+    /* how often and how long a started player is polled for its first frame */
+    private static final long FIRST_FRAME_POLL_MILLIS = 2;
+    private static final long FIRST_FRAME_TIMEOUT_MILLIS = 1000;
+    private static final int NO_TAP = 0;
+
+    private static MiwokLatencyTracer instance;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final SparseArray<MiwokLatencyHistogram[]> histograms = new SparseArray<>();
+    private int tapCookie;
+    private int activeTap = NO_TAP;
+    private int activeCategory;
+    private long tapStartNanos;
+    private final boolean[] stageReached = new boolean[STAGE_COUNT];
+
+    /**
+     * private constructor.
+     */
+    private MiwokLatencyTracer() {}
+
+    /**
+     * static method to get the singleton class instance.
+     * @return singleton class instance.
+     */
+    public static MiwokLatencyTracer getInstance() {
+        if (instance == null) {
+            synchronized (MiwokLatencyTracer.class) {
+                if (instance == null) {
+                    instance = new MiwokLatencyTracer();
+                }
+            }
+        }
+
+        return instance;
+    }
+
+    /**
+     * This method starts tracing a tap, replacing any tap still traced.
+     * @param category position of the tapped word's category, or
+     *                 {@link #CATEGORY_SEARCH}.
+     */
+    public synchronized void onTap(int category) {
+        endTap();
+
+        if (++tapCookie == NO_TAP) {
+            tapCookie++;
+        }
+        activeTap = tapCookie;
+        activeCategory = category;
+        tapStartNanos = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < STAGE_COUNT; i++) {
+            stageReached[i] = false;
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.beginAsyncSection(TAP_TRACE_SECTION, activeTap);
+        }
+    }
+
+    /**
+     * This method records that the audio focus has been granted.
+     */
+    public synchronized void onFocusGranted() {
+        recordStage(STAGE_FOCUS_GRANTED);
+    }
+
+    /**
+     * This method records that the player of the tapped word is ready.
+     */
+    public synchronized void onPlayerReady() {
+        recordStage(STAGE_PLAYER_READY);
+    }
+
+    /**
+     * This method waits for the first audio frame of a player that has just
+     * been started, and records it.
+     * @param player started player.
+     */
+    public synchronized void onPlayerStarted(final MiwokPlayer player) {
+        if (activeTap == NO_TAP) {
+            return;
+        }
+
+        final int tap = activeTap;
+        final long deadline = SystemClock.uptimeMillis() + FIRST_FRAME_TIMEOUT_MILLIS;
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (MiwokLatencyTracer.this) {
+                    if (tap != activeTap) {
+                        /* a new tap replaced this one */
+                        return;
+                    }
+                    if (player.hasRenderedAudio()) {
+                        recordStage(STAGE_FIRST_FRAME);
+                        checkBudget(activeCategory);
+                        endTap();
+                    } else if (SystemClock.uptimeMillis() < deadline) {
+                        handler.postDelayed(this, FIRST_FRAME_POLL_MILLIS);
+                    } else {
+                        Log.w(LOG_TAG, "No audio frame played "
+                                + FIRST_FRAME_TIMEOUT_MILLIS + "ms after the tap");
+                        endTap();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * This method returns a copy of the latencies of a stage.
+     * @param category position of the category, or {@link #CATEGORY_SEARCH}.
+     * @param stage traced stage, e.g. {@link #STAGE_FIRST_FRAME}.
+     * @return MiwokLatencyHistogram latencies from the taps to the stage.
+     */
+    public synchronized MiwokLatencyHistogram getHistogram(int category, int stage) {
+        final MiwokLatencyHistogram copy = new MiwokLatencyHistogram();
+        final MiwokLatencyHistogram[] stages = histograms.get(category);
+        if (stages != null) {
+            copy.add(stages[stage]);
+        }
+
+        return copy;
+    }
+
+    /**
+     * This method checks the tap to first audio frame latency of a category
+     * against {@link #TAP_TO_SOUND_P95_BUDGET_MILLIS}.
+     * @param category position of the category, or {@link #CATEGORY_SEARCH}.
+     * @return boolean if the p95 latency is within the budget.
+     */
+    public synchronized boolean isWithinBudget(int category) {
+        final MiwokLatencyHistogram[] stages = histograms.get(category);
+        return stages == null || stages[STAGE_FIRST_FRAME].getValueAtPercentile(95)
+                <= TAP_TO_SOUND_P95_BUDGET_MILLIS * 1000;
+    }
+
+    /**
+     * This method forgets all the traced latencies.
+     */
+    public synchronized void reset() {
+        endTap();
+        histograms.clear();
+    }
+
+    /**
+     * This method prints the latencies of every category and stage, e.g. for
+     * dumpsys.
+     * @param writer writer receiving the latencies.
+     */
+    public synchronized void dump(PrintWriter writer) {
+        writer.println("Tap latencies (p95 budget " + TAP_TO_SOUND_P95_BUDGET_MILLIS + "ms):");
+        for (int i = 0; i < histograms.size(); i++) {
+            final int category = histograms.keyAt(i);
+            writer.println("  category " + (category == CATEGORY_SEARCH ? "search" : category)
+                    + (isWithinBudget(category) ? "" : " OVER BUDGET"));
+            final MiwokLatencyHistogram[] stages = histograms.valueAt(i);
+            for (int stage = 0; stage < STAGE_COUNT; stage++) {
+                writer.println("    " + STAGE_NAMES[stage] + ": " + stages[stage]);
+            }
+        }
+    }
+
+    private void recordStage(int stage) {
+        if (activeTap == NO_TAP || stageReached[stage]) {
+            return;
+        }
+        stageReached[stage] = true;
+
+        MiwokLatencyHistogram[] stages = histograms.get(activeCategory);
+        if (stages == null) {
+            stages = new MiwokLatencyHistogram[STAGE_COUNT];
+            for (int i = 0; i < STAGE_COUNT; i++) {
+                stages[i] = new MiwokLatencyHistogram();
+            }
+            histograms.put(activeCategory, stages);
+        }
+
+        stages[stage].record((SystemClock.elapsedRealtimeNanos() - tapStartNanos) / 1000);
+    }
+
+    private void checkBudget(int category) {
+        final MiwokLatencyHistogram sound = histograms.get(category)[STAGE_FIRST_FRAME];
+        if (sound.getCount() >= MIN_BUDGET_SAMPLES && !isWithinBudget(category)) {
+            Log.w(LOG_TAG, "Category " + category + " over the tap to sound budget: " + sound);
+        }
+    }
+
+    private void endTap() {
+        if (activeTap == NO_TAP) {
+            return;
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.endAsyncSection(TAP_TRACE_SECTION, activeTap);
+        }
+        activeTap = NO_TAP;
+    }
+}
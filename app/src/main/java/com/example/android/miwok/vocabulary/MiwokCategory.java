@@ -0,0 +1,90 @@
+package com.example.android.miwok.vocabulary;
+
+/**
+ * This class represents a category of the Miwok vocabulary, e.g. numbers or
+ * colors. Its words are a contiguous range of the vocabulary's
+ * {@link MiwokWordTable}. It's immutable and shared by all its readers.
+ */
+public class MiwokCategory {
+    private final String key;
+    private final int titleResourceId;
+    private final int colorResourceId;
+    private final MiwokWordTable wordTable;
+    private final int firstWord;
+    private final int wordCount;
+
+    /**
+     * constructor
+     * @param key key identifying the category in the vocabulary.
+     * @param titleResourceId string resource id of the category title.
+     * @param colorResourceId color resource id of the category.
+     * @param wordTable table holding the words of the vocabulary.
+     * @param firstWord index of the category's first word in the table.
+     * @param wordCount number of words in the category.
+     */
+    MiwokCategory(String key, int titleResourceId, int colorResourceId,
+                  MiwokWordTable wordTable, int firstWord, int wordCount) {
+        this.key = key;
+        this.titleResourceId = titleResourceId;
+        this.colorResourceId = colorResourceId;
+        this.wordTable = wordTable;
+        this.firstWord = firstWord;
+        this.wordCount = wordCount;
+    }
+
+    /**
+     * getter method for the category key.
+     * @return String key identifying the category in the vocabulary.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * getter method for the title resource id.
+     * @return int string resource id of the category title.
+     */
+    public int getTitleResourceId() {
+        return titleResourceId;
+    }
+
+    /**
+     * getter method for the color resource id.
+     * @return int color resource id of the category.
+     */
+    public int getColorResourceId() {
+        return colorResourceId;
+    }
+
+    /**
+     * getter method for the word table.
+     * @return MiwokWordTable table holding the words of the vocabulary.
+     */
+    public MiwokWordTable getWordTable() {
+        return wordTable;
+    }
+
+    /**
+     * getter method for the index of the category's first word.
+     * @return int index of the first word in the word table.
+     */
+    public int getFirstWord() {
+        return firstWord;
+    }
+
+    /**
+     * getter method for the number of words.
+     * @return int number of words in the category.
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * This method copies the sound ids of the category's words.
+     * @return int[] sound ids, in display order.
+     */
+    public int[] getSoundIds() {
+        return wordTable.copySoundIds(firstWord, wordCount);
+    }
+}
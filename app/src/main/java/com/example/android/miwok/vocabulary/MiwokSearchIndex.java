@@ -0,0 +1,459 @@
+package com.example.android.miwok.vocabulary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class is an in-memory search-as-you-type index over the default and
+ * the Miwok translations of the vocabulary words. Both translations are
+ * folded (see {@link MiwokTextFolder}), split into tokens and inserted in a
+ * prefix trie, so a keystroke costs a walk down the trie plus the ranking of
+ * the words below the reached node.
+ *
+ * <p>Every query token must be the prefix of a token of the same translation.
+ * Results are ranked as follows: exact translations first, then translations
+ * starting with the query, then translations with a token starting with the
+ * query, earlier tokens first. Shorter translations win ties.
+ *
+ * <p>Words are added a category at a time and the index grows incrementally,
+ * e.g. when a vocabulary pack is installed. The trie, its postings and the
+ * folded translations are kept in flat arrays, like the word table.
+ *
+ * <p>One or two letter queries reach nodes with most of the words below them,
+ * so their ranked results are cached until words are added.
+ */
+public class MiwokSearchIndex {
+    /** default maximum number of results of a search */
+    public static final int DEFAULT_MAX_RESULTS = 50;
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 64;
+
+    /* match ranks, lower ranks are listed first */
+    private static final int RANK_EXACT = 0;
+    private static final int RANK_TRANSLATION_PREFIX = 1;
+    private static final int RANK_TOKEN_PREFIX = 2;
+    private static final int MAX_TOKEN_ORDINAL = 15;
+    /* the translation length breaks rank ties */
+    private static final int LENGTH_BITS = 10;
+    private static final int MAX_LENGTH = (1 << LENGTH_BITS) - 1;
+    /* longest single token query whose results are cached */
+    private static final int MAX_CACHED_QUERY_LENGTH = 2;
+
+    /* trie nodes: the first child and next sibling links form each node's child list */
+    private char[] nodeChars = new char[INITIAL_CAPACITY];
+    private int[] nodeFirstChildren = new int[INITIAL_CAPACITY];
+    private int[] nodeNextSiblings = new int[INITIAL_CAPACITY];
+    private int[] nodePostings = new int[INITIAL_CAPACITY];
+    private int[][] nodeCachedResults = new int[INITIAL_CAPACITY][];
+    private int nodeCount;
+
+    /* postings: linked lists of the entries having a token ending at a node */
+    private int[] postingEntries = new int[INITIAL_CAPACITY];
+    private int[] postingNexts = new int[INITIAL_CAPACITY];
+    private int postingCount;
+
+    /* entries: one per indexed word */
+    private final List<MiwokWordTable> wordTables = new ArrayList<>();
+    private int[] entryWordTables = new int[INITIAL_CAPACITY];
+    private int[] entryWordIndexes = new int[INITIAL_CAPACITY];
+    private int[] entryColorResourceIds = new int[INITIAL_CAPACITY];
+    private int[] entryDefaultOffsets = new int[INITIAL_CAPACITY];
+    private int[] entryDefaultLengths = new int[INITIAL_CAPACITY];
+    private int[] entryMiwokOffsets = new int[INITIAL_CAPACITY];
+    private int[] entryMiwokLengths = new int[INITIAL_CAPACITY];
+    private int[] entryStamps = new int[INITIAL_CAPACITY];
+    private int entryCount;
+
+    /* folded translations of all the entries */
+    private char[] foldedText = new char[INITIAL_CAPACITY * 8];
+    private int foldedLength;
+
+    /* scratch buffers of the searches */
+    private char[] queryChars = new char[INITIAL_CAPACITY];
+    private char[] foldedQuery = new char[INITIAL_CAPACITY];
+    private int[] nodeStack = new int[INITIAL_CAPACITY];
+    private int[] topEntries = new int[DEFAULT_MAX_RESULTS];
+    private int[] topScores = new int[DEFAULT_MAX_RESULTS];
+    private int stamp;
+
+    /**
+     * constructor. Creates an empty index.
+     */
+    public MiwokSearchIndex() {
+        nodeCount = 1;
+        nodeFirstChildren[ROOT] = NONE;
+        nodeNextSiblings[ROOT] = NONE;
+        nodePostings[ROOT] = NONE;
+    }
+
+    /**
+     * getter method for the number of indexed words.
+     * @return int number of indexed words.
+     */
+    public synchronized int size() {
+        return entryCount;
+    }
+
+    /**
+     * This method adds the words of a category to the index.
+     * @param category category to index.
+     */
+    public void addCategory(MiwokCategory category) {
+        addWords(category.getWordTable(), category.getFirstWord(), category.getWordCount(),
+                category.getColorResourceId());
+    }
+
+    /**
+     * This method adds a range of words to the index.
+     * @param wordTable table holding the words.
+     * @param firstWord index of the first word in the table.
+     * @param wordCount number of words.
+     * @param colorResourceId color resource id of the words' category.
+     */
+    public synchronized void addWords(MiwokWordTable wordTable, int firstWord, int wordCount,
+                                      int colorResourceId) {
+        int tableIndex = wordTables.indexOf(wordTable);
+        if (tableIndex == NONE) {
+            tableIndex = wordTables.size();
+            wordTables.add(wordTable);
+        }
+
+        /* the new words may outrank the cached results */
+        Arrays.fill(nodeCachedResults, 0, nodeCount, null);
+
+        final char[] text = wordTable.getText();
+        for (int wordIndex = firstWord; wordIndex < firstWord + wordCount; wordIndex++) {
+            final int entry = newEntry();
+            entryWordTables[entry] = tableIndex;
+            entryWordIndexes[entry] = wordIndex;
+            entryColorResourceIds[entry] = colorResourceId;
+
+            entryDefaultOffsets[entry] = foldedLength;
+            entryDefaultLengths[entry] = appendFolded(text,
+                    wordTable.getDefaultTranslationOffset(wordIndex),
+                    wordTable.getDefaultTranslationLength(wordIndex));
+            entryMiwokOffsets[entry] = foldedLength;
+            entryMiwokLengths[entry] = appendFolded(text,
+                    wordTable.getMiwokTranslationOffset(wordIndex),
+                    wordTable.getMiwokTranslationLength(wordIndex));
+
+            indexTokens(entry, entryDefaultOffsets[entry], entryDefaultLengths[entry]);
+            indexTokens(entry, entryMiwokOffsets[entry], entryMiwokLengths[entry]);
+        }
+    }
+
+    /**
+     * This method searches the words matching a query.
+     * @param query text typed by the user.
+     * @param maxResults maximum number of results.
+     * @param results results of the search, replacing the previous ones.
+     */
+    public synchronized void search(CharSequence query, int maxResults,
+                                    MiwokSearchResults results) {
+        results.clear();
+
+        final int queryLength = foldQuery(query);
+        if (queryLength == 0 || maxResults <= 0) {
+            return;
+        }
+
+        /* walk down the trie with the longest query token, it has the fewest words */
+        int anchorStart = 0;
+        int anchorEnd = 0;
+        for (int start = 0; start < queryLength; ) {
+            final int end = tokenEnd(foldedQuery, start, queryLength);
+            if (end - start > anchorEnd - anchorStart) {
+                anchorStart = start;
+                anchorEnd = end;
+            }
+            start = end + 1;
+        }
+        int node = ROOT;
+        for (int i = anchorStart; i < anchorEnd && node != NONE; i++) {
+            node = findChild(node, foldedQuery[i]);
+        }
+        if (node == NONE) {
+            return;
+        }
+
+        final boolean cached = anchorStart == 0 && anchorEnd == queryLength
+                && queryLength <= MAX_CACHED_QUERY_LENGTH && maxResults <= DEFAULT_MAX_RESULTS;
+        if (cached && nodeCachedResults[node] == null) {
+            final int topCount = rank(node, queryLength, DEFAULT_MAX_RESULTS);
+            nodeCachedResults[node] = Arrays.copyOf(topEntries, topCount);
+        }
+
+        final int[] top;
+        final int topCount;
+        if (cached) {
+            top = nodeCachedResults[node];
+            topCount = Math.min(top.length, maxResults);
+        } else {
+            top = topEntries;
+            topCount = rank(node, queryLength, maxResults);
+        }
+        for (int i = 0; i < topCount; i++) {
+            final int entry = top[i];
+            results.add(wordTables.get(entryWordTables[entry]), entryWordIndexes[entry],
+                    entryColorResourceIds[entry]);
+        }
+    }
+
+    /*
+     * rank every word having a token below a node, keeping the best ones in
+     * topEntries. Returns the number of kept words.
+     */
+    private int rank(int node, int queryLength, int maxResults) {
+        if (topEntries.length < maxResults) {
+            topEntries = new int[maxResults];
+            topScores = new int[maxResults];
+        }
+        if (++stamp == 0) {
+            Arrays.fill(entryStamps, 0);
+            stamp = 1;
+        }
+
+        int topCount = 0;
+        int stackSize = 0;
+        nodeStack[stackSize++] = node;
+        while (stackSize > 0) {
+            final int current = nodeStack[--stackSize];
+
+            for (int posting = nodePostings[current]; posting != NONE;
+                 posting = postingNexts[posting]) {
+                final int entry = postingEntries[posting];
+                if (entryStamps[entry] == stamp) {
+                    continue;
+                }
+                entryStamps[entry] = stamp;
+
+                final int score = Math.min(
+                        score(entryDefaultOffsets[entry], entryDefaultLengths[entry], queryLength),
+                        score(entryMiwokOffsets[entry], entryMiwokLengths[entry], queryLength));
+                if (score != Integer.MAX_VALUE) {
+                    topCount = offer(entry, score, topCount, maxResults);
+                }
+            }
+
+            for (int child = nodeFirstChildren[current]; child != NONE;
+                 child = nodeNextSiblings[child]) {
+                if (stackSize == nodeStack.length) {
+                    nodeStack = Arrays.copyOf(nodeStack, stackSize * 2);
+                }
+                nodeStack[stackSize++] = child;
+            }
+        }
+
+        return topCount;
+    }
+
+    private int foldQuery(CharSequence query) {
+        final int length = query.length();
+        if (queryChars.length < length) {
+            queryChars = new char[length];
+            foldedQuery = new char[length];
+        }
+        for (int i = 0; i < length; i++) {
+            queryChars[i] = query.charAt(i);
+        }
+
+        return MiwokTextFolder.fold(queryChars, 0, length, foldedQuery, 0);
+    }
+
+    /*
+     * score a folded translation against the folded query, the lower the
+     * better, or Integer.MAX_VALUE if it doesn't match.
+     */
+    private int score(int offset, int length, int queryLength) {
+        final int rank;
+        if (length >= queryLength && regionMatches(offset, queryLength)) {
+            rank = length == queryLength ? RANK_EXACT : RANK_TRANSLATION_PREFIX;
+        } else {
+            /* every query token must start a token of the translation */
+            int firstOrdinal = NONE;
+            for (int start = 0; start < queryLength; ) {
+                final int end = tokenEnd(foldedQuery, start, queryLength);
+                final int ordinal = findTokenPrefix(offset, length, start, end);
+                if (ordinal == NONE) {
+                    return Integer.MAX_VALUE;
+                }
+                if (firstOrdinal == NONE) {
+                    firstOrdinal = ordinal;
+                }
+                start = end + 1;
+            }
+            rank = RANK_TOKEN_PREFIX + Math.min(firstOrdinal, MAX_TOKEN_ORDINAL);
+        }
+
+        return (rank << LENGTH_BITS) | Math.min(length, MAX_LENGTH);
+    }
+
+    private boolean regionMatches(int offset, int queryLength) {
+        for (int i = 0; i < queryLength; i++) {
+            if (foldedText[offset + i] != foldedQuery[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /*
+     * find the first token of a folded translation starting with a query token.
+     * Returns its ordinal, or NONE.
+     */
+    private int findTokenPrefix(int offset, int length, int queryStart, int queryEnd) {
+        final int end = offset + length;
+        int ordinal = 0;
+        for (int start = offset; start < end; ordinal++) {
+            final int tokenEnd = tokenEnd(foldedText, start, end);
+            if (tokenEnd - start >= queryEnd - queryStart) {
+                int i = 0;
+                while (queryStart + i < queryEnd
+                        && foldedText[start + i] == foldedQuery[queryStart + i]) {
+                    i++;
+                }
+                if (queryStart + i == queryEnd) {
+                    return ordinal;
+                }
+            }
+            start = tokenEnd + 1;
+        }
+
+        return NONE;
+    }
+
+    /*
+     * insert an entry in the sorted top results, ties going to the earlier
+     * entry. Returns the new number of top results.
+     */
+    private int offer(int entry, int score, int topCount, int maxResults) {
+        if (topCount == maxResults && !isBetter(score, entry, topScores[topCount - 1],
+                topEntries[topCount - 1])) {
+            return topCount;
+        }
+
+        int i = topCount == maxResults ? topCount - 1 : topCount;
+        while (i > 0 && isBetter(score, entry, topScores[i - 1], topEntries[i - 1])) {
+            topScores[i] = topScores[i - 1];
+            topEntries[i] = topEntries[i - 1];
+            i--;
+        }
+        topScores[i] = score;
+        topEntries[i] = entry;
+
+        return Math.min(topCount + 1, maxResults);
+    }
+
+    private static boolean isBetter(int score, int entry, int otherScore, int otherEntry) {
+        return score < otherScore || (score == otherScore && entry < otherEntry);
+    }
+
+    private static int tokenEnd(char[] text, int start, int end) {
+        int i = start;
+        while (i < end && text[i] != MiwokTextFolder.SEPARATOR) {
+            i++;
+        }
+
+        return i;
+    }
+
+    private int newEntry() {
+        if (entryCount == entryWordIndexes.length) {
+            final int capacity = entryCount * 2;
+            entryWordTables = Arrays.copyOf(entryWordTables, capacity);
+            entryWordIndexes = Arrays.copyOf(entryWordIndexes, capacity);
+            entryColorResourceIds = Arrays.copyOf(entryColorResourceIds, capacity);
+            entryDefaultOffsets = Arrays.copyOf(entryDefaultOffsets, capacity);
+            entryDefaultLengths = Arrays.copyOf(entryDefaultLengths, capacity);
+            entryMiwokOffsets = Arrays.copyOf(entryMiwokOffsets, capacity);
+            entryMiwokLengths = Arrays.copyOf(entryMiwokLengths, capacity);
+            entryStamps = Arrays.copyOf(entryStamps, capacity);
+        }
+
+        return entryCount++;
+    }
+
+    private int appendFolded(char[] text, int offset, int length) {
+        /* folding never makes a text longer */
+        if (foldedLength + length > foldedText.length) {
+            foldedText = Arrays.copyOf(foldedText,
+                    Math.max(foldedText.length * 2, foldedLength + length));
+        }
+
+        final int folded = MiwokTextFolder.fold(text, offset, length, foldedText, foldedLength);
+        foldedLength += folded;
+        return folded;
+    }
+
+    private void indexTokens(int entry, int offset, int length) {
+        final int end = offset + length;
+        for (int start = offset; start < end; ) {
+            final int tokenEnd = tokenEnd(foldedText, start, end);
+
+            int node = ROOT;
+            for (int i = start; i < tokenEnd; i++) {
+                int child = findChild(node, foldedText[i]);
+                if (child == NONE) {
+                    child = newNode(node, foldedText[i]);
+                }
+                node = child;
+            }
+            addPosting(node, entry);
+
+            start = tokenEnd + 1;
+        }
+    }
+
+    private int findChild(int node, char c) {
+        for (int child = nodeFirstChildren[node]; child != NONE;
+             child = nodeNextSiblings[child]) {
+            if (nodeChars[child] == c) {
+                return child;
+            }
+        }
+
+        return NONE;
+    }
+
+    private int newNode(int parent, char c) {
+        if (nodeCount == nodeChars.length) {
+            final int capacity = nodeCount * 2;
+            nodeChars = Arrays.copyOf(nodeChars, capacity);
+            nodeFirstChildren = Arrays.copyOf(nodeFirstChildren, capacity);
+            nodeNextSiblings = Arrays.copyOf(nodeNextSiblings, capacity);
+            nodePostings = Arrays.copyOf(nodePostings, capacity);
+            nodeCachedResults = Arrays.copyOf(nodeCachedResults, capacity);
+        }
+
+        final int node = nodeCount++;
+        nodeChars[node] = c;
+        nodeFirstChildren[node] = NONE;
+        nodeNextSiblings[node] = nodeFirstChildren[parent];
+        nodePostings[node] = NONE;
+        nodeFirstChildren[parent] = node;
+        return node;
+    }
+
+    private void addPosting(int node, int entry) {
+        /* entries are added in increasing order, so a repeated token is at the head */
+        final int head = nodePostings[node];
+        if (head != NONE && postingEntries[head] == entry) {
+            return;
+        }
+
+        if (postingCount == postingEntries.length) {
+            final int capacity = postingCount * 2;
+            postingEntries = Arrays.copyOf(postingEntries, capacity);
+            postingNexts = Arrays.copyOf(postingNexts, capacity);
+        }
+
+        final int posting = postingCount++;
+        postingEntries[posting] = entry;
+        postingNexts[posting] = head;
+        nodePostings[node] = posting;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.android.miwok.vocabulary;
+
+import java.util.Arrays;
+
+/**
+ * This class holds the ranked words found by a {@link MiwokSearchIndex}
+ * search. It's meant to be reused for every keystroke, so that searching
+ * doesn't allocate.
+ */
+public class MiwokSearchResults {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private MiwokWordTable[] wordTables = new MiwokWordTable[INITIAL_CAPACITY];
+    private int[] wordIndexes = new int[INITIAL_CAPACITY];
+    private int[] colorResourceIds = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * getter method for the number of results.
+     * @return int number of results.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * getter method for the word table of a result.
+     * @param position rank of the result, 0 being the best match.
+     * @return MiwokWordTable table holding the word.
+     */
+    public MiwokWordTable getWordTable(int position) {
+        checkPosition(position);
+        return wordTables[position];
+    }
+
+    /**
+     * getter method for the word index of a result.
+     * @param position rank of the result, 0 being the best match.
+     * @return int index of the word in its table.
+     */
+    public int getWordIndex(int position) {
+        checkPosition(position);
+        return wordIndexes[position];
+    }
+
+    /**
+     * getter method for the color resource id of a result's category.
+     * @param position rank of the result, 0 being the best match.
+     * @return int color resource id of the word's category.
+     */
+    public int getColorResourceId(int position) {
+        checkPosition(position);
+        return colorResourceIds[position];
+    }
+
+    void clear() {
+        Arrays.fill(wordTables, 0, size, null);
+        size = 0;
+    }
+
+    void add(MiwokWordTable wordTable, int wordIndex, int colorResourceId) {
+        if (size == wordIndexes.length) {
+            final int capacity = size * 2;
+            wordTables = Arrays.copyOf(wordTables, capacity);
+            wordIndexes = Arrays.copyOf(wordIndexes, capacity);
+            colorResourceIds = Arrays.copyOf(colorResourceIds, capacity);
+        }
+
+        wordTables[size] = wordTable;
+        wordIndexes[size] = wordIndex;
+        colorResourceIds[size] = colorResourceId;
+        size++;
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Invalid result position " + position);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.android.miwok.vocabulary;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+
+/**
+ * This class folds text for searching: letters are lower-cased and stripped
+ * of their diacritics (e.g. ṭ becomes t), the schwa ә used by the Miwok
+ * spellings becomes e, and apostrophes marking glottal stops are dropped, so
+ * that "woe" finds "wo’e". Every other character that isn't a letter or a
+ * digit separates tokens.
+ */
+final class MiwokTextFolder {
+    /** marks a character dropped from the folded text */
+    static final char DROPPED = '\u0000';
+    /** marks a character separating tokens */
+    static final char SEPARATOR = ' ';
+
+    /* folded characters are cached for the Latin, IPA and extended Latin blocks */
+    private static final int CACHED_CHARS = 0x2000;
+    private static final char UNKNOWN = '\uffff';
+    private static final char[] FOLDED = new char[CACHED_CHARS];
+
+    static {
+        Arrays.fill(FOLDED, UNKNOWN);
+    }
+
+    private MiwokTextFolder() {}
+
+    /**
+     * This method folds a character.
+     * @param c character to fold.
+     * @return char folded character, {@link #DROPPED} if the character
+     *         must be ignored or {@link #SEPARATOR} if it separates tokens.
+     */
+    static char fold(char c) {
+        if (c < 0x80) {
+            if (c >= 'A' && c <= 'Z') {
+                return (char) (c + ('a' - 'A'));
+            }
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                return c;
+            }
+            return c == '\'' ? DROPPED : SEPARATOR;
+        }
+
+        switch (c) {
+            case '\u018f': /* Ə */
+            case '\u0259': /* ə */
+            case '\u04d8': /* Ә, Cyrillic */
+            case '\u04d9': /* ә, Cyrillic */
+                return 'e';
+            case '\u02bc': /* ʼ */
+            case '\u2018': /* ‘ */
+            case '\u2019': /* ’ */
+                return DROPPED;
+            default:
+                break;
+        }
+
+        if (c >= CACHED_CHARS) {
+            return foldUncached(c);
+        }
+
+        /* racing threads compute the same value, so the cache needs no lock */
+        char folded = FOLDED[c];
+        if (folded == UNKNOWN) {
+            folded = foldUncached(c);
+            FOLDED[c] = folded;
+        }
+
+        return folded;
+    }
+
+    /**
+     * This method folds a text into tokens separated by a single
+     * {@link #SEPARATOR}, without leading or trailing separator.
+     * @param text text to fold.
+     * @param offset offset of the text.
+     * @param length length of the text.
+     * @param out buffer receiving the folded text.
+     * @param outOffset offset of the folded text in the buffer, which must hold
+     *                  at least length chars from there.
+     * @return int length of the folded text.
+     */
+    static int fold(char[] text, int offset, int length, char[] out, int outOffset) {
+        int outLength = 0;
+        boolean pendingSeparator = false;
+        for (int i = offset; i < offset + length; i++) {
+            final char folded = fold(text[i]);
+            if (folded == DROPPED) {
+                continue;
+            }
+            if (folded == SEPARATOR) {
+                pendingSeparator = outLength > 0;
+                continue;
+            }
+            if (pendingSeparator) {
+                out[outOffset + outLength++] = SEPARATOR;
+                pendingSeparator = false;
+            }
+            out[outOffset + outLength++] = folded;
+        }
+
+        return outLength;
+    }
+
+    private static char foldUncached(char c) {
+        if (Character.isSurrogate(c)) {
+            return SEPARATOR;
+        }
+
+        /* decompose the character and keep its base letter */
+        final String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+        for (int i = 0; i < decomposed.length(); i++) {
+            final char base = decomposed.charAt(i);
+            final int type = Character.getType(base);
+            if (type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK
+                    || type == Character.ENCLOSING_MARK) {
+                continue;
+            }
+            return Character.isLetterOrDigit(base) ? Character.toLowerCase(base) : SEPARATOR;
+        }
+
+        /* a lone combining mark, e.g. from text typed in decomposed form */
+        return DROPPED;
+    }
+}
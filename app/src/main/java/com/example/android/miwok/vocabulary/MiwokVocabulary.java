@@ -0,0 +1,80 @@
+package com.example.android.miwok.vocabulary;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class is an immutable snapshot of the whole Miwok vocabulary. A single
+ * instance is loaded by {@link MiwokVocabularyRepository} and shared by all the
+ * screens, which only query it.
+ */
+public class MiwokVocabulary {
+    private final MiwokWordTable wordTable;
+    private final List<MiwokCategory> categories;
+
+    /**
+     * constructor
+     * @param wordTable table holding the words of all the categories.
+     * @param categories categories of the vocabulary, in display order.
+     */
+    MiwokVocabulary(MiwokWordTable wordTable, List<MiwokCategory> categories) {
+        this.wordTable = wordTable;
+        this.categories = Collections.unmodifiableList(categories);
+    }
+
+    /**
+     * getter method for the word table.
+     * @return MiwokWordTable table holding the words of all the categories.
+     */
+    public MiwokWordTable getWordTable() {
+        return wordTable;
+    }
+
+    /**
+     * getter method for the categories.
+     * @return List unmodifiable list of the categories, in display order.
+     */
+    public List<MiwokCategory> getCategories() {
+        return categories;
+    }
+
+    /**
+     * getter method for the number of categories.
+     * @return int number of categories.
+     */
+    public int getCategoryCount() {
+        return categories.size();
+    }
+
+    /**
+     * getter method for a category.
+     * @param position position of the category in display order.
+     * @return MiwokCategory the category.
+     */
+    public MiwokCategory getCategory(int position) {
+        return categories.get(position);
+    }
+
+    /**
+     * This method looks a category up by its key.
+     * @param key key identifying the category in the vocabulary.
+     * @return MiwokCategory the category, or null if there is no such category.
+     */
+    public MiwokCategory findCategory(String key) {
+        for (MiwokCategory category : categories) {
+            if (category.getKey().equals(key)) {
+                return category;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * getter method for the number of words.
+     * @return int number of words in all the categories.
+     */
+    public int getWordCount() {
+        return wordTable.size();
+    }
+}
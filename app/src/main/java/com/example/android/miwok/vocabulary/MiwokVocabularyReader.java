@@ -0,0 +1,239 @@
+package com.example.android.miwok.vocabulary;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class parses the packed vocabulary asset generated at build time by the
+ * packVocabulary task (see buildSrc PackVocabularyTask for the layout). The
+ * asset refers to resources by name; names are turned into resource ids by a
+ * {@link ResourceResolver}. The words are read into a {@link MiwokWordTable}.
+ */
+final class MiwokVocabularyReader {
+    private static final int MAGIC = 0x4d574b56;
+    private static final int VERSION = 1;
+    private static final int CATEGORY_RECORD_INTS = 5;
+    private static final int WORD_RECORD_INTS = 5;
+    private static final int NO_STRING = -1;
+    private static final int UNRESOLVED = -1;
+
+    /** resolver type of the audio clips, which aren't Android resources */
+    static final String TYPE_SOUND = "sound";
+
+    /**
+     * Interface definition to turn a resource name into a resource id.
+     */
+    interface ResourceResolver {
+        /**
+         * @param type resource type, e.g. "drawable", or {@link #TYPE_SOUND}
+         *             for a clip of the audio bundle.
+         * @param name resource name.
+         * @return int resource id, or 0 if there is no such resource.
+         */
+        int resolve(String type, String name);
+    }
+
+    private MiwokVocabularyReader() {}
+
+    /**
+     * This method parses a packed vocabulary.
+     * @param buffer buffer holding the packed vocabulary, e.g. memory-mapped.
+     * @param resolver resolver for the resource names.
+     * @return MiwokVocabulary the parsed vocabulary.
+     * @throws IOException if the buffer isn't a valid packed vocabulary.
+     */
+    static MiwokVocabulary read(ByteBuffer buffer, ResourceResolver resolver) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a packed vocabulary");
+            }
+            final int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported vocabulary version " + version);
+            }
+
+            final int categoryCount = buffer.getInt();
+            final int wordCount = buffer.getInt();
+            final int stringCount = buffer.getInt();
+            final int stringDataSize = buffer.getInt();
+
+            /* the records are fixed-width, so the string table is at a known offset */
+            final int categoriesOffset = buffer.position();
+            final int wordsOffset = categoriesOffset + categoryCount * CATEGORY_RECORD_INTS * 4;
+            final int stringOffsetsOffset = wordsOffset + wordCount * WORD_RECORD_INTS * 4;
+            final StringTable strings = readStrings(buffer, stringOffsetsOffset, stringCount,
+                    stringDataSize);
+
+            final MiwokWordTable wordTable = readWords(buffer, wordsOffset, wordCount, strings,
+                    resolver);
+
+            final List<MiwokCategory> categories = new ArrayList<>(categoryCount);
+            buffer.position(categoriesOffset);
+            for (int i = 0; i < categoryCount; i++) {
+                final String key = strings.getString(buffer.getInt());
+                final int titleResourceId = resolver.resolve("string",
+                        strings.getString(buffer.getInt()));
+                final int colorResourceId = resolver.resolve("color",
+                        strings.getString(buffer.getInt()));
+                final int firstWord = buffer.getInt();
+                final int categoryWordCount = buffer.getInt();
+                if (firstWord < 0 || categoryWordCount < 0
+                        || firstWord + categoryWordCount > wordCount) {
+                    throw new IOException("Invalid word range for category " + key);
+                }
+
+                categories.add(new MiwokCategory(key, titleResourceId, colorResourceId,
+                        wordTable, firstWord, categoryWordCount));
+            }
+
+            return new MiwokVocabulary(wordTable, categories);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Truncated or corrupted vocabulary", e);
+        }
+    }
+
+    /*
+     * read the word records straight into the columns of the word table. The
+     * translations stay in the decoded string table, which becomes the table's
+     * text buffer.
+     */
+    private static MiwokWordTable readWords(ByteBuffer buffer, int wordsOffset, int wordCount,
+                                            StringTable strings, ResourceResolver resolver)
+            throws IOException {
+        final int[] wordIds = new int[wordCount];
+        final int[] imageResourceIds = new int[wordCount];
+        final int[] soundIds = new int[wordCount];
+        final int[] defaultOffsets = new int[wordCount];
+        final int[] defaultLengths = new int[wordCount];
+        final int[] miwokOffsets = new int[wordCount];
+        final int[] miwokLengths = new int[wordCount];
+
+        /* resource names are shared by many words in big vocabularies, resolve them once */
+        final int[] resolvedImages = newUnresolvedIds(strings.size());
+        final int[] resolvedSounds = newUnresolvedIds(strings.size());
+
+        buffer.position(wordsOffset);
+        for (int i = 0; i < wordCount; i++) {
+            wordIds[i] = buffer.getInt();
+
+            final int imageIndex = buffer.getInt();
+            imageResourceIds[i] = imageIndex == NO_STRING
+                    ? 0 : resolve(resolver, "drawable", strings, imageIndex, resolvedImages);
+
+            final int defaultIndex = strings.checkIndex(buffer.getInt());
+            defaultOffsets[i] = strings.offsets[defaultIndex];
+            defaultLengths[i] = strings.lengths[defaultIndex];
+
+            final int miwokIndex = strings.checkIndex(buffer.getInt());
+            miwokOffsets[i] = strings.offsets[miwokIndex];
+            miwokLengths[i] = strings.lengths[miwokIndex];
+
+            soundIds[i] = resolve(resolver, TYPE_SOUND, strings, buffer.getInt(),
+                    resolvedSounds);
+        }
+
+        return new MiwokWordTable(wordCount, wordIds, imageResourceIds, soundIds,
+                strings.text, defaultOffsets, defaultLengths, miwokOffsets, miwokLengths);
+    }
+
+    private static int[] newUnresolvedIds(int size) {
+        final int[] ids = new int[size];
+        Arrays.fill(ids, UNRESOLVED);
+        return ids;
+    }
+
+    private static int resolve(ResourceResolver resolver, String type, StringTable strings,
+                               int index, int[] resolved) throws IOException {
+        strings.checkIndex(index);
+        if (resolved[index] == UNRESOLVED) {
+            resolved[index] = resolver.resolve(type, strings.getString(index));
+        }
+
+        return resolved[index];
+    }
+
+    /*
+     * decode the whole UTF-8 string data into a single char buffer, recording
+     * where each string starts. No String object is created.
+     */
+    private static StringTable readStrings(ByteBuffer buffer, int offsetsOffset, int stringCount,
+                                           int stringDataSize) throws IOException {
+        final int dataOffset = offsetsOffset + (stringCount + 1) * 4;
+        if (dataOffset + stringDataSize > buffer.limit()) {
+            throw new IOException("Truncated vocabulary string table");
+        }
+
+        /* UTF-8 never decodes to more chars than it has bytes */
+        final CharBuffer text = CharBuffer.allocate(stringDataSize);
+        final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        final ByteBuffer data = buffer.duplicate();
+
+        final int[] offsets = new int[stringCount];
+        final int[] lengths = new int[stringCount];
+        buffer.position(offsetsOffset);
+        int start = buffer.getInt();
+        for (int i = 0; i < stringCount; i++) {
+            final int end = buffer.getInt();
+            if (start < 0 || end < start || end > stringDataSize) {
+                throw new IOException("Invalid vocabulary string " + i);
+            }
+
+            data.limit(dataOffset + end);
+            data.position(dataOffset + start);
+            offsets[i] = text.position();
+            decoder.reset();
+            final CoderResult result = decoder.decode(data, text, true);
+            if (result.isError()) {
+                throw new IOException("Invalid UTF-8 in vocabulary string " + i);
+            }
+            decoder.flush(text);
+            lengths[i] = text.position() - offsets[i];
+            start = end;
+        }
+
+        return new StringTable(Arrays.copyOf(text.array(), text.position()), offsets, lengths);
+    }
+
+    /**
+     * This class holds the decoded string table of the asset.
+     */
+    private static final class StringTable {
+        final char[] text;
+        final int[] offsets;
+        final int[] lengths;
+
+        StringTable(char[] text, int[] offsets, int[] lengths) {
+            this.text = text;
+            this.offsets = offsets;
+            this.lengths = lengths;
+        }
+
+        int size() {
+            return offsets.length;
+        }
+
+        int checkIndex(int index) throws IOException {
+            if (index < 0 || index >= offsets.length) {
+                throw new IOException("Invalid vocabulary string index " + index);
+            }
+
+            return index;
+        }
+
+        String getString(int index) throws IOException {
+            checkIndex(index);
+            return new String(text, offsets[index], lengths[index]);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.android.miwok.vocabulary;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.android.miwok.asset.MiwokAssets;
+import com.example.android.miwok.media.MiwokAudioBundle;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This singleton class loads the Miwok vocabulary once from the packed
+ * vocabulary asset and hands out the same immutable snapshot to all callers.
+ * The search index over the vocabulary is built once too, in the background.
+ */
+public class MiwokVocabularyRepository {
+    private static final String LOG_TAG = "MiwokVocabulary";
+    private static final String VOCABULARY_ASSET = "vocabulary.bin";
+    private static MiwokVocabularyRepository instance;
+
+    /**
+     * Interface definition for a callback invoked when the search index is
+     * built.
+     */
+    public interface OnSearchIndexLoadedListener {
+        /**
+         * Called on the main thread when the search index is built.
+         * @param searchIndex search index of the vocabulary.
+         */
+        void onSearchIndexLoaded(MiwokSearchIndex searchIndex);
+    }
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final ExecutorService searchIndexExecutor = Executors.newSingleThreadExecutor();
+    private volatile MiwokVocabulary vocabulary;
+    /* only used on the main thread */
+    private MiwokSearchIndex searchIndex;
+    private boolean searchIndexBuilding;
+    private final List<OnSearchIndexLoadedListener> searchIndexListeners = new ArrayList<>();
+
+    /**
+     * private constructor.
+     */
+    private MiwokVocabularyRepository() {}
+
+    /**
+     * static method to get the singleton class instance.
+     * @return singleton class instance.
+     */
+    public static MiwokVocabularyRepository getInstance() {
+        if (instance == null) {
+            synchronized (MiwokVocabularyRepository.class) {
+                if (instance == null) {
+                    instance = new MiwokVocabularyRepository();
+                }
+            }
+        }
+
+        return instance;
+    }
+
+    /**
+     * This method returns the vocabulary, loading it on the first call.
+     * @param context context used to open the vocabulary asset.
+     * @return MiwokVocabulary immutable vocabulary snapshot.
+     */
+    public MiwokVocabulary getVocabulary(Context context) {
+        MiwokVocabulary loaded = vocabulary;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = vocabulary;
+                if (loaded == null) {
+                    loaded = load(context.getApplicationContext());
+                    vocabulary = loaded;
+                }
+            }
+        }
+
+        return loaded;
+    }
+
+    /**
+     * This method hands the search index over all the categories to the
+     * listener: right away once built, otherwise when built. The first call
+     * starts building it in the background, since a large vocabulary takes
+     * longer than a frame to index. A listener waiting for the index is only
+     * called once, however many times it's passed. Must be called on the main
+     * thread.
+     * @param context context used to open the vocabulary asset.
+     * @param listener listener called with the search index.
+     */
+    public void loadSearchIndex(Context context, OnSearchIndexLoadedListener listener) {
+        if (searchIndex != null) {
+            listener.onSearchIndexLoaded(searchIndex);
+            return;
+        }
+
+        if (!searchIndexListeners.contains(listener)) {
+            searchIndexListeners.add(listener);
+        }
+        if (searchIndexBuilding) {
+            return;
+        }
+
+        searchIndexBuilding = true;
+        final Context appContext = context.getApplicationContext();
+        searchIndexExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final MiwokSearchIndex index = new MiwokSearchIndex();
+                for (MiwokCategory category : getVocabulary(appContext).getCategories()) {
+                    index.addCategory(category);
+                }
+
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        searchIndex = index;
+                        searchIndexBuilding = false;
+                        for (OnSearchIndexLoadedListener waitingListener : searchIndexListeners) {
+                            waitingListener.onSearchIndexLoaded(index);
+                        }
+                        searchIndexListeners.clear();
+                    }
+                });
+            }
+        });
+    }
+
+    private static MiwokVocabulary load(final Context context) {
+        final Resources resources = context.getResources();
+        final String packageName = context.getPackageName();
+        final MiwokVocabularyReader.ResourceResolver resolver =
+                new MiwokVocabularyReader.ResourceResolver() {
+                    @Override
+                    public int resolve(String type, String name) {
+                        final int resid = MiwokVocabularyReader.TYPE_SOUND.equals(type)
+                                ? MiwokAudioBundle.getInstance().findSound(context, name)
+                                : resources.getIdentifier(name, type, packageName);
+                        if (resid == 0) {
+                            Log.e(LOG_TAG, "Unknown " + type + " resource " + name);
+                        }
+                        return resid;
+                    }
+                };
+
+        try {
+            return MiwokVocabularyReader.read(MiwokAssets.mapAsset(context, VOCABULARY_ASSET),
+                    resolver);
+        } catch (IOException e) {
+            /* the asset is generated at build time, so this is a packaging bug */
+            throw new IllegalStateException("Failed to load the vocabulary", e);
+        }
+    }
+}
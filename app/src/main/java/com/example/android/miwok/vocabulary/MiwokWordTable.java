@@ -0,0 +1,171 @@
+package com.example.android.miwok.vocabulary;
+
+import java.util.Arrays;
+
+/**
+ * This class stores the words of the vocabulary column by column: parallel
+ * int arrays for the ids, and a single char buffer holding all the
+ * translations, addressed by offset and length. A word is just an index in the
+ * table, so the table costs a few arrays no matter how many words it holds.
+ *
+ * <p>Rows are bound straight from the table, e.g. with
+ * {@code TextView.setText(table.getText(), start, length)}, so binding a row
+ * allocates nothing.
+ */
+public class MiwokWordTable {
+    private static final int NO_IMAGE_PROVIDED = 0;
+
+    private final int size;
+    private final int[] wordIds;
+    private final int[] imageResourceIds;
+    private final int[] soundIds;
+    private final char[] text;
+    private final int[] defaultOffsets;
+    private final int[] defaultLengths;
+    private final int[] miwokOffsets;
+    private final int[] miwokLengths;
+
+    /**
+     * constructor. The table takes ownership of the arrays, which must not be
+     * modified afterwards.
+     * @param size number of words in the table.
+     * @param wordIds stable ids of the words.
+     * @param imageResourceIds image resource ids, 0 for the words without image.
+     * @param soundIds sound ids.
+     * @param text packed translations.
+     * @param defaultOffsets offsets of the default translations in text.
+     * @param defaultLengths lengths of the default translations.
+     * @param miwokOffsets offsets of the Miwok translations in text.
+     * @param miwokLengths lengths of the Miwok translations.
+     */
+    MiwokWordTable(int size, int[] wordIds, int[] imageResourceIds, int[] soundIds,
+                   char[] text, int[] defaultOffsets, int[] defaultLengths,
+                   int[] miwokOffsets, int[] miwokLengths) {
+        this.size = size;
+        this.wordIds = wordIds;
+        this.imageResourceIds = imageResourceIds;
+        this.soundIds = soundIds;
+        this.text = text;
+        this.defaultOffsets = defaultOffsets;
+        this.defaultLengths = defaultLengths;
+        this.miwokOffsets = miwokOffsets;
+        this.miwokLengths = miwokLengths;
+    }
+
+    /**
+     * getter method for the number of words.
+     * @return int number of words in the table.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * getter method for the word id.
+     * @param index index of the word in the table.
+     * @return int stable word id.
+     */
+    public int getWordId(int index) {
+        return wordIds[index];
+    }
+
+    /**
+     * getter method for image resource id.
+     * @param index index of the word in the table.
+     * @return int image resource id, or 0 if the word has no image.
+     */
+    public int getImageResourceId(int index) {
+        return imageResourceIds[index];
+    }
+
+    /**
+     * Method to check if the word has an image resource associated to it.
+     * @param index index of the word in the table.
+     * @return boolean if an image is associate to the miwok word.
+     */
+    public boolean hasImage(int index) {
+        return imageResourceIds[index] != NO_IMAGE_PROVIDED;
+    }
+
+    /**
+     * getter method for sound id.
+     * @param index index of the word in the table.
+     * @return int sound id.
+     */
+    public int getSoundId(int index) {
+        return soundIds[index];
+    }
+
+    /**
+     * This method copies the sound ids of a range of words.
+     * @param from index of the first word.
+     * @param count number of words.
+     * @return int[] sound ids of the words.
+     */
+    public int[] copySoundIds(int from, int count) {
+        return Arrays.copyOfRange(soundIds, from, from + count);
+    }
+
+    /**
+     * getter method for the packed translations. The array is shared and must
+     * not be modified.
+     * @return char[] buffer holding all the translations.
+     */
+    public char[] getText() {
+        return text;
+    }
+
+    /**
+     * getter method for the offset of the default translation in the text.
+     * @param index index of the word in the table.
+     * @return int offset of the default translation.
+     */
+    public int getDefaultTranslationOffset(int index) {
+        return defaultOffsets[index];
+    }
+
+    /**
+     * getter method for the length of the default translation.
+     * @param index index of the word in the table.
+     * @return int length of the default translation.
+     */
+    public int getDefaultTranslationLength(int index) {
+        return defaultLengths[index];
+    }
+
+    /**
+     * getter method for the offset of the Miwok translation in the text.
+     * @param index index of the word in the table.
+     * @return int offset of the Miwok translation.
+     */
+    public int getMiwokTranslationOffset(int index) {
+        return miwokOffsets[index];
+    }
+
+    /**
+     * getter method for the length of the Miwok translation.
+     * @param index index of the word in the table.
+     * @return int length of the Miwok translation.
+     */
+    public int getMiwokTranslationLength(int index) {
+        return miwokLengths[index];
+    }
+
+    /**
+     * getter method for default translation. This allocates a new string.
+     * @param index index of the word in the table.
+     * @return String default translation.
+     */
+    public String getDefaultTranslation(int index) {
+        return new String(text, defaultOffsets[index], defaultLengths[index]);
+    }
+
+    /**
+     * getter method for Miwok translation. This allocates a new string.
+     * @param index index of the word in the table.
+     * @return String miwok translation.
+     */
+    public String getMiwokTranslation(int index) {
+        return new String(text, miwokOffsets[index], miwokLengths[index]);
+    }
+}
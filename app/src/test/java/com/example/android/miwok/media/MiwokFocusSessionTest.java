@@ -0,0 +1,199 @@
+package com.example.android.miwok.media;
+
+import android.media.AudioManager;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link MiwokFocusSession}, with the audio manager and
+ * the handler faked.
+ */
+public class MiwokFocusSessionTest {
+    private static final int GRANTED = AudioManager.AUDIOFOCUS_REQUEST_GRANTED;
+    private static final int FAILED = AudioManager.AUDIOFOCUS_REQUEST_FAILED;
+
+    private FakeFocusService service;
+    private MiwokFocusSession session;
+
+    @Before
+    public void setUp() {
+        service = new FakeFocusService();
+        session = new MiwokFocusSession(service);
+    }
+
+    @Test
+    public void requestWithinIdleWindow_keepsTheFocus() {
+        assertEquals(GRANTED, session.request());
+        assertEquals(GRANTED, session.abandon());
+        assertEquals(MiwokAudioManagerFactory.DEFAULT_FOCUS_IDLE_WINDOW_MILLIS,
+                service.scheduledDelay);
+
+        assertEquals(GRANTED, session.request());
+        assertEquals(GRANTED, session.abandon());
+
+        assertEquals(1, service.requests);
+        assertEquals(0, service.abandons);
+        assertEquals(1, service.cancels);
+        assertEquals(1, session.getRequestCount());
+        assertEquals(1, session.getAvoidedRequestCount());
+        assertTrue(session.isHeld());
+    }
+
+    @Test
+    public void idleWindowElapsed_abandonsTheFocus() {
+        session.request();
+        session.abandon();
+
+        session.onReleaseDue();
+
+        assertEquals(1, service.abandons);
+        assertFalse(session.isHeld());
+
+        assertEquals(GRANTED, session.request());
+        assertEquals(2, service.requests);
+        assertEquals(0, session.getAvoidedRequestCount());
+    }
+
+    @Test
+    public void focusLost_isRequestedAgain() {
+        session.request();
+        session.onFocusLost();
+
+        assertEquals(GRANTED, session.request());
+        assertEquals(2, service.requests);
+        assertEquals(0, session.getAvoidedRequestCount());
+
+        session.onFocusLost();
+        session.onFocusGained();
+        assertEquals(GRANTED, session.request());
+        assertEquals(2, service.requests);
+        assertEquals(1, session.getAvoidedRequestCount());
+    }
+
+    @Test
+    public void noIdleWindow_abandonsRightAway() {
+        session.setIdleWindowMillis(0);
+        session.request();
+
+        session.abandon();
+
+        assertEquals(1, service.abandons);
+        assertEquals(0, service.schedules);
+        assertFalse(session.isHeld());
+    }
+
+    @Test
+    public void disablingIdleWindow_releasesThePendingSession() {
+        session.request();
+        session.abandon();
+
+        session.setIdleWindowMillis(0);
+
+        assertEquals(1, service.cancels);
+        assertEquals(1, service.abandons);
+        assertFalse(session.isHeld());
+    }
+
+    @Test
+    public void deniedRequest_isNotHeld() {
+        service.result = FAILED;
+
+        assertEquals(FAILED, session.request());
+        session.abandon();
+        session.release();
+
+        assertFalse(session.isHeld());
+        assertEquals(0, service.schedules);
+        assertEquals(1, service.abandons);
+    }
+
+    @Test
+    public void release_endsTheSessionOnce() {
+        session.request();
+        session.abandon();
+
+        session.release();
+        session.release();
+
+        assertEquals(1, service.cancels);
+        assertEquals(1, service.abandons);
+        assertFalse(session.isHeld());
+    }
+
+    @Test
+    public void screenTransition_keepsTheFocus() {
+        /* A.onStart, a clip is played */
+        session.onScreenStarted();
+        session.request();
+        session.abandon();
+
+        /* B.onStart, then A.onStop */
+        session.onScreenStarted();
+        session.onScreenStopped();
+
+        assertTrue(session.isHeld());
+        assertEquals(GRANTED, session.request());
+        assertEquals(1, service.requests);
+        assertEquals(1, session.getAvoidedRequestCount());
+
+        /* B.onStop */
+        session.abandon();
+        session.onScreenStopped();
+
+        assertFalse(session.isHeld());
+        assertEquals(1, service.abandons);
+    }
+
+    @Test
+    public void lastScreenStopped_releasesRightAway() {
+        session.onScreenStarted();
+        session.request();
+        session.abandon();
+
+        session.onScreenStopped();
+
+        assertEquals(1, service.cancels);
+        assertEquals(1, service.abandons);
+        assertFalse(session.isHeld());
+
+        /* back to the app */
+        session.onScreenStarted();
+        assertEquals(GRANTED, session.request());
+        assertEquals(2, service.requests);
+    }
+
+    private static class FakeFocusService implements MiwokFocusSession.FocusService {
+        int result = GRANTED;
+        int requests;
+        int abandons;
+        int schedules;
+        int cancels;
+        long scheduledDelay;
+
+        @Override
+        public int requestFocus() {
+            requests++;
+            return result;
+        }
+
+        @Override
+        public int abandonFocus() {
+            abandons++;
+            return GRANTED;
+        }
+
+        @Override
+        public void scheduleRelease(long delayMillis) {
+            schedules++;
+            scheduledDelay = delayMillis;
+        }
+
+        @Override
+        public void cancelRelease() {
+            cancels++;
+        }
+    }
+}
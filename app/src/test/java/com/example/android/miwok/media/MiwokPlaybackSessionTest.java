@@ -0,0 +1,124 @@
+package com.example.android.miwok.media;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link MiwokPlaybackSession}.
+ */
+public class MiwokPlaybackSessionTest {
+
+    @Test
+    public void playerReady_startsAndPauses() {
+        final MiwokPlaybackSession session = new MiwokPlaybackSession();
+        final FakePlayer player = new FakePlayer();
+
+        assertTrue(session.onPlayerReady(player));
+        assertEquals(MiwokPlaybackSession.STATE_READY, session.getState());
+        session.start();
+        assertEquals(MiwokPlaybackSession.STATE_PLAYING, session.getState());
+        session.pause();
+        session.seekTo(0);
+
+        assertEquals(MiwokPlaybackSession.STATE_PAUSED, session.getState());
+        assertEquals(1, player.starts);
+        assertEquals(1, player.pauses);
+        assertEquals(1, player.seeks);
+    }
+
+    @Test
+    public void callsBeforePlayerReady_areIgnored() {
+        final MiwokPlaybackSession session = new MiwokPlaybackSession();
+
+        session.start();
+        session.pause();
+        session.seekTo(0);
+
+        assertEquals(MiwokPlaybackSession.STATE_PREPARING, session.getState());
+        assertFalse(session.hasRenderedAudio());
+    }
+
+    @Test
+    public void staleCallback_releasesItsPlayer() {
+        final MiwokPlaybackSession session = new MiwokPlaybackSession();
+        final FakePlayer player = new FakePlayer();
+
+        assertTrue(session.releaseSession());
+        assertFalse(session.onPlayerReady(player));
+        session.start();
+
+        assertTrue(session.isReleased());
+        assertEquals(1, player.releases);
+        assertEquals(0, player.starts);
+    }
+
+    @Test
+    public void release_happensOnce() {
+        final MiwokPlaybackSession session = new MiwokPlaybackSession();
+        final FakePlayer player = new FakePlayer();
+        session.onPlayerReady(player);
+        session.start();
+
+        assertTrue(session.releaseSession());
+        assertFalse(session.releaseSession());
+        session.release();
+        session.start();
+
+        assertEquals(1, player.releases);
+        assertEquals(1, player.starts);
+        assertFalse(session.owns(player));
+    }
+
+    @Test
+    public void releaseDuringTransition_isDeferred() {
+        final MiwokPlaybackSession session = new MiwokPlaybackSession();
+        final FakePlayer player = new FakePlayer() {
+            @Override
+            public void start() {
+                super.start();
+                /* e.g. the audio focus is lost while the player starts */
+                assertTrue(session.releaseSession());
+                assertEquals(0, releases);
+            }
+        };
+        session.onPlayerReady(player);
+
+        session.start();
+
+        assertTrue(session.isReleased());
+        assertEquals(1, player.releases);
+    }
+
+    private static class FakePlayer implements MiwokPlayer {
+        int starts;
+        int pauses;
+        int seeks;
+        int releases;
+
+        @Override
+        public void start() {
+            starts++;
+        }
+
+        @Override
+        public void pause() {
+            pauses++;
+        }
+
+        @Override
+        public void seekTo(int msec) {
+            seeks++;
+        }
+
+        @Override
+        public boolean hasRenderedAudio() {
+            return starts > 0;
+        }
+
+        @Override
+        public void release() {
+            releases++;
+        }
+    }
+}
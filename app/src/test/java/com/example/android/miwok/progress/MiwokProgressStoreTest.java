@@ -0,0 +1,156 @@
+package com.example.android.miwok.progress;
+
+import com.example.android.miwok.review.MiwokReviewScheduler;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link MiwokProgressStore}.
+ */
+public class MiwokProgressStoreTest {
+    private static final long NOW = 1_600_000_000_000L;
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private static final int[] WORD_IDS = {101, 102, 103, 104};
+    /* never compact, or compact after every few events */
+    private static final long NO_COMPACTION = Long.MAX_VALUE;
+    private static final long SMALL_LOG = 100;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File directory;
+    private MiwokReviewScheduler loadedScheduler;
+    private int[] loadedPlayCounts;
+
+    @Before
+    public void setUp() {
+        directory = new File(temporaryFolder.getRoot(), "progress");
+    }
+
+    @Test
+    public void loadProgress_replaysTheLoggedEvents() throws Exception {
+        final MiwokProgressStore store = open(NO_COMPACTION);
+        store.recordReview(1, MiwokReviewScheduler.QUALITY_GOOD, NOW);
+        store.recordReview(1, MiwokReviewScheduler.QUALITY_EASY, NOW + DAY);
+        store.recordPlay(2, NOW);
+        store.recordPlay(2, NOW + 1);
+        store.close();
+
+        load(open(NO_COMPACTION));
+
+        assertEquals(2, loadedScheduler.getRepetitions(1));
+        assertEquals(6, loadedScheduler.getIntervalDays(1));
+        assertEquals(2600, loadedScheduler.getEase(1));
+        assertEquals(NOW + 7 * DAY, loadedScheduler.getDueMillis(1));
+        assertEquals(0, loadedScheduler.getRepetitions(0));
+        assertArrayEquals(new int[] {0, 0, 2, 0}, loadedPlayCounts);
+    }
+
+    @Test
+    public void loadProgress_includesTheEventsNotWrittenYet() throws Exception {
+        final MiwokProgressStore store = open(NO_COMPACTION);
+        store.recordPlay(3, NOW);
+
+        load(store);
+
+        assertEquals(1, loadedPlayCounts[3]);
+        store.close();
+    }
+
+    @Test
+    public void compaction_foldsTheLogIntoTheSnapshot() throws Exception {
+        final MiwokProgressStore store = open(SMALL_LOG);
+        long now = NOW;
+        for (int i = 0; i < 40; i++) {
+            store.recordPlay(i % WORD_IDS.length, now);
+            if (i % 10 == 0) {
+                store.recordReview(0, MiwokReviewScheduler.QUALITY_GOOD, now);
+                now += 30 * DAY;
+            }
+            store.flush();
+        }
+        store.close();
+
+        assertTrue(new File(directory, MiwokProgressStore.SNAPSHOT_FILE).exists());
+        assertTrue(new File(directory, MiwokProgressStore.LOG_FILE).length() < SMALL_LOG);
+
+        load(open(SMALL_LOG));
+
+        assertEquals(4, loadedScheduler.getRepetitions(0));
+        assertArrayEquals(new int[] {10, 10, 10, 10}, loadedPlayCounts);
+    }
+
+    @Test
+    public void recovery_dropsATornEvent() throws Exception {
+        MiwokProgressStore store = open(NO_COMPACTION);
+        store.recordPlay(0, NOW);
+        store.close();
+        append(new byte[] {2, 0, 0, 0, 0, 101, 0});
+
+        store = open(NO_COMPACTION);
+        store.recordPlay(1, NOW);
+        store.close();
+
+        load(open(NO_COMPACTION));
+
+        assertArrayEquals(new int[] {1, 1, 0, 0}, loadedPlayCounts);
+    }
+
+    @Test
+    public void recovery_ignoresALogAlreadyInTheSnapshot() throws Exception {
+        MiwokProgressStore store = open(NO_COMPACTION);
+        store.recordReview(0, MiwokReviewScheduler.QUALITY_GOOD, NOW);
+        store.close();
+        final File log = new File(directory, MiwokProgressStore.LOG_FILE);
+        final byte[] foldedLog = Files.readAllBytes(log.toPath());
+
+        /* compact, then put the old log back as if the process died before resetting it */
+        store = open(SMALL_LOG);
+        for (int i = 0; i < 10; i++) {
+            store.recordPlay(1, NOW);
+        }
+        store.close();
+        Files.write(log.toPath(), foldedLog);
+
+        load(open(NO_COMPACTION));
+
+        assertEquals(1, loadedScheduler.getRepetitions(0));
+        assertEquals(10, loadedPlayCounts[1]);
+    }
+
+    private MiwokProgressStore open(long compactionBytes) {
+        return new MiwokProgressStore(directory, WORD_IDS, 0, compactionBytes);
+    }
+
+    private void load(MiwokProgressStore store) throws InterruptedException {
+        final CountDownLatch loaded = new CountDownLatch(1);
+        store.loadProgress(new MiwokProgressStore.OnProgressLoadedListener() {
+            @Override
+            public void onProgressLoaded(MiwokReviewScheduler scheduler, int[] playCounts) {
+                loadedScheduler = scheduler;
+                loadedPlayCounts = playCounts;
+                loaded.countDown();
+            }
+        });
+        assertTrue(loaded.await(5, TimeUnit.SECONDS));
+    }
+
+    private void append(byte[] bytes) throws IOException {
+        try (FileOutputStream output =
+                     new FileOutputStream(new File(directory, MiwokProgressStore.LOG_FILE), true)) {
+            output.write(bytes);
+        }
+    }
+}
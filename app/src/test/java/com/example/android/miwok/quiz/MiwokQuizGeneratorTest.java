@@ -0,0 +1,133 @@
+package com.example.android.miwok.quiz;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link MiwokQuizGenerator} and {@link MiwokWeightedSampler}.
+ */
+public class MiwokQuizGeneratorTest {
+    private static final int[] FIRST_WORDS = {0, 10, 13};
+    private static final int[] WORD_COUNTS = {10, 3, 20};
+
+    @Test
+    public void next_offersDistinctWordsOfThePromptCategory() {
+        final MiwokQuizGenerator generator = new MiwokQuizGenerator(FIRST_WORDS, WORD_COUNTS, 1);
+        final MiwokQuizQuestion question = new MiwokQuizQuestion();
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(generator.next(question));
+            final int prompt = question.getPromptWord();
+            assertEquals(prompt, question.getOptionWord(question.getCorrectOption()));
+            /* the 3 words category is too small for a question */
+            assertFalse(prompt >= 10 && prompt < 13);
+
+            final int firstWord = prompt < 10 ? 0 : 13;
+            final int lastWord = prompt < 10 ? 9 : 32;
+            for (int option = 0; option < question.getOptionCount(); option++) {
+                final int word = question.getOptionWord(option);
+                assertTrue(word >= firstWord && word <= lastWord);
+                for (int other = 0; other < option; other++) {
+                    assertNotEquals(word, question.getOptionWord(other));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void next_isDeterministicUnderASeed() {
+        final MiwokQuizGenerator generator = new MiwokQuizGenerator(FIRST_WORDS, WORD_COUNTS, 7);
+        final MiwokQuizGenerator sameGenerator =
+                new MiwokQuizGenerator(FIRST_WORDS, WORD_COUNTS, 7);
+        final MiwokQuizQuestion question = new MiwokQuizQuestion();
+        final MiwokQuizQuestion sameQuestion = new MiwokQuizQuestion();
+
+        for (int i = 0; i < 100; i++) {
+            generator.next(question);
+            sameGenerator.next(sameQuestion);
+            for (int option = 0; option < question.getOptionCount(); option++) {
+                assertEquals(question.getOptionWord(option), sameQuestion.getOptionWord(option));
+            }
+            generator.answer(question, i % question.getOptionCount());
+            sameGenerator.answer(sameQuestion, i % sameQuestion.getOptionCount());
+        }
+    }
+
+    @Test
+    public void answer_favorsConfusedWordsAsDistractors() {
+        final MiwokQuizGenerator generator =
+                new MiwokQuizGenerator(new int[] {0}, new int[] {50}, 3);
+        final MiwokQuizQuestion question = new MiwokQuizQuestion();
+        generator.setConfusionWeight(42, 40 * MiwokQuizGenerator.BASE_WEIGHT);
+
+        int offered = 0;
+        int questions = 0;
+        for (int i = 0; i < 2000; i++) {
+            generator.next(question);
+            if (question.getPromptWord() == 42) {
+                continue;
+            }
+            questions++;
+            for (int option = 0; option < question.getOptionCount(); option++) {
+                if (question.getOptionWord(option) == 42) {
+                    offered++;
+                }
+            }
+        }
+
+        /* 3 draws among 49 words, one of which weighs half as much as the others together */
+        assertTrue(offered > questions / 2);
+    }
+
+    @Test
+    public void answer_raisesThenLowersTheConfusionWeights() {
+        final MiwokQuizGenerator generator = new MiwokQuizGenerator(FIRST_WORDS, WORD_COUNTS, 5);
+        final MiwokQuizQuestion question = new MiwokQuizQuestion();
+        generator.next(question);
+        final int wrongOption = (question.getCorrectOption() + 1) % question.getOptionCount();
+        final int prompt = question.getPromptWord();
+        final int picked = question.getOptionWord(wrongOption);
+
+        generator.answer(question, wrongOption);
+        assertTrue(generator.getConfusionWeight(prompt) > MiwokQuizGenerator.BASE_WEIGHT);
+        assertTrue(generator.getConfusionWeight(picked) > MiwokQuizGenerator.BASE_WEIGHT);
+
+        for (int i = 0; i < 10; i++) {
+            generator.answer(question, question.getCorrectOption());
+        }
+        assertEquals(MiwokQuizGenerator.BASE_WEIGHT, generator.getConfusionWeight(prompt));
+        assertEquals(0, generator.getConfusionWeight(11));
+    }
+
+    @Test
+    public void sample_followsTheWeights() {
+        final MiwokWeightedSampler sampler = new MiwokWeightedSampler(4);
+        final int[] weights = {1, 3, 1000, 0};
+        for (int item = 0; item < weights.length; item++) {
+            sampler.setWeight(item, weights[item]);
+        }
+        /* moves between buckets */
+        sampler.setWeight(2, 12);
+        sampler.setWeight(0, 4);
+
+        final Random random = new Random(11);
+        final int[] counts = new int[4];
+        final int sampleCount = 190000;
+        for (int i = 0; i < sampleCount; i++) {
+            counts[sampler.sample(random)]++;
+        }
+
+        /* weights 4, 3, 12 and 0 out of 19 */
+        assertEquals(40000, counts[0], 1500);
+        assertEquals(30000, counts[1], 1500);
+        assertEquals(120000, counts[2], 1500);
+        assertEquals(0, counts[3]);
+        for (int item = 0; item < 4; item++) {
+            sampler.setWeight(item, 0);
+        }
+        assertEquals(MiwokWeightedSampler.NO_ITEM, sampler.sample(random));
+    }
+}
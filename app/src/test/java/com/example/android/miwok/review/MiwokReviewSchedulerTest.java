@@ -0,0 +1,104 @@
+package com.example.android.miwok.review;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link MiwokReviewScheduler}.
+ */
+public class MiwokReviewSchedulerTest {
+    private static final long NOW = 1_600_000_000_000L;
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    @Test
+    public void nextDue_givesNewCardsInTableOrder() {
+        final MiwokReviewScheduler scheduler = new MiwokReviewScheduler(3, NOW);
+
+        assertEquals(0, scheduler.nextDue(NOW));
+        scheduler.answer(0, MiwokReviewScheduler.QUALITY_GOOD, NOW);
+        assertEquals(1, scheduler.nextDue(NOW));
+        scheduler.answer(1, MiwokReviewScheduler.QUALITY_GOOD, NOW);
+        assertEquals(2, scheduler.nextDue(NOW));
+        scheduler.answer(2, MiwokReviewScheduler.QUALITY_GOOD, NOW);
+        assertEquals(MiwokReviewScheduler.NO_CARD, scheduler.nextDue(NOW));
+        assertEquals(MiwokReviewScheduler.NO_CARD,
+                new MiwokReviewScheduler(0, NOW).nextDue(NOW));
+    }
+
+    @Test
+    public void answer_followsSm2Intervals() {
+        final MiwokReviewScheduler scheduler = new MiwokReviewScheduler(1, NOW);
+        long now = NOW;
+
+        scheduler.answer(0, MiwokReviewScheduler.QUALITY_GOOD, now);
+        assertEquals(1, scheduler.getIntervalDays(0));
+        assertEquals(now + DAY, scheduler.getDueMillis(0));
+
+        now = scheduler.getDueMillis(0);
+        scheduler.answer(0, MiwokReviewScheduler.QUALITY_GOOD, now);
+        assertEquals(6, scheduler.getIntervalDays(0));
+
+        now = scheduler.getDueMillis(0);
+        scheduler.answer(0, MiwokReviewScheduler.QUALITY_EASY, now);
+        assertEquals(15, scheduler.getIntervalDays(0));
+        assertEquals(2600, scheduler.getEase(0));
+
+        now = scheduler.getDueMillis(0);
+        scheduler.answer(0, MiwokReviewScheduler.QUALITY_HARD, now);
+        assertEquals(39, scheduler.getIntervalDays(0));
+        assertEquals(2460, scheduler.getEase(0));
+        assertEquals(4, scheduler.getRepetitions(0));
+    }
+
+    @Test
+    public void answer_lapseRelearnsAfterTheCardsDue() {
+        final MiwokReviewScheduler scheduler = new MiwokReviewScheduler(2, NOW);
+        scheduler.answer(0, MiwokReviewScheduler.QUALITY_GOOD, NOW);
+        scheduler.answer(0, MiwokReviewScheduler.QUALITY_GOOD, NOW + DAY);
+        final int ease = scheduler.getEase(0);
+
+        scheduler.answer(0, MiwokReviewScheduler.QUALITY_AGAIN, NOW + DAY);
+
+        assertEquals(0, scheduler.getRepetitions(0));
+        assertEquals(ease, scheduler.getEase(0));
+        assertEquals(1, scheduler.nextDue(NOW + DAY));
+        scheduler.answer(1, MiwokReviewScheduler.QUALITY_GOOD, NOW + DAY);
+        assertEquals(MiwokReviewScheduler.NO_CARD, scheduler.nextDue(NOW + DAY));
+        assertEquals(0, scheduler.nextDue(NOW + 2 * DAY));
+    }
+
+    @Test
+    public void answer_easeNeverDropsBelowMinimum() {
+        final MiwokReviewScheduler scheduler = new MiwokReviewScheduler(1, NOW);
+        for (int i = 0; i < 20; i++) {
+            scheduler.answer(0, MiwokReviewScheduler.QUALITY_HARD, scheduler.getDueMillis(0));
+        }
+
+        assertEquals(MiwokReviewScheduler.MIN_EASE, scheduler.getEase(0));
+    }
+
+    @Test
+    public void nextDue_alwaysGivesTheEarliestCard() {
+        final int cardCount = 1000;
+        final MiwokReviewScheduler scheduler = new MiwokReviewScheduler(cardCount, NOW);
+        final Random random = new Random(42);
+        long now = NOW;
+
+        for (int i = 0; i < 20000; i++) {
+            final int card = scheduler.peek();
+            int earliest = 0;
+            for (int other = 1; other < cardCount; other++) {
+                if (scheduler.getDueMillis(other) < scheduler.getDueMillis(earliest)) {
+                    earliest = other;
+                }
+            }
+            assertEquals(scheduler.getDueMillis(earliest), scheduler.getDueMillis(card));
+
+            now = Math.max(now, scheduler.getDueMillis(card));
+            scheduler.answer(card, random.nextInt(6), now);
+        }
+    }
+}
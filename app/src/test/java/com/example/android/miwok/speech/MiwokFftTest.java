@@ -0,0 +1,48 @@
+package com.example.android.miwok.speech;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link MiwokFft}.
+ */
+public class MiwokFftTest {
+
+    @Test
+    public void transform_matchesTheDefinition() {
+        final int size = 64;
+        final Random random = new Random(3);
+        final float[] real = new float[size];
+        final float[] imaginary = new float[size];
+        for (int i = 0; i < size; i++) {
+            real[i] = random.nextFloat() * 2 - 1;
+            imaginary[i] = random.nextFloat() * 2 - 1;
+        }
+        final float[] signalReal = real.clone();
+        final float[] signalImaginary = imaginary.clone();
+
+        new MiwokFft(size).transform(real, imaginary);
+
+        for (int k = 0; k < size; k++) {
+            double expectedReal = 0;
+            double expectedImaginary = 0;
+            for (int n = 0; n < size; n++) {
+                final double angle = -2 * Math.PI * k * n / size;
+                expectedReal += signalReal[n] * Math.cos(angle)
+                        - signalImaginary[n] * Math.sin(angle);
+                expectedImaginary += signalReal[n] * Math.sin(angle)
+                        + signalImaginary[n] * Math.cos(angle);
+            }
+            assertEquals(expectedReal, real[k], 1e-4);
+            assertEquals(expectedImaginary, imaginary[k], 1e-4);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsSizesNotPowersOfTwo() {
+        new MiwokFft(400);
+    }
+}
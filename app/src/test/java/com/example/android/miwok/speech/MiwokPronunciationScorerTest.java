@@ -0,0 +1,181 @@
+package com.example.android.miwok.speech;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link MiwokPronunciationScorer}, with WAV fixtures of
+ * the number clips: 16 kHz mono 16-bit, with their leading and trailing
+ * silences.
+ */
+public class MiwokPronunciationScorerTest {
+    private static final int SAMPLE_RATE = 16000;
+    /* 4 seconds */
+    private static final int MAX_FRAMES = 400;
+    private static final String[] WORDS = {"number_one", "number_two", "number_three", "number_four"};
+
+    @Test
+    public void score_isPerfectForTheReferenceAtAnyLoudness() throws IOException {
+        final short[] reference = readWav("number_one");
+        final MiwokPronunciationScorer scorer = scorer(reference);
+
+        assertEquals(100, score(scorer, reference));
+        assertTrue(score(scorer, scale(reference, 0.3f)) >= 95);
+    }
+
+    @Test
+    public void score_ranksTheWordAboveTheOtherWords() throws IOException {
+        for (String word : WORDS) {
+            final short[] reference = readWav(word);
+            final MiwokPronunciationScorer scorer = scorer(reference);
+
+            int bestOtherScore = 0;
+            for (String otherWord : WORDS) {
+                if (!otherWord.equals(word)) {
+                    bestOtherScore = Math.max(bestOtherScore, score(scorer, readWav(otherWord)));
+                }
+            }
+
+            /* the same word, said slower and faster */
+            assertTrue(word, score(scorer, stretch(reference, 1.2f)) > bestOtherScore);
+            assertTrue(word, score(scorer, stretch(reference, 0.85f)) > bestOtherScore);
+        }
+    }
+
+    @Test
+    public void score_needsSpeech() throws IOException {
+        final MiwokPronunciationScorer scorer = scorer(readWav("number_two"));
+
+        assertEquals(MiwokPronunciationScorer.NO_SCORE, score(scorer, new short[SAMPLE_RATE]));
+        assertEquals(MiwokPronunciationScorer.NO_SCORE,
+                score(scorer, scale(readWav("number_two"), 0.001f)));
+    }
+
+    @Test
+    public void process_streamsTheSamples() throws IOException {
+        final short[] reference = readWav("number_three");
+        final short[] utterance = stretch(readWav("number_three"), 1.1f);
+        final MiwokPronunciationScorer scorer = scorer(reference);
+        final int wholeScore = score(scorer, utterance);
+
+        /* 10 ms buffers, as read from the microphone */
+        scorer.reset();
+        for (int offset = 0; offset < utterance.length; offset += 160) {
+            scorer.process(utterance, offset, Math.min(160, utterance.length - offset));
+        }
+
+        assertEquals(wholeScore, scorer.score());
+    }
+
+    @Test
+    public void process_isFarFasterThanTheAudio() throws IOException {
+        /* the clips decoded at 48 kHz use the largest FFT */
+        final int sampleRate = 48000;
+        final short[] samples = readWav("number_four");
+        final MiwokFeatures features = new MiwokFeatures(MAX_FRAMES);
+        final MiwokFeatureExtractor extractor = new MiwokFeatureExtractor(sampleRate, features);
+
+        long frameCount = 0;
+        long elapsedNanos = 0;
+        for (int run = 0; run < 50; run++) {
+            extractor.reset();
+            final long start = System.nanoTime();
+            for (int offset = 0; offset < samples.length; offset += 480) {
+                extractor.process(samples, offset, Math.min(480, samples.length - offset));
+            }
+            /* skip the warm-up runs */
+            if (run >= 10) {
+                elapsedNanos += System.nanoTime() - start;
+                frameCount += features.getFrameCount();
+            }
+        }
+
+        /* a frame starts every 10 ms: it must take a small part of that */
+        assertTrue("Mean frame time " + elapsedNanos / frameCount + " ns",
+                elapsedNanos / frameCount < 1000000);
+    }
+
+    private static MiwokPronunciationScorer scorer(short[] reference) {
+        return new MiwokPronunciationScorer(
+                MiwokPronunciationScorer.extractFeatures(reference, SAMPLE_RATE),
+                SAMPLE_RATE, MAX_FRAMES);
+    }
+
+    private static int score(MiwokPronunciationScorer scorer, short[] utterance) {
+        scorer.reset();
+        scorer.process(utterance, 0, utterance.length);
+        return scorer.score();
+    }
+
+    static short[] scale(short[] samples, float gain) {
+        final short[] scaled = new short[samples.length];
+        for (int i = 0; i < samples.length; i++) {
+            scaled[i] = (short) Math.round(samples[i] * gain);
+        }
+        return scaled;
+    }
+
+    /* change the pace without changing the pitch, by overlap-add of 30 ms windows */
+    private static short[] stretch(short[] samples, float factor) {
+        final int windowLength = 480;
+        final int outputHop = 120;
+        final int inputHop = Math.round(outputHop / factor);
+        final int windowCount = (samples.length - windowLength) / inputHop;
+        final float[] sums = new float[windowCount * outputHop + windowLength];
+        final float[] weights = new float[sums.length];
+        for (int window = 0; window < windowCount; window++) {
+            for (int i = 0; i < windowLength; i++) {
+                final float weight = (float) (0.5 - 0.5 * Math.cos(2 * Math.PI * i / windowLength));
+                sums[window * outputHop + i] += samples[window * inputHop + i] * weight;
+                weights[window * outputHop + i] += weight;
+            }
+        }
+
+        final short[] stretched = new short[sums.length];
+        for (int i = 0; i < sums.length; i++) {
+            stretched[i] = weights[i] > 1e-3f ? (short) Math.round(sums[i] / weights[i]) : 0;
+        }
+        return stretched;
+    }
+
+    /* read the samples of a mono 16-bit PCM WAV fixture */
+    static short[] readWav(String name) throws IOException {
+        final ByteBuffer wav;
+        try (InputStream input = MiwokPronunciationScorerTest.class
+                .getResourceAsStream("/speech/" + name + ".wav")) {
+            assertNotNull(name, input);
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            wav = ByteBuffer.wrap(output.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        /* skip the RIFF header, then the chunks up to the data */
+        wav.position(12);
+        while (true) {
+            final int chunkId = wav.getInt();
+            final int chunkSize = wav.getInt();
+            if (chunkId == 0x61746164) {
+                final short[] samples = new short[chunkSize / 2];
+                wav.asShortBuffer().get(samples);
+                return samples;
+            }
+            if (chunkId == 0x20746d66) {
+                assertEquals(1, wav.getShort(wav.position()));
+                assertEquals(1, wav.getShort(wav.position() + 2));
+                assertEquals(SAMPLE_RATE, wav.getInt(wav.position() + 4));
+            }
+            wav.position(wav.position() + chunkSize);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.android.miwok.speech;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link MiwokSoundIndex} and {@link MiwokSoundSignature},
+ * with an index of the number clips fixtures (see
+ * {@link MiwokPronunciationScorerTest}) and of a silent clip.
+ */
+public class MiwokSoundIndexTest {
+    private static final int SAMPLE_RATE = 16000;
+    private static final String[] WORDS = {"number_one", "number_two", "number_three", "number_four"};
+    /* sound id of the silent clip, after the words */
+    private static final int SILENT_SOUND_ID = WORDS.length + 1;
+
+    @Test
+    public void findNearest_returnsTheOtherClipsNearestFirst() throws IOException {
+        final MiwokSoundIndex index = index();
+        final int[] soundIds = new int[WORDS.length];
+        final float[] distances = new float[WORDS.length];
+
+        assertEquals(WORDS.length + 1, index.getSoundCount());
+        for (int soundId = 1; soundId <= WORDS.length; soundId++) {
+            /* every other word, but neither the word itself nor the silent clip */
+            assertEquals(WORDS.length - 1, index.findNearest(soundId, soundIds, distances));
+            for (int i = 0; i < WORDS.length - 1; i++) {
+                assertNotEquals(soundId, soundIds[i]);
+                assertNotEquals(SILENT_SOUND_ID, soundIds[i]);
+                assertTrue(distances[i] > 0);
+                assertTrue(i == 0 || distances[i] >= distances[i - 1]);
+            }
+        }
+
+        /* only the nearest clip, when that's all there is room for */
+        index.findNearest(1, soundIds, distances);
+        final int[] nearest = new int[1];
+        assertEquals(1, index.findNearest(1, nearest, distances));
+        assertEquals(soundIds[0], nearest[0]);
+    }
+
+    @Test
+    public void findNearest_findsTheWordOfAnUtterance() throws IOException {
+        final MiwokSoundIndex index = index();
+        final MiwokSoundSignature soundSignature = new MiwokSoundSignature();
+        final float[] signature = new float[MiwokSoundSignature.SIZE];
+        final int[] soundIds = new int[1];
+        final float[] distances = new float[1];
+
+        for (int i = 0; i < WORDS.length; i++) {
+            /* quieter, and after half a second of silence */
+            final short[] word = MiwokPronunciationScorerTest.scale(
+                    MiwokPronunciationScorerTest.readWav(WORDS[i]), 0.4f);
+            final short[] utterance = new short[SAMPLE_RATE / 2 + word.length];
+            System.arraycopy(word, 0, utterance, SAMPLE_RATE / 2, word.length);
+
+            assertTrue(soundSignature.compute(
+                    MiwokPronunciationScorer.extractFeatures(utterance, SAMPLE_RATE), signature));
+            assertEquals(1, index.findNearest(signature, soundIds, distances));
+            assertEquals(WORDS[i], i + 1, soundIds[0]);
+        }
+    }
+
+    @Test
+    public void hasSignature_needsSpeech() throws IOException {
+        final MiwokSoundIndex index = index();
+
+        assertTrue(index.hasSignature(1));
+        assertFalse(index.hasSignature(SILENT_SOUND_ID));
+        assertFalse(index.hasSignature(0));
+        assertFalse(index.hasSignature(SILENT_SOUND_ID + 1));
+        assertEquals(0, index.findNearest(SILENT_SOUND_ID, new int[1], new float[1]));
+    }
+
+    @Test(expected = IOException.class)
+    public void constructor_rejectsATruncatedIndex() throws IOException {
+        final byte[] data = write(signatures());
+        new MiwokSoundIndex(ByteBuffer.wrap(data, 0, data.length - 4).slice());
+    }
+
+    private static MiwokSoundIndex index() throws IOException {
+        return new MiwokSoundIndex(ByteBuffer.wrap(write(signatures())));
+    }
+
+    /* signatures of the words, then of the silent clip */
+    private static float[][] signatures() throws IOException {
+        final MiwokSoundSignature soundSignature = new MiwokSoundSignature();
+        final float[][] signatures = new float[WORDS.length + 1][];
+        for (int i = 0; i < WORDS.length; i++) {
+            signatures[i] = new float[MiwokSoundSignature.SIZE];
+            assertTrue(soundSignature.compute(MiwokPronunciationScorer.extractFeatures(
+                    MiwokPronunciationScorerTest.readWav(WORDS[i]), SAMPLE_RATE),
+                    signatures[i]));
+        }
+        assertFalse(soundSignature.compute(MiwokPronunciationScorer.extractFeatures(
+                new short[SAMPLE_RATE], SAMPLE_RATE), new float[MiwokSoundSignature.SIZE]));
+        return signatures;
+    }
+
+    private static byte[] write(float[][] signatures) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(output)) {
+            MiwokSoundIndex.write(signatures, out);
+        }
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.android.miwok.trace;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link MiwokLatencyHistogram}.
+ */
+public class MiwokLatencyHistogramTest {
+    /* a bucket is 1/16 of its power of two wide */
+    private static final double RELATIVE_ERROR = 1.0 / 16;
+
+    @Test
+    public void emptyHistogram_reportsZero() {
+        final MiwokLatencyHistogram histogram = new MiwokLatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(95));
+    }
+
+    @Test
+    public void smallValues_areExact() {
+        final MiwokLatencyHistogram histogram = new MiwokLatencyHistogram();
+        for (int i = 1; i <= 10; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(10, histogram.getCount());
+        assertEquals(5, histogram.getValueAtPercentile(50));
+        assertEquals(10, histogram.getValueAtPercentile(95));
+        assertEquals(1, histogram.getValueAtPercentile(0));
+    }
+
+    @Test
+    public void percentiles_areWithinBucketError() {
+        final MiwokLatencyHistogram histogram = new MiwokLatencyHistogram();
+        /* 1ms to 100ms, in microseconds */
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.record(millis * 1000L);
+        }
+
+        assertWithinError(50000, histogram.getValueAtPercentile(50));
+        assertWithinError(95000, histogram.getValueAtPercentile(95));
+        assertEquals(100000, histogram.getValueAtPercentile(100));
+        assertEquals(1000, histogram.getMin());
+        assertEquals(50500, histogram.getMean());
+    }
+
+    @Test
+    public void percentile_neverUnderestimates() {
+        final MiwokLatencyHistogram histogram = new MiwokLatencyHistogram();
+        histogram.record(17);
+        histogram.record(1000);
+        histogram.record(123456);
+
+        assertTrue(histogram.getValueAtPercentile(34) >= 1000);
+        assertTrue(histogram.getValueAtPercentile(67) >= 1000);
+        assertEquals(123456, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void add_mergesHistograms() {
+        final MiwokLatencyHistogram fast = new MiwokLatencyHistogram();
+        final MiwokLatencyHistogram slow = new MiwokLatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            fast.record(2000);
+        }
+        for (int i = 0; i < 10; i++) {
+            slow.record(300000);
+        }
+
+        fast.add(slow);
+
+        assertEquals(100, fast.getCount());
+        assertWithinError(2000, fast.getValueAtPercentile(90));
+        assertWithinError(300000, fast.getValueAtPercentile(95));
+        assertEquals(300000, fast.getMax());
+    }
+
+    @Test
+    public void reset_forgetsValues() {
+        final MiwokLatencyHistogram histogram = new MiwokLatencyHistogram();
+        histogram.record(5000);
+        histogram.reset();
+        histogram.record(-3);
+
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    private static void assertWithinError(long expected, long actual) {
+        assertTrue("expected ~" + expected + " but was " + actual,
+                actual >= expected && actual <= expected * (1 + RELATIVE_ERROR));
+    }
+}
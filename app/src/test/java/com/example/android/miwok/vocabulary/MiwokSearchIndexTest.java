@@ -0,0 +1,148 @@
+package com.example.android.miwok.vocabulary;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link MiwokSearchIndex}.
+ */
+public class MiwokSearchIndexTest {
+    private static final int COLOR_FAMILY = 1;
+    private static final int COLOR_PHRASES = 2;
+
+    private MiwokSearchIndex index;
+    private MiwokSearchResults results;
+
+    @Before
+    public void setUp() {
+        index = new MiwokSearchIndex();
+        results = new MiwokSearchResults();
+    }
+
+    @Test
+    public void search_foldsMiwokDiacritics() {
+        index.addWords(table(new String[][] {
+                {"father", "әpә"},
+                {"older brother", "ṭeṭe"},
+                {"nine", "wo’e"}}), 0, 3, COLOR_FAMILY);
+
+        assertEquals("father", searchFirst("epe"));
+        assertEquals("father", searchFirst("ӘP"));
+        assertEquals("older brother", searchFirst("tete"));
+        assertEquals("nine", searchFirst("woe"));
+        assertEquals("nine", searchFirst("wo'e"));
+    }
+
+    @Test
+    public void search_ranksExactThenPrefixThenToken() {
+        index.addWords(table(new String[][] {
+                {"Where are you going?", "minto wuksus"},
+                {"Are you coming?", "әәnәs'aa?"},
+                {"Yes, I’m coming.", "hәә’ әәnәm"},
+                {"are", "x"}}), 0, 4, COLOR_PHRASES);
+
+        index.search("are", MiwokSearchIndex.DEFAULT_MAX_RESULTS, results);
+
+        assertEquals(3, results.size());
+        assertEquals("are", translation(0));
+        assertEquals("Are you coming?", translation(1));
+        assertEquals("Where are you going?", translation(2));
+        assertEquals(COLOR_PHRASES, results.getColorResourceId(0));
+    }
+
+    @Test
+    public void search_requiresAllQueryTokens() {
+        index.addWords(table(new String[][] {
+                {"Where are you going?", "minto wuksus"},
+                {"Are you coming?", "әәnәs'aa?"},
+                {"Yes, I’m coming.", "hәә’ әәnәm"}}), 0, 3, COLOR_PHRASES);
+
+        index.search("you com", MiwokSearchIndex.DEFAULT_MAX_RESULTS, results);
+
+        assertEquals(1, results.size());
+        assertEquals("Are you coming?", translation(0));
+    }
+
+    @Test
+    public void search_addsWordsIncrementally() {
+        final MiwokWordTable table = table(new String[][] {
+                {"red", "weṭeṭṭi"},
+                {"green", "chokokki"}});
+        index.addWords(table, 0, 1, COLOR_FAMILY);
+        index.search("gre", MiwokSearchIndex.DEFAULT_MAX_RESULTS, results);
+        assertEquals(0, results.size());
+
+        index.addWords(table, 1, 1, COLOR_PHRASES);
+        index.search("gre", MiwokSearchIndex.DEFAULT_MAX_RESULTS, results);
+
+        assertEquals(2, index.size());
+        assertEquals(1, results.size());
+        assertSame(table, results.getWordTable(0));
+        assertEquals(1, results.getWordIndex(0));
+        assertEquals(COLOR_PHRASES, results.getColorResourceId(0));
+    }
+
+    @Test
+    public void search_limitsResults() {
+        index.addWords(table(new String[][] {
+                {"one", "lutti"},
+                {"two", "otiiko"},
+                {"three", "tolookosu"}}), 0, 3, COLOR_FAMILY);
+
+        index.search("t", 2, results);
+
+        assertEquals(2, results.size());
+        assertEquals("two", translation(0));
+        assertEquals("three", translation(1));
+    }
+
+    @Test
+    public void search_emptyOrUnknownQueryFindsNothing() {
+        index.addWords(table(new String[][] {{"one", "lutti"}}), 0, 1, COLOR_FAMILY);
+
+        index.search(" ’ ", MiwokSearchIndex.DEFAULT_MAX_RESULTS, results);
+        assertEquals(0, results.size());
+
+        index.search("lux", MiwokSearchIndex.DEFAULT_MAX_RESULTS, results);
+        assertEquals(0, results.size());
+    }
+
+    private String searchFirst(String query) {
+        index.search(query, MiwokSearchIndex.DEFAULT_MAX_RESULTS, results);
+        assertTrue("no result for " + query, results.size() > 0);
+        return translation(0);
+    }
+
+    private String translation(int position) {
+        return results.getWordTable(position).getDefaultTranslation(
+                results.getWordIndex(position));
+    }
+
+    /*
+     * build a word table from {default translation, Miwok translation} pairs
+     */
+    private static MiwokWordTable table(String[][] words) {
+        final int size = words.length;
+        final StringBuilder text = new StringBuilder();
+        final int[] wordIds = new int[size];
+        final int[] defaultOffsets = new int[size];
+        final int[] defaultLengths = new int[size];
+        final int[] miwokOffsets = new int[size];
+        final int[] miwokLengths = new int[size];
+        for (int i = 0; i < size; i++) {
+            wordIds[i] = i + 1;
+            defaultOffsets[i] = text.length();
+            defaultLengths[i] = words[i][0].length();
+            text.append(words[i][0]);
+            miwokOffsets[i] = text.length();
+            miwokLengths[i] = words[i][1].length();
+            text.append(words[i][1]);
+        }
+
+        return new MiwokWordTable(size, wordIds, new int[size], new int[size],
+                text.toString().toCharArray(), defaultOffsets, defaultLengths,
+                miwokOffsets, miwokLengths);
+    }
+}
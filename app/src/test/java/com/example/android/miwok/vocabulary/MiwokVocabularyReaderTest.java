@@ -0,0 +1,207 @@
+package com.example.android.miwok.vocabulary;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link MiwokVocabularyReader}. The assets are packed
+ * here the way the packVocabulary build task lays them out.
+ */
+public class MiwokVocabularyReaderTest {
+    private static final int MAGIC = 0x4d574b56;
+    private static final int VERSION = 1;
+    private static final int NO_STRING = -1;
+
+    /* strings of the test asset */
+    private static final String[] STRINGS = {
+            "numbers", "category_numbers", "category_numbers",
+            "colors", "category_colors", "category_colors",
+            "one", "lutti", "number_one", "number_one",
+            "two", "otiiko", "number_two", "number_two",
+            "red", "weṭeṭṭi", "color_red", "color_red"};
+
+    /* category records: key, title, color, first word, word count */
+    private static final int[][] CATEGORIES = {
+            {0, 1, 2, 0, 2},
+            {3, 4, 5, 2, 1}};
+
+    /* word records: id, image, default translation, Miwok translation, sound */
+    private static final int[][] WORDS = {
+            {11, 8, 6, 7, 9},
+            {12, NO_STRING, 10, 11, 13},
+            {21, 16, 14, 15, 17}};
+
+    private static final MiwokVocabularyReader.ResourceResolver RESOLVER =
+            new MiwokVocabularyReader.ResourceResolver() {
+                private final Map<String, Integer> ids = new HashMap<>();
+
+                @Override
+                public int resolve(String type, String name) {
+                    final String key = type + "/" + name;
+                    if (!ids.containsKey(key)) {
+                        ids.put(key, ids.size() + 1);
+                    }
+                    return ids.get(key);
+                }
+            };
+
+    @Test
+    public void read_roundTripsTheTranslations() throws IOException {
+        final MiwokVocabulary vocabulary = read(pack(VERSION, STRINGS, CATEGORIES, WORDS));
+        final MiwokWordTable table = vocabulary.getWordTable();
+
+        assertEquals(3, vocabulary.getWordCount());
+        final String[][] expected = {{"one", "lutti"}, {"two", "otiiko"}, {"red", "weṭeṭṭi"}};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i][0], new String(table.getText(),
+                    table.getDefaultTranslationOffset(i), table.getDefaultTranslationLength(i)));
+            assertEquals(expected[i][1], new String(table.getText(),
+                    table.getMiwokTranslationOffset(i), table.getMiwokTranslationLength(i)));
+        }
+        assertEquals(12, table.getWordId(1));
+    }
+
+    @Test
+    public void read_resolvesResourcesOnce() throws IOException {
+        final MiwokWordTable table = read(pack(VERSION, STRINGS, CATEGORIES, WORDS))
+                .getWordTable();
+
+        assertTrue(table.hasImage(0));
+        assertFalse(table.hasImage(1));
+        assertEquals(RESOLVER.resolve("drawable", "number_one"), table.getImageResourceId(0));
+        assertEquals(RESOLVER.resolve(MiwokVocabularyReader.TYPE_SOUND, "number_two"),
+                table.getSoundId(1));
+    }
+
+    @Test
+    public void read_keepsTheCategoryRanges() throws IOException {
+        final MiwokVocabulary vocabulary = read(pack(VERSION, STRINGS, CATEGORIES, WORDS));
+
+        assertEquals(2, vocabulary.getCategoryCount());
+        final MiwokCategory numbers = vocabulary.getCategory(0);
+        assertEquals("numbers", numbers.getKey());
+        assertEquals(0, numbers.getFirstWord());
+        assertEquals(2, numbers.getWordCount());
+        assertEquals(RESOLVER.resolve("string", "category_numbers"),
+                numbers.getTitleResourceId());
+
+        final MiwokCategory colors = vocabulary.findCategory("colors");
+        assertSame(vocabulary.getCategory(1), colors);
+        assertEquals(2, colors.getFirstWord());
+        assertEquals(1, colors.getWordCount());
+        assertSame(vocabulary.getWordTable(), colors.getWordTable());
+        assertEquals("red", colors.getWordTable().getDefaultTranslation(colors.getFirstWord()));
+        assertNull(vocabulary.findCategory("family"));
+    }
+
+    @Test(expected = IOException.class)
+    public void read_rejectsBadMagic() throws IOException {
+        final byte[] asset = pack(VERSION, STRINGS, CATEGORIES, WORDS);
+        asset[0] = 0;
+        read(asset);
+    }
+
+    @Test(expected = IOException.class)
+    public void read_rejectsUnknownVersion() throws IOException {
+        read(pack(VERSION + 1, STRINGS, CATEGORIES, WORDS));
+    }
+
+    @Test
+    public void read_rejectsTruncatedAsset() {
+        final byte[] asset = pack(VERSION, STRINGS, CATEGORIES, WORDS);
+        for (int length = 0; length < asset.length; length++) {
+            final byte[] truncated = new byte[length];
+            System.arraycopy(asset, 0, truncated, 0, length);
+            try {
+                read(truncated);
+                fail("read a vocabulary truncated to " + length + " bytes");
+            } catch (IOException expected) {
+                /* expected */
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void read_rejectsCategoryPastTheWords() throws IOException {
+        read(pack(VERSION, STRINGS, new int[][] {{0, 1, 2, 2, 2}}, WORDS));
+    }
+
+    @Test(expected = IOException.class)
+    public void read_rejectsInvalidStringIndex() throws IOException {
+        read(pack(VERSION, STRINGS, CATEGORIES, new int[][] {{11, 8, 6, STRINGS.length, 9}}));
+    }
+
+    @Test(expected = IOException.class)
+    public void read_rejectsInvalidUtf8() throws IOException {
+        final byte[] asset = pack(VERSION, STRINGS, CATEGORIES, WORDS);
+        /* the last string is ASCII, turn its last byte into a lone continuation byte */
+        asset[asset.length - 1] = (byte) 0x80;
+        read(asset);
+    }
+
+    private static MiwokVocabulary read(byte[] asset) throws IOException {
+        return MiwokVocabularyReader.read(ByteBuffer.wrap(asset), RESOLVER);
+    }
+
+    /*
+     * pack a vocabulary asset, see PackVocabularyTask for the layout
+     */
+    private static byte[] pack(int version, String[] strings, int[][] categories,
+                               int[][] words) {
+        final List<byte[]> encoded = new ArrayList<>();
+        int stringDataSize = 0;
+        for (String string : strings) {
+            final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            stringDataSize += bytes.length;
+        }
+
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(version);
+            out.writeInt(categories.length);
+            out.writeInt(words.length);
+            out.writeInt(strings.length);
+            out.writeInt(stringDataSize);
+            for (int[] record : categories) {
+                writeInts(out, record);
+            }
+            for (int[] record : words) {
+                writeInts(out, record);
+            }
+
+            int offset = 0;
+            out.writeInt(offset);
+            for (byte[] string : encoded) {
+                offset += string.length;
+                out.writeInt(offset);
+            }
+            for (byte[] string : encoded) {
+                out.write(string);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.android.miwok.vocabulary;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link MiwokWordTable}.
+ */
+public class MiwokWordTableTest {
+    private static final String TEXT = "onelutti" + "twootiiko" + "redweṭeṭṭi";
+
+    private MiwokWordTable table;
+
+    @Before
+    public void setUp() {
+        table = new MiwokWordTable(3,
+                new int[] {11, 12, 21},
+                new int[] {101, 102, 0},
+                new int[] {201, 202, 203},
+                TEXT.toCharArray(),
+                new int[] {0, 8, 17},
+                new int[] {3, 3, 3},
+                new int[] {3, 11, 20},
+                new int[] {5, 6, 7});
+    }
+
+    @Test
+    public void translations_roundTripThroughOffsetsAndLengths() {
+        final char[] text = table.getText();
+        final String[][] expected = {{"one", "lutti"}, {"two", "otiiko"}, {"red", "weṭeṭṭi"}};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i][0], new String(text,
+                    table.getDefaultTranslationOffset(i), table.getDefaultTranslationLength(i)));
+            assertEquals(expected[i][1], new String(text,
+                    table.getMiwokTranslationOffset(i), table.getMiwokTranslationLength(i)));
+            assertEquals(expected[i][0], table.getDefaultTranslation(i));
+            assertEquals(expected[i][1], table.getMiwokTranslation(i));
+        }
+    }
+
+    @Test
+    public void getText_sharesTheBuffer() {
+        assertSame(table.getText(), table.getText());
+    }
+
+    @Test
+    public void columns_areIndexedByWord() {
+        assertEquals(3, table.size());
+        assertEquals(12, table.getWordId(1));
+        assertEquals(102, table.getImageResourceId(1));
+        assertTrue(table.hasImage(1));
+        assertFalse(table.hasImage(2));
+        assertEquals(203, table.getSoundId(2));
+    }
+
+    @Test
+    public void copySoundIds_copiesTheRange() {
+        final int[] soundIds = table.copySoundIds(1, 2);
+
+        assertArrayEquals(new int[] {202, 203}, soundIds);
+        soundIds[0] = 0;
+        assertEquals(202, table.getSoundId(1));
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.android.miwok.vocabulary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * This class loads the packed vocabulary bundled with the benchmarks, the same
+ * as the app's asset. Resource names resolve to made up ids, since there are
+ * no resources outside of the app.
+ */
+final class BenchmarkVocabulary {
+    private static final String VOCABULARY_RESOURCE = "/vocabulary.bin";
+
+    static final MiwokVocabularyReader.ResourceResolver RESOLVER =
+            new MiwokVocabularyReader.ResourceResolver() {
+                @Override
+                public int resolve(String type, String name) {
+                    return 0x7f000000 | ((type.hashCode() * 31 + name.hashCode()) & 0xffffff);
+                }
+            };
+
+    private BenchmarkVocabulary() {}
+
+    static byte[] readBytes() throws IOException {
+        try (InputStream input = BenchmarkVocabulary.class.getResourceAsStream(VOCABULARY_RESOURCE)) {
+            if (input == null) {
+                throw new IOException("Missing " + VOCABULARY_RESOURCE + ", run packVocabulary");
+            }
+
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return output.toByteArray();
+        }
+    }
+
+    static MiwokVocabulary load() throws IOException {
+        return MiwokVocabularyReader.read(ByteBuffer.wrap(readBytes()), RESOLVER);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.android.miwok.vocabulary;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks building the search index and typing a query into it, one
+ * keystroke at a time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchIndexBenchmark {
+    @Param({"where are", "әәnәm", "grand"})
+    public String query;
+
+    private MiwokVocabulary vocabulary;
+    private MiwokSearchIndex searchIndex;
+    private final MiwokSearchResults results = new MiwokSearchResults();
+
+    @Setup
+    public void setUp() throws IOException {
+        vocabulary = BenchmarkVocabulary.load();
+        searchIndex = buildIndex();
+    }
+
+    @Benchmark
+    public MiwokSearchIndex buildIndex() {
+        final MiwokSearchIndex index = new MiwokSearchIndex();
+        for (MiwokCategory category : vocabulary.getCategories()) {
+            index.addCategory(category);
+        }
+        return index;
+    }
+
+    @Benchmark
+    public int typeQuery() {
+        int found = 0;
+        for (int length = 1; length <= query.length(); length++) {
+            searchIndex.search(query.subSequence(0, length),
+                    MiwokSearchIndex.DEFAULT_MAX_RESULTS, results);
+            found += results.size();
+        }
+        return found;
+    }
+}
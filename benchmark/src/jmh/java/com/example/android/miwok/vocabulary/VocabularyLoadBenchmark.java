@@ -0,0 +1,35 @@
+package com.example.android.miwok.vocabulary;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks parsing the packed vocabulary, as done once at startup by
+ * MiwokVocabularyRepository. The asset is read from memory, so only the
+ * parsing is measured, not the I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VocabularyLoadBenchmark {
+    private ByteBuffer packed;
+
+    @Setup
+    public void setUp() throws IOException {
+        packed = ByteBuffer.wrap(BenchmarkVocabulary.readBytes());
+    }
+
+    @Benchmark
+    public MiwokVocabulary readVocabulary() throws IOException {
+        return MiwokVocabularyReader.read(packed.duplicate(), BenchmarkVocabulary.RESOLVER);
+    }
+}
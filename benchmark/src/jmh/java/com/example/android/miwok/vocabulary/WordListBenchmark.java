@@ -0,0 +1,95 @@
+package com.example.android.miwok.vocabulary;
+
+import com.example.android.miwok.MiwokWord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks building the word lists and reading the words the way a row
+ * bind does, both from {@link MiwokWord} objects and from the columns of the
+ * {@link MiwokWordTable}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WordListBenchmark {
+    private MiwokWordTable wordTable;
+    private String[] defaultTranslations;
+    private String[] miwokTranslations;
+    private List<MiwokWord> words;
+    /* stands for the text views of a row */
+    private final char[] row = new char[256];
+
+    @Setup
+    public void setUp() throws IOException {
+        wordTable = BenchmarkVocabulary.load().getWordTable();
+
+        final int size = wordTable.size();
+        defaultTranslations = new String[size];
+        miwokTranslations = new String[size];
+        for (int i = 0; i < size; i++) {
+            defaultTranslations[i] = wordTable.getDefaultTranslation(i);
+            miwokTranslations[i] = wordTable.getMiwokTranslation(i);
+        }
+        words = buildWordList();
+    }
+
+    /* a single word, as created for every row before the word table */
+    @Benchmark
+    public MiwokWord allocateWord() {
+        return new MiwokWord(1, wordTable.getImageResourceId(0), defaultTranslations[0],
+                miwokTranslations[0], wordTable.getSoundId(0));
+    }
+
+    /* the word lists as the fragments used to build them */
+    @Benchmark
+    public List<MiwokWord> buildWordList() {
+        final int size = wordTable.size();
+        final List<MiwokWord> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            list.add(new MiwokWord(wordTable.getWordId(i), wordTable.getImageResourceId(i),
+                    defaultTranslations[i], miwokTranslations[i],
+                    wordTable.getSoundId(i)));
+        }
+        return list;
+    }
+
+    @Benchmark
+    public int bindRowsFromWords() {
+        int checksum = 0;
+        for (int i = 0; i < words.size(); i++) {
+            final MiwokWord word = words.get(i);
+            final String miwok = word.getMiwokTranslation();
+            final String defaultTranslation = word.getDefaultTranslation();
+            miwok.getChars(0, miwok.length(), row, 0);
+            defaultTranslation.getChars(0, defaultTranslation.length(), row, miwok.length());
+            checksum += word.getImageResourceId() + row[0];
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public int bindRowsFromTable() {
+        final char[] text = wordTable.getText();
+        int checksum = 0;
+        for (int i = 0; i < wordTable.size(); i++) {
+            final int miwokLength = wordTable.getMiwokTranslationLength(i);
+            System.arraycopy(text, wordTable.getMiwokTranslationOffset(i), row, 0, miwokLength);
+            System.arraycopy(text, wordTable.getDefaultTranslationOffset(i), row, miwokLength,
+                    wordTable.getDefaultTranslationLength(i));
+            checksum += wordTable.getImageResourceId(i) + row[0];
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.android.miwok.build;
+
+import com.example.android.miwok.speech.MiwokFeatures;
+import com.example.android.miwok.speech.MiwokPronunciationScorer;
+import com.example.android.miwok.speech.MiwokSoundIndex;
+import com.example.android.miwok.speech.MiwokSoundSignature;
+
+import javazoom.jl.decoder.Bitstream;
+import javazoom.jl.decoder.Decoder;
+import javazoom.jl.decoder.Header;
+import javazoom.jl.decoder.JavaLayerException;
+import javazoom.jl.decoder.SampleBuffer;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This task writes the sound index asset read by the app's MiwokSoundIndex:
+ * the signature of every audio clip, i.e. the averages of its MFCC features
+ * and its duration (see MiwokSoundSignature), in sound id order, so that the
+ * app finds the clips sounding alike without decoding any of them.
+ *
+ * <p>The clips are listed like {@link PackAudioTask} does, so the sound ids
+ * match the audio bundle's. They are decoded with JLayer and downmixed to
+ * mono, and their features are computed by the app's own speech code, which
+ * is compiled into the build logic (see buildSrc/build.gradle): the
+ * signatures of the build and of the app can't drift apart. A clip that
+ * can't be decoded or has no speech is indexed without a signature, with a
+ * warning.
+ */
+public class IndexAudioTask extends DefaultTask {
+    private File sourceDir;
+    private File outputFile;
+
+    @InputDirectory
+    public File getSourceDir() {
+        return sourceDir;
+    }
+
+    public void setSourceDir(File sourceDir) {
+        this.sourceDir = sourceDir;
+    }
+
+    @OutputFile
+    public File getOutputFile() {
+        return outputFile;
+    }
+
+    public void setOutputFile(File outputFile) {
+        this.outputFile = outputFile;
+    }
+
+    @TaskAction
+    public void index() throws IOException {
+        final List<File> clips = PackAudioTask.listClips(sourceDir);
+        final MiwokSoundSignature soundSignature = new MiwokSoundSignature();
+        final float[][] signatures = new float[clips.size()][];
+        int signatureCount = 0;
+        for (int i = 0; i < clips.size(); i++) {
+            final File clip = clips.get(i);
+            final float[] signature = new float[MiwokSoundSignature.SIZE];
+            try {
+                if (soundSignature.compute(extractFeatures(clip), signature)) {
+                    signatures[i] = signature;
+                    signatureCount++;
+                } else {
+                    getLogger().warn("No speech in audio clip {}, not indexed", clip);
+                }
+            } catch (IOException e) {
+                getLogger().warn("Can't decode audio clip {}, not indexed: {}", clip,
+                        e.getMessage());
+            }
+        }
+
+        outputFile.getParentFile().mkdirs();
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(outputFile)))) {
+            MiwokSoundIndex.write(signatures, out);
+        }
+
+        getLogger().info("Indexed {} of {} audio clips into {}", signatureCount, clips.size(),
+                outputFile);
+    }
+
+    /* decode an MP3 clip to mono, at its own sample rate, and compute its features */
+    private static MiwokFeatures extractFeatures(File clip) throws IOException {
+        final Bitstream bitstream = new Bitstream(
+                new ByteArrayInputStream(Files.readAllBytes(clip.toPath())));
+        final Decoder decoder = new Decoder();
+        short[] samples = new short[0];
+        int sampleCount = 0;
+        int sampleRate = 0;
+        try {
+            Header header;
+            while ((header = bitstream.readFrame()) != null) {
+                final SampleBuffer buffer = (SampleBuffer) decoder.decodeFrame(header, bitstream);
+                final short[] interleaved = buffer.getBuffer();
+                final int channelCount = buffer.getChannelCount();
+                final int frameCount = buffer.getBufferLength() / channelCount;
+                sampleRate = buffer.getSampleFrequency();
+
+                if (sampleCount + frameCount > samples.length) {
+                    samples = Arrays.copyOf(samples,
+                            Math.max(2 * samples.length, sampleCount + frameCount));
+                }
+                for (int i = 0; i < frameCount; i++) {
+                    int sum = 0;
+                    for (int channel = 0; channel < channelCount; channel++) {
+                        sum += interleaved[i * channelCount + channel];
+                    }
+                    samples[sampleCount++] = (short) (sum / channelCount);
+                }
+                bitstream.closeFrame();
+            }
+        } catch (JavaLayerException e) {
+            throw new IOException("Can't decode the clip", e);
+        } finally {
+            try {
+                bitstream.close();
+            } catch (JavaLayerException e) {
+                /* in-memory stream */
+            }
+        }
+
+        if (sampleCount == 0) {
+            throw new IOException("No audio frame");
+        }
+        return MiwokPronunciationScorer.extractFeatures(Arrays.copyOf(samples, sampleCount),
+                sampleRate);
+    }
+}
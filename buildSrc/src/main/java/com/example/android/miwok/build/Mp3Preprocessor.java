@@ -0,0 +1,450 @@
+package com.example.android.miwok.build;
+
+import javazoom.jl.decoder.Bitstream;
+import javazoom.jl.decoder.Decoder;
+import javazoom.jl.decoder.Header;
+import javazoom.jl.decoder.JavaLayerException;
+import javazoom.jl.decoder.SampleBuffer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class trims the silence around an MP3 (MPEG audio layer III) clip and
+ * evens out its loudness, without re-encoding it.
+ *
+ * <p>The clip is decoded to measure the peak level of every frame and the
+ * loudness (RMS level) of the speech. The silent frames before and after the
+ * speech are then dropped, and every frame kept is made louder or quieter by
+ * shifting the global gain of its granules, the way mp3gain does: a step is
+ * 1.5 dB, and the decoded samples are scaled without any further loss.
+ * Metadata (ID3 tags and the Xing/Info frame) is dropped as well.
+ *
+ * <p>A layer III frame may keep part of its data in the frames before it (the
+ * bit reservoir), so a few silent frames may be kept before the speech: the
+ * ones the first frames of speech read their data from. Those are emptied so
+ * that they decode to silence whatever their own reservoir, while still leading
+ * the decoder to the data of the speech. One silent frame is kept on each side
+ * of the speech, for the overlap between frames.
+ */
+final class Mp3Preprocessor {
+    private static final int ID3V2_HEADER_SIZE = 10;
+    private static final int ID3V1_SIZE = 128;
+    private static final int HEADER_SIZE = 4;
+    private static final int CRC_SIZE = 2;
+    private static final double GAIN_STEP_DB = 1.5;
+    private static final int MAX_GLOBAL_GAIN = 255;
+    private static final double FULL_SCALE = 32768;
+
+    private static final int[] MPEG1_BITRATES =
+            {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320};
+    private static final int[] MPEG2_BITRATES =
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160};
+    private static final int[] MPEG1_SAMPLE_RATES = {44100, 48000, 32000};
+
+    private final double silenceThresholdDb;
+    private final double targetLoudnessDb;
+    private final double peakCeilingDb;
+
+    /**
+     * This class is the outcome of the preprocessing of a clip.
+     */
+    static final class Result {
+        final byte[] data;
+        final int leadingMillis;
+        final int trailingMillis;
+        final double gainDb;
+
+        Result(byte[] data, int leadingMillis, int trailingMillis, double gainDb) {
+            this.data = data;
+            this.leadingMillis = leadingMillis;
+            this.trailingMillis = trailingMillis;
+            this.gainDb = gainDb;
+        }
+    }
+
+    /* an MPEG audio frame of the clip */
+    private static final class Frame {
+        final int offset;
+        final int length;
+        final boolean mpeg1;
+        final int channels;
+        final boolean crc;
+        final int sampleRate;
+
+        Frame(int offset, int length, boolean mpeg1, int channels, boolean crc,
+              int sampleRate) {
+            this.offset = offset;
+            this.length = length;
+            this.mpeg1 = mpeg1;
+            this.channels = channels;
+            this.crc = crc;
+            this.sampleRate = sampleRate;
+        }
+
+        int samples() {
+            return mpeg1 ? 1152 : 576;
+        }
+
+        int granules() {
+            return mpeg1 ? 2 : 1;
+        }
+
+        int sideInfoOffset() {
+            return offset + HEADER_SIZE + (crc ? CRC_SIZE : 0);
+        }
+
+        int sideInfoSize() {
+            if (mpeg1) {
+                return channels == 1 ? 17 : 32;
+            }
+            return channels == 1 ? 9 : 17;
+        }
+
+        /* bits before the first granule: main_data_begin, private bits, scfsi */
+        int granuleBitOffset() {
+            if (mpeg1) {
+                return 9 + (channels == 1 ? 5 : 3) + 4 * channels;
+            }
+            return 8 + (channels == 1 ? 1 : 2);
+        }
+
+        int granuleBits() {
+            return mpeg1 ? 59 : 63;
+        }
+
+        int mainDataSize() {
+            return length - (sideInfoOffset() - offset) - sideInfoSize();
+        }
+    }
+
+    /**
+     * constructor
+     * @param silenceThresholdDb peak level, in dBFS, under which a frame is
+     *                           silent.
+     * @param targetLoudnessDb RMS level, in dBFS, the speech is brought to.
+     * @param peakCeilingDb peak level, in dBFS, the gain never pushes the
+     *                      clip over.
+     */
+    Mp3Preprocessor(double silenceThresholdDb, double targetLoudnessDb, double peakCeilingDb) {
+        this.silenceThresholdDb = silenceThresholdDb;
+        this.targetLoudnessDb = targetLoudnessDb;
+        this.peakCeilingDb = peakCeilingDb;
+    }
+
+    /**
+     * This method preprocesses a clip.
+     * @param clip content of the MP3 file.
+     * @return Result preprocessed clip.
+     * @throws IOException if the clip isn't a layer III stream, or can't be
+     *                     decoded.
+     */
+    Result process(byte[] clip) throws IOException {
+        final List<Frame> frames = parse(clip);
+        final int count = frames.size();
+        final double[] peaks = new double[count];
+        final double[] squares = new double[count];
+        final long[] sampleCounts = new long[count];
+        decode(clip, frames, peaks, squares, sampleCounts);
+
+        final double silence = FULL_SCALE * Math.pow(10, silenceThresholdDb / 20);
+        int firstLoud = -1;
+        int lastLoud = -1;
+        for (int i = 0; i < count; i++) {
+            if (peaks[i] >= silence) {
+                if (firstLoud < 0) {
+                    firstLoud = i;
+                }
+                lastLoud = i;
+            }
+        }
+        if (firstLoud < 0) {
+            throw new IOException("Silent clip");
+        }
+
+        /* loudness of the speech, and the gain bringing it to the target */
+        double peak = 0;
+        double sum = 0;
+        long samples = 0;
+        for (int i = firstLoud; i <= lastLoud; i++) {
+            peak = Math.max(peak, peaks[i]);
+            sum += squares[i];
+            samples += sampleCounts[i];
+        }
+        final double loudnessDb = 10 * Math.log10(sum / samples / (FULL_SCALE * FULL_SCALE));
+        final double peakDb = 20 * Math.log10(peak / FULL_SCALE);
+        final int steps = (int) Math.min(
+                Math.round((targetLoudnessDb - loudnessDb) / GAIN_STEP_DB),
+                Math.floor((peakCeilingDb - peakDb) / GAIN_STEP_DB));
+
+        /* the frames the speech overlaps with, and the ones they read data from */
+        final int guard = Math.max(firstLoud - 1, 0);
+        final int last = Math.min(lastLoud + 1, count - 1);
+        final long[] mainDataStarts = mainDataStarts(frames, last);
+        final long reservoirStart = reservoirStart(clip, frames, mainDataStarts, guard, last);
+        int first = guard;
+        while (first > 0 && mainDataStarts[first] > reservoirStart) {
+            first--;
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(clip.length);
+        for (int i = first; i <= last; i++) {
+            final Frame frame = frames.get(i);
+            final byte[] data = new byte[frame.length];
+            System.arraycopy(clip, frame.offset, data, 0, frame.length);
+            final Frame copy = new Frame(0, frame.length, frame.mpeg1, frame.channels,
+                    frame.crc, frame.sampleRate);
+            if (i < guard) {
+                empty(data, copy, (int) Math.max(0, mainDataStarts[i] - reservoirStart));
+            } else {
+                applyGain(data, copy, steps);
+            }
+            if (copy.crc) {
+                updateCrc(data, copy);
+            }
+            out.write(data);
+        }
+
+        final Frame format = frames.get(0);
+        return new Result(out.toByteArray(), millis(first, format),
+                millis(count - 1 - last, format), steps * GAIN_STEP_DB);
+    }
+
+    /*
+     * parse the layer III frames of the clip, skipping the ID3 tags and the
+     * Xing/Info frame.
+     */
+    private static List<Frame> parse(byte[] clip) throws IOException {
+        int offset = 0;
+        if (clip.length >= ID3V2_HEADER_SIZE && clip[0] == 'I' && clip[1] == 'D'
+                && clip[2] == '3') {
+            final int size = ((clip[6] & 0x7f) << 21) | ((clip[7] & 0x7f) << 14)
+                    | ((clip[8] & 0x7f) << 7) | (clip[9] & 0x7f);
+            final boolean footer = (clip[5] & 0x10) != 0;
+            offset = ID3V2_HEADER_SIZE + size + (footer ? ID3V2_HEADER_SIZE : 0);
+        }
+        int end = clip.length;
+        if (end - offset >= ID3V1_SIZE && clip[end - ID3V1_SIZE] == 'T'
+                && clip[end - ID3V1_SIZE + 1] == 'A' && clip[end - ID3V1_SIZE + 2] == 'G') {
+            end -= ID3V1_SIZE;
+        }
+
+        final List<Frame> frames = new ArrayList<>();
+        while (offset + HEADER_SIZE <= end) {
+            final Frame frame = parseHeader(clip, offset);
+            if (frame == null || offset + frame.length > end) {
+                throw new IOException("Not a layer III frame at offset " + offset);
+            }
+            if (!frames.isEmpty() && (frame.mpeg1 != frames.get(0).mpeg1
+                    || frame.sampleRate != frames.get(0).sampleRate)) {
+                throw new IOException("Format change at offset " + offset);
+            }
+            if (!(frames.isEmpty() && isInfoFrame(clip, frame))) {
+                frames.add(frame);
+            }
+            offset += frame.length;
+        }
+        if (frames.isEmpty()) {
+            throw new IOException("No audio frame");
+        }
+
+        return frames;
+    }
+
+    private static Frame parseHeader(byte[] clip, int offset) {
+        final int b1 = clip[offset + 1] & 0xff;
+        final int b2 = clip[offset + 2] & 0xff;
+        final int b3 = clip[offset + 3] & 0xff;
+        if ((clip[offset] & 0xff) != 0xff || (b1 & 0xe0) != 0xe0) {
+            return null;
+        }
+
+        final int version = (b1 >> 3) & 3;
+        final int layer = (b1 >> 1) & 3;
+        final int bitrateIndex = b2 >> 4;
+        final int sampleRateIndex = (b2 >> 2) & 3;
+        /* only layer III, and no free format */
+        if (version == 1 || layer != 1 || bitrateIndex == 0 || bitrateIndex == 15
+                || sampleRateIndex == 3) {
+            return null;
+        }
+
+        final boolean mpeg1 = version == 3;
+        int sampleRate = MPEG1_SAMPLE_RATES[sampleRateIndex];
+        if (!mpeg1) {
+            /* MPEG 2 halves the sample rates, MPEG 2.5 quarters them */
+            sampleRate /= version == 2 ? 2 : 4;
+        }
+        final int bitrate = (mpeg1 ? MPEG1_BITRATES : MPEG2_BITRATES)[bitrateIndex] * 1000;
+        final int padding = (b2 >> 1) & 1;
+        final int length = (mpeg1 ? 144 : 72) * bitrate / sampleRate + padding;
+        final int channels = (b3 >> 6) == 3 ? 1 : 2;
+        final boolean crc = (b1 & 1) == 0;
+
+        return new Frame(offset, length, mpeg1, channels, crc, sampleRate);
+    }
+
+    private static boolean isInfoFrame(byte[] clip, Frame frame) {
+        final int tag = frame.sideInfoOffset() + frame.sideInfoSize();
+        if (tag + 4 > frame.offset + frame.length) {
+            return false;
+        }
+
+        final String name = new String(clip, tag, 4, StandardCharsets.US_ASCII);
+        return name.equals("Xing") || name.equals("Info");
+    }
+
+    /* decode the frames, measuring the peak and the energy of each of them */
+    private static void decode(byte[] clip, List<Frame> frames, double[] peaks,
+                               double[] squares, long[] sampleCounts) throws IOException {
+        final ByteArrayOutputStream audio = new ByteArrayOutputStream(clip.length);
+        for (Frame frame : frames) {
+            audio.write(clip, frame.offset, frame.length);
+        }
+
+        final Bitstream bitstream = new Bitstream(new ByteArrayInputStream(audio.toByteArray()));
+        final Decoder decoder = new Decoder();
+        try {
+            for (int i = 0; i < frames.size(); i++) {
+                final Header header = bitstream.readFrame();
+                if (header == null) {
+                    throw new IOException("Decoded " + i + " frames out of " + frames.size());
+                }
+
+                final SampleBuffer buffer = (SampleBuffer) decoder.decodeFrame(header, bitstream);
+                final short[] samples = buffer.getBuffer();
+                final int length = buffer.getBufferLength();
+                for (int j = 0; j < length; j++) {
+                    peaks[i] = Math.max(peaks[i], Math.abs((double) samples[j]));
+                    squares[i] += (double) samples[j] * samples[j];
+                }
+                sampleCounts[i] = length;
+                bitstream.closeFrame();
+            }
+        } catch (JavaLayerException e) {
+            throw new IOException("Can't decode the clip", e);
+        } finally {
+            try {
+                bitstream.close();
+            } catch (JavaLayerException e) {
+                /* in-memory stream */
+            }
+        }
+    }
+
+    /* where the main data of each frame starts in the main data of the clip */
+    private static long[] mainDataStarts(List<Frame> frames, int last) {
+        final long[] mainDataStarts = new long[last + 1];
+        long mainDataSize = 0;
+        for (int i = 0; i <= last; i++) {
+            mainDataStarts[i] = mainDataSize;
+            mainDataSize += frames.get(i).mainDataSize();
+        }
+        return mainDataStarts;
+    }
+
+    /*
+     * find where the data read by the frames from the guard one on starts in
+     * the main data of the clip, i.e. how far back they reach in the bit
+     * reservoir.
+     */
+    private static long reservoirStart(byte[] clip, List<Frame> frames, long[] mainDataStarts,
+                                       int guard, int last) {
+        long start = Long.MAX_VALUE;
+        for (int i = guard; i <= last; i++) {
+            start = Math.min(start, mainDataStarts[i] - mainDataBegin(clip, frames.get(i)));
+        }
+        return start;
+    }
+
+    private static int mainDataBegin(byte[] data, Frame frame) {
+        return readBits(data, frame.sideInfoOffset() * 8, frame.mpeg1 ? 9 : 8);
+    }
+
+    /*
+     * make the frame decode to silence: it reads no data, neither from the
+     * reservoir nor from its own main data, which stays there for the next
+     * frames. Its main data begins where the data of the speech does, as a
+     * decoder drops the reservoir bytes before the main data of every frame.
+     */
+    private static void empty(byte[] data, Frame frame, int mainDataBegin) {
+        final int sideInfo = frame.sideInfoOffset() * 8;
+        writeBits(data, sideInfo, frame.mpeg1 ? 9 : 8, mainDataBegin);
+        if (frame.mpeg1) {
+            /* scfsi */
+            writeBits(data, sideInfo + frame.granuleBitOffset() - 4 * frame.channels,
+                    4 * frame.channels, 0);
+        }
+
+        for (int i = 0; i < frame.granules() * frame.channels; i++) {
+            final int granule = sideInfo + frame.granuleBitOffset() + i * frame.granuleBits();
+            /* part2_3_length and big_values */
+            writeBits(data, granule, 21, 0);
+            /* scalefac_compress */
+            writeBits(data, granule + 29, frame.mpeg1 ? 4 : 9, 0);
+        }
+    }
+
+    private static void applyGain(byte[] data, Frame frame, int steps) {
+        final int sideInfo = frame.sideInfoOffset() * 8;
+        for (int i = 0; i < frame.granules() * frame.channels; i++) {
+            final int globalGain = sideInfo + frame.granuleBitOffset()
+                    + i * frame.granuleBits() + 21;
+            final int gain = readBits(data, globalGain, 8) + steps;
+            writeBits(data, globalGain, 8, Math.max(0, Math.min(MAX_GLOBAL_GAIN, gain)));
+        }
+    }
+
+    /* CRC-16 (0x8005) of the last two header bytes and the side info */
+    private static void updateCrc(byte[] data, Frame frame) {
+        int crc = 0xffff;
+        crc = crc16(crc, data[frame.offset + 2]);
+        crc = crc16(crc, data[frame.offset + 3]);
+        for (int i = 0; i < frame.sideInfoSize(); i++) {
+            crc = crc16(crc, data[frame.sideInfoOffset() + i]);
+        }
+
+        data[frame.offset + HEADER_SIZE] = (byte) (crc >> 8);
+        data[frame.offset + HEADER_SIZE + 1] = (byte) crc;
+    }
+
+    private static int crc16(int crc, byte value) {
+        for (int bit = 7; bit >= 0; bit--) {
+            final boolean carry = ((crc >> 15) & 1) != ((value >> bit) & 1);
+            crc = (crc << 1) & 0xffff;
+            if (carry) {
+                crc ^= 0x8005;
+            }
+        }
+        return crc;
+    }
+
+    private static int readBits(byte[] data, int bitOffset, int bitCount) {
+        int value = 0;
+        for (int i = 0; i < bitCount; i++) {
+            final int bit = bitOffset + i;
+            value = (value << 1) | ((data[bit >> 3] >> (7 - (bit & 7))) & 1);
+        }
+        return value;
+    }
+
+    private static void writeBits(byte[] data, int bitOffset, int bitCount, int value) {
+        for (int i = 0; i < bitCount; i++) {
+            final int bit = bitOffset + i;
+            final int mask = 1 << (7 - (bit & 7));
+            if (((value >> (bitCount - 1 - i)) & 1) != 0) {
+                data[bit >> 3] |= mask;
+            } else {
+                data[bit >> 3] &= ~mask;
+            }
+        }
+    }
+
+    private static int millis(int frames, Frame format) {
+        return (int) ((long) frames * format.samples() * 1000 / format.sampleRate);
+    }
+}
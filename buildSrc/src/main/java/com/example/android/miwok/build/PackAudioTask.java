@@ -0,0 +1,177 @@
+package com.example.android.miwok.build;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This task concatenates the Miwok audio clips into the single audio bundle
+ * asset read by the app's MiwokAudioBundle. The asset is stored uncompressed
+ * in the APK, so the app opens it once and hands each clip to the media
+ * framework as a range of that one file.
+ *
+ * <p>A clip is named after its file, without the extension. The clips are
+ * sorted by name, and the sound id of a clip is its position in that order
+ * plus one, so that 0 never is a valid sound id.
+ *
+ * <p>The asset is big-endian and laid out as follows:
+ * <pre>
+ *   header  magic "MWKA", version, clip count, name data size (4 ints)
+ *   clips   clip count records of 4 ints: name offset, name length (into the
+ *           name data), clip data offset (from the start of the asset), clip
+ *           data length
+ *   names   UTF-8 name data
+ *   data    clip data, each clip starting on a 4 byte boundary
+ * </pre>
+ */
+public class PackAudioTask extends DefaultTask {
+    static final int MAGIC = 0x4d574b41;
+    static final int VERSION = 1;
+    private static final int HEADER_INTS = 4;
+    private static final int CLIP_RECORD_INTS = 4;
+    private static final int CLIP_ALIGNMENT = 4;
+
+    private File sourceDir;
+    private File outputFile;
+
+    @InputDirectory
+    public File getSourceDir() {
+        return sourceDir;
+    }
+
+    public void setSourceDir(File sourceDir) {
+        this.sourceDir = sourceDir;
+    }
+
+    @OutputFile
+    public File getOutputFile() {
+        return outputFile;
+    }
+
+    public void setOutputFile(File outputFile) {
+        this.outputFile = outputFile;
+    }
+
+    @TaskAction
+    public void pack() throws IOException {
+        final List<File> clips = listClips(sourceDir);
+        final String[] names = new String[clips.size()];
+        final List<byte[]> encodedNames = new ArrayList<>(clips.size());
+        int nameDataSize = 0;
+        for (int i = 0; i < clips.size(); i++) {
+            names[i] = clipName(clips.get(i));
+            final byte[] encoded = names[i].getBytes(StandardCharsets.UTF_8);
+            encodedNames.add(encoded);
+            nameDataSize += encoded.length;
+        }
+
+        /* lay the clip data out after the index */
+        final long[] offsets = new long[clips.size()];
+        final long[] lengths = new long[clips.size()];
+        long offset = align((HEADER_INTS + (long) CLIP_RECORD_INTS * clips.size()) * 4
+                + nameDataSize);
+        for (int i = 0; i < clips.size(); i++) {
+            offsets[i] = offset;
+            lengths[i] = clips.get(i).length();
+            offset = align(offset + lengths[i]);
+        }
+        if (offset > Integer.MAX_VALUE) {
+            throw new GradleException("Audio clips too large for a single bundle: "
+                    + offset + " bytes");
+        }
+
+        outputFile.getParentFile().mkdirs();
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(outputFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(clips.size());
+            out.writeInt(nameDataSize);
+
+            int nameOffset = 0;
+            for (int i = 0; i < clips.size(); i++) {
+                out.writeInt(nameOffset);
+                out.writeInt(encodedNames.get(i).length);
+                out.writeInt((int) offsets[i]);
+                out.writeInt((int) lengths[i]);
+                nameOffset += encodedNames.get(i).length;
+            }
+            for (byte[] encoded : encodedNames) {
+                out.write(encoded);
+            }
+
+            for (int i = 0; i < clips.size(); i++) {
+                pad(out, offsets[i]);
+                Files.copy(clips.get(i).toPath(), out);
+            }
+        }
+
+        getLogger().info("Packed {} audio clips ({} bytes) into {}",
+                clips.size(), offset, outputFile);
+        getLogger().debug("Audio clips: {}", Arrays.toString(names));
+    }
+
+    /**
+     * This method lists the audio clips of a directory in sound id order: the
+     * sound id of a clip is its position in the list plus one.
+     * @param sourceDir directory of the clips.
+     * @return List the clips, sorted by name.
+     */
+    static List<File> listClips(File sourceDir) {
+        final File[] files = sourceDir.listFiles();
+        if (files == null) {
+            throw new GradleException("Can't list the audio clips in " + sourceDir);
+        }
+
+        final List<File> clips = new ArrayList<>();
+        for (File file : files) {
+            if (file.isFile() && !file.isHidden()) {
+                clips.add(file);
+            }
+        }
+        clips.sort(new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return clipName(a).compareTo(clipName(b));
+            }
+        });
+
+        for (int i = 1; i < clips.size(); i++) {
+            if (clipName(clips.get(i)).equals(clipName(clips.get(i - 1)))) {
+                throw new GradleException("Duplicate audio clip " + clipName(clips.get(i))
+                        + " in " + sourceDir);
+            }
+        }
+        return clips;
+    }
+
+    private static String clipName(File file) {
+        final String name = file.getName();
+        final int extension = name.lastIndexOf('.');
+        return extension > 0 ? name.substring(0, extension) : name;
+    }
+
+    private static long align(long offset) {
+        return (offset + CLIP_ALIGNMENT - 1) / CLIP_ALIGNMENT * CLIP_ALIGNMENT;
+    }
+
+    private static void pad(DataOutputStream out, long offset) throws IOException {
+        while (out.size() < offset) {
+            out.write(0);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.android.miwok.build;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This task packs the tab separated vocabulary source into the binary
+ * vocabulary asset read by the app's MiwokVocabularyRepository.
+ *
+ * <p>The asset is big-endian and laid out as follows:
+ * <pre>
+ *   header      magic "MWKV", version, category count, word count,
+ *               string count, string data size (6 ints)
+ *   categories  category count records of 5 ints: key, title resource name,
+ *               color resource name (string indexes), first word, word count
+ *   words       word count records of 5 ints: stable id, image resource name
+ *               (string index, or -1), default translation, Miwok translation,
+ *               sound resource name (string indexes)
+ *   strings     string count + 1 byte offsets into the string data, followed
+ *               by the UTF-8 string data
+ * </pre>
+ */
+public class PackVocabularyTask extends DefaultTask {
+    static final int MAGIC = 0x4d574b56;
+    static final int VERSION = 1;
+    private static final String NO_IMAGE = "-";
+    private static final int NO_STRING = -1;
+
+    private File source;
+    private File outputFile;
+
+    @InputFile
+    public File getSource() {
+        return source;
+    }
+
+    public void setSource(File source) {
+        this.source = source;
+    }
+
+    @OutputFile
+    public File getOutputFile() {
+        return outputFile;
+    }
+
+    public void setOutputFile(File outputFile) {
+        this.outputFile = outputFile;
+    }
+
+    @TaskAction
+    public void pack() throws IOException {
+        final Map<String, Integer> strings = new LinkedHashMap<>();
+        final List<int[]> categories = new ArrayList<>();
+        final List<int[]> words = new ArrayList<>();
+        final Set<Integer> wordIds = new HashSet<>();
+
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(source.toPath(), StandardCharsets.UTF_8)) {
+            lineNumber++;
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            final String[] columns = line.split("\t", -1);
+            if (columns[0].equals("category") && columns.length == 4) {
+                categories.add(new int[]{
+                        intern(strings, columns[1]),
+                        intern(strings, columns[2]),
+                        intern(strings, columns[3]),
+                        words.size(),
+                        0});
+            } else if (columns[0].equals("word") && columns.length == 6) {
+                if (categories.isEmpty()) {
+                    throw error(lineNumber, "word declared before any category");
+                }
+
+                final int wordId;
+                try {
+                    wordId = Integer.parseInt(columns[1]);
+                } catch (NumberFormatException e) {
+                    throw error(lineNumber, "invalid word id " + columns[1]);
+                }
+                if (!wordIds.add(wordId)) {
+                    throw error(lineNumber, "duplicate word id " + wordId);
+                }
+
+                words.add(new int[]{
+                        wordId,
+                        columns[2].equals(NO_IMAGE) ? NO_STRING : intern(strings, columns[2]),
+                        intern(strings, columns[3]),
+                        intern(strings, columns[4]),
+                        intern(strings, columns[5])});
+                categories.get(categories.size() - 1)[4]++;
+            } else {
+                throw error(lineNumber, "malformed line");
+            }
+        }
+
+        final List<byte[]> encodedStrings = new ArrayList<>(strings.size());
+        int stringDataSize = 0;
+        for (String string : strings.keySet()) {
+            final byte[] encoded = string.getBytes(StandardCharsets.UTF_8);
+            encodedStrings.add(encoded);
+            stringDataSize += encoded.length;
+        }
+
+        outputFile.getParentFile().mkdirs();
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(outputFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(categories.size());
+            out.writeInt(words.size());
+            out.writeInt(encodedStrings.size());
+            out.writeInt(stringDataSize);
+
+            for (int[] category : categories) {
+                writeRecord(out, category);
+            }
+            for (int[] word : words) {
+                writeRecord(out, word);
+            }
+
+            int offset = 0;
+            for (byte[] encoded : encodedStrings) {
+                out.writeInt(offset);
+                offset += encoded.length;
+            }
+            out.writeInt(offset);
+            for (byte[] encoded : encodedStrings) {
+                out.write(encoded);
+            }
+        }
+
+        getLogger().info("Packed {} words in {} categories into {}",
+                words.size(), categories.size(), outputFile);
+    }
+
+    private static int intern(Map<String, Integer> strings, String string) {
+        Integer index = strings.get(string);
+        if (index == null) {
+            index = strings.size();
+            strings.put(string, index);
+        }
+
+        return index;
+    }
+
+    private static void writeRecord(DataOutputStream out, int[] record) throws IOException {
+        for (int value : record) {
+            out.writeInt(value);
+        }
+    }
+
+    private GradleException error(int lineNumber, String message) {
+        return new GradleException(source.getName() + ":" + lineNumber + ": " + message);
+    }
+}
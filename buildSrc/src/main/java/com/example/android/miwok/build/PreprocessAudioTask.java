@@ -0,0 +1,203 @@
+package com.example.android.miwok.build;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileType;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.work.ChangeType;
+import org.gradle.work.FileChange;
+import org.gradle.work.Incremental;
+import org.gradle.work.InputChanges;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This task trims the silence around the Miwok audio clips and evens out their
+ * loudness before they are packed (see {@link Mp3Preprocessor}), and writes a
+ * tab separated report of the bytes saved and the silence removed per clip.
+ *
+ * <p>The task is incremental: only the clips added or changed since its last
+ * run are processed, and the report is updated with them. A clip that can't
+ * be processed is copied as is, with a warning.
+ */
+public class PreprocessAudioTask extends DefaultTask {
+    private static final String REPORT_HEADER = "# clip\toriginal bytes\tprocessed bytes"
+            + "\tbytes saved\tleading silence ms\ttrailing silence ms\tgain dB";
+    private static final int REPORT_COLUMNS = 7;
+
+    private final DirectoryProperty sourceDir = getProject().getObjects().directoryProperty();
+    private File outputDir;
+    private File reportFile;
+    private double silenceThresholdDb = -50;
+    private double targetLoudnessDb = -20;
+    private double peakCeilingDb = -1;
+
+    @Incremental
+    @PathSensitive(PathSensitivity.NAME_ONLY)
+    @InputDirectory
+    public DirectoryProperty getSourceDir() {
+        return sourceDir;
+    }
+
+    @OutputDirectory
+    public File getOutputDir() {
+        return outputDir;
+    }
+
+    public void setOutputDir(File outputDir) {
+        this.outputDir = outputDir;
+    }
+
+    @OutputFile
+    public File getReportFile() {
+        return reportFile;
+    }
+
+    public void setReportFile(File reportFile) {
+        this.reportFile = reportFile;
+    }
+
+    /* peak level, in dBFS, under which a frame is silent */
+    @Input
+    public double getSilenceThresholdDb() {
+        return silenceThresholdDb;
+    }
+
+    public void setSilenceThresholdDb(double silenceThresholdDb) {
+        this.silenceThresholdDb = silenceThresholdDb;
+    }
+
+    /* RMS level, in dBFS, the speech is brought to */
+    @Input
+    public double getTargetLoudnessDb() {
+        return targetLoudnessDb;
+    }
+
+    public void setTargetLoudnessDb(double targetLoudnessDb) {
+        this.targetLoudnessDb = targetLoudnessDb;
+    }
+
+    /* peak level, in dBFS, the gain never pushes a clip over */
+    @Input
+    public double getPeakCeilingDb() {
+        return peakCeilingDb;
+    }
+
+    public void setPeakCeilingDb(double peakCeilingDb) {
+        this.peakCeilingDb = peakCeilingDb;
+    }
+
+    @TaskAction
+    public void preprocess(InputChanges inputChanges) throws IOException {
+        final Map<String, String> report = new TreeMap<>();
+        if (inputChanges.isIncremental()) {
+            readReport(report);
+        } else {
+            clean();
+        }
+
+        final Mp3Preprocessor preprocessor =
+                new Mp3Preprocessor(silenceThresholdDb, targetLoudnessDb, peakCeilingDb);
+        int processed = 0;
+        for (FileChange change : inputChanges.getFileChanges(sourceDir)) {
+            final File source = change.getFile();
+            if (change.getFileType() == FileType.DIRECTORY || source.isHidden()) {
+                continue;
+            }
+
+            final File output = new File(outputDir, source.getName());
+            if (change.getChangeType() == ChangeType.REMOVED) {
+                Files.deleteIfExists(output.toPath());
+                report.remove(source.getName());
+                continue;
+            }
+
+            report.put(source.getName(), preprocess(preprocessor, source, output));
+            processed++;
+        }
+
+        writeReport(report);
+        getLogger().info("Preprocessed {} audio clips, report in {}", processed, reportFile);
+    }
+
+    private String preprocess(Mp3Preprocessor preprocessor, File source, File output)
+            throws IOException {
+        final byte[] clip = Files.readAllBytes(source.toPath());
+        Mp3Preprocessor.Result result;
+        try {
+            result = preprocessor.process(clip);
+        } catch (IOException e) {
+            getLogger().warn("Can't preprocess audio clip {}, copying it: {}", source,
+                    e.getMessage());
+            result = new Mp3Preprocessor.Result(clip, 0, 0, 0);
+        }
+        Files.write(output.toPath(), result.data);
+
+        return String.format(Locale.ROOT, "%s\t%d\t%d\t%d\t%d\t%d\t%.1f", source.getName(),
+                clip.length, result.data.length, clip.length - result.data.length,
+                result.leadingMillis, result.trailingMillis, result.gainDb);
+    }
+
+    private void clean() throws IOException {
+        final File[] files = outputDir.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    /* the rows of the last report, by clip, to be updated with the changed clips */
+    private void readReport(Map<String, String> report) throws IOException {
+        if (!reportFile.isFile()) {
+            throw new GradleException("Missing audio preprocessing report " + reportFile);
+        }
+
+        for (String line : Files.readAllLines(reportFile.toPath(), StandardCharsets.UTF_8)) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            final String[] columns = line.split("\t");
+            if (columns.length != REPORT_COLUMNS) {
+                throw new GradleException("Corrupted audio preprocessing report " + reportFile);
+            }
+            report.put(columns[0], line);
+        }
+    }
+
+    private void writeReport(Map<String, String> report) throws IOException {
+        long saved = 0;
+        long silence = 0;
+        for (String row : report.values()) {
+            final String[] columns = row.split("\t");
+            saved += Long.parseLong(columns[3]);
+            silence += Long.parseLong(columns[4]) + Long.parseLong(columns[5]);
+        }
+
+        final List<String> lines = new ArrayList<>(report.size() + 2);
+        lines.add(REPORT_HEADER);
+        lines.addAll(report.values());
+        lines.add(String.format(Locale.ROOT, "# %d clips, %d bytes saved, %d ms of silence"
+                + " removed", report.size(), saved, silence));
+        reportFile.getParentFile().mkdirs();
+        Files.write(reportFile.toPath(), lines, StandardCharsets.UTF_8);
+    }
+}
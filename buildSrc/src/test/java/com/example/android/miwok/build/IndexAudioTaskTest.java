@@ -0,0 +1,74 @@
+package com.example.android.miwok.build;
+
+import com.example.android.miwok.speech.MiwokSoundIndex;
+
+import org.gradle.api.Project;
+import org.gradle.testfixtures.ProjectBuilder;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests of {@link IndexAudioTask}, with the MP3 fixture of
+ * {@link Mp3PreprocessorTest}.
+ */
+public class IndexAudioTaskTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File sourceDir;
+    private File outputFile;
+    private IndexAudioTask task;
+
+    @Before
+    public void setUp() throws IOException {
+        final Project project = ProjectBuilder.builder()
+                .withProjectDir(temporaryFolder.newFolder("project"))
+                .build();
+        sourceDir = temporaryFolder.newFolder("audio");
+        outputFile = new File(temporaryFolder.getRoot(), "assets/sound_index.bin");
+
+        task = project.getTasks().create("indexAudio", IndexAudioTask.class);
+        task.setSourceDir(sourceDir);
+        task.setOutputFile(outputFile);
+    }
+
+    @Test
+    public void index_indexesTheClipsInSoundIdOrder() throws IOException {
+        final byte[] clip = Mp3PreprocessorTest.readClip(Mp3PreprocessorTest.CLIP);
+        addClip("a_burst.mp3", clip);
+        addClip("b_not_a_clip.mp3", "not a clip".getBytes(StandardCharsets.US_ASCII));
+        addClip("c_burst.mp3", new Mp3Preprocessor(-50, -20, -1).process(clip).data);
+
+        task.index();
+
+        final MiwokSoundIndex index =
+                new MiwokSoundIndex(ByteBuffer.wrap(Files.readAllBytes(outputFile.toPath())));
+        assertEquals(3, index.getSoundCount());
+        assertTrue(index.hasSignature(1));
+        /* a clip that can't be decoded is indexed without a signature */
+        assertFalse(index.hasSignature(2));
+        assertTrue(index.hasSignature(3));
+
+        /* trimming the silence doesn't change what the clip sounds like */
+        final int[] soundIds = new int[1];
+        final float[] distances = new float[1];
+        assertEquals(1, index.findNearest(1, soundIds, distances));
+        assertEquals(3, soundIds[0]);
+    }
+
+    private void addClip(String name, byte[] content) throws IOException {
+        Files.write(new File(sourceDir, name).toPath(), content);
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.android.miwok.build;
+
+import javazoom.jl.decoder.Bitstream;
+import javazoom.jl.decoder.Decoder;
+import javazoom.jl.decoder.Header;
+import javazoom.jl.decoder.JavaLayerException;
+import javazoom.jl.decoder.SampleBuffer;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests of {@link Mp3Preprocessor}, with a synthetic MP3 fixture: an
+ * MPEG-1 layer III clip, 48 kHz mono at 32 kbps, of 30 frames of 24 ms. A
+ * burst of 9 loud frames sits between 12 leading and 9 trailing silent
+ * frames, and the first loud frames read most of their data from the bit
+ * reservoir of the silent frames before them: up to 511 bytes back, while a
+ * frame holds 75 bytes of data.
+ */
+public class Mp3PreprocessorTest {
+    static final String CLIP = "burst.mp3";
+    private static final int FRAME_MILLIS = 24;
+    private static final double FULL_SCALE = 32768;
+
+    @Test
+    public void process_trimsTheSilence() throws IOException {
+        final byte[] clip = readClip(CLIP);
+
+        final Mp3Preprocessor.Result result = preprocessor(-1).process(clip);
+
+        assertTrue(result.leadingMillis > 0);
+        assertTrue(result.trailingMillis > 0);
+        assertEquals(frameCount(clip) - (result.leadingMillis + result.trailingMillis)
+                / FRAME_MILLIS, frameCount(result.data));
+        assertTrue(result.data.length < clip.length);
+    }
+
+    @Test
+    public void process_keepsTheReservoirFramesOfTheSpeech() throws IOException {
+        final byte[] clip = readClip(CLIP);
+
+        final Mp3Preprocessor.Result result = preprocessor(-1).process(clip);
+
+        /* the fixture has a frame reading data from further back than the frame before it */
+        final int[] mainDataBegins = mainDataBegins(result.data);
+        final int mainDataSize = mainDataSize(result.data);
+        boolean spansFrames = false;
+        for (int i = 0; i < mainDataBegins.length; i++) {
+            /* every kept frame finds the data it refers to in the frames kept before it */
+            assertTrue("frame " + i + " reads before the clip",
+                    mainDataBegins[i] <= i * mainDataSize);
+            spansFrames |= mainDataBegins[i] > mainDataSize;
+        }
+        assertTrue(spansFrames);
+
+        /* the speech decodes as before, only louder */
+        final List<short[]> original = decode(clip);
+        final List<short[]> processed = decode(result.data);
+        final int leadingFrames = result.leadingMillis / FRAME_MILLIS;
+        final double scale = Math.pow(10, result.gainDb / 20);
+        for (int i = 0; i < processed.size(); i++) {
+            final short[] expected = original.get(leadingFrames + i);
+            final short[] actual = processed.get(i);
+            assertEquals(expected.length, actual.length);
+            for (int j = 0; j < actual.length; j++) {
+                assertEquals("frame " + i + " sample " + j, expected[j] * scale, actual[j],
+                        Math.abs(expected[j] * scale) * 0.01 + 2);
+            }
+        }
+    }
+
+    @Test
+    public void process_keepsThePeakUnderTheCeiling() throws IOException {
+        final byte[] clip = readClip(CLIP);
+        final double originalPeakDb = peakDb(decode(clip));
+
+        for (double ceilingDb : new double[] {-1, -3, -6}) {
+            final Mp3Preprocessor.Result result = preprocessor(ceilingDb).process(clip);
+
+            final double peakDb = peakDb(decode(result.data));
+            assertTrue("peak " + peakDb + " over " + ceilingDb, peakDb <= ceilingDb);
+            assertEquals(originalPeakDb + result.gainDb, peakDb, 0.1);
+        }
+    }
+
+    @Test
+    public void process_outputDecodesWithJLayer() throws IOException {
+        final byte[] clip = readClip(CLIP);
+
+        final Mp3Preprocessor.Result result = preprocessor(-1).process(clip);
+
+        final List<short[]> frames = decode(result.data);
+        assertEquals(frameCount(result.data), frames.size());
+        assertTrue(peakDb(frames) > -50);
+        /* the processed clip is a fixed point */
+        final Mp3Preprocessor.Result again = preprocessor(-1).process(result.data);
+        assertEquals(0, again.leadingMillis);
+        assertEquals(0, again.trailingMillis);
+        assertEquals(0, again.gainDb, 0);
+    }
+
+    @Test(expected = IOException.class)
+    public void process_rejectsSilentClip() throws IOException {
+        preprocessor(-1).process(Arrays.copyOf(readClip(CLIP), 11 * 96));
+    }
+
+    @Test(expected = IOException.class)
+    public void process_rejectsOtherFiles() throws IOException {
+        preprocessor(-1).process("not an MP3 clip".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /* the preprocessing of the build, with a loudness target the fixture can't reach */
+    private static Mp3Preprocessor preprocessor(double peakCeilingDb) {
+        return new Mp3Preprocessor(-50, 0, peakCeilingDb);
+    }
+
+    static byte[] readClip(String name) throws IOException {
+        try (InputStream input = Mp3PreprocessorTest.class
+                .getResourceAsStream("/audio/" + name)) {
+            assertNotNull(name, input);
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return output.toByteArray();
+        }
+    }
+
+    /* decode a clip with JLayer, frame by frame */
+    static List<short[]> decode(byte[] clip) throws IOException {
+        final Bitstream bitstream = new Bitstream(new ByteArrayInputStream(clip));
+        final Decoder decoder = new Decoder();
+        final List<short[]> frames = new ArrayList<>();
+        try {
+            Header header;
+            while ((header = bitstream.readFrame()) != null) {
+                final SampleBuffer buffer = (SampleBuffer) decoder.decodeFrame(header, bitstream);
+                frames.add(Arrays.copyOf(buffer.getBuffer(), buffer.getBufferLength()));
+                bitstream.closeFrame();
+            }
+        } catch (JavaLayerException e) {
+            throw new IOException("Can't decode the clip", e);
+        }
+        return frames;
+    }
+
+    private static double peakDb(List<short[]> frames) {
+        int peak = 0;
+        for (short[] frame : frames) {
+            for (short sample : frame) {
+                peak = Math.max(peak, Math.abs(sample));
+            }
+        }
+        return 20 * Math.log10(peak / FULL_SCALE);
+    }
+
+    /*
+     * the fixture's frames all have the same size, no CRC and a single
+     * channel: 4 header bytes and 17 side info bytes before the main data
+     */
+    private static int frameSize(byte[] clip) {
+        assertEquals(0xff, clip[0] & 0xff);
+        assertEquals("MPEG-1 layer III without CRC", 0xfb, clip[1] & 0xff);
+        assertEquals("mono", 3, (clip[3] & 0xff) >> 6);
+        final int bitrate = new int[] {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224,
+                256, 320}[(clip[2] & 0xff) >> 4];
+        return 144 * bitrate / 48;
+    }
+
+    private static int frameCount(byte[] clip) {
+        assertEquals(0, clip.length % frameSize(clip));
+        return clip.length / frameSize(clip);
+    }
+
+    private static int mainDataSize(byte[] clip) {
+        return frameSize(clip) - 4 - 17;
+    }
+
+    private static int[] mainDataBegins(byte[] clip) {
+        final int frameSize = frameSize(clip);
+        final int[] mainDataBegins = new int[frameCount(clip)];
+        for (int i = 0; i < mainDataBegins.length; i++) {
+            /* the first 9 bits of the side info */
+            final int offset = i * frameSize + 4;
+            mainDataBegins[i] = ((clip[offset] & 0xff) << 1) | ((clip[offset + 1] & 0xff) >> 7);
+        }
+        return mainDataBegins;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.android.miwok.build;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.Project;
+import org.gradle.testfixtures.ProjectBuilder;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests of {@link PackAudioTask}.
+ */
+public class PackAudioTaskTest {
+    private static final int HEADER_SIZE = 16;
+    private static final int CLIP_RECORD_SIZE = 16;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File sourceDir;
+    private File outputFile;
+    private PackAudioTask task;
+
+    @Before
+    public void setUp() throws IOException {
+        final Project project = ProjectBuilder.builder()
+                .withProjectDir(temporaryFolder.newFolder("project"))
+                .build();
+        sourceDir = temporaryFolder.newFolder("audio");
+        outputFile = new File(temporaryFolder.getRoot(), "assets/audio.bin");
+
+        task = project.getTasks().create("packAudio", PackAudioTask.class);
+        task.setSourceDir(sourceDir);
+        task.setOutputFile(outputFile);
+    }
+
+    @Test
+    public void pack_concatenatesTheClipsInSoundIdOrder() throws IOException {
+        final byte[] clip = Mp3PreprocessorTest.readClip(Mp3PreprocessorTest.CLIP);
+        addClip("number_two.mp3", new byte[] {2, 2, 2});
+        addClip("number_one.mp3", clip);
+        addClip("color_red.mp3", new byte[] {1});
+
+        task.pack();
+
+        final ByteBuffer bundle = ByteBuffer.wrap(Files.readAllBytes(outputFile.toPath()));
+        assertEquals(PackAudioTask.MAGIC, bundle.getInt());
+        assertEquals(PackAudioTask.VERSION, bundle.getInt());
+        assertEquals(3, bundle.getInt());
+        final int nameDataSize = bundle.getInt();
+
+        final String[] names = {"color_red", "number_one", "number_two"};
+        final byte[][] clips = {{1}, clip, {2, 2, 2}};
+        final int nameData = HEADER_SIZE + names.length * CLIP_RECORD_SIZE;
+        int expectedNameOffset = 0;
+        int previousEnd = nameData + nameDataSize;
+        for (int i = 0; i < names.length; i++) {
+            final int nameOffset = bundle.getInt();
+            final int nameLength = bundle.getInt();
+            final int dataOffset = bundle.getInt();
+            final int dataLength = bundle.getInt();
+
+            assertEquals(expectedNameOffset, nameOffset);
+            assertEquals(names[i], new String(bundle.array(), nameData + nameOffset, nameLength,
+                    StandardCharsets.UTF_8));
+            assertEquals(0, dataOffset % 4);
+            assertTrue(dataOffset >= previousEnd);
+            assertArrayEquals(clips[i], Arrays.copyOfRange(bundle.array(), dataOffset,
+                    dataOffset + dataLength));
+            expectedNameOffset += nameLength;
+            previousEnd = dataOffset + dataLength;
+        }
+        assertEquals(expectedNameOffset, nameDataSize);
+        assertEquals(previousEnd, bundle.limit());
+    }
+
+    @Test
+    public void pack_skipsHiddenFiles() throws IOException {
+        addClip("number_one.mp3", new byte[] {1});
+        addClip(".DS_Store", new byte[] {0});
+
+        task.pack();
+
+        final ByteBuffer bundle = ByteBuffer.wrap(Files.readAllBytes(outputFile.toPath()));
+        assertEquals(1, bundle.getInt(8));
+    }
+
+    @Test(expected = GradleException.class)
+    public void listClips_rejectsDuplicateNames() throws IOException {
+        addClip("number_one.mp3", new byte[] {1});
+        addClip("number_one.wav", new byte[] {1});
+
+        PackAudioTask.listClips(sourceDir);
+    }
+
+    private void addClip(String name, byte[] content) throws IOException {
+        Files.write(new File(sourceDir, name).toPath(), content);
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.android.miwok.build;
+
+import org.gradle.api.Project;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.FileSystemLocation;
+import org.gradle.api.file.FileType;
+import org.gradle.api.provider.Provider;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.gradle.work.ChangeType;
+import org.gradle.work.FileChange;
+import org.gradle.work.InputChanges;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests of {@link PreprocessAudioTask}, with the MP3 fixture of
+ * {@link Mp3PreprocessorTest} and the input changes faked.
+ */
+public class PreprocessAudioTaskTest {
+    private static final byte[] NOT_A_CLIP = "not a clip".getBytes(StandardCharsets.US_ASCII);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File sourceDir;
+    private File outputDir;
+    private File reportFile;
+    private PreprocessAudioTask task;
+
+    @Before
+    public void setUp() throws IOException {
+        final Project project = ProjectBuilder.builder()
+                .withProjectDir(temporaryFolder.newFolder("project"))
+                .build();
+        sourceDir = temporaryFolder.newFolder("audio");
+        outputDir = temporaryFolder.newFolder("preprocessed");
+        reportFile = new File(temporaryFolder.getRoot(), "reports/preprocessing.tsv");
+
+        task = project.getTasks().create("preprocessAudio", PreprocessAudioTask.class);
+        task.getSourceDir().set(sourceDir);
+        task.setOutputDir(outputDir);
+        task.setReportFile(reportFile);
+    }
+
+    @Test
+    public void fullRun_preprocessesEveryClip() throws IOException {
+        final byte[] clip = Mp3PreprocessorTest.readClip(Mp3PreprocessorTest.CLIP);
+        addClip("one.mp3", clip);
+        addClip("two.mp3", NOT_A_CLIP);
+
+        task.preprocess(inputChanges(false, ChangeType.ADDED, "one.mp3", "two.mp3"));
+
+        final byte[] processed = Files.readAllBytes(new File(outputDir, "one.mp3").toPath());
+        assertTrue(processed.length < clip.length);
+        /* a clip that can't be preprocessed is copied as is */
+        assertArrayEquals(NOT_A_CLIP,
+                Files.readAllBytes(new File(outputDir, "two.mp3").toPath()));
+
+        final List<String> rows = readReportRows();
+        assertEquals(2, rows.size());
+        final String[] columns = rows.get(0).split("\t");
+        assertEquals("one.mp3", columns[0]);
+        assertEquals(String.valueOf(clip.length), columns[1]);
+        assertEquals(String.valueOf(processed.length), columns[2]);
+        assertEquals(String.valueOf(clip.length - processed.length), columns[3]);
+        assertEquals("two.mp3\t10\t10\t0\t0\t0\t0.0", rows.get(1));
+    }
+
+    @Test
+    public void incrementalRun_updatesOnlyTheChangedRows() throws IOException {
+        final byte[] clip = Mp3PreprocessorTest.readClip(Mp3PreprocessorTest.CLIP);
+        addClip("one.mp3", clip);
+        addClip("two.mp3", clip);
+        addClip("three.mp3", clip);
+        task.preprocess(inputChanges(false, ChangeType.ADDED,
+                "one.mp3", "two.mp3", "three.mp3"));
+
+        /* mark the row of the unchanged clip, which must not be computed again */
+        final List<String> rows = readReportRows();
+        final String oneRow = rows.get(0).replaceFirst("\t[0-9]+\t[0-9]+\t[^\t]+$",
+                "\t12345\t0\t0.0");
+        final List<String> report = Files.readAllLines(reportFile.toPath(),
+                StandardCharsets.UTF_8);
+        report.set(report.indexOf(rows.get(0)), oneRow);
+        Files.write(reportFile.toPath(), report, StandardCharsets.UTF_8);
+
+        addClip("three.mp3", NOT_A_CLIP);
+        Files.delete(new File(sourceDir, "two.mp3").toPath());
+        final List<FileChange> changes = new ArrayList<>();
+        changes.add(fileChange("three.mp3", ChangeType.MODIFIED));
+        changes.add(fileChange("two.mp3", ChangeType.REMOVED));
+        task.preprocess(inputChanges(true, changes));
+
+        final List<String> updatedRows = readReportRows();
+        assertEquals(2, updatedRows.size());
+        assertEquals(oneRow, updatedRows.get(0));
+        assertEquals("three.mp3\t10\t10\t0\t0\t0\t0.0", updatedRows.get(1));
+        assertFalse(new File(outputDir, "two.mp3").exists());
+        assertArrayEquals(NOT_A_CLIP,
+                Files.readAllBytes(new File(outputDir, "three.mp3").toPath()));
+
+        /* the summary covers the rows kept from the last run */
+        final List<String> lines = Files.readAllLines(reportFile.toPath(),
+                StandardCharsets.UTF_8);
+        final String summary = lines.get(lines.size() - 1);
+        assertTrue(summary, summary.startsWith("# 2 clips, "));
+        assertTrue(summary, summary.endsWith(", 12345 ms of silence removed"));
+    }
+
+    @Test
+    public void fullRun_dropsTheStaleOutputs() throws IOException {
+        addClip("one.mp3", NOT_A_CLIP);
+        Files.write(new File(outputDir, "stale.mp3").toPath(), NOT_A_CLIP);
+
+        task.preprocess(inputChanges(false, ChangeType.ADDED, "one.mp3"));
+
+        assertFalse(new File(outputDir, "stale.mp3").exists());
+        assertEquals(1, readReportRows().size());
+    }
+
+    private void addClip(String name, byte[] content) throws IOException {
+        Files.write(new File(sourceDir, name).toPath(), content);
+    }
+
+    private List<String> readReportRows() throws IOException {
+        final List<String> rows = new ArrayList<>();
+        for (String line : Files.readAllLines(reportFile.toPath(), StandardCharsets.UTF_8)) {
+            if (!line.startsWith("#")) {
+                rows.add(line);
+            }
+        }
+        return rows;
+    }
+
+    private InputChanges inputChanges(boolean incremental, ChangeType changeType,
+                                      String... names) {
+        final List<FileChange> changes = new ArrayList<>();
+        for (String name : names) {
+            changes.add(fileChange(name, changeType));
+        }
+        return inputChanges(incremental, changes);
+    }
+
+    private static InputChanges inputChanges(final boolean incremental,
+                                             final List<FileChange> changes) {
+        return new InputChanges() {
+            @Override
+            public boolean isIncremental() {
+                return incremental;
+            }
+
+            @Override
+            public Iterable<FileChange> getFileChanges(FileCollection parameter) {
+                return changes;
+            }
+
+            @Override
+            public Iterable<FileChange> getFileChanges(
+                    Provider<? extends FileSystemLocation> parameter) {
+                return changes;
+            }
+        };
+    }
+
+    private FileChange fileChange(final String name, final ChangeType changeType) {
+        final File file = new File(sourceDir, name);
+        return new FileChange() {
+            @Override
+            public File getFile() {
+                return file;
+            }
+
+            @Override
+            public ChangeType getChangeType() {
+                return changeType;
+            }
+
+            @Override
+            public FileType getFileType() {
+                return changeType == ChangeType.REMOVED ? FileType.MISSING : FileType.FILE;
+            }
+
+            @Override
+            public String getNormalizedPath() {
+                return name;
+            }
+        };
+    }
+}